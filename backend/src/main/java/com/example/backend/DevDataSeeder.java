@@ -3,9 +3,9 @@ package com.example.backend;
 import com.example.backend.model.Category;
 import com.example.backend.model.ExpenseRecord;
 import com.example.backend.model.User;
-import com.example.backend.repository.CategoryRepository;
 import com.example.backend.repository.ExpenseRecordRepository;
 import com.example.backend.repository.UserRepository;
+import com.example.backend.service.CategoryCache;
 import org.springframework.boot.CommandLineRunner;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
@@ -19,30 +19,30 @@ public class DevDataSeeder {
 
     @Bean
     CommandLineRunner initData(
-            CategoryRepository categoryRepository,
+            CategoryCache categoryCache,
             UserRepository userRepository,
             ExpenseRecordRepository expenseRecordRepository,
             PasswordEncoder passwordEncoder) {
         return args -> {
             // --- Initialization Category ---
-            if (categoryRepository.count() == 0) {
+            if (categoryCache.count() == 0) {
                 Category food = new Category(null, "Food", "All food and dining expenses", null, null);
                 Category transport = new Category(null, "Transport", "Bus, train, taxi etc.", null, null);
                 Category entertainment = new Category(null, "Entertainment", "Movies, games, events", null, null);
                 Category shopping = new Category(null, "Shopping", "Clothes, electronics, goods", null, null);
                 Category utilities = new Category(null, "Utilities", "Electricity, water, internet", null, null);
 
-                categoryRepository.save(food);
-                categoryRepository.save(transport);
-                categoryRepository.save(entertainment);
-                categoryRepository.save(shopping);
-                categoryRepository.save(utilities);
+                categoryCache.save(food);
+                categoryCache.save(transport);
+                categoryCache.save(entertainment);
+                categoryCache.save(shopping);
+                categoryCache.save(utilities);
 
                 System.out.println("Categories initialized");
             }
 
             // --- Initialize bob User ---
-            User bob = userRepository.findByUsernameOrEmail("bob", "bob@example.com");
+            User bob = userRepository.findByIdentifier("bob");
             if (bob == null) {
                 bob = new User();
                 bob.setUsername("bob");
@@ -54,8 +54,8 @@ public class DevDataSeeder {
 
             // --- Initialize ExpenseRecord for bob ---
             if (expenseRecordRepository.count() == 0) {
-                Category food = categoryRepository.findBycategoryName("Food");
-                Category transport = categoryRepository.findBycategoryName("Transport");
+                Category food = categoryCache.findByName("Food").orElseThrow();
+                Category transport = categoryCache.findByName("Transport").orElseThrow();
 
                 ExpenseRecord record1 = new ExpenseRecord();
                 record1.setUser(bob);
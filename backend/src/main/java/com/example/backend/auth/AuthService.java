@@ -2,7 +2,6 @@ package com.example.backend.auth;
 
 import com.example.backend.model.User;
 import com.example.backend.repository.UserRepository;
-import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
 import com.example.backend.service.AchievementService;
 
@@ -12,13 +11,16 @@ import java.time.LocalDateTime;
 public class AuthService {
 
     private final UserRepository userRepository;
-    private final PasswordEncoder passwordEncoder;
+    private final PasswordHasher passwordHasher;
     private final AchievementService achievementService;
+    private final LastLoginRecorder lastLogins;
 
-    public AuthService(UserRepository userRepository, PasswordEncoder passwordEncoder, AchievementService achievementService) {
+    public AuthService(UserRepository userRepository, PasswordHasher passwordHasher, AchievementService achievementService,
+                       LastLoginRecorder lastLogins) {
         this.userRepository = userRepository;
-        this.passwordEncoder = passwordEncoder;
+        this.passwordHasher = passwordHasher;
         this.achievementService = achievementService;
+        this.lastLogins = lastLogins;
     }
 
     /**
@@ -32,19 +34,27 @@ public class AuthService {
             return AuthResult.failure("Missing username or password");
         }
 
-        User user = userRepository.findByUsernameOrEmail(identifier, identifier);
+        User user = userRepository.findByIdentifier(identifier);
         if (user == null) {
             return AuthResult.failure("Invalid username/email");
         }
 
-        boolean ok = passwordEncoder.matches(rawPassword, user.getPassword_hash());
+        boolean ok = passwordHasher.matches(rawPassword, user.getPassword_hash());
         if (!ok) {
             return AuthResult.failure("Invalid password");
         }
 
-        // Update last login
+        // Hash made with an older cost setting: replace it in the background while we still have the raw password
+        String oldHash = user.getPassword_hash();
+        if (passwordHasher.upgradeEncoding(oldHash)) {
+            Integer userId = user.getUser_id();
+            passwordHasher.rehashLater(rawPassword,
+                    newHash -> userRepository.replacePasswordHash(userId, oldHash, newHash));
+        }
+
+        // Update last login: buffered and flushed in batches, no row write per login
         user.setLast_login_at(LocalDateTime.now());
-        userRepository.save(user);
+        lastLogins.record(user.getUser_id(), user.getLast_login_at());
 
         return AuthResult.success(user);
     }
@@ -0,0 +1,76 @@
+package com.example.backend.auth;
+
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Coalesces {@code users.last_login_at} writes. Logins only touch an in-memory map; every few seconds
+ * the latest timestamp per user is written with one {@code UPDATE ... FROM (VALUES ...)} per chunk.
+ * The statement sets nothing else, so {@code updated_at} keeps meaning "profile changed".
+ * A crash loses at most one flush interval of login times.
+ */
+@Component
+public class LastLoginRecorder {
+
+    private static final Logger log = LoggerFactory.getLogger(LastLoginRecorder.class);
+
+    /** Rows per statement; keeps the bind-parameter count well under the driver's limit. */
+    static final int CHUNK = 500;
+
+    private final JdbcTemplate jdbc;
+    private final ConcurrentMap<Integer, LocalDateTime> pending = new ConcurrentHashMap<>();
+
+    public LastLoginRecorder(JdbcTemplate jdbc) {
+        this.jdbc = jdbc;
+    }
+
+    public void record(Integer userId, LocalDateTime at) {
+        pending.merge(userId, at, (a, b) -> a.isAfter(b) ? a : b);
+    }
+
+    @Scheduled(fixedDelayString = "${auth.lastLogin.flushMillis:5000}")
+    public void flush() {
+        List<Map.Entry<Integer, LocalDateTime>> batch = new ArrayList<>();
+        for (Integer userId : pending.keySet()) {
+            LocalDateTime at = pending.remove(userId);
+            if (at != null) batch.add(Map.entry(userId, at));
+        }
+        for (int from = 0; from < batch.size(); from += CHUNK) {
+            List<Map.Entry<Integer, LocalDateTime>> chunk = batch.subList(from, Math.min(from + CHUNK, batch.size()));
+            try {
+                write(chunk);
+            } catch (Exception e) {
+                log.warn("Flushing {} last-login times failed, will retry", chunk.size(), e);
+                chunk.forEach(en -> record(en.getKey(), en.getValue()));
+            }
+        }
+    }
+
+    private void write(List<Map.Entry<Integer, LocalDateTime>> chunk) {
+        StringBuilder sql = new StringBuilder("UPDATE users u SET last_login_at = v.ts FROM (VALUES ");
+        Object[] args = new Object[chunk.size() * 2];
+        for (int i = 0; i < chunk.size(); i++) {
+            sql.append(i == 0 ? "" : ", ").append("(?::int, ?::timestamp)");
+            args[2 * i] = chunk.get(i).getKey();
+            args[2 * i + 1] = chunk.get(i).getValue();
+        }
+        sql.append(") AS v(id, ts) WHERE u.user_id = v.id AND (u.last_login_at IS NULL OR u.last_login_at < v.ts)");
+        jdbc.update(sql.toString(), args);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        flush();
+    }
+}
@@ -0,0 +1,163 @@
+package com.example.backend.auth;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Component;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+
+/**
+ * Throttles credential checks (login, password reset) per client IP and per identifier before any
+ * BCrypt or database work, so guessing traffic is turned away for the cost of a map lookup.
+ * <p>
+ * Each key is a token bucket kept as a single {@link AtomicLong} holding its theoretical arrival time
+ * (GCRA): taking a token is one CAS, with no lock and no allocation. Keys live in {@value #STRIPES}
+ * independently bounded stripes; a stripe that outgrows its share evicts the least recently used of a
+ * small sample, preferring buckets that have refilled completely and so carry no state.
+ * <p>
+ * Metrics: {@code auth.ratelimit.rejected} (counter, {@code scope=ip|identifier}),
+ * {@code auth.ratelimit.evicted} (counter) and {@code auth.ratelimit.keys} (gauge).
+ */
+@Component
+public class LoginRateLimiter {
+
+    static final int STRIPES = 16;
+    static final int SAMPLE = 8;
+
+    /** At most {@code capacity} attempts in a burst, then one more every {@code intervalMillis}. */
+    record Limit(int capacity, long intervalMillis) {
+        long burstMillis() {
+            return (capacity - 1) * intervalMillis;
+        }
+    }
+
+    private final Limit perIp;
+    private final Limit perIdentifier;
+    private final int stripeCapacity;
+    private final LongSupplier clock;
+
+    private final List<ConcurrentHashMap<String, AtomicLong>> stripes = new ArrayList<>(STRIPES);
+
+    private final Counter rejectedIp;
+    private final Counter rejectedIdentifier;
+    private final Counter evicted;
+
+    @Autowired
+    public LoginRateLimiter(MeterRegistry registry,
+                            @Value("${auth.rateLimit.ip.capacity:30}") int ipCapacity,
+                            @Value("${auth.rateLimit.ip.intervalMillis:2000}") long ipIntervalMillis,
+                            @Value("${auth.rateLimit.identifier.capacity:10}") int identifierCapacity,
+                            @Value("${auth.rateLimit.identifier.intervalMillis:30000}") long identifierIntervalMillis,
+                            @Value("${auth.rateLimit.maxKeys:100000}") int maxKeys) {
+        this(registry, new Limit(ipCapacity, ipIntervalMillis), new Limit(identifierCapacity, identifierIntervalMillis),
+                maxKeys, System::currentTimeMillis);
+    }
+
+    LoginRateLimiter(MeterRegistry registry, Limit perIp, Limit perIdentifier, int maxKeys, LongSupplier clock) {
+        this.perIp = perIp;
+        this.perIdentifier = perIdentifier;
+        this.stripeCapacity = Math.max(1, maxKeys / STRIPES);
+        this.clock = clock;
+        for (int i = 0; i < STRIPES; i++) stripes.add(new ConcurrentHashMap<>());
+
+        this.rejectedIp = registry.counter("auth.ratelimit.rejected", "scope", "ip");
+        this.rejectedIdentifier = registry.counter("auth.ratelimit.rejected", "scope", "identifier");
+        this.evicted = registry.counter("auth.ratelimit.evicted");
+        Gauge.builder("auth.ratelimit.keys", this, LoginRateLimiter::size).register(registry);
+    }
+
+    /**
+     * Takes one attempt from the client's and the identifier's bucket; either may be {@code null}.
+     *
+     * @throws ResponseStatusException 429 when either bucket is empty
+     */
+    public void acquire(String identifier, String clientIp) {
+        long now = clock.getAsLong();
+        if (clientIp != null && !tryAcquire("ip:" + clientIp, perIp, now)) {
+            rejectedIp.increment();
+            throw tooMany();
+        }
+        if (identifier != null && !tryAcquire("id:" + normalize(identifier), perIdentifier, now)) {
+            rejectedIdentifier.increment();
+            throw tooMany();
+        }
+    }
+
+    /** Forgets failed attempts against {@code identifier} once its owner has proven who they are. */
+    public void reset(String identifier) {
+        if (identifier == null) return;
+        String key = "id:" + normalize(identifier);
+        stripe(key).remove(key);
+    }
+
+    int size() {
+        int n = 0;
+        for (var s : stripes) n += s.size();
+        return n;
+    }
+
+    private boolean tryAcquire(String key, Limit limit, long now) {
+        AtomicLong tat = bucket(key, now);
+        while (true) {
+            long current = tat.get();
+            long start = Math.max(current, now);
+            if (start - now > limit.burstMillis()) return false;
+            if (tat.compareAndSet(current, start + limit.intervalMillis())) return true;
+        }
+    }
+
+    private AtomicLong bucket(String key, long now) {
+        ConcurrentHashMap<String, AtomicLong> stripe = stripe(key);
+        AtomicLong tat = stripe.get(key);
+        if (tat != null) return tat;
+        tat = stripe.computeIfAbsent(key, k -> new AtomicLong(now));
+        if (stripe.size() > stripeCapacity) evict(stripe, key, now);
+        return tat;
+    }
+
+    private void evict(ConcurrentHashMap<String, AtomicLong> stripe, String keep, long now) {
+        String oldest = null;
+        long oldestTat = Long.MAX_VALUE;
+        Iterator<Map.Entry<String, AtomicLong>> it = stripe.entrySet().iterator();
+        for (int i = 0; i < SAMPLE && it.hasNext(); i++) {
+            var e = it.next();
+            if (e.getKey().equals(keep)) continue;
+            long t = e.getValue().get();
+            if (t <= now) {
+                // refilled: dropping it loses nothing
+                if (stripe.remove(e.getKey(), e.getValue())) evicted.increment();
+                return;
+            }
+            if (t < oldestTat) {
+                oldestTat = t;
+                oldest = e.getKey();
+            }
+        }
+        if (oldest != null && stripe.remove(oldest) != null) evicted.increment();
+    }
+
+    private ConcurrentHashMap<String, AtomicLong> stripe(String key) {
+        int h = key.hashCode();
+        return stripes.get((h ^ (h >>> 16)) & (STRIPES - 1));
+    }
+
+    private static String normalize(String identifier) {
+        return identifier.trim().toLowerCase(Locale.ROOT);
+    }
+
+    private static ResponseStatusException tooMany() {
+        return new ResponseStatusException(HttpStatus.TOO_MANY_REQUESTS, "Too many attempts, please try again later");
+    }
+}
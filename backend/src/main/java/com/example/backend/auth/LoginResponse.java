@@ -1,7 +1,12 @@
 package com.example.backend.auth;
 
+import com.fasterxml.jackson.annotation.JsonInclude;
+
+@JsonInclude(JsonInclude.Include.NON_NULL)
 public class LoginResponse {
     private String message;
+    /** Signed session token, only when {@code session.store=token}. */
+    private String token;
 
     public LoginResponse() {}
     public LoginResponse(String message) { this.message = message; }
@@ -14,5 +19,13 @@ public class LoginResponse {
         this.message = message;
     }
 
+    public String getToken() {
+        return token;
+    }
+
+    public void setToken(String token) {
+        this.token = token;
+    }
+
     // getter/setter
 }
@@ -0,0 +1,124 @@
+package com.example.backend.auth;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.stereotype.Component;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+
+/**
+ * Every password/answer hash goes through here instead of calling {@link PasswordEncoder} on the request thread.
+ * BCrypt runs on a small fixed pool with a bounded queue, so a login storm can occupy at most
+ * {@code threads + queueCapacity} Tomcat workers; anything beyond that gets 429 straight away
+ * and the rest of the API keeps its workers.
+ * <p>
+ * Metrics: {@code auth.password.hash} (timer, {@code op=matches|encode}),
+ * {@code auth.password.queue} (gauge) and {@code auth.password.rejected} (counter).
+ */
+@Component
+public class PasswordHasher {
+
+    private static final Logger log = LoggerFactory.getLogger(PasswordHasher.class);
+
+    private final PasswordEncoder encoder;
+    private final ThreadPoolExecutor executor;
+    private final long timeoutMillis;
+
+    private final Timer matchTimer;
+    private final Timer encodeTimer;
+    private final Counter rejected;
+
+    public PasswordHasher(PasswordEncoder encoder, MeterRegistry registry,
+                          @Value("${auth.hashing.threads:4}") int threads,
+                          @Value("${auth.hashing.queueCapacity:32}") int queueCapacity,
+                          @Value("${auth.hashing.timeoutMillis:5000}") long timeoutMillis) {
+        this.encoder = encoder;
+        this.timeoutMillis = timeoutMillis;
+        AtomicInteger seq = new AtomicInteger();
+        this.executor = new ThreadPoolExecutor(threads, threads, 60, TimeUnit.SECONDS,
+                new ArrayBlockingQueue<>(queueCapacity),
+                r -> {
+                    Thread t = new Thread(r, "password-hash-" + seq.incrementAndGet());
+                    t.setDaemon(true);
+                    return t;
+                },
+                new ThreadPoolExecutor.AbortPolicy());
+        this.executor.allowCoreThreadTimeOut(true);
+
+        this.matchTimer = registry.timer("auth.password.hash", "op", "matches");
+        this.encodeTimer = registry.timer("auth.password.hash", "op", "encode");
+        this.rejected = registry.counter("auth.password.rejected");
+        Gauge.builder("auth.password.queue", executor, e -> e.getQueue().size()).register(registry);
+    }
+
+    public boolean matches(CharSequence raw, String hash) {
+        return run(matchTimer, () -> encoder.matches(raw, hash));
+    }
+
+    public String encode(CharSequence raw) {
+        return run(encodeTimer, () -> encoder.encode(raw));
+    }
+
+    /** True when {@code hash} was made with weaker settings than the encoder now uses. No hashing involved. */
+    public boolean upgradeEncoding(String hash) {
+        return encoder.upgradeEncoding(hash);
+    }
+
+    /**
+     * Re-encodes {@code raw} in the background and hands the new hash to {@code store}.
+     * Skipped when the pool is busy; the next successful login tries again.
+     */
+    public void rehashLater(CharSequence raw, Consumer<String> store) {
+        try {
+            executor.execute(() -> {
+                try {
+                    store.accept(encodeTimer.record(() -> encoder.encode(raw)));
+                } catch (Exception e) {
+                    log.warn("Password re-hash failed", e);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            rejected.increment();
+        }
+    }
+
+    private <T> T run(Timer timer, Supplier<T> work) {
+        Future<T> f;
+        try {
+            f = executor.submit(() -> timer.record(work));
+        } catch (RejectedExecutionException e) {
+            rejected.increment();
+            throw new ResponseStatusException(HttpStatus.TOO_MANY_REQUESTS, "Too many requests, please try again shortly");
+        }
+        try {
+            return f.get(timeoutMillis, TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            f.cancel(true);
+            throw new ResponseStatusException(HttpStatus.SERVICE_UNAVAILABLE, "Password check timed out");
+        } catch (InterruptedException e) {
+            f.cancel(true);
+            Thread.currentThread().interrupt();
+            throw new ResponseStatusException(HttpStatus.SERVICE_UNAVAILABLE, "Password check interrupted");
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException re) throw re;
+            throw new IllegalStateException(e.getCause());
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+}
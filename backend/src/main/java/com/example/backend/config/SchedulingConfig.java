@@ -0,0 +1,12 @@
+package com.example.backend.config;
+
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.annotation.EnableScheduling;
+
+/**
+ * Turns on {@code @Scheduled} jobs (recurring expenses, month-end advice precompute).
+ */
+@Configuration
+@EnableScheduling
+public class SchedulingConfig {
+}
@@ -0,0 +1,51 @@
+package com.example.backend.config;
+
+import com.example.backend.security.InMemorySessionStore;
+import com.example.backend.security.JdbcSessionStore;
+import com.example.backend.security.SessionStore;
+import com.example.backend.security.StoredSessionFilter;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnExpression;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.Ordered;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.time.Duration;
+
+/**
+ * Chooses where sessions live: {@code session.store=jdbc} (default, PostgreSQL), {@code memory}
+ * (this JVM only), {@code servlet} to fall back to the container's own sessions, or {@code token} for no
+ * server-side state at all (see {@link com.example.backend.security.SessionTokenService}).
+ */
+@Configuration
+public class SessionStoreConfig {
+
+    @Bean
+    @ConditionalOnProperty(name = "session.store", havingValue = "jdbc", matchIfMissing = true)
+    public JdbcSessionStore jdbcSessionStore(JdbcTemplate jdbc) {
+        return new JdbcSessionStore(jdbc, System::currentTimeMillis);
+    }
+
+    @Bean
+    @ConditionalOnProperty(name = "session.store", havingValue = "memory")
+    public InMemorySessionStore inMemorySessionStore() {
+        return new InMemorySessionStore(System::currentTimeMillis);
+    }
+
+    // runs before anything else can touch the session
+    @Bean
+    @ConditionalOnExpression("'${session.store:jdbc}' == 'jdbc' or '${session.store:jdbc}' == 'memory'")
+    public FilterRegistrationBean<StoredSessionFilter> storedSessionFilter(
+            SessionStore store,
+            @Value("${server.servlet.session.timeout:30m}") Duration timeout,
+            @Value("${session.touchIntervalMillis:60000}") long touchIntervalMillis,
+            @Value("${session.cookie.secure:false}") boolean secureCookie) {
+        var registration = new FilterRegistrationBean<>(new StoredSessionFilter(
+                store, (int) timeout.toSeconds(), touchIntervalMillis, secureCookie, System::currentTimeMillis));
+        registration.setOrder(Ordered.HIGHEST_PRECEDENCE + 50);
+        return registration;
+    }
+}
@@ -1,18 +1,77 @@
 package com.example.backend.config;
 
+import com.example.backend.security.CurrentUserArgumentResolver;
+import com.example.backend.security.SessionTokenService;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.core.io.Resource;
+import org.springframework.http.CacheControl;
+import org.springframework.web.method.support.HandlerMethodArgumentResolver;
+import org.springframework.web.servlet.config.annotation.ResourceHandlerRegistration;
 import org.springframework.web.servlet.config.annotation.ResourceHandlerRegistry;
 import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+import org.springframework.web.servlet.resource.EncodedResourceResolver;
+
+import java.io.IOException;
+import java.nio.file.Paths;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
 
 @Configuration
 public class WebConfig implements WebMvcConfigurer {
+
+    /** Content-addressed avatar thumbnails written by {@code AvatarService}: {@code <hash>-<size>.jpg}. */
+    static final String HASHED_PICTURE = "/picture/{file:[0-9a-f]{32}-\\d+\\.jpg}";
+
+    private final ObjectProvider<SessionTokenService> tokens;
+    private final String uploadPath;
+    private final boolean precompressed;
+
+    public WebConfig(ObjectProvider<SessionTokenService> tokens,
+                     @Value("${avatar.dir:uploads/picture}") String avatarDir,
+                     @Value("${picture.precompressed:false}") boolean precompressed) {
+        this.tokens = tokens;
+        // the directory AvatarService writes to; a relative path resolves against the working directory as it does there
+        this.uploadPath = Paths.get(avatarDir).toAbsolutePath() + "/";
+        this.precompressed = precompressed;
+    }
+
     @Override
     public void addResourceHandlers(ResourceHandlerRegistry registry) {
-        // 打印路径，方便确认
-        String uploadPath = System.getProperty("user.dir") + "/uploads/picture/";
-//        System.out.println(">>> 图片映射目录: " + uploadPath);
+        // a hashed name never changes content: cache for a year and never revalidate
+        ResourceHandlerRegistration hashed = registry.addResourceHandler(HASHED_PICTURE)
+                .addResourceLocations("file:" + uploadPath)
+                .setCacheControl(CacheControl.maxAge(365, TimeUnit.DAYS).cachePublic().immutable())
+                .setEtagGenerator(WebConfig::hashedEtag);
+        // older uploads (user_<id>_<name>) were overwritten in place, so browsers revalidate them (304 when unchanged)
+        ResourceHandlerRegistration legacy = registry.addResourceHandler("/picture/**")
+                .addResourceLocations("file:" + uploadPath)
+                .setCacheControl(CacheControl.noCache().cachePublic())
+                .setEtagGenerator(WebConfig::fileEtag);
+        if (precompressed) {
+            // serves <file>.br / <file>.gz next to the original when the client accepts them
+            hashed.resourceChain(false).addResolver(new EncodedResourceResolver());
+            legacy.resourceChain(false).addResolver(new EncodedResourceResolver());
+        }
+    }
+
+    // the name is the content hash; a precompressed variant keeps its extra suffix and so gets its own tag
+    static String hashedEtag(Resource resource) {
+        String name = resource.getFilename();
+        return name == null ? null : name.substring(0, name.lastIndexOf('.'));
+    }
 
-        registry.addResourceHandler("/picture/**")
-                .addResourceLocations("file:" + uploadPath);
+    static String fileEtag(Resource resource) {
+        try {
+            return Long.toHexString(resource.lastModified()) + "-" + Long.toHexString(resource.contentLength());
+        } catch (IOException e) {
+            return null;
+        }
+    }
+
+    @Override
+    public void addArgumentResolvers(List<HandlerMethodArgumentResolver> resolvers) {
+        resolvers.add(new CurrentUserArgumentResolver(tokens.getIfAvailable()));
     }
 }
@@ -0,0 +1,121 @@
+package com.example.backend.config.gemini;
+
+import java.util.function.LongSupplier;
+
+/**
+ * Count-based circuit breaker over the last {@code windowSize} Gemini calls.
+ * Opens when either the failure rate or the slow-call rate crosses its threshold,
+ * rejects everything while open, then lets a few probe calls through (half-open)
+ * and closes again only if all of them succeed quickly.
+ */
+public class GeminiCircuitBreaker {
+
+    public enum State { CLOSED, OPEN, HALF_OPEN }
+
+    private final int windowSize;
+    private final int minimumCalls;
+    private final float failureRateThreshold;
+    private final float slowCallRateThreshold;
+    private final long slowCallNanos;
+    private final long openNanos;
+    private final int halfOpenProbes;
+    private final LongSupplier clock;
+
+    // Ring buffer of recent outcomes; guarded by this
+    private final boolean[] failed;
+    private final boolean[] slow;
+    private int next;
+    private int recorded;
+    private int failures;
+    private int slowCalls;
+
+    private State state = State.CLOSED;
+    private long openedAt;
+    private int probesIssued;
+    private int probesSucceeded;
+
+    public GeminiCircuitBreaker(int windowSize, int minimumCalls,
+                                float failureRateThreshold, float slowCallRateThreshold,
+                                long slowCallMillis, long openMillis, int halfOpenProbes,
+                                LongSupplier clock) {
+        this.windowSize = windowSize;
+        this.minimumCalls = Math.min(minimumCalls, windowSize);
+        this.failureRateThreshold = failureRateThreshold;
+        this.slowCallRateThreshold = slowCallRateThreshold;
+        this.slowCallNanos = slowCallMillis * 1_000_000L;
+        this.openNanos = openMillis * 1_000_000L;
+        this.halfOpenProbes = halfOpenProbes;
+        this.clock = clock;
+        this.failed = new boolean[windowSize];
+        this.slow = new boolean[windowSize];
+    }
+
+    /** @return whether a call may go ahead; every permitted call must be followed by {@link #onComplete}. */
+    public synchronized boolean tryAcquire() {
+        return switch (state) {
+            case CLOSED -> true;
+            case OPEN -> {
+                if (clock.getAsLong() - openedAt < openNanos) yield false;
+                state = State.HALF_OPEN;
+                probesIssued = 0;
+                probesSucceeded = 0;
+                yield tryProbe();
+            }
+            case HALF_OPEN -> tryProbe();
+        };
+    }
+
+    private boolean tryProbe() {
+        if (probesIssued >= halfOpenProbes) return false;
+        probesIssued++;
+        return true;
+    }
+
+    public synchronized void onComplete(long durationNanos, boolean success) {
+        boolean isSlow = durationNanos >= slowCallNanos;
+        if (state == State.HALF_OPEN) {
+            if (!success || isSlow) {
+                open();
+            } else if (++probesSucceeded >= halfOpenProbes) {
+                close();
+            }
+            return;
+        }
+        if (state == State.OPEN) return;
+
+        if (recorded == windowSize) {
+            if (failed[next]) failures--;
+            if (slow[next]) slowCalls--;
+        } else {
+            recorded++;
+        }
+        failed[next] = !success;
+        slow[next] = isSlow;
+        if (!success) failures++;
+        if (isSlow) slowCalls++;
+        next = (next + 1) % windowSize;
+
+        if (recorded >= minimumCalls
+                && (failures * 100f / recorded >= failureRateThreshold
+                    || slowCalls * 100f / recorded >= slowCallRateThreshold)) {
+            open();
+        }
+    }
+
+    public synchronized State getState() {
+        return state;
+    }
+
+    private void open() {
+        state = State.OPEN;
+        openedAt = clock.getAsLong();
+    }
+
+    private void close() {
+        state = State.CLOSED;
+        next = 0;
+        recorded = 0;
+        failures = 0;
+        slowCalls = 0;
+    }
+}
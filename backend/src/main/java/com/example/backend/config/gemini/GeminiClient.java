@@ -3,6 +3,7 @@ package com.example.backend.config.gemini;
 import java.math.BigDecimal;
 import java.util.List;
 import java.util.Map;
+import java.util.function.Consumer;
 
 public interface GeminiClient {
     /**
@@ -13,4 +14,19 @@ public interface GeminiClient {
                               BigDecimal totalSpending,
                               List<Map<String,Object>> totalsByCategory,
                               String languageTag);
+
+    /**
+     * Same result as {@link #generateAdviceJson}, but {@code onText} is called with the text received
+     * so far as the answer streams in. Clients that cannot stream deliver it once, complete.
+     */
+    default String streamAdviceJson(String month,
+                                    String currency,
+                                    BigDecimal totalSpending,
+                                    List<Map<String,Object>> totalsByCategory,
+                                    String languageTag,
+                                    Consumer<String> onText) {
+        String json = generateAdviceJson(month, currency, totalSpending, totalsByCategory, languageTag);
+        onText.accept(json);
+        return json;
+    }
 }
@@ -2,27 +2,72 @@ package com.example.backend.config.gemini;
 
 import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
-import lombok.RequiredArgsConstructor;
+import jakarta.annotation.PreDestroy;
+import org.apache.hc.client5.http.config.ConnectionConfig;
+import org.apache.hc.client5.http.config.RequestConfig;
+import org.apache.hc.client5.http.impl.classic.CloseableHttpClient;
+import org.apache.hc.client5.http.impl.classic.HttpClients;
+import org.apache.hc.client5.http.impl.io.PoolingHttpClientConnectionManagerBuilder;
+import org.apache.hc.core5.util.TimeValue;
+import org.apache.hc.core5.util.Timeout;
 import org.springframework.http.*;
-import org.springframework.http.client.SimpleClientHttpRequestFactory;
+import org.springframework.http.client.HttpComponentsClientHttpRequestFactory;
 import org.springframework.stereotype.Component;
 import org.springframework.web.client.RestTemplate;
 
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
 import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
 import java.util.*;
+import java.util.function.Consumer;
 
 @Component
-@RequiredArgsConstructor
 public class GeminiHttpClient implements GeminiClient {
 
     private final GeminiProperties props;
     private final ObjectMapper om = new ObjectMapper();
+    private final CloseableHttpClient httpClient;
+    private final RestTemplate rt;
 
-    private RestTemplate newRt() {
-        var f = new SimpleClientHttpRequestFactory();
-        f.setConnectTimeout(props.getTimeoutMillis());
-        f.setReadTimeout(props.getTimeoutMillis());
-        return new RestTemplate(f);
+    public GeminiHttpClient(GeminiProperties props) {
+        this.props = props;
+        this.httpClient = newHttpClient(props);
+        this.rt = new RestTemplate(new HttpComponentsClientHttpRequestFactory(httpClient));
+    }
+
+    // One pooled client for the life of the app, so calls reuse warm TCP/TLS connections
+    private static CloseableHttpClient newHttpClient(GeminiProperties props) {
+        var connectTimeout = Timeout.ofMilliseconds(props.getConnectTimeoutMillis());
+        var readTimeout = Timeout.ofMilliseconds(props.getTimeoutMillis());
+        var keepAlive = TimeValue.ofMilliseconds(props.getKeepAliveMillis());
+
+        var pool = PoolingHttpClientConnectionManagerBuilder.create()
+                .setMaxConnTotal(props.getMaxConnections())
+                .setMaxConnPerRoute(props.getMaxConnections())
+                .setDefaultConnectionConfig(ConnectionConfig.custom()
+                        .setConnectTimeout(connectTimeout)
+                        .setSocketTimeout(readTimeout)
+                        .setValidateAfterInactivity(TimeValue.ofSeconds(2))
+                        .build())
+                .build();
+
+        return HttpClients.custom()
+                .setConnectionManager(pool)
+                .setDefaultRequestConfig(RequestConfig.custom()
+                        .setConnectionRequestTimeout(connectTimeout)
+                        .setResponseTimeout(readTimeout)
+                        .setConnectionKeepAlive(keepAlive)
+                        .build())
+                .evictIdleConnections(keepAlive)
+                .evictExpiredConnections()
+                .build();
+    }
+
+    @PreDestroy
+    void close() throws IOException {
+        httpClient.close();
     }
 
     @Override
@@ -31,7 +76,86 @@ public class GeminiHttpClient implements GeminiClient {
                                      BigDecimal totalSpending,
                                      List<Map<String, Object>> totalsByCategory,
                                      String languageTag) {
+        var req = request(month, currency, totalSpending, totalsByCategory, languageTag);
+
+        ResponseEntity<String> resp = rt.exchange(url("generateContent"), HttpMethod.POST, req, String.class);
+
+        if (!resp.getStatusCode().is2xxSuccessful() || resp.getBody() == null) {
+            throw new RuntimeException("Gemini request failed: " + resp.getStatusCode());
+        }
+
+        try {
+            JsonNode root = om.readTree(resp.getBody());
+            JsonNode candidates = root.path("candidates");
+            if (!candidates.isArray() || candidates.isEmpty()) {
+                throw new RuntimeException("No candidates returned by Gemini");
+            }
+            JsonNode textNode = candidates.get(0)
+                    .path("content").path("parts").get(0).path("text");
+            String json = textNode.asText();
+            om.readTree(json);
+            return json;
+        } catch (Exception e) {
+            throw new RuntimeException("Gemini parse failed", e);
+        }
+    }
+
+    /**
+     * Uses {@code streamGenerateContent?alt=sse}: each {@code data:} event carries the next piece of
+     * the answer text, which is appended and handed to {@code onText}.
+     */
+    @Override
+    public String streamAdviceJson(String month,
+                                   String currency,
+                                   BigDecimal totalSpending,
+                                   List<Map<String, Object>> totalsByCategory,
+                                   String languageTag,
+                                   Consumer<String> onText) {
+        var req = request(month, currency, totalSpending, totalsByCategory, languageTag);
+
+        String text = rt.execute(url("streamGenerateContent") + "&alt=sse", HttpMethod.POST,
+                rt.httpEntityCallback(req, String.class),
+                resp -> {
+                    if (!resp.getStatusCode().is2xxSuccessful()) {
+                        throw new RuntimeException("Gemini request failed: " + resp.getStatusCode());
+                    }
+                    StringBuilder acc = new StringBuilder();
+                    try (var reader = new BufferedReader(new InputStreamReader(resp.getBody(), StandardCharsets.UTF_8))) {
+                        String line;
+                        while ((line = reader.readLine()) != null) {
+                            if (!line.startsWith("data:")) continue;
+                            JsonNode parts = om.readTree(line.substring(5).trim())
+                                    .path("candidates").path(0).path("content").path("parts");
+                            boolean grew = false;
+                            for (JsonNode part : parts) {
+                                String piece = part.path("text").asText("");
+                                if (!piece.isEmpty()) {
+                                    acc.append(piece);
+                                    grew = true;
+                                }
+                            }
+                            if (grew) onText.accept(acc.toString());
+                        }
+                    }
+                    return acc.toString();
+                });
 
+        if (text == null || text.isBlank()) {
+            throw new RuntimeException("No candidates returned by Gemini");
+        }
+        try {
+            om.readTree(text);
+            return text;
+        } catch (Exception e) {
+            throw new RuntimeException("Gemini parse failed", e);
+        }
+    }
+
+    private HttpEntity<Map<String, Object>> request(String month,
+                                                    String currency,
+                                                    BigDecimal totalSpending,
+                                                    List<Map<String, Object>> totalsByCategory,
+                                                    String languageTag) {
         String prompt = """
             你是个人理财助手。请仅输出 JSON（不要任何说明文字），模式如下：
             {
@@ -57,36 +181,14 @@ public class GeminiHttpClient implements GeminiClient {
                 )
         );
 
-        String url = "https://generativelanguage.googleapis.com/v1beta/models/" +
-                props.getModel() + ":generateContent?key=" + props.getApiKey();
-
-        System.out.println("url: "+ props.getApiKey());
-
-        var rt = newRt();
         var headers = new HttpHeaders();
         headers.setContentType(MediaType.APPLICATION_JSON);
-        var req = new HttpEntity<>(body, headers);
-
-        ResponseEntity<String> resp = rt.exchange(url, HttpMethod.POST, req, String.class);
-
-        if (!resp.getStatusCode().is2xxSuccessful() || resp.getBody() == null) {
-            throw new RuntimeException("Gemini request failed: " + resp.getStatusCode());
-        }
+        return new HttpEntity<>(body, headers);
+    }
 
-        try {
-            JsonNode root = om.readTree(resp.getBody());
-            JsonNode candidates = root.path("candidates");
-            if (!candidates.isArray() || candidates.isEmpty()) {
-                throw new RuntimeException("No candidates returned by Gemini");
-            }
-            JsonNode textNode = candidates.get(0)
-                    .path("content").path("parts").get(0).path("text");
-            String json = textNode.asText();
-            om.readTree(json);
-            return json;
-        } catch (Exception e) {
-            throw new RuntimeException("Gemini parse failed", e);
-        }
+    private String url(String method) {
+        return props.getBaseUrl() + "/v1beta/models/" +
+                props.getModel() + ":" + method + "?key=" + props.getApiKey();
     }
 
     private String toInlineJson(Object o) {
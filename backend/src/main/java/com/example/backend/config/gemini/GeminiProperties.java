@@ -17,7 +17,48 @@ public class GeminiProperties {
     @Value("${gemini.model:gemini-2.5-flash}")
     private String model;
 
+    /** Read timeout: how long to wait for Gemini's response once connected. */
     @Value("${gemini.timeoutMillis:8000}")
     private int timeoutMillis;
+
+    @Value("${gemini.baseUrl:https://generativelanguage.googleapis.com}")
+    private String baseUrl = "https://generativelanguage.googleapis.com";
+
+    @Value("${gemini.connectTimeoutMillis:3000}")
+    private int connectTimeoutMillis = 3000;
+
+    /** Upper bound on pooled connections (and therefore concurrent calls) to Gemini. */
+    @Value("${gemini.maxConnections:20}")
+    private int maxConnections = 20;
+
+    /** Idle pooled connections are closed after this long. */
+    @Value("${gemini.keepAliveMillis:30000}")
+    private long keepAliveMillis = 30000;
+
+    /** Bulkhead: calls beyond this many in flight are rejected immediately. */
+    @Value("${gemini.maxConcurrentCalls:10}")
+    private int maxConcurrentCalls = 10;
+
+    // Circuit breaker, evaluated over the last breakerWindowSize calls
+    @Value("${gemini.breaker.windowSize:20}")
+    private int breakerWindowSize = 20;
+
+    @Value("${gemini.breaker.minimumCalls:5}")
+    private int breakerMinimumCalls = 5;
+
+    @Value("${gemini.breaker.failureRatePercent:50}")
+    private float breakerFailureRatePercent = 50;
+
+    @Value("${gemini.breaker.slowCallRatePercent:50}")
+    private float breakerSlowCallRatePercent = 50;
+
+    @Value("${gemini.breaker.slowCallMillis:10000}")
+    private long breakerSlowCallMillis = 10000;
+
+    @Value("${gemini.breaker.openMillis:30000}")
+    private long breakerOpenMillis = 30000;
+
+    @Value("${gemini.breaker.halfOpenProbes:2}")
+    private int breakerHalfOpenProbes = 2;
 }
 
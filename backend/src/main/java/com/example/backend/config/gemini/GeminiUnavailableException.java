@@ -0,0 +1,10 @@
+package com.example.backend.config.gemini;
+
+/** Thrown without calling Gemini when the circuit is open or the bulkhead is full. */
+public class GeminiUnavailableException extends RuntimeException {
+    private static final long serialVersionUID = 1L;
+
+    public GeminiUnavailableException(String message) {
+        super(message);
+    }
+}
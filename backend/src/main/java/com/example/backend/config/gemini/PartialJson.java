@@ -0,0 +1,105 @@
+package com.example.backend.config.gemini;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.Map;
+
+/**
+ * Reads the longest usable prefix of a JSON object that is still being streamed,
+ * e.g. {@code {"summary":"Spending was hi} -> {summary="Spending was hi"}}.
+ * Open strings, arrays and objects are closed; a dangling key, colon or comma is dropped.
+ */
+public final class PartialJson {
+
+    private static final ObjectMapper OM = new ObjectMapper();
+
+    private PartialJson() {}
+
+    /** @return the parsed prefix, or {@code null} if nothing usable has arrived yet */
+    @SuppressWarnings("unchecked")
+    public static Map<String, Object> parseObjectPrefix(String text) {
+        if (text == null) return null;
+        int start = text.indexOf('{');
+        if (start < 0) return null;
+        String s = text.substring(start);
+
+        // Try the completed text, then back off to earlier value boundaries
+        for (int attempt = 0; attempt < 8 && !s.isEmpty(); attempt++) {
+            String completed = complete(s);
+            try {
+                return OM.readValue(completed, Map.class);
+            } catch (Exception ignore) {
+                int cut = lastBoundary(s);
+                if (cut <= 0) return null;
+                s = s.substring(0, cut);
+            }
+        }
+        return null;
+    }
+
+    /** Closes whatever is open at the end of {@code s}. */
+    static String complete(String s) {
+        Deque<Character> open = new ArrayDeque<>();
+        boolean inString = false;
+        boolean escaped = false;
+        for (int i = 0; i < s.length(); i++) {
+            char c = s.charAt(i);
+            if (inString) {
+                if (escaped) escaped = false;
+                else if (c == '\\') escaped = true;
+                else if (c == '"') inString = false;
+                continue;
+            }
+            switch (c) {
+                case '"' -> inString = true;
+                case '{' -> open.push('}');
+                case '[' -> open.push(']');
+                case '}', ']' -> { if (!open.isEmpty()) open.pop(); }
+                default -> { }
+            }
+        }
+
+        StringBuilder sb = new StringBuilder(s);
+        if (inString) {
+            if (escaped) sb.setLength(sb.length() - 1);
+            // a half-received \\uXXXX escape cannot be parsed
+            int u = sb.lastIndexOf("\\u");
+            if (u >= 0 && sb.length() - u < 6 && (u == 0 || sb.charAt(u - 1) != '\\')) sb.setLength(u);
+            sb.append('"');
+        }
+        trimTrailing(sb);
+        if (sb.length() > 0 && sb.charAt(sb.length() - 1) == ':') sb.append("null");
+        while (!open.isEmpty()) sb.append(open.pop());
+        return sb.toString();
+    }
+
+    private static void trimTrailing(StringBuilder sb) {
+        while (sb.length() > 0) {
+            char last = sb.charAt(sb.length() - 1);
+            if (Character.isWhitespace(last) || last == ',') sb.setLength(sb.length() - 1);
+            else break;
+        }
+    }
+
+    /** Position of the last ',' '{' or '[' outside a string; text before it is a cleaner prefix. */
+    private static int lastBoundary(String s) {
+        boolean inString = false;
+        boolean escaped = false;
+        int last = -1;
+        for (int i = 0; i < s.length(); i++) {
+            char c = s.charAt(i);
+            if (inString) {
+                if (escaped) escaped = false;
+                else if (c == '\\') escaped = true;
+                else if (c == '"') inString = false;
+                continue;
+            }
+            if (c == '"') inString = true;
+            else if (c == ',') last = i;
+            else if (c == '{' || c == '[') last = i + 1;
+        }
+        return last == s.length() ? s.length() - 1 : last;
+    }
+}
@@ -0,0 +1,111 @@
+package com.example.backend.config.gemini;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.context.annotation.Primary;
+import org.springframework.stereotype.Component;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Semaphore;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+
+/**
+ * Circuit breaker plus bulkhead in front of {@link GeminiHttpClient}.
+ * When Gemini is failing or slow, or too many calls are already in flight, calls are
+ * rejected immediately with {@link GeminiUnavailableException} so callers drop straight
+ * to their fallback instead of waiting out the HTTP timeout.
+ */
+@Primary
+@Component
+public class ResilientGeminiClient implements GeminiClient {
+
+    private final GeminiClient delegate;
+    private final GeminiCircuitBreaker breaker;
+    private final Semaphore bulkhead;
+
+    private final Counter success;
+    private final Counter failure;
+    private final Counter rejectedOpen;
+    private final Counter rejectedFull;
+
+    public ResilientGeminiClient(GeminiHttpClient delegate, GeminiProperties props, MeterRegistry registry) {
+        this(delegate, new GeminiCircuitBreaker(
+                props.getBreakerWindowSize(),
+                props.getBreakerMinimumCalls(),
+                props.getBreakerFailureRatePercent(),
+                props.getBreakerSlowCallRatePercent(),
+                props.getBreakerSlowCallMillis(),
+                props.getBreakerOpenMillis(),
+                props.getBreakerHalfOpenProbes(),
+                System::nanoTime), props.getMaxConcurrentCalls(), registry);
+    }
+
+    ResilientGeminiClient(GeminiClient delegate, GeminiCircuitBreaker breaker, int maxConcurrentCalls,
+                          MeterRegistry registry) {
+        this.delegate = delegate;
+        this.breaker = breaker;
+        this.bulkhead = new Semaphore(maxConcurrentCalls);
+
+        Gauge.builder("gemini.circuit.state", breaker, b -> b.getState().ordinal())
+                .description("0 = closed, 1 = open, 2 = half-open")
+                .register(registry);
+        Gauge.builder("gemini.bulkhead.available", bulkhead, Semaphore::availablePermits)
+                .register(registry);
+        this.success = registry.counter("gemini.calls", "outcome", "success");
+        this.failure = registry.counter("gemini.calls", "outcome", "failure");
+        this.rejectedOpen = registry.counter("gemini.calls", "outcome", "rejected_open");
+        this.rejectedFull = registry.counter("gemini.calls", "outcome", "rejected_bulkhead");
+    }
+
+    @Override
+    public String generateAdviceJson(String month,
+                                     String currency,
+                                     BigDecimal totalSpending,
+                                     List<Map<String, Object>> totalsByCategory,
+                                     String languageTag) {
+        return guarded(() -> delegate.generateAdviceJson(month, currency, totalSpending, totalsByCategory, languageTag));
+    }
+
+    @Override
+    public String streamAdviceJson(String month,
+                                   String currency,
+                                   BigDecimal totalSpending,
+                                   List<Map<String, Object>> totalsByCategory,
+                                   String languageTag,
+                                   Consumer<String> onText) {
+        return guarded(() -> delegate.streamAdviceJson(month, currency, totalSpending, totalsByCategory, languageTag, onText));
+    }
+
+    private String guarded(Supplier<String> call) {
+        if (!bulkhead.tryAcquire()) {
+            rejectedFull.increment();
+            throw new GeminiUnavailableException("Gemini bulkhead full");
+        }
+        try {
+            if (!breaker.tryAcquire()) {
+                rejectedOpen.increment();
+                throw new GeminiUnavailableException("Gemini circuit open");
+            }
+            long start = System.nanoTime();
+            boolean ok = false;
+            try {
+                String json = call.get();
+                ok = true;
+                return json;
+            } finally {
+                breaker.onComplete(System.nanoTime() - start, ok);
+                (ok ? success : failure).increment();
+            }
+        } finally {
+            bulkhead.release();
+        }
+    }
+
+    GeminiCircuitBreaker.State state() {
+        return breaker.getState();
+    }
+}
@@ -0,0 +1,122 @@
+package com.example.backend.config.gemini;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.stereotype.Component;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.*;
+
+/**
+ * Deterministic, in-process advice. Works from the same aggregated input as the LLM,
+ * using the optional per-category history keys that {@code AiAdviceService} adds:
+ * {@code prevAmount} (last month), {@code avgAmount} (average of the three months before)
+ * and {@code goalAmount} (active monthly goal). Output follows the {@link GeminiClient} JSON shape.
+ * Text is English only.
+ */
+@Component
+public class RuleBasedAdviceEngine implements GeminiClient {
+
+    static final int MAX_BULLETS = 5;
+    /** Month-over-month rise that is worth mentioning. */
+    static final BigDecimal RISE_RATIO = new BigDecimal("1.25");
+    /** How far above the 3-month average a category must be to be called out. */
+    static final BigDecimal ABOVE_AVG_RATIO = new BigDecimal("1.30");
+    /** Share of the month's spending that makes a category dominant. */
+    static final BigDecimal DOMINANT_SHARE = new BigDecimal("0.40");
+
+    private final ObjectMapper om = new ObjectMapper();
+
+    @Override
+    public String generateAdviceJson(String month,
+                                     String currency,
+                                     BigDecimal totalSpending,
+                                     List<Map<String, Object>> totalsByCategory,
+                                     String languageTag) {
+        List<Map<String, String>> bullets = new ArrayList<>();
+        Map<String, Object> top = null;
+
+        // goal overruns first, then month-over-month jumps, then habits above average
+        for (var t : totalsByCategory) {
+            if (top == null || amount(t, "amount").compareTo(amount(top, "amount")) > 0) top = t;
+            BigDecimal amt = amount(t, "amount");
+            BigDecimal goal = amount(t, "goalAmount");
+            if (goal.signum() > 0 && amt.compareTo(goal) > 0) {
+                bullets.add(bullet("Over budget: " + name(t),
+                        "Spent %s %s against a %s goal (%s over). Pause non-essential purchases in this category for the rest of the period."
+                                .formatted(currency, money(amt), money(goal), percent(amt.subtract(goal), goal))));
+            }
+        }
+        Set<Object> risen = new HashSet<>();
+        for (var t : totalsByCategory) {
+            BigDecimal amt = amount(t, "amount");
+            BigDecimal prev = amount(t, "prevAmount");
+            if (prev.signum() > 0 && amt.compareTo(prev.multiply(RISE_RATIO)) >= 0) {
+                risen.add(t.get("catId"));
+                bullets.add(bullet(name(t) + " up " + percent(amt.subtract(prev), prev) + " on last month",
+                        "%s %s this month vs %s last month. Check for one-off purchases or new recurring costs."
+                                .formatted(currency, money(amt), money(prev))));
+            }
+        }
+        for (var t : totalsByCategory) {
+            BigDecimal amt = amount(t, "amount");
+            BigDecimal avg = amount(t, "avgAmount");
+            if (avg.signum() > 0 && amt.compareTo(avg.multiply(ABOVE_AVG_RATIO)) >= 0
+                    && !risen.contains(t.get("catId"))) {
+                bullets.add(bullet(name(t) + " above your usual level",
+                        "%s %s vs a 3-month average of %s. Consider a weekly cap for this category."
+                                .formatted(currency, money(amt), money(avg))));
+            }
+        }
+        if (top != null && amount(top, "pct").compareTo(DOMINANT_SHARE) >= 0) {
+            bullets.add(bullet(name(top) + " dominates spending",
+                    "It makes up %s of this month's total. Small savings here have the biggest effect."
+                            .formatted(percent(amount(top, "pct"), BigDecimal.ONE))));
+        }
+        if (bullets.isEmpty()) {
+            bullets.add(bullet("Set limits for high-spending categories", "Start with a fixed weekly budget"));
+            bullets.add(bullet("Schedule regular reviews", "Review non-essential spending weekly"));
+        }
+
+        String summary = top == null
+                ? "Total spending for %s was %s %s.".formatted(month, currency, money(totalSpending))
+                : "Total spending for %s was %s %s; %s was the largest category at %s."
+                        .formatted(month, currency, money(totalSpending), name(top),
+                                percent(amount(top, "pct"), BigDecimal.ONE));
+
+        Map<String, Object> out = new LinkedHashMap<>();
+        out.put("summary", summary);
+        out.put("bullets", bullets.size() > MAX_BULLETS ? bullets.subList(0, MAX_BULLETS) : bullets);
+        try {
+            return om.writeValueAsString(out);
+        } catch (Exception e) {
+            throw new RuntimeException("JSON_ENCODE_FAILED", e);
+        }
+    }
+
+    private static Map<String, String> bullet(String title, String detail) {
+        Map<String, String> b = new LinkedHashMap<>();
+        b.put("title", title);
+        b.put("detail", detail);
+        return b;
+    }
+
+    private static String name(Map<String, Object> t) {
+        return String.valueOf(t.get("catName"));
+    }
+
+    private static BigDecimal amount(Map<String, Object> t, String key) {
+        Object v = t.get(key);
+        if (v instanceof BigDecimal bd) return bd;
+        if (v instanceof Number n) return new BigDecimal(n.toString());
+        return BigDecimal.ZERO;
+    }
+
+    private static String money(BigDecimal v) {
+        return v.setScale(2, RoundingMode.HALF_UP).toPlainString();
+    }
+
+    private static String percent(BigDecimal part, BigDecimal whole) {
+        return part.multiply(BigDecimal.valueOf(100)).divide(whole, 0, RoundingMode.HALF_UP) + "%";
+    }
+}
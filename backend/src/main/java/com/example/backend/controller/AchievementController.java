@@ -1,12 +1,12 @@
 package com.example.backend.controller;
 
-import com.example.backend.auth.SessionKeys;
-import com.example.backend.dto.UserDTO;
-import com.example.backend.model.UserAchievement;
-import com.example.backend.repository.UserAchievementRepository;
+import com.example.backend.dto.AchievementDTO;
+import com.example.backend.security.CurrentUser;
 import com.example.backend.service.AchievementService;
-import jakarta.servlet.http.HttpSession;
+import org.springframework.http.CacheControl;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 
 import java.util.List;
 
@@ -15,23 +15,22 @@ import java.util.List;
 public class AchievementController {
 
     private final AchievementService achievementService;
-    private final UserAchievementRepository userAchievementRepository;
 
-    public AchievementController(AchievementService achievementService,
-                                 UserAchievementRepository userAchievementRepository) {
+    public AchievementController(AchievementService achievementService) {
         this.achievementService = achievementService;
-        this.userAchievementRepository = userAchievementRepository;
     }
 
+    // 列表只在获得新成就时变化：浏览器每次带 If-None-Match 重新验证，未变化时 304，只做一次聚合查询
     @GetMapping
-    public List<UserAchievement> getAchievements(HttpSession session) {
-
-        UserDTO userDTO = (UserDTO) session.getAttribute(SessionKeys.USER_DTO);
-        if (userDTO == null) {
-            throw new RuntimeException("User not logged-in");
+    public ResponseEntity<List<AchievementDTO>> getAchievements(CurrentUser user, WebRequest request) {
+        Integer userId = user.id();
+        String etag = achievementService.etag(userId);
+        if (request.checkNotModified(etag)) {
+            return null;
         }
-
-        Integer userId = userDTO.getId();
-        return userAchievementRepository.findByUserId(userId);
+        return ResponseEntity.ok()
+                .eTag(etag)
+                .cacheControl(CacheControl.noCache().cachePrivate())
+                .body(achievementService.listEarned(userId));
     }
 }
@@ -1,24 +1,33 @@
 package com.example.backend.controller;
 
-import com.example.backend.dto.UserDTO;
-import com.example.backend.service.AiAdviceService;
-import jakarta.servlet.http.HttpSession;
+import com.example.backend.security.CurrentUser;
+import com.example.backend.service.AdviceJobService;
 import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
 import java.time.YearMonth;
 import java.util.Locale;
 import java.util.Map;
+import java.util.concurrent.RejectedExecutionException;
 
 @RestController
 @RequiredArgsConstructor
 public class AiAdviceController {
 
-    private final AiAdviceService service;
+    private final AdviceJobService jobs;
+
+    private static final long STREAM_TIMEOUT_MILLIS = 180_000;
 
     @PostMapping("/suggestions/generate")
-    public Map<String, Object> generate(@RequestParam(required=false) String month,
-                                        HttpSession session) {
+    public ResponseEntity<Map<String, Object>> generate(@RequestParam(required=false) String month,
+                                                        CurrentUser user) {
+        // Returns 202 + {jobId, status}; poll GET /suggestions/jobs/{jobId} until status is DONE,
+        // at which point "result" holds the advice:
 //        {
 //    "summary": "本月总支出为15.70澳元，其中餐饮和交通是主要的开销。",
 //    "bullets": [
@@ -50,9 +59,46 @@ public class AiAdviceController {
 //        }
 //    ]
 //}
-        Integer userId = ((UserDTO) session.getAttribute("USER")).getId();
+        Integer userId = user.id();
+        YearMonth ym = (month == null || month.isBlank()) ? YearMonth.now() : YearMonth.parse(month);
+        String languageTag = Locale.US.toLanguageTag();
+        try {
+            var job = jobs.submit(userId, ym, languageTag);
+            return ResponseEntity.status(HttpStatus.ACCEPTED).body(job.toMap());
+        } catch (RejectedExecutionException e) {
+            throw new ResponseStatusException(HttpStatus.SERVICE_UNAVAILABLE, "Too many suggestion requests, try again shortly");
+        }
+    }
+
+    /**
+     * Server-sent events for the same job: "provisional" (rule-based advice), "partial"
+     * ({summary, bullets} as the model writes them), then "done" with the final advice or "failed".
+     */
+    @GetMapping(value = "/suggestions/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter stream(@RequestParam(required=false) String month, CurrentUser user) {
+        Integer userId = user.id();
         YearMonth ym = (month == null || month.isBlank()) ? YearMonth.now() : YearMonth.parse(month);
         String languageTag = Locale.US.toLanguageTag();
-        return service.generate(userId, ym, languageTag);
+
+        SseEmitter emitter = new SseEmitter(STREAM_TIMEOUT_MILLIS);
+        try {
+            jobs.submit(userId, ym, languageTag, (event, data) -> {
+                emitter.send(SseEmitter.event().name(event).data(data, MediaType.APPLICATION_JSON));
+                if ("done".equals(event) || "failed".equals(event)) {
+                    emitter.complete();
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            throw new ResponseStatusException(HttpStatus.SERVICE_UNAVAILABLE, "Too many suggestion requests, try again shortly");
+        }
+        return emitter;
+    }
+
+    @GetMapping("/suggestions/jobs/{jobId}")
+    public Map<String, Object> job(@PathVariable String jobId, CurrentUser user) {
+        Integer userId = user.id();
+        return jobs.find(jobId, userId)
+                .map(AdviceJobService.Job::toMap)
+                .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "Job not found"));
     }
 }
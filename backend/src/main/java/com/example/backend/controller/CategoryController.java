@@ -0,0 +1,36 @@
+package com.example.backend.controller;
+
+import com.example.backend.dto.CategoryDTO;
+import com.example.backend.service.CategoryCache;
+import org.springframework.http.CacheControl;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.List;
+
+@RestController
+@RequestMapping("/categories")
+public class CategoryController {
+
+    private final CategoryCache categoryCache;
+
+    public CategoryController(CategoryCache categoryCache) {
+        this.categoryCache = categoryCache;
+    }
+
+    @GetMapping
+    public ResponseEntity<List<CategoryDTO>> getCategories() {
+        // [
+        //    { "id": 9, "name": "Food" },
+        //    { "id": 10, "name": "Transport" },
+        //    ...
+        // ]
+        // Spring answers 304 when If-None-Match matches the ETag below.
+        return ResponseEntity.ok()
+                .eTag(categoryCache.etag())
+                .cacheControl(CacheControl.noCache())
+                .body(categoryCache.findAllDtos());
+    }
+}
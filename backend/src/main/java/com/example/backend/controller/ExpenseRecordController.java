@@ -2,23 +2,25 @@ package com.example.backend.controller;
 
 import com.example.backend.dto.*;
 import com.example.backend.model.ExpenseRecord;
-import com.example.backend.model.FeatureSnapshot;
 import com.example.backend.model.RecurringExpenseSchedule;
-import com.example.backend.model.User;
 import com.example.backend.repository.ExpenseRecordRepository;
-import com.example.backend.repository.FeatureSnapshotRepository;
-import com.example.backend.repository.UserRepository;
+import com.example.backend.security.CurrentUser;
+import com.example.backend.service.ExpenseExportService;
 import com.example.backend.service.ExpenseRecordService;
 import com.example.backend.service.RecurringExpenseService;
-import jakarta.servlet.http.HttpSession;
+import com.example.backend.service.SnapshotService;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.domain.Sort;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import java.time.LocalDate;
 import java.util.HashMap;
@@ -33,42 +35,47 @@ public class ExpenseRecordController {
     private final ExpenseRecordService recordService;
     private final RecurringExpenseService recurringExpenseService;
     private final ExpenseRecordRepository expenseRecordRepository;
-    private final FeatureSnapshotRepository  featureSnapshotRepository;
-    private final UserRepository userRepository;
+    private final SnapshotService snapshotService;
+    private final ExpenseExportService exportService;
 
     public ExpenseRecordController(ExpenseRecordService recordService, RecurringExpenseService recurringExpenseService,
-                                   ExpenseRecordRepository expenseRecordRepository, UserRepository userRepository,
-                                   FeatureSnapshotRepository featureSnapshotRepository) {
+                                   ExpenseRecordRepository expenseRecordRepository,
+                                   SnapshotService snapshotService,
+                                   ExpenseExportService exportService) {
         this.recordService = recordService;
         this.recurringExpenseService = recurringExpenseService;
         this.expenseRecordRepository = expenseRecordRepository;
-        this.featureSnapshotRepository = featureSnapshotRepository;
-        this.userRepository = userRepository;
+        this.snapshotService = snapshotService;
+        this.exportService = exportService;
     }
 
     @GetMapping("/month")
-    public SnapshotDTO getSnapshot(HttpSession session,
+    public SnapshotDTO getSnapshot(CurrentUser user,
                                    @RequestParam(required = false) String month) {
 //{
 //    "id": 1,
-//    "totalsByCategoryJson": "[{\"amount\":12.50,\"catId\":9,\"catName\":\"Food\",\"pct\":0.7962},{\"amount\":3.20,\"catId\":10,\"catName\":\"Transport\",\"pct\":0.2038}]",
+//    "month": "2024-10",
+//    "totalsByCategory": [{"categoryId":9,"categoryName":"Food","amount":12.50,"pct":0.7962},
+//                         {"categoryId":10,"categoryName":"Transport","amount":3.20,"pct":0.2038}],
 //    "totalSpending": 15.70,
 //    "currency": "AUD"
 //}
-        UserDTO userDTO = (UserDTO) session.getAttribute("USER");
-        Integer userId = userDTO.getId();
-        User user =  userRepository.getReferenceById(userId);
-        FeatureSnapshot fs = featureSnapshotRepository
-                .findByUserAndMonth(user, month)
-                .orElseThrow(() -> new ResponseStatusException(
-                        HttpStatus.NOT_FOUND, "snapshot not found"));
-
-        return SnapshotDTO.toDTO(fs);
+        return snapshotService.getMonth(user.id(), month);
+    }
+
+    @GetMapping("/months")
+    public SnapshotRangeDTO getSnapshots(CurrentUser user,
+                                         @RequestParam String from,
+                                         @RequestParam String to) {
+        // { "from": "2024-01", "to": "2024-06", "currency": "AUD", "totalSpending": 812.40,
+        //   "months": [ <same shape as /records/month> ... ],
+        //   "totalsByCategory": [{"categoryId":9,"categoryName":"Food","amount":402.10,"pct":0.4950}, ...] }
+        return snapshotService.getRange(user.id(), from, to);
     }
 
 
     @GetMapping
-    public ResponseEntity<List<ExpenseRecordDTO>> getRecords(HttpSession session) {
+    public ResponseEntity<List<ExpenseRecordDTO>> getRecords(CurrentUser user) {
         // [
         //    {
         //        "expenseId": 3,
@@ -90,11 +97,10 @@ public class ExpenseRecordController {
         //    },
         //        ...
         // ]
-        UserDTO user = (UserDTO) session.getAttribute("USER");
-        Integer userId = user.getId();
+        Integer userId = user.id();
         List<ExpenseRecordDTO> dtoList = recordService.getRecordsForUser(userId)
                 .stream()
-                .map(this::toDTO)
+                .map(r -> toDTO(r, user))
                 .collect(Collectors.toList());
 
         return ResponseEntity.ok(dtoList);
@@ -102,7 +108,7 @@ public class ExpenseRecordController {
 
     @GetMapping("/search")
     public ResponseEntity<Page<ExpenseRecordDTO>> search(
-            HttpSession session,
+            CurrentUser user,
             @RequestParam(required = false) String from,        // YYYY-MM-DD（含当天）
             @RequestParam(required = false) String to,          // YYYY-MM-DD（含当天）
             @RequestParam(required = false) Integer categoryId,
@@ -178,7 +184,7 @@ public class ExpenseRecordController {
         //    },
         //    "empty": false
         //}
-        Integer userId = ((UserDTO) session.getAttribute("USER")).getId();
+        Integer userId = user.id();
 
         LocalDate fromDate = (from == null || from.isBlank()) ? null : LocalDate.parse(from);
         LocalDate toDate   = (to   == null || to.isBlank())   ? null : LocalDate.parse(to);
@@ -189,14 +195,60 @@ public class ExpenseRecordController {
         Page<ExpenseRecord> entities = recordService.search(
                 userId, fromDate, toDate, categoryId, q, recurring, pageable);
 
-        Page<ExpenseRecordDTO> dtoPage = entities.map(this::toDTO);
+        Page<ExpenseRecordDTO> dtoPage = entities.map(r -> toDTO(r, user));
         return ResponseEntity.ok(dtoPage);
     }
 
+    /**
+     * Full transaction history as CSV or NDJSON, streamed row by row.
+     * Takes the same filters as /records/search, without paging.
+     */
+    @GetMapping("/export")
+    public ResponseEntity<StreamingResponseBody> export(
+            CurrentUser user,
+            @RequestParam(required = false) String from,
+            @RequestParam(required = false) String to,
+            @RequestParam(required = false) Integer categoryId,
+            @RequestParam(required = false) String q,
+            @RequestParam(required = false) Boolean recurring,
+            @RequestParam(defaultValue = "desc") String sortDir,
+            @RequestParam(defaultValue = "csv") String format,
+            @RequestParam(defaultValue = "false") boolean gzip
+    ) {
+        Integer userId = user.id();
+
+        LocalDate fromDate = (from == null || from.isBlank()) ? null : LocalDate.parse(from);
+        LocalDate toDate   = (to   == null || to.isBlank())   ? null : LocalDate.parse(to);
+        boolean ascending = "asc".equalsIgnoreCase(sortDir);
+
+        ExpenseExportService.Format fmt;
+        MediaType mediaType;
+        switch (format.toLowerCase()) {
+            case "csv" -> { fmt = ExpenseExportService.Format.CSV; mediaType = new MediaType("text", "csv"); }
+            case "ndjson" -> { fmt = ExpenseExportService.Format.NDJSON; mediaType = MediaType.APPLICATION_NDJSON; }
+            default -> throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "format must be csv or ndjson");
+        }
+
+        String fileName = "expenses-" + LocalDate.now() + "." + fmt.name().toLowerCase();
+        if (gzip) {
+            fileName += ".gz";
+            mediaType = new MediaType("application", "gzip");
+        }
+
+        StreamingResponseBody body = out -> exportService.export(
+                userId, fromDate, toDate, categoryId, q, recurring, ascending, fmt, gzip, out);
+
+        return ResponseEntity.ok()
+                .contentType(mediaType)
+                .header(HttpHeaders.CONTENT_DISPOSITION,
+                        ContentDisposition.attachment().filename(fileName).build().toString())
+                .body(body);
+    }
+
     @PostMapping
     public ResponseEntity<ExpenseRecordDTO> createRecord(@RequestBody ExpenseRecord recordData,
                                                          @RequestParam(required = false) String frequency,
-                                                         HttpSession session) {
+                                                         CurrentUser user) {
         // {
         //    "expenseId": 8,
         //    "user": {
@@ -215,15 +267,14 @@ public class ExpenseRecordController {
         //    "recurringScheduleId": null,
         //    "paymentMethod": null
         //}
-        UserDTO user = (UserDTO) session.getAttribute("USER");
-        Integer userId = user.getId();
+        Integer userId = user.id();
         ExpenseRecord created = recordService.createRecord(userId, recordData);
         if (recordData.getIsRecurring() && frequency != null && !frequency.isBlank()) {
             RecurringExpenseSchedule.Frequency freq =
                     RecurringExpenseSchedule.Frequency.valueOf(frequency.toUpperCase());
             recurringExpenseService.onManualExpenseSaved(created, freq);
         }
-        ExpenseRecordDTO dto = toDTO(created);
+        ExpenseRecordDTO dto = toDTO(created, user);
         return ResponseEntity.ok(dto);
     }
 
@@ -232,7 +283,7 @@ public class ExpenseRecordController {
             @PathVariable Integer id,
             @RequestBody ExpenseRecord updatedData,
             @RequestParam(required = false) String frequency,
-            HttpSession session) {
+            CurrentUser user) {
         // {
         //    "expenseId": 7,
         //    "user": {
@@ -251,8 +302,7 @@ public class ExpenseRecordController {
         //    "recurringScheduleId": null,
         //    "paymentMethod": null
         //}
-        UserDTO user = (UserDTO) session.getAttribute("USER");
-        Integer userId = user.getId();
+        Integer userId = user.id();
 
         ExpenseRecord before = expenseRecordRepository.findById(id)
                 .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "Record not found"));
@@ -265,7 +315,7 @@ public class ExpenseRecordController {
         // 若前端没传 isRecurring，则不调整周期逻辑
         Boolean newRecurring = updatedData.getIsRecurring();
         if (newRecurring == null) {
-            return ResponseEntity.ok(toDTO(saved));
+            return ResponseEntity.ok(toDTO(saved, user));
         }
 
         // false -> true：要求 frequency，调用建/绑/推进
@@ -276,7 +326,7 @@ public class ExpenseRecordController {
             RecurringExpenseSchedule.Frequency newFreq =
                     RecurringExpenseSchedule.Frequency.valueOf(frequency.toUpperCase());
             recurringExpenseService.onManualExpenseSaved(saved, newFreq);
-            return ResponseEntity.ok(toDTO(saved));
+            return ResponseEntity.ok(toDTO(saved, user));
         }
 
         // true -> false：取消整个计划，保留当前记录
@@ -287,7 +337,7 @@ public class ExpenseRecordController {
             saved.setIsRecurring(false);
             saved.setRecurringSchedule(null);
             expenseRecordRepository.save(saved);
-            return ResponseEntity.ok(toDTO(saved));
+            return ResponseEntity.ok(toDTO(saved, user));
         }
 
         // true -> true：可能变更频率
@@ -307,21 +357,20 @@ public class ExpenseRecordController {
                     recurringExpenseService.onManualExpenseSaved(saved, newFreq);
                 }
             }
-            return ResponseEntity.ok(toDTO(saved));
+            return ResponseEntity.ok(toDTO(saved, user));
         }
-        return ResponseEntity.ok(toDTO(saved));
+        return ResponseEntity.ok(toDTO(saved, user));
     }
 
 
     @DeleteMapping("/{id}")
     public ResponseEntity<Map<String,String>> deleteRecord(@PathVariable Integer id,
                                                            @RequestParam(defaultValue = "false") boolean cancelRecurring,
-                                                           HttpSession session) {
+                                                           CurrentUser user) {
         //{
         //    "message": "Record deleted successfully"
         //}
-        UserDTO user = (UserDTO) session.getAttribute("USER");
-        Integer userId = user.getId();
+        Integer userId = user.id();
         ExpenseRecord rec = expenseRecordRepository.findById(id)
                 .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "Record not found"));
         if (!rec.getUser().getUser_id().equals(userId)) {
@@ -337,14 +386,16 @@ public class ExpenseRecordController {
         return ResponseEntity.ok(response);
     }
 
-    private ExpenseRecordDTO toDTO(ExpenseRecord record) {
+    // records only ever belong to the caller: the username comes from the principal, so the
+    // user reference is never initialised (only its id is read)
+    private ExpenseRecordDTO toDTO(ExpenseRecord record, CurrentUser user) {
         ExpenseRecordDTO dto = new ExpenseRecordDTO();
         dto.setExpenseId(Long.valueOf(record.getExpenseId()));
 
         // User
         UserDTO userDTO = new UserDTO();
         userDTO.setId(record.getUser().getUser_id());
-        userDTO.setUsername(record.getUser().getUsername());
+        userDTO.setUsername(user.username());
         dto.setUser(userDTO);
 
         // Category
@@ -376,9 +427,8 @@ public class ExpenseRecordController {
     public ResponseEntity<List<ExpenseReportDTO>> getWeeklyReport(
             @RequestParam Integer year,
             @RequestParam Integer week,
-            HttpSession session) {
-        UserDTO user = (UserDTO) session.getAttribute("USER");
-        Integer userId = user.getId();
+            CurrentUser user) {
+        Integer userId = user.id();
         return ResponseEntity.ok(recordService.getWeeklyReport(userId, year, week));
     }
 
@@ -387,9 +437,8 @@ public class ExpenseRecordController {
     public ResponseEntity<List<ExpenseReportDTO>> getMonthlyReport(
             @RequestParam Integer year,
             @RequestParam Integer month,
-            HttpSession session) {
-        UserDTO user = (UserDTO) session.getAttribute("USER");
-        Integer userId = user.getId();
+            CurrentUser user) {
+        Integer userId = user.id();
         return ResponseEntity.ok(recordService.getMonthlyReport(userId, year, month));
     }
 
@@ -397,9 +446,8 @@ public class ExpenseRecordController {
     @GetMapping("/reports/yearly")
     public ResponseEntity<List<ExpenseReportDTO>> getYearlyReport(
             @RequestParam Integer year,
-            HttpSession session) {
-        UserDTO user = (UserDTO) session.getAttribute("USER");
-        Integer userId = user.getId();
+            CurrentUser user) {
+        Integer userId = user.id();
         return ResponseEntity.ok(recordService.getYearlyReport(userId, year));
     }
 
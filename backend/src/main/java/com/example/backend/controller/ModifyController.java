@@ -1,20 +1,17 @@
 package com.example.backend.controller;
 
 import com.example.backend.dto.ModifyUserDTO;
-import com.example.backend.dto.UserDTO;
 import com.example.backend.model.User;
+import com.example.backend.security.CurrentUser;
+import com.example.backend.service.AvatarService;
 import com.example.backend.service.ModifyService;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.multipart.MultipartFile;
-import jakarta.servlet.http.HttpSession;
 
 import java.io.IOException;
-import java.nio.file.Files;
-import java.nio.file.Path;
-import java.nio.file.Paths;
-import java.nio.file.StandardCopyOption;
 import java.time.LocalDateTime;
+import java.util.concurrent.CompletableFuture;
 
 
 @RestController
@@ -22,14 +19,16 @@ import java.time.LocalDateTime;
 public class ModifyController {
 
     private final ModifyService modifyService;
+    private final AvatarService avatarService;
 
-    public ModifyController(ModifyService modifyService) {
+    public ModifyController(ModifyService modifyService, AvatarService avatarService) {
         this.modifyService = modifyService;
+        this.avatarService = avatarService;
     }
 
     @PutMapping("/myself")
     public ResponseEntity<ModifyUserDTO> updateUser(
-            HttpSession session,
+            CurrentUser user,
             @RequestBody User updatedUser) {
         //{
         //    "id": 6,
@@ -39,44 +38,37 @@ public class ModifyController {
         //    "profilePictureUrl": "http://localhost:8080/picture/user_6_275850_1.jpg",
         //    "updatedAt": "2025-09-22T15:08:21.755413"
         //}
-        UserDTO userSession = (UserDTO) session.getAttribute("USER");
-        Integer userId = userSession.getId();
-        User user = modifyService.updateUser(userId, updatedUser);
-        ModifyUserDTO userDTO = toDTO(user);
+        Integer userId = user.id();
+        User saved = modifyService.updateUser(userId, updatedUser);
+        ModifyUserDTO userDTO = toDTO(saved);
         return ResponseEntity.ok(userDTO);
     }
 
     @PostMapping("/myself/picture")
-    public ResponseEntity<ModifyUserDTO> uploadAvatar(
-            HttpSession session,
+    public CompletableFuture<ResponseEntity<ModifyUserDTO>> uploadAvatar(
+            CurrentUser user,
             @RequestParam("picture_file") MultipartFile file) throws IOException {
         //{
         //    "id": 6,
         //    "username": "bob",
         //    "email": "bob@example.com",
         //    "phoneNumber": null,
-        //    "profilePictureUrl": "http://localhost:8080/picture/user_6_275850_1.jpg",
+        //    "profilePictureUrl": "http://localhost:8080/api/picture/3f1c9a0e5b7d2c4a8e6f1b3d5c7a9e0f-256.jpg",
         //    "updatedAt": "2025-09-22T15:08:21.755413"
         //}
+        // The upload is hashed while it streams to disk; resizing finishes on the avatar pool, not this thread.
+        // Other sizes: swap the "-256" suffix for any of avatarService.sizes().
+        Integer id = user.id();
+        return avatarService.store(file).thenApply(hash -> {
+            String fileUrl = "http://localhost:8080/api/picture/" + AvatarService.fileName(hash, avatarService.largest());
 
-        UserDTO userSession = (UserDTO) session.getAttribute("USER");
-        Integer id = userSession.getId();
-        String fileName = "user_" + id + "_" + file.getOriginalFilename();
-        Path uploadPath = Paths.get("uploads/picture");
-        Files.createDirectories(uploadPath);
-        Path filePath = uploadPath.resolve(fileName);
-        Files.copy(file.getInputStream(), filePath, StandardCopyOption.REPLACE_EXISTING);
-
-        String fileUrl = "http://localhost:8080/api/picture/" + fileName;
-
-        User updatedData = new User();
-        updatedData.setProfile_picture_url(fileUrl);
-        updatedData.setUpdated_at(LocalDateTime.now());
+            User updatedData = new User();
+            updatedData.setProfile_picture_url(fileUrl);
+            updatedData.setUpdated_at(LocalDateTime.now());
 
-        User updatedUser = modifyService.updateUser(id, updatedData);
-        ModifyUserDTO userDTO = toDTO(updatedUser);
-
-        return ResponseEntity.ok(userDTO);
+            User updatedUser = modifyService.updateUser(id, updatedData);
+            return ResponseEntity.ok(toDTO(updatedUser));
+        });
     }
 
     private ModifyUserDTO toDTO(User user) {
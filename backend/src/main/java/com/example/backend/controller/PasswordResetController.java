@@ -1,37 +1,39 @@
 package com.example.backend.controller;
 
+import com.example.backend.auth.LoginRateLimiter;
 import com.example.backend.dto.ChangePasswordDTO;
 import com.example.backend.dto.ResetPasswordConfirmDTO;
 import com.example.backend.dto.ResetPasswordRequestDTO;
 import com.example.backend.dto.SecurityQuestionResponseDTO;
-import com.example.backend.model.User;
-import com.example.backend.security.SessionUserResolver;
+import com.example.backend.security.CurrentUser;
 
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.server.ResponseStatusException;
 import jakarta.persistence.EntityNotFoundException;
+import jakarta.servlet.http.HttpServletRequest;
 
 import com.example.backend.service.PasswordResetService;
 
-import jakarta.servlet.http.HttpSession;
-
 @RestController
 @RequestMapping("/reset-password")
 public class PasswordResetController {
 
     private final PasswordResetService passwordResetService;
-    private final SessionUserResolver sessionUserResolver;
+    private final LoginRateLimiter rateLimiter;
 
-    public PasswordResetController(PasswordResetService passwordResetService, SessionUserResolver sessionUserResolver) {
+    public PasswordResetController(PasswordResetService passwordResetService, LoginRateLimiter rateLimiter) {
         this.passwordResetService = passwordResetService;
-        this.sessionUserResolver = sessionUserResolver;
+        this.rateLimiter = rateLimiter;
     }
 
     @PostMapping("/request")
-    public ResponseEntity<SecurityQuestionResponseDTO> requestQuestion(@RequestBody ResetPasswordRequestDTO dto) {
+    public ResponseEntity<SecurityQuestionResponseDTO> requestQuestion(@RequestBody ResetPasswordRequestDTO dto,
+                                                                     HttpServletRequest request) {
+        rateLimiter.acquire(dto.getIdentifier(), request.getRemoteAddr());
         try {
             SecurityQuestionResponseDTO question = passwordResetService.getSecurityQuestion(dto.getIdentifier());
             return ResponseEntity.ok(question);
@@ -41,9 +43,11 @@ public class PasswordResetController {
     }
 
     @PostMapping("/confirm")
-    public ResponseEntity<String> resetPassword(@RequestBody ResetPasswordConfirmDTO dto) {
+    public ResponseEntity<String> resetPassword(@RequestBody ResetPasswordConfirmDTO dto, HttpServletRequest request) {
+        rateLimiter.acquire(dto.getIdentifier(), request.getRemoteAddr());
         boolean success = passwordResetService.resetPassword(dto);
         if (success) {
+            rateLimiter.reset(dto.getIdentifier());
             return ResponseEntity.ok("Password reset successful");
         } else {
             return ResponseEntity.status(401).body("Security answer incorrect");
@@ -51,11 +55,13 @@ public class PasswordResetController {
     }
 
     @PostMapping("/change")
-    public ResponseEntity<String> changePassword(@RequestBody ChangePasswordDTO dto, HttpSession session) {
+    public ResponseEntity<String> changePassword(@RequestBody ChangePasswordDTO dto, CurrentUser user,
+                                                 HttpServletRequest request) {
+        // keyed by account, so a stolen session cannot be used to guess the current password
+        rateLimiter.acquire("#" + user.id(), request.getRemoteAddr());
         try {
-            User currentUser = sessionUserResolver.getCurrentUser(session);
             boolean success = passwordResetService.changePassword(
-                currentUser.getUser_id(), 
+                user.id(), 
                 dto.getCurrentPassword(), 
                 dto.getNewPassword()
             );
@@ -65,8 +71,8 @@ public class PasswordResetController {
             } else {
                 return ResponseEntity.status(401).body("Current password is incorrect");
             }
-        } catch (IllegalStateException e) {
-            return ResponseEntity.status(401).body("User not logged in");
+        } catch (ResponseStatusException e) {
+            throw e;
         } catch (Exception e) {
             return ResponseEntity.status(500).body("An error occurred: " + e.getMessage());
         }
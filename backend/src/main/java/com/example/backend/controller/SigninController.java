@@ -1,13 +1,18 @@
 package com.example.backend.controller;
 
 import com.example.backend.auth.AuthService;
+import com.example.backend.auth.LoginRateLimiter;
 import com.example.backend.auth.LoginRequest;
 import com.example.backend.auth.LoginResponse;
 import com.example.backend.auth.SessionKeys;
 import com.example.backend.dto.ModifyUserDTO;
 import com.example.backend.dto.UserDTO;
 import com.example.backend.model.User;
+import com.example.backend.security.CurrentUser;
+import com.example.backend.security.SessionTokenService;
+import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpSession;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 import com.example.backend.repository.UserRepository;
@@ -20,51 +25,79 @@ public class SigninController {
 
     private final AuthService authService;
     private final UserRepository userRepository;
+    private final SessionTokenService tokens;
+    private final LoginRateLimiter rateLimiter;
 
-    public SigninController(AuthService authService, UserRepository userRepository) {
+    public SigninController(AuthService authService, UserRepository userRepository, SessionTokenService tokens,
+                            LoginRateLimiter rateLimiter) {
         this.authService = authService;
         this.userRepository = userRepository;
+        this.tokens = tokens;
+        this.rateLimiter = rateLimiter;
     }
 
     @PostMapping("/login")
-    public ResponseEntity<LoginResponse> login(@RequestBody LoginRequest body, HttpSession session) {
-        AuthService.AuthResult result = authService.authenticate(body.getIdentifier(), body.getPassword());
+    public ResponseEntity<LoginResponse> login(@RequestBody LoginRequest body, HttpServletRequest request) {
+        AuthService.AuthResult result = authenticate(body, request);
 
         if (!result.isSuccess()) {
             return ResponseEntity.status(401).body(new LoginResponse(result.getMessage()));
         }
 
-        User user = result.getUser();
-        UserDTO dto = new UserDTO(user.getUser_id(), user.getUsername());
-        session.setAttribute(SessionKeys.USER_DTO, dto);
-
-        return ResponseEntity.ok(new LoginResponse("Login successful."));
+        LoginResponse response = new LoginResponse("Login successful.");
+        if (tokens.enabled()) {
+            String token = tokens.issue(new CurrentUser(result.getUser().getUser_id(), result.getUser().getUsername()));
+            response.setToken(token);
+            return ResponseEntity.ok()
+                    .header(HttpHeaders.SET_COOKIE, tokens.cookie(token, request.getContextPath()).toString())
+                    .body(response);
+        }
+        signIn(result.getUser(), request);
+        return ResponseEntity.ok(response);
     }
 
     @PostMapping("/login-and-redirect")
-    public ResponseEntity<Void> loginAndRedirect(@RequestBody LoginRequest body, HttpSession session) {
-        AuthService.AuthResult result = authService.authenticate(body.getIdentifier(), body.getPassword());
+    public ResponseEntity<Void> loginAndRedirect(@RequestBody LoginRequest body, HttpServletRequest request) {
+        AuthService.AuthResult result = authenticate(body, request);
 
         if (!result.isSuccess()) {
             return ResponseEntity.status(401).build();
         }
 
-        User user = result.getUser();
-        UserDTO dto = new UserDTO(user.getUser_id(), user.getUsername());
-        session.setAttribute(SessionKeys.USER_DTO, dto);
+        var redirect = ResponseEntity.status(302).header("Location", "/home");
+        if (tokens.enabled()) {
+            String token = tokens.issue(new CurrentUser(result.getUser().getUser_id(), result.getUser().getUsername()));
+            redirect.header(HttpHeaders.SET_COOKIE, tokens.cookie(token, request.getContextPath()).toString());
+        } else {
+            signIn(result.getUser(), request);
+        }
+        return redirect.build();
+    }
+
+    // throttled before any password hashing; a successful login clears the identifier's failures
+    private AuthService.AuthResult authenticate(LoginRequest body, HttpServletRequest request) {
+        rateLimiter.acquire(body.getIdentifier(), request.getRemoteAddr());
+        AuthService.AuthResult result = authService.authenticate(body.getIdentifier(), body.getPassword());
+        if (result.isSuccess()) {
+            rateLimiter.reset(body.getIdentifier());
+        }
+        return result;
+    }
 
-        return ResponseEntity.status(302).header("Location", "/home").build();
+    // a session that existed before login gets a fresh id, so an id planted beforehand is useless afterwards
+    private static void signIn(User user, HttpServletRequest request) {
+        UserDTO dto = new UserDTO(user.getUser_id(), user.getUsername());
+        if (request.getSession(false) != null) {
+            request.changeSessionId();
+        }
+        request.getSession().setAttribute(SessionKeys.USER_DTO, dto);
     }
 
 
 
     @GetMapping("/me")
-    public ResponseEntity<ModifyUserDTO> getCurrentUser(HttpSession session) {
-        UserDTO dto = (UserDTO) session.getAttribute(SessionKeys.USER_DTO);
-        if (dto == null) {
-            return ResponseEntity.status(401).build();
-        }
-        User user = userRepository.findById(dto.getId())
+    public ResponseEntity<ModifyUserDTO> getCurrentUser(CurrentUser principal) {
+        User user = userRepository.findById(principal.id())
                 .orElseThrow(() -> new RuntimeException("User not found"));
         ModifyUserDTO modifyUserDTO = new ModifyUserDTO();
         modifyUserDTO.setId(user.getUser_id());
@@ -79,8 +112,17 @@ public class SigninController {
 
 
     @PostMapping("/logout")
-    public ResponseEntity<LoginResponse> logout(HttpSession session) {
-        session.invalidate();
+    public ResponseEntity<LoginResponse> logout(HttpServletRequest request) {
+        if (tokens.enabled()) {
+            // a token stays valid until it expires; logging out only drops the client's copy
+            return ResponseEntity.ok()
+                    .header(HttpHeaders.SET_COOKIE, tokens.clearCookie(request.getContextPath()).toString())
+                    .body(new LoginResponse("Logged out."));
+        }
+        HttpSession session = request.getSession(false);
+        if (session != null) {
+            session.invalidate();
+        }
         return ResponseEntity.ok(new LoginResponse("Logged out."));
     }
 }
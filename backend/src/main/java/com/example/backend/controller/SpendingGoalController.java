@@ -4,9 +4,9 @@ import com.example.backend.dto.CreateSpendingGoalRequest;
 import com.example.backend.dto.SpendingGoalProgressDTO;
 import com.example.backend.dto.SpendingGoalResponse;
 import com.example.backend.model.User;
+import com.example.backend.security.CurrentUser;
 import com.example.backend.security.SessionUserResolver;
 import com.example.backend.service.SpendingGoalService;
-import jakarta.servlet.http.HttpSession;
 import jakarta.validation.Valid;
 import lombok.Data;
 import lombok.RequiredArgsConstructor;
@@ -25,18 +25,18 @@ public class SpendingGoalController {
     private final SessionUserResolver sessionUserResolver;
 
     @GetMapping
-    public ResponseEntity<List<SpendingGoalResponse>> listActiveGoals(HttpSession session) {
-        User user = sessionUserResolver.getCurrentUser(session);
+    public ResponseEntity<List<SpendingGoalResponse>> listActiveGoals(CurrentUser principal) {
+        User user = sessionUserResolver.getReference(principal);
         var data = goalService.listActiveGoals(user);
         return ResponseEntity.ok(data);
     }
 
     @PostMapping
     public ResponseEntity<ApiMessage<SpendingGoalResponse>> createGoal(
-            HttpSession session,
+            CurrentUser principal,
             @Valid @RequestBody CreateSpendingGoalRequest req
     ) {
-        User user = sessionUserResolver.getCurrentUser(session);
+        User user = sessionUserResolver.getReference(principal);
         var created = goalService.createGoal(user, req);
         return ResponseEntity.ok(ApiMessage.success("Goal created successfully.", created));
     }
@@ -53,17 +53,17 @@ public class SpendingGoalController {
 
     // --------- track progress ---------
     @GetMapping("/progress")
-    public List<SpendingGoalProgressDTO> listProgress(HttpSession session) {
-        User user = sessionUserResolver.getCurrentUser(session);
+    public List<SpendingGoalProgressDTO> listProgress(CurrentUser principal) {
+        User user = sessionUserResolver.getReference(principal);
         return goalService.listProgressForActiveGoals(user);
     }
 
     @GetMapping("/{goalId}/progress")
     public SpendingGoalProgressDTO getProgress(
             @PathVariable Long goalId,
-            HttpSession session
+            CurrentUser principal
     ) {
-        User user = sessionUserResolver.getCurrentUser(session);
+        User user = sessionUserResolver.getReference(principal);
         return goalService.getProgressForGoal(goalId, user);
     }
 
@@ -0,0 +1,12 @@
+package com.example.backend.dto;
+
+import java.time.LocalDateTime;
+
+/** One earned achievement as shown on the dashboard; built directly by the repository query. */
+public record AchievementDTO(
+        String code,
+        String title,
+        String description,
+        String icon,
+        LocalDateTime earnedAt
+) {}
@@ -0,0 +1,10 @@
+package com.example.backend.dto;
+
+import java.math.BigDecimal;
+
+public record SnapshotCategoryDTO(
+        Integer categoryId,
+        String categoryName,
+        BigDecimal amount,
+        BigDecimal pct               // share of the period's total, 0..1
+) {}
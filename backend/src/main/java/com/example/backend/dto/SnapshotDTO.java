@@ -6,22 +6,25 @@ import lombok.Data;
 import lombok.NoArgsConstructor;
 
 import java.math.BigDecimal;
+import java.util.List;
 
 @Data
 @AllArgsConstructor
 @NoArgsConstructor
 public class SnapshotDTO {
     private Long id;
-    private String totalsByCategoryJson; // [{catId,catName,amount,pct}]
+    private String month; // YYYY-MM
+    private List<SnapshotCategoryDTO> totalsByCategory;
     private BigDecimal totalSpending;
     private String currency;
 
-    public static SnapshotDTO toDTO(FeatureSnapshot featureSnapshot) {
+    public static SnapshotDTO toDTO(FeatureSnapshot featureSnapshot, List<SnapshotCategoryDTO> totalsByCategory) {
         SnapshotDTO snapshotDTO = new SnapshotDTO();
         snapshotDTO.setId(featureSnapshot.getSnapshotId());
+        snapshotDTO.setMonth(featureSnapshot.getMonth());
         snapshotDTO.setCurrency(featureSnapshot.getCurrency());
         snapshotDTO.setTotalSpending(featureSnapshot.getTotalSpending());
-        snapshotDTO.setTotalsByCategoryJson(featureSnapshot.getTotalsByCategoryJson());
+        snapshotDTO.setTotalsByCategory(totalsByCategory);
         return snapshotDTO;
     }
 }
@@ -0,0 +1,13 @@
+package com.example.backend.dto;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+public record SnapshotRangeDTO(
+        String from,                              // YYYY-MM, inclusive
+        String to,                                // YYYY-MM, inclusive
+        String currency,
+        BigDecimal totalSpending,                 // across every month in range
+        List<SnapshotDTO> months,                 // months without a snapshot are omitted
+        List<SnapshotCategoryDTO> totalsByCategory
+) {}
@@ -1,34 +1,46 @@
 package com.example.backend.init;
 
-import com.example.backend.model.Achievement;
 import com.example.backend.repository.AchievementRepository;
+import com.example.backend.service.AchievementCatalog;
 import org.springframework.boot.CommandLineRunner;
+import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.stereotype.Component;
 
-import java.util.List;
-
+/**
+ * Makes the {@code achievement} table match {@link AchievementCatalog}, and guarantees the unique
+ * indexes that grants rely on. {@code ddl-auto=update} cannot create a unique index over rows that
+ * already contain duplicates, so duplicate grants left by the old check-then-insert are removed first.
+ */
 @Component
 public class AchievementInitializer implements CommandLineRunner {
 
     private final AchievementRepository achievementRepository;
+    private final AchievementCatalog catalog;
+    private final JdbcTemplate jdbc;
 
-    public AchievementInitializer(AchievementRepository achievementRepository) {
+    public AchievementInitializer(AchievementRepository achievementRepository,
+                                  AchievementCatalog catalog,
+                                  JdbcTemplate jdbc) {
         this.achievementRepository = achievementRepository;
+        this.catalog = catalog;
+        this.jdbc = jdbc;
     }
 
     @Override
     public void run(String... args) {
-        List<Achievement> achievementsToInit = List.of(
-                new Achievement("ACCOUNT_CREATED", "Welcome Aboard!", "You’ve successfully created your account.", "🏅"),
-                new Achievement("FIRST_EXPENSE", "First Spend!", "You’ve logged your first expense.", "💸"),
-                new Achievement("TEN_RECORDS", "Getting Serious", "You’ve added 10 records!", "📈"),
-                new Achievement("SET_GOAL", "Goal Getter", "You’ve set your first spending goal.", "🎯")
-        );
+        int duplicates = jdbc.update("""
+                DELETE FROM user_achievement a USING user_achievement b
+                 WHERE a.user_id = b.user_id AND a.achievement_id = b.achievement_id AND a.id > b.id
+                """);
+        if (duplicates > 0) {
+            System.out.println("✅ Removed " + duplicates + " duplicate user achievements");
+        }
+        jdbc.execute("CREATE UNIQUE INDEX IF NOT EXISTS ux_user_achievement ON user_achievement (user_id, achievement_id)");
+        jdbc.execute("CREATE UNIQUE INDEX IF NOT EXISTS ux_achievement_code ON achievement (code)");
 
-        for (Achievement a : achievementsToInit) {
-            if (!achievementRepository.existsByCode(a.getCode())) {
-                achievementRepository.save(a);
-                System.out.println("✅ Insert achievement: " + a.getCode());
+        for (AchievementCatalog.Definition a : catalog.all()) {
+            if (achievementRepository.upsert(a.code(), a.title(), a.description(), a.icon()) > 0) {
+                System.out.println("✅ Upsert achievement: " + a.code());
             }
         }
     }
@@ -0,0 +1,50 @@
+package com.example.backend.init;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.CommandLineRunner;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * One-off copy from the old {@code feature_snapshot.totals_by_category} JSON text to
+ * {@code feature_snapshot_category} rows. {@code ddl-auto=update} creates the new table but never
+ * relaxes the old NOT NULL column, which would make every snapshot insert fail. The column is kept,
+ * nullable, so the previous release can still be rolled back to; drop it in a later release.
+ * Does nothing once the column is nullable or gone.
+ */
+@Component
+public class FeatureSnapshotMigration implements CommandLineRunner {
+
+    private static final Logger log = LoggerFactory.getLogger(FeatureSnapshotMigration.class);
+
+    private final JdbcTemplate jdbc;
+    private final TransactionTemplate tx;
+
+    public FeatureSnapshotMigration(JdbcTemplate jdbc, TransactionTemplate tx) {
+        this.jdbc = jdbc;
+        this.tx = tx;
+    }
+
+    @Override
+    public void run(String... args) {
+        Integer legacy = jdbc.queryForObject("""
+                SELECT count(*) FROM information_schema.columns
+                 WHERE table_name = 'feature_snapshot' AND column_name = 'totals_by_category'
+                   AND is_nullable = 'NO'
+                """, Integer.class);
+        if (legacy == null || legacy == 0) return;
+
+        tx.executeWithoutResult(status -> {
+            int moved = jdbc.update("""
+                    INSERT INTO feature_snapshot_category (snapshot_id, category_id, category_name, amount, pct)
+                    SELECT s.snapshot_id, (e->>'catId')::int, e->>'catName', (e->>'amount')::numeric, (e->>'pct')::numeric
+                      FROM feature_snapshot s, jsonb_array_elements(s.totals_by_category::jsonb) e
+                    ON CONFLICT (snapshot_id, category_id) DO NOTHING
+                    """);
+            jdbc.execute("ALTER TABLE feature_snapshot ALTER COLUMN totals_by_category DROP NOT NULL");
+            log.info("Copied {} snapshot category rows out of totals_by_category", moved);
+        });
+    }
+}
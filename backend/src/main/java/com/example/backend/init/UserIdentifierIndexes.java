@@ -0,0 +1,41 @@
+package com.example.backend.init;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.CommandLineRunner;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+/**
+ * Case-insensitive unique indexes behind {@code UserRepository.findByIdentifier} and registration's
+ * duplicate detection. {@code ddl-auto=update} cannot express an index on {@code lower(...)}.
+ * Accounts that already differ only by case cannot be merged automatically; the index is then
+ * skipped with a warning and lookups still work, just without the uniqueness guarantee.
+ */
+@Component
+public class UserIdentifierIndexes implements CommandLineRunner {
+
+    private static final Logger log = LoggerFactory.getLogger(UserIdentifierIndexes.class);
+
+    private final JdbcTemplate jdbc;
+
+    public UserIdentifierIndexes(JdbcTemplate jdbc) {
+        this.jdbc = jdbc;
+    }
+
+    @Override
+    public void run(String... args) {
+        create("ux_users_username_lower", "username");
+        create("ux_users_email_lower", "email");
+    }
+
+    private void create(String index, String column) {
+        try {
+            jdbc.execute("CREATE UNIQUE INDEX IF NOT EXISTS " + index + " ON users (lower(" + column + "))");
+        } catch (DataAccessException e) {
+            log.warn("Could not create {} on users.{}; lookups work but case-insensitive uniqueness is not enforced",
+                    index, column, e);
+        }
+    }
+}
@@ -0,0 +1,24 @@
+package com.example.backend.init;
+
+import com.example.backend.repository.UserStatsRepository;
+import org.springframework.boot.CommandLineRunner;
+import org.springframework.stereotype.Component;
+
+/** Creates user_stats rows for users who registered before the table existed. */
+@Component
+public class UserStatsInitializer implements CommandLineRunner {
+
+    private final UserStatsRepository userStatsRepository;
+
+    public UserStatsInitializer(UserStatsRepository userStatsRepository) {
+        this.userStatsRepository = userStatsRepository;
+    }
+
+    @Override
+    public void run(String... args) {
+        int seeded = userStatsRepository.backfillMissing();
+        if (seeded > 0) {
+            System.out.println("✅ Seeded user_stats for " + seeded + " users");
+        }
+    }
+}
@@ -4,7 +4,8 @@ import jakarta.persistence.*;
 import lombok.*;
 
 @Entity
-@Table(name = "achievement")
+@Table(name = "achievement",
+        indexes = @Index(name = "ux_achievement_code", columnList = "code", unique = true))
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
@@ -33,6 +33,9 @@ public class AiRecommendation {
     @Column(name = "content", columnDefinition = "TEXT", nullable = false)
     private String content;
 
+    @Column(name = "fingerprint", length = 64) // SHA-256 of totals JSON + language
+    private String fingerprint;
+
     @CreationTimestamp
     @Column(name = "created_at", nullable = false, updatable = false)
     private OffsetDateTime createdAt;
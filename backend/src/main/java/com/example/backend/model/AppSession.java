@@ -0,0 +1,35 @@
+package com.example.backend.model;
+
+import jakarta.persistence.*;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+/**
+ * Table definition for {@code JdbcSessionStore}; mapped so {@code ddl-auto} creates it like every other table.
+ * The store itself reads and writes it with plain SQL. Times are epoch milliseconds.
+ */
+@Entity
+@Table(name = "app_session",
+        indexes = @Index(name = "ix_app_session_last_accessed", columnList = "last_accessed_at"))
+@Getter @Setter
+@NoArgsConstructor
+public class AppSession {
+
+    @Id
+    @Column(name = "id", length = 64)
+    private String id;
+
+    @Column(name = "created_at", nullable = false)
+    private long createdAt;
+
+    @Column(name = "last_accessed_at", nullable = false)
+    private long lastAccessedAt;
+
+    @Column(name = "max_inactive_seconds", nullable = false)
+    private int maxInactiveSeconds;
+
+    /** Encoded by {@code SessionCodec}. */
+    @Column(name = "attributes")
+    private byte[] attributes;
+}
@@ -18,8 +18,11 @@ public class ExpenseRecord {
     @Column(name = "expense_id")
     private Integer expenseId;
 
-    @ManyToOne
+    // only the id is ever read; lazy keeps listing a user's records from selecting the users row
+    @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "user_id", nullable = false)
+    @ToString.Exclude
+    @EqualsAndHashCode.Exclude
     private User user;
 
     @ManyToOne
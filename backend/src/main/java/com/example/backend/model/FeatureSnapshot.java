@@ -26,15 +26,15 @@ public class FeatureSnapshot {
     @Column(name = "month", nullable = false, length = 7) // YYYY-MM
     private String month;
 
-    @Column(name = "totals_by_category", columnDefinition = "TEXT", nullable = false)
-    private String totalsByCategoryJson; // [{catId,catName,amount,pct}]
-
     @Column(name = "total_spending", nullable = false)
     private BigDecimal totalSpending;
 
     @Column(name = "currency", nullable = false, length = 8)
     private String currency;
 
+    @Column(name = "fingerprint", length = 64) // SHA-256 of totals JSON + language
+    private String fingerprint;
+
     @CreationTimestamp
     @Column(name = "created_at", nullable = false, updatable = false)
     private OffsetDateTime createdAt;
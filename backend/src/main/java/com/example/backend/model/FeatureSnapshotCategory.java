@@ -0,0 +1,36 @@
+package com.example.backend.model;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.math.BigDecimal;
+
+/** One category's share of a {@link FeatureSnapshot}; replaces the old totals_by_category JSON text. */
+@Entity
+@Table(name = "feature_snapshot_category",
+        uniqueConstraints = @UniqueConstraint(columnNames = {"snapshot_id","category_id"}))
+@Data
+@Setter
+@Getter
+public class FeatureSnapshotCategory {
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @Column(name = "id", nullable = false, updatable = false)
+    private Long id;
+
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "snapshot_id", nullable = false)
+    private FeatureSnapshot snapshot;
+
+    @Column(name = "category_id", nullable = false)
+    private Integer categoryId;
+
+    @Column(name = "category_name", nullable = false)
+    private String categoryName; // as it was named when the snapshot was taken
+
+    @Column(name = "amount", nullable = false, precision = 12, scale = 2)
+    private BigDecimal amount;
+
+    @Column(name = "pct", nullable = false, precision = 5, scale = 4)
+    private BigDecimal pct; // share of the month's total, 0..1
+}
@@ -6,7 +6,8 @@ import lombok.*;
 import java.time.LocalDateTime;
 
 @Entity
-@Table(name = "user_achievement")
+@Table(name = "user_achievement",
+        indexes = @Index(name = "ux_user_achievement", columnList = "user_id, achievement_id", unique = true))
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
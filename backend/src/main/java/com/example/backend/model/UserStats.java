@@ -0,0 +1,50 @@
+package com.example.backend.model;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.time.LocalDate;
+import java.time.OffsetDateTime;
+
+/**
+ * Running per-user counters that achievement rules are evaluated against.
+ * Maintained by atomic upserts in {@code UserStatsRepository}; never recomputed from history on a write.
+ */
+@Entity
+@Table(name = "user_stats")
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class UserStats {
+
+    @Id
+    @Column(name = "user_id", nullable = false, updatable = false)
+    private Integer userId;
+
+    @Column(name = "record_count", nullable = false)
+    private long recordCount;
+
+    @Column(name = "goal_count", nullable = false)
+    private long goalCount;
+
+    /** Consecutive days, ending at {@link #lastExpenseDate}, with at least one expense. */
+    @Column(name = "current_streak", nullable = false)
+    private int currentStreak;
+
+    @Column(name = "longest_streak", nullable = false)
+    private int longestStreak;
+
+    @Column(name = "last_expense_date")
+    private LocalDate lastExpenseDate;
+
+    /** Completed months in which every active monthly goal was kept; see {@code GoalReviewService}. */
+    @Column(name = "under_budget_months", nullable = false, columnDefinition = "integer not null default 0")
+    private int underBudgetMonths;
+
+    /** Last month (YYYY-MM) counted in {@link #underBudgetMonths}, so a re-run never counts it twice. */
+    @Column(name = "last_budget_month", length = 7)
+    private String lastBudgetMonth;
+
+    @Column(name = "updated_at", nullable = false)
+    private OffsetDateTime updatedAt;
+}
@@ -2,10 +2,26 @@ package com.example.backend.repository;
 
 import com.example.backend.model.Achievement;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
 @Repository
 public interface AchievementRepository extends JpaRepository<Achievement, Integer> {
-    Achievement findByCode(String code);
-    boolean existsByCode(String code);
+
+    /** Inserts or refreshes one catalog entry; returns 0 when the stored row already matches. */
+    @Transactional
+    @Modifying
+    @Query(value = """
+        INSERT INTO achievement (code, title, description, icon)
+        VALUES (:code, :title, :description, :icon)
+        ON CONFLICT (code) DO UPDATE
+           SET title = EXCLUDED.title, description = EXCLUDED.description, icon = EXCLUDED.icon
+         WHERE (achievement.title, achievement.description, achievement.icon)
+               IS DISTINCT FROM (EXCLUDED.title, EXCLUDED.description, EXCLUDED.icon)
+        """, nativeQuery = true)
+    int upsert(@Param("code") String code, @Param("title") String title,
+               @Param("description") String description, @Param("icon") String icon);
 }
@@ -3,9 +3,28 @@ package com.example.backend.repository;
 import com.example.backend.model.AiRecommendation;
 import com.example.backend.model.User;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 
 import java.util.Optional;
 
 public interface AiRecommendationRepository extends JpaRepository<AiRecommendation, Long> {
     Optional<AiRecommendation> findByUserAndMonth(User user, String month);
+
+    @Modifying
+    @Query(value = """
+        INSERT INTO ai_recommendation (user_id, month, language, content, fingerprint, created_at, updated_at)
+        VALUES (:userId, :month, :language, :content, :fingerprint, now(), now())
+        ON CONFLICT (user_id, month) DO UPDATE
+           SET language    = EXCLUDED.language,
+               content     = EXCLUDED.content,
+               fingerprint = EXCLUDED.fingerprint,
+               updated_at  = now()
+        """, nativeQuery = true)
+    int upsert(@Param("userId") Integer userId,
+               @Param("month") String month,
+               @Param("language") String language,
+               @Param("content") String content,
+               @Param("fingerprint") String fingerprint);
 }
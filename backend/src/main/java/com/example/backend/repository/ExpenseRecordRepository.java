@@ -145,6 +145,35 @@ public interface ExpenseRecordRepository extends JpaRepository<ExpenseRecord, In
             @Param("year") Integer year,
             @Param("month") Integer month);
 
+    @Query("select c.categoryId as categoryId, c.categoryName as categoryName, sum(e.amount) as amount " +
+            "from ExpenseRecord e join e.category c " +
+            "where e.user.user_id = :userId " +
+            "and e.expenseDate >= :fromDate " +
+            "and e.expenseDate < :toDate " +
+            "group by c.categoryId, c.categoryName")
+    java.util.List<CategorySpend> findCategorySpendBetween(
+            @Param("userId") Integer userId,
+            @Param("fromDate") LocalDate fromDate,
+            @Param("toDate") LocalDate toDate);
+
+    interface UserCategorySpend extends CategorySpend {
+        Integer getUserId();
+    }
+
+    // Every user's per-category totals in one pass (month-end advice batch)
+    @Query("select e.user.user_id as userId, c.categoryId as categoryId, c.categoryName as categoryName, " +
+            "sum(e.amount) as amount " +
+            "from ExpenseRecord e join e.category c " +
+            "where e.expenseDate >= :fromDate " +
+            "and e.expenseDate < :toDate " +
+            "group by e.user.user_id, c.categoryId, c.categoryName")
+    java.util.List<UserCategorySpend> findUserCategorySpendBetween(
+            @Param("fromDate") LocalDate fromDate,
+            @Param("toDate") LocalDate toDate);
+
+    @Query("select min(e.expenseDate) from ExpenseRecord e")
+    LocalDate findEarliestExpenseDate();
+
 //     track spending goal
     @Query("""
         SELECT COALESCE(SUM(e.amount), 0)
@@ -159,8 +188,4 @@ public interface ExpenseRecordRepository extends JpaRepository<ExpenseRecord, In
             @Param("end") LocalDate end,
             @Param("categoryId") Integer categoryId
     );
-
-    @Query("SELECT COUNT(e) FROM ExpenseRecord e WHERE e.user.user_id = :userId")
-    long countRecordsByUserId(@Param("userId") Integer userId);
-    
 }
@@ -0,0 +1,51 @@
+package com.example.backend.repository;
+
+import com.example.backend.model.FeatureSnapshotCategory;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+public interface FeatureSnapshotCategoryRepository extends JpaRepository<FeatureSnapshotCategory, Long> {
+
+    @Query("select c from FeatureSnapshotCategory c join fetch c.snapshot s " +
+            "where s.user.user_id = :userId and s.month between :from and :to " +
+            "order by s.month, c.categoryId")
+    List<FeatureSnapshotCategory> findForUserBetween(@Param("userId") Integer userId,
+                                                     @Param("from") String from,
+                                                     @Param("to") String to);
+
+    /** Per-category totals over a month range ("YYYY-MM", both inclusive), summed in SQL. */
+    @Query("select c.categoryId as categoryId, max(c.categoryName) as categoryName, sum(c.amount) as amount " +
+            "from FeatureSnapshotCategory c join c.snapshot s " +
+            "where s.user.user_id = :userId and s.month between :from and :to " +
+            "group by c.categoryId " +
+            "order by c.categoryId")
+    List<ExpenseRecordRepository.CategorySpend> sumForUserBetween(@Param("userId") Integer userId,
+                                                                  @Param("from") String from,
+                                                                  @Param("to") String to);
+
+    @Modifying
+    @Query(value = """
+        DELETE FROM feature_snapshot_category
+         WHERE snapshot_id IN (SELECT snapshot_id FROM feature_snapshot WHERE user_id = :userId AND month = :month)
+        """, nativeQuery = true)
+    int deleteForSnapshot(@Param("userId") Integer userId, @Param("month") String month);
+
+    @Modifying
+    @Query(value = """
+        INSERT INTO feature_snapshot_category (snapshot_id, category_id, category_name, amount, pct)
+        SELECT s.snapshot_id, :categoryId, :categoryName, :amount, :pct
+          FROM feature_snapshot s
+         WHERE s.user_id = :userId AND s.month = :month
+        """, nativeQuery = true)
+    int insertForSnapshot(@Param("userId") Integer userId,
+                          @Param("month") String month,
+                          @Param("categoryId") Integer categoryId,
+                          @Param("categoryName") String categoryName,
+                          @Param("amount") BigDecimal amount,
+                          @Param("pct") BigDecimal pct);
+}
@@ -3,9 +3,50 @@ package com.example.backend.repository;
 import com.example.backend.model.FeatureSnapshot;
 import com.example.backend.model.User;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 
+import java.math.BigDecimal;
+import java.util.List;
 import java.util.Optional;
 
 public interface FeatureSnapshotRepository extends JpaRepository<FeatureSnapshot, Long> {
     Optional<FeatureSnapshot> findByUserAndMonth(User user, String month);
+
+    List<FeatureSnapshot> findByUserAndMonthBetweenOrderByMonthAsc(User user, String from, String to);
+
+    @Query("select s.user.user_id from FeatureSnapshot s where s.month = :month")
+    List<Integer> findUserIdsByMonth(@Param("month") String month);
+
+    /**
+     * Serialises snapshot writes for one user's month until the surrounding transaction ends.
+     * An advisory lock rather than a row lock, because the month's row may not exist yet.
+     */
+    @Query(value = "SELECT 1 FROM (SELECT pg_advisory_xact_lock(:userId, :monthKey)) l", nativeQuery = true)
+    int lockMonth(@Param("userId") Integer userId, @Param("monthKey") int monthKey);
+
+    @Modifying
+    @Query(value = "DELETE FROM feature_snapshot WHERE user_id = :userId AND month = :month", nativeQuery = true)
+    int deleteForMonth(@Param("userId") Integer userId, @Param("month") String month);
+
+    /**
+     * One round trip, no prior read; rows whose fingerprint already matches are left untouched.
+     * @return 1 if the snapshot was inserted or changed, 0 if it was already current
+     */
+    @Modifying
+    @Query(value = """
+        INSERT INTO feature_snapshot (user_id, month, total_spending, currency, fingerprint, created_at)
+        VALUES (:userId, :month, :total, :currency, :fingerprint, now())
+        ON CONFLICT (user_id, month) DO UPDATE
+           SET total_spending = EXCLUDED.total_spending,
+               currency       = EXCLUDED.currency,
+               fingerprint    = EXCLUDED.fingerprint
+         WHERE feature_snapshot.fingerprint IS DISTINCT FROM EXCLUDED.fingerprint
+        """, nativeQuery = true)
+    int upsert(@Param("userId") Integer userId,
+               @Param("month") String month,
+               @Param("total") BigDecimal total,
+               @Param("currency") String currency,
+               @Param("fingerprint") String fingerprint);
 }
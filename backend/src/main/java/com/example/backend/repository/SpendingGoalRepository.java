@@ -7,6 +7,7 @@ import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 
+import java.time.LocalDate;
 import java.util.List;
 import java.util.Optional;
 
@@ -22,6 +23,20 @@ public interface SpendingGoalRepository extends JpaRepository<SpendingGoal, Long
             User user, Integer categoryId, GoalPeriod period
     );
 
-    @Query("SELECT COUNT(g) FROM SpendingGoal g WHERE g.user.user_id = :userId")
-    long countGoalsByUserId(@Param("userId") Integer userId);
+    List<SpendingGoal> findByActiveTrueAndPeriod(GoalPeriod period);
+
+    /** Users who kept every monthly goal that was active for the whole of [from, to). */
+    @Query(value = """
+        SELECT g.user_id
+          FROM spending_goals g
+          CROSS JOIN LATERAL (
+                SELECT COALESCE(sum(e.amount), 0) AS spent
+                  FROM expense_record e
+                 WHERE e.user_id = g.user_id AND e.category_id = g.category_id
+                   AND e.expense_date >= :from AND e.expense_date < :to) s
+         WHERE g.active AND g.period = 'MONTHLY' AND g.start_date <= :from
+         GROUP BY g.user_id
+        HAVING bool_and(s.spent <= g.target_amount)
+        """, nativeQuery = true)
+    List<Integer> findUserIdsWithinMonthlyGoals(@Param("from") LocalDate from, @Param("to") LocalDate to);
 }
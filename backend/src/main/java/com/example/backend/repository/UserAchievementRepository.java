@@ -1,13 +1,17 @@
 package com.example.backend.repository;
 
+import com.example.backend.dto.AchievementDTO;
 import com.example.backend.model.UserAchievement;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
-import java.util.Optional;
 
 @Repository
 public interface UserAchievementRepository extends JpaRepository<UserAchievement, Integer> {
@@ -15,7 +19,37 @@ public interface UserAchievementRepository extends JpaRepository<UserAchievement
     @Query("SELECT ua FROM UserAchievement ua WHERE ua.user.user_id = :userId")
     List<UserAchievement> findByUserId(@Param("userId") Integer userId);
 
-    @Query("SELECT ua FROM UserAchievement ua WHERE ua.user.user_id = :userId AND ua.achievement.code = :code")
-    Optional<UserAchievement> findByUserIdAndAchievementCode(@Param("userId") Integer userId,
-                                                             @Param("code") String code);
+    @Query("""
+        SELECT new com.example.backend.dto.AchievementDTO(a.code, a.title, a.description, a.icon, ua.earnedAt)
+          FROM UserAchievement ua JOIN ua.achievement a
+         WHERE ua.user.user_id = :userId
+         ORDER BY ua.earnedAt DESC
+        """)
+    List<AchievementDTO> findEarnedByUserId(@Param("userId") Integer userId);
+
+    interface EarnedStamp {
+        LocalDateTime getLatest();
+        long getCount();
+    }
+
+    /** Latest grant time and number of grants; together they change whenever the user's list does. */
+    @Query("SELECT max(ua.earnedAt) AS latest, count(ua) AS count FROM UserAchievement ua WHERE ua.user.user_id = :userId")
+    EarnedStamp findEarnedStamp(@Param("userId") Integer userId);
+
+    /**
+     * Grants every listed achievement the user does not hold yet, in one statement.
+     * Relies on the unique index on (user_id, achievement_id); already-earned codes are skipped by the database.
+     *
+     * @return number of newly granted achievements
+     */
+    @Transactional
+    @Modifying
+    @Query(value = """
+        INSERT INTO user_achievement (user_id, achievement_id, earned, earned_at)
+        SELECT :userId, a.id, true, LOCALTIMESTAMP
+          FROM achievement a
+         WHERE a.code IN (:codes)
+        ON CONFLICT (user_id, achievement_id) DO NOTHING
+        """, nativeQuery = true)
+    int grant(@Param("userId") Integer userId, @Param("codes") Collection<String> codes);
 }
@@ -2,11 +2,34 @@ package com.example.backend.repository;
 
 import com.example.backend.model.User;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
 @Repository
 public interface UserRepository extends JpaRepository<User, Integer> {
-    User findByUsernameOrEmail(String username, String email);
-    User findByUsername(String username);
-    User findByEmail(String email);
+    /**
+     * Resolves a login identifier against username, then email, ignoring case. Each branch is a probe of
+     * its own {@code lower(...)} unique index (see {@code UserIdentifierIndexes}); an {@code OR} across
+     * the two columns would scan instead. {@code prio} makes the username match win when both exist.
+     */
+    @Query(value = """
+            SELECT u.* FROM (
+                SELECT users.*, 0 AS prio FROM users WHERE lower(username) = lower(:identifier)
+                UNION ALL
+                SELECT users.*, 1 AS prio FROM users WHERE lower(email) = lower(:identifier)
+            ) u ORDER BY u.prio LIMIT 1
+            """, nativeQuery = true)
+    User findByIdentifier(@Param("identifier") String identifier);
+
+    /** Swaps the hash only if it is still {@code oldHash}, so a concurrent password change always wins. */
+    @Transactional
+    @Modifying
+    @Query(value = "UPDATE users SET password_hash = :newHash WHERE user_id = :userId AND password_hash = :oldHash",
+            nativeQuery = true)
+    int replacePasswordHash(@Param("userId") Integer userId,
+                            @Param("oldHash") String oldHash,
+                            @Param("newHash") String newHash);
 }
@@ -0,0 +1,97 @@
+package com.example.backend.repository;
+
+import com.example.backend.model.UserStats;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDate;
+
+/**
+ * Each write is one INSERT ... ON CONFLICT DO UPDATE that returns the new row,
+ * so concurrent writes for the same user never lose an increment.
+ */
+@Repository
+public interface UserStatsRepository extends JpaRepository<UserStats, Integer> {
+
+    // Streak: same day keeps it, the next day extends it, a back-dated entry leaves it alone, a gap restarts it
+    @Transactional
+    @Query(value = """
+        INSERT INTO user_stats (user_id, record_count, goal_count, current_streak, longest_streak, last_expense_date, updated_at)
+        VALUES (:userId, 1, 0, 1, 1, :expenseDate, now())
+        ON CONFLICT (user_id) DO UPDATE
+           SET record_count      = user_stats.record_count + 1,
+               current_streak    = CASE
+                   WHEN user_stats.last_expense_date IS NULL THEN 1
+                   WHEN EXCLUDED.last_expense_date <= user_stats.last_expense_date THEN user_stats.current_streak
+                   WHEN EXCLUDED.last_expense_date = user_stats.last_expense_date + 1 THEN user_stats.current_streak + 1
+                   ELSE 1 END,
+               longest_streak    = GREATEST(user_stats.longest_streak, CASE
+                   WHEN user_stats.last_expense_date IS NULL THEN 1
+                   WHEN EXCLUDED.last_expense_date <= user_stats.last_expense_date THEN user_stats.current_streak
+                   WHEN EXCLUDED.last_expense_date = user_stats.last_expense_date + 1 THEN user_stats.current_streak + 1
+                   ELSE 1 END),
+               last_expense_date = GREATEST(user_stats.last_expense_date, EXCLUDED.last_expense_date),
+               updated_at        = now()
+        RETURNING *
+        """, nativeQuery = true)
+    UserStats recordExpenseAdded(@Param("userId") Integer userId, @Param("expenseDate") LocalDate expenseDate);
+
+    @Transactional
+    @Modifying
+    @Query(value = """
+        UPDATE user_stats
+           SET record_count = GREATEST(record_count - 1, 0),
+               updated_at   = now()
+         WHERE user_id = :userId
+        """, nativeQuery = true)
+    int recordExpenseRemoved(@Param("userId") Integer userId);
+
+    @Transactional
+    @Query(value = """
+        INSERT INTO user_stats (user_id, record_count, goal_count, current_streak, longest_streak, updated_at)
+        VALUES (:userId, 0, 1, 0, 0, now())
+        ON CONFLICT (user_id) DO UPDATE
+           SET goal_count = user_stats.goal_count + 1,
+               updated_at = now()
+        RETURNING *
+        """, nativeQuery = true)
+    UserStats recordGoalAdded(@Param("userId") Integer userId);
+
+    /** Counts {@code month} as kept within budget; returns nothing if it was already counted. */
+    @Transactional
+    @Query(value = """
+        INSERT INTO user_stats (user_id, record_count, goal_count, current_streak, longest_streak,
+                                under_budget_months, last_budget_month, updated_at)
+        VALUES (:userId, 0, 0, 0, 0, 1, :month, now())
+        ON CONFLICT (user_id) DO UPDATE
+           SET under_budget_months = user_stats.under_budget_months + 1,
+               last_budget_month   = EXCLUDED.last_budget_month,
+               updated_at          = now()
+         WHERE user_stats.last_budget_month IS NULL OR user_stats.last_budget_month < EXCLUDED.last_budget_month
+        RETURNING *
+        """, nativeQuery = true)
+    UserStats recordUnderBudgetMonth(@Param("userId") Integer userId, @Param("month") String month);
+
+    /** Seeds rows for users who have none yet from their existing history; streaks restart from the last expense day. */
+    @Transactional
+    @Modifying
+    @Query(value = """
+        INSERT INTO user_stats (user_id, record_count, goal_count, current_streak, longest_streak, last_expense_date, updated_at)
+        SELECT u.user_id,
+               (SELECT count(*) FROM expense_record e WHERE e.user_id = u.user_id),
+               (SELECT count(*) FROM spending_goals g WHERE g.user_id = u.user_id),
+               CASE WHEN last.d IS NULL THEN 0 ELSE 1 END,
+               CASE WHEN last.d IS NULL THEN 0 ELSE 1 END,
+               last.d,
+               now()
+          FROM users u
+          CROSS JOIN LATERAL (SELECT max(e.expense_date) AS d FROM expense_record e WHERE e.user_id = u.user_id) last
+         WHERE NOT EXISTS (SELECT 1 FROM user_stats s WHERE s.user_id = u.user_id)
+        ON CONFLICT (user_id) DO NOTHING
+        """, nativeQuery = true)
+    int backfillMissing();
+}
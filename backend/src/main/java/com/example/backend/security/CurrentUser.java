@@ -0,0 +1,14 @@
+package com.example.backend.security;
+
+import com.example.backend.dto.UserDTO;
+
+/**
+ * The logged-in user for the current request, taken from the session {@link UserDTO}.
+ * Carries only what the session already knows, so resolving it never hits the database.
+ */
+public record CurrentUser(Integer id, String username) {
+
+    public static CurrentUser of(UserDTO dto) {
+        return new CurrentUser(dto.getId(), dto.getUsername());
+    }
+}
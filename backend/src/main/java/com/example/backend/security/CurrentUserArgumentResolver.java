@@ -0,0 +1,52 @@
+package com.example.backend.security;
+
+import com.example.backend.auth.SessionKeys;
+import com.example.backend.dto.UserDTO;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpSession;
+import org.springframework.core.MethodParameter;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.support.WebDataBinderFactory;
+import org.springframework.web.context.request.NativeWebRequest;
+import org.springframework.web.method.support.HandlerMethodArgumentResolver;
+import org.springframework.web.method.support.ModelAndViewContainer;
+import org.springframework.web.server.ResponseStatusException;
+
+/**
+ * Fills {@link CurrentUser} controller parameters. With signed tokens enabled the user comes from the
+ * request's token alone; otherwise from the session {@link UserDTO}, without creating a session.
+ * Anonymous requests get 401 before the handler runs.
+ */
+public class CurrentUserArgumentResolver implements HandlerMethodArgumentResolver {
+
+    private final SessionTokenService tokens;
+
+    /** @param tokens may be {@code null}, meaning session-only */
+    public CurrentUserArgumentResolver(SessionTokenService tokens) {
+        this.tokens = tokens;
+    }
+
+    @Override
+    public boolean supportsParameter(MethodParameter parameter) {
+        return parameter.getParameterType() == CurrentUser.class;
+    }
+
+    @Override
+    public CurrentUser resolveArgument(MethodParameter parameter, ModelAndViewContainer mavContainer,
+                                       NativeWebRequest webRequest, WebDataBinderFactory binderFactory) {
+        HttpServletRequest request = webRequest.getNativeRequest(HttpServletRequest.class);
+        if (request == null) throw notLoggedIn();
+
+        if (tokens != null && tokens.enabled()) {
+            return tokens.authenticate(request).orElseThrow(CurrentUserArgumentResolver::notLoggedIn);
+        }
+        HttpSession session = request.getSession(false);
+        UserDTO dto = session == null ? null : (UserDTO) session.getAttribute(SessionKeys.USER_DTO);
+        if (dto == null) throw notLoggedIn();
+        return CurrentUser.of(dto);
+    }
+
+    private static ResponseStatusException notLoggedIn() {
+        return new ResponseStatusException(HttpStatus.UNAUTHORIZED, "User not logged in");
+    }
+}
@@ -0,0 +1,52 @@
+package com.example.backend.security;
+
+import org.springframework.scheduling.annotation.Scheduled;
+
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.function.LongSupplier;
+
+/** Single-node store: sessions live in this JVM and are lost on restart. For local runs and tests. */
+public class InMemorySessionStore implements SessionStore {
+
+    private final ConcurrentMap<String, Entry> sessions = new ConcurrentHashMap<>();
+    private final LongSupplier clock;
+
+    public InMemorySessionStore(LongSupplier clock) {
+        this.clock = clock;
+    }
+
+    @Override
+    public Optional<Entry> load(String id) {
+        Entry e = sessions.get(id);
+        if (e == null) return Optional.empty();
+        if (e.expiredAt(clock.getAsLong())) {
+            sessions.remove(id, e);
+            return Optional.empty();
+        }
+        return Optional.of(e);
+    }
+
+    @Override
+    public void save(Entry entry) {
+        sessions.put(entry.id(), entry);
+    }
+
+    @Override
+    public void delete(String id) {
+        sessions.remove(id);
+    }
+
+    @Override
+    public void touch(String id, long lastAccessedAt) {
+        sessions.computeIfPresent(id, (k, e) -> lastAccessedAt <= e.lastAccessedAt() ? e
+                : new Entry(e.id(), e.createdAt(), lastAccessedAt, e.maxInactiveSeconds(), e.attributes()));
+    }
+
+    @Scheduled(fixedDelayString = "${session.cleanupMillis:600000}")
+    public void deleteExpired() {
+        long now = clock.getAsLong();
+        sessions.values().removeIf(e -> e.expiredAt(now));
+    }
+}
@@ -0,0 +1,131 @@
+package com.example.backend.security;
+
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.scheduling.annotation.Scheduled;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.function.LongSupplier;
+
+/**
+ * Sessions in the {@code app_session} table (see {@code AppSession}), shared by every node and kept across restarts.
+ * Saves are single upserts; last-access times are buffered and written together every few seconds
+ * with one {@code UPDATE ... FROM (VALUES ...)}, so a busy session costs no write per request.
+ */
+public class JdbcSessionStore implements SessionStore {
+
+    private static final Logger log = LoggerFactory.getLogger(JdbcSessionStore.class);
+
+    /** Rows per touch statement. */
+    static final int CHUNK = 500;
+
+    private static final RowMapper<Entry> ROW = (rs, i) -> new Entry(
+            rs.getString("id"),
+            rs.getLong("created_at"),
+            rs.getLong("last_accessed_at"),
+            rs.getInt("max_inactive_seconds"),
+            rs.getBytes("attributes"));
+
+    private final JdbcTemplate jdbc;
+    private final LongSupplier clock;
+    /** id -> last access not yet written. */
+    private final ConcurrentMap<String, Long> touches = new ConcurrentHashMap<>();
+
+    public JdbcSessionStore(JdbcTemplate jdbc, LongSupplier clock) {
+        this.jdbc = jdbc;
+        this.clock = clock;
+    }
+
+    @Override
+    public Optional<Entry> load(String id) {
+        List<Entry> rows = jdbc.query("""
+                SELECT id, created_at, last_accessed_at, max_inactive_seconds, attributes
+                  FROM app_session WHERE id = ?
+                """, ROW, id);
+        if (rows.isEmpty()) return Optional.empty();
+        Entry e = rows.get(0);
+        Long pending = touches.get(id);
+        if (pending != null && pending > e.lastAccessedAt()) {
+            e = new Entry(e.id(), e.createdAt(), pending, e.maxInactiveSeconds(), e.attributes());
+        }
+        return e.expiredAt(clock.getAsLong()) ? Optional.empty() : Optional.of(e);
+    }
+
+    @Override
+    public void save(Entry e) {
+        jdbc.update("""
+                INSERT INTO app_session (id, created_at, last_accessed_at, max_inactive_seconds, attributes)
+                VALUES (?, ?, ?, ?, ?)
+                ON CONFLICT (id) DO UPDATE
+                   SET last_accessed_at     = EXCLUDED.last_accessed_at,
+                       max_inactive_seconds = EXCLUDED.max_inactive_seconds,
+                       attributes           = EXCLUDED.attributes
+                """, e.id(), e.createdAt(), e.lastAccessedAt(), e.maxInactiveSeconds(), e.attributes());
+    }
+
+    @Override
+    public void delete(String id) {
+        touches.remove(id);
+        jdbc.update("DELETE FROM app_session WHERE id = ?", id);
+    }
+
+    @Override
+    public void touch(String id, long lastAccessedAt) {
+        touches.merge(id, lastAccessedAt, Math::max);
+    }
+
+    @Scheduled(fixedDelayString = "${session.jdbc.flushMillis:10000}")
+    public void flushTouches() {
+        List<Map.Entry<String, Long>> batch = new ArrayList<>();
+        for (String id : touches.keySet()) {
+            Long at = touches.remove(id);
+            if (at != null) batch.add(Map.entry(id, at));
+        }
+        for (int from = 0; from < batch.size(); from += CHUNK) {
+            List<Map.Entry<String, Long>> chunk = batch.subList(from, Math.min(from + CHUNK, batch.size()));
+            try {
+                writeTouches(chunk);
+            } catch (Exception e) {
+                log.warn("Writing {} session access times failed, will retry", chunk.size(), e);
+                chunk.forEach(en -> touch(en.getKey(), en.getValue()));
+            }
+        }
+    }
+
+    private void writeTouches(List<Map.Entry<String, Long>> chunk) {
+        StringBuilder sql = new StringBuilder("UPDATE app_session s SET last_accessed_at = v.ts FROM (VALUES ");
+        Object[] args = new Object[chunk.size() * 2];
+        for (int i = 0; i < chunk.size(); i++) {
+            sql.append(i == 0 ? "" : ", ").append("(?, ?::bigint)");
+            args[2 * i] = chunk.get(i).getKey();
+            args[2 * i + 1] = chunk.get(i).getValue();
+        }
+        sql.append(") AS v(id, ts) WHERE s.id = v.id AND s.last_accessed_at < v.ts");
+        jdbc.update(sql.toString(), args);
+    }
+
+    /** Access times are flushed first so a session used since the last flush is not removed. */
+    @Scheduled(fixedDelayString = "${session.cleanupMillis:600000}")
+    public int deleteExpired() {
+        flushTouches();
+        int n = jdbc.update("""
+                DELETE FROM app_session
+                 WHERE max_inactive_seconds > 0 AND last_accessed_at + max_inactive_seconds * 1000 < ?
+                """, clock.getAsLong());
+        if (n > 0) log.info("Removed {} expired sessions", n);
+        return n;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        flushTouches();
+    }
+}
@@ -0,0 +1,104 @@
+package com.example.backend.security;
+
+import com.example.backend.dto.UserDTO;
+
+import java.io.*;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Compact binary form of a session's attributes. The logged-in {@link UserDTO} (the only attribute the app
+ * normally stores) takes a tag byte, a 4-byte id and the username, about 20 bytes for the whole session
+ * instead of a few hundred with Java serialization. Strings are written directly; anything else falls back
+ * to Java serialization, read back through an allowlist of JDK value types and the app's DTOs.
+ */
+final class SessionCodec {
+
+    private static final byte VERSION = 1;
+    private static final byte SERIALIZED = 0;
+    private static final byte USER_DTO = 1;
+    private static final byte STRING = 2;
+
+    /** Classes a serialized attribute may contain; anything else fails the whole session as corrupt. */
+    private static final ObjectInputFilter ALLOWED = ObjectInputFilter.Config.createFilter(
+            "maxdepth=8;maxrefs=1000;maxbytes=65536;maxarray=10000;"
+                    + "java.lang.*;java.math.*;java.time.*;java.util.*;com.example.backend.dto.*;!*");
+
+    private SessionCodec() {}
+
+    static byte[] encode(Map<String, Object> attributes) {
+        try {
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream(32);
+            DataOutputStream out = new DataOutputStream(bytes);
+            out.writeByte(VERSION);
+            out.writeShort(attributes.size());
+            for (var e : attributes.entrySet()) {
+                out.writeUTF(e.getKey());
+                Object v = e.getValue();
+                if (v instanceof UserDTO u && u.getId() != null) {
+                    out.writeByte(USER_DTO);
+                    out.writeInt(u.getId());
+                    out.writeUTF(u.getUsername() == null ? "" : u.getUsername());
+                } else if (v instanceof String s) {
+                    out.writeByte(STRING);
+                    out.writeUTF(s);
+                } else {
+                    byte[] blob = serialize(v);
+                    out.writeByte(SERIALIZED);
+                    out.writeInt(blob.length);
+                    out.write(blob);
+                }
+            }
+            out.flush();
+            return bytes.toByteArray();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    static Map<String, Object> decode(byte[] data) {
+        Map<String, Object> attributes = new LinkedHashMap<>();
+        if (data == null || data.length == 0) return attributes;
+        try {
+            DataInputStream in = new DataInputStream(new ByteArrayInputStream(data));
+            if (in.readByte() != VERSION) return attributes;   // unknown format: treat as an empty session
+            int n = in.readUnsignedShort();
+            for (int i = 0; i < n; i++) {
+                String key = in.readUTF();
+                byte tag = in.readByte();
+                Object value = switch (tag) {
+                    case USER_DTO -> {
+                        int id = in.readInt();
+                        String name = in.readUTF();
+                        yield new UserDTO(id, name.isEmpty() ? null : name);
+                    }
+                    case STRING -> in.readUTF();
+                    default -> {
+                        byte[] blob = new byte[in.readInt()];
+                        in.readFully(blob);
+                        yield deserialize(blob);
+                    }
+                };
+                attributes.put(key, value);
+            }
+            return attributes;
+        } catch (IOException | ClassNotFoundException e) {
+            throw new IllegalStateException("Corrupt session data", e);
+        }
+    }
+
+    private static byte[] serialize(Object v) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (ObjectOutputStream out = new ObjectOutputStream(bytes)) {
+            out.writeObject(v);
+        }
+        return bytes.toByteArray();
+    }
+
+    private static Object deserialize(byte[] blob) throws IOException, ClassNotFoundException {
+        try (ObjectInputStream in = new ObjectInputStream(new ByteArrayInputStream(blob))) {
+            in.setObjectInputFilter(ALLOWED);
+            return in.readObject();
+        }
+    }
+}
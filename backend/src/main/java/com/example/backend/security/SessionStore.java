@@ -0,0 +1,31 @@
+package com.example.backend.security;
+
+import java.util.Optional;
+
+/**
+ * Where {@link StoredSessionFilter} keeps sessions instead of the servlet container's memory.
+ * Implementations: {@link JdbcSessionStore} (default, shared by every node) and {@link InMemorySessionStore}.
+ */
+public interface SessionStore {
+
+    /**
+     * @param attributes attribute map encoded by {@link SessionCodec}; decoded only when the session is read
+     */
+    record Entry(String id, long createdAt, long lastAccessedAt, int maxInactiveSeconds, byte[] attributes) {
+
+        boolean expiredAt(long nowMillis) {
+            return maxInactiveSeconds > 0 && lastAccessedAt + maxInactiveSeconds * 1000L < nowMillis;
+        }
+    }
+
+    /** The session, unless it is unknown or has expired. */
+    Optional<Entry> load(String id);
+
+    /** Inserts or replaces the whole entry. */
+    void save(Entry entry);
+
+    void delete(String id);
+
+    /** Records that the session was used; implementations may buffer this. */
+    void touch(String id, long lastAccessedAt);
+}
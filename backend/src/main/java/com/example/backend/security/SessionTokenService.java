@@ -0,0 +1,141 @@
+package com.example.backend.security;
+
+import jakarta.servlet.http.Cookie;
+import jakarta.servlet.http.HttpServletRequest;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.ResponseCookie;
+import org.springframework.stereotype.Component;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.security.SecureRandom;
+import java.time.Duration;
+import java.util.Base64;
+import java.util.Optional;
+import java.util.function.LongSupplier;
+
+/**
+ * Stateless login for {@code session.store=token}: the user id, username and expiry travel in a
+ * compact HMAC-SHA256 signed token ({@code base64url(id:expiry:username).base64url(mac)}), sent back
+ * as a {@value #COOKIE} cookie or an {@code Authorization: Bearer} header. Checking one is a single
+ * MAC over a few bytes; nothing is stored or looked up. Tokens cannot be revoked before they expire,
+ * so the lifetime ({@code session.token.ttl}) is kept short.
+ */
+@Component
+public class SessionTokenService {
+
+    private static final Logger log = LoggerFactory.getLogger(SessionTokenService.class);
+
+    public static final String COOKIE = "TOKEN";
+    private static final String ALGORITHM = "HmacSHA256";
+    private static final String BEARER = "Bearer ";
+    private static final Base64.Encoder B64 = Base64.getUrlEncoder().withoutPadding();
+    private static final Base64.Decoder B64D = Base64.getUrlDecoder();
+
+    private final boolean enabled;
+    private final SecretKeySpec key;
+    private final Duration ttl;
+    private final boolean secureCookie;
+    private final LongSupplier clock;
+
+    @Autowired
+    public SessionTokenService(@Value("${session.store:jdbc}") String store,
+                               @Value("${session.token.secret:}") String secret,
+                               @Value("${session.token.ttl:8h}") Duration ttl,
+                               @Value("${session.cookie.secure:false}") boolean secureCookie) {
+        this("token".equals(store), secret, ttl, secureCookie, System::currentTimeMillis);
+    }
+
+    SessionTokenService(boolean enabled, String secret, Duration ttl, boolean secureCookie, LongSupplier clock) {
+        this.enabled = enabled;
+        this.ttl = ttl;
+        this.secureCookie = secureCookie;
+        this.clock = clock;
+        byte[] keyBytes;
+        if (secret == null || secret.isBlank()) {
+            keyBytes = new byte[32];
+            new SecureRandom().nextBytes(keyBytes);
+            if (enabled) {
+                log.warn("session.token.secret is not set; using a random key, so tokens end at restart and are not shared across nodes");
+            }
+        } else {
+            keyBytes = secret.getBytes(StandardCharsets.UTF_8);
+        }
+        this.key = new SecretKeySpec(keyBytes, ALGORITHM);
+    }
+
+    /** Whether logins are issued tokens instead of session state. */
+    public boolean enabled() {
+        return enabled;
+    }
+
+    public String issue(CurrentUser user) {
+        long expiresAt = clock.getAsLong() / 1000 + ttl.toSeconds();
+        String payload = B64.encodeToString(
+                (user.id() + ":" + expiresAt + ":" + user.username()).getBytes(StandardCharsets.UTF_8));
+        return payload + "." + B64.encodeToString(sign(payload));
+    }
+
+    /** The user a token was issued to, or empty if it is malformed, tampered with or expired. */
+    public Optional<CurrentUser> verify(String token) {
+        if (token == null) return Optional.empty();
+        int dot = token.indexOf('.');
+        if (dot <= 0 || dot != token.lastIndexOf('.')) return Optional.empty();
+        String payload = token.substring(0, dot);
+        try {
+            if (!MessageDigest.isEqual(sign(payload), B64D.decode(token.substring(dot + 1)))) return Optional.empty();
+            String[] parts = new String(B64D.decode(payload), StandardCharsets.UTF_8).split(":", 3);
+            if (parts.length != 3 || Long.parseLong(parts[1]) <= clock.getAsLong() / 1000) return Optional.empty();
+            return Optional.of(new CurrentUser(Integer.valueOf(parts[0]), parts[2]));
+        } catch (IllegalArgumentException e) {
+            return Optional.empty();
+        }
+    }
+
+    /** Reads the token from the {@code Authorization} header, falling back to the {@value #COOKIE} cookie. */
+    public Optional<CurrentUser> authenticate(HttpServletRequest request) {
+        String header = request.getHeader(HttpHeaders.AUTHORIZATION);
+        if (header != null && header.regionMatches(true, 0, BEARER, 0, BEARER.length())) {
+            return verify(header.substring(BEARER.length()).trim());
+        }
+        Cookie[] cookies = request.getCookies();
+        if (cookies == null) return Optional.empty();
+        for (Cookie c : cookies) {
+            if (COOKIE.equals(c.getName())) return verify(c.getValue());
+        }
+        return Optional.empty();
+    }
+
+    public ResponseCookie cookie(String token, String contextPath) {
+        return cookieBuilder(token, contextPath).maxAge(ttl).build();
+    }
+
+    public ResponseCookie clearCookie(String contextPath) {
+        return cookieBuilder("", contextPath).maxAge(0).build();
+    }
+
+    private ResponseCookie.ResponseCookieBuilder cookieBuilder(String value, String contextPath) {
+        return ResponseCookie.from(COOKIE, value)
+                .path(contextPath == null || contextPath.isEmpty() ? "/" : contextPath)
+                .httpOnly(true)
+                .secure(secureCookie)
+                .sameSite("Lax");
+    }
+
+    private byte[] sign(String payload) {
+        try {
+            Mac mac = Mac.getInstance(ALGORITHM);
+            mac.init(key);
+            return mac.doFinal(payload.getBytes(StandardCharsets.US_ASCII));
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
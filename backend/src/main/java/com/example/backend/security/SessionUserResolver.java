@@ -1,11 +1,7 @@
 package com.example.backend.security;
 
-import com.example.backend.auth.SessionKeys;
-import com.example.backend.dto.UserDTO;
 import com.example.backend.model.User;
 import com.example.backend.repository.UserRepository;
-import jakarta.persistence.EntityNotFoundException;
-import jakarta.servlet.http.HttpSession;
 import org.springframework.stereotype.Component;
 
 @Component
@@ -17,12 +13,12 @@ public class SessionUserResolver {
         this.userRepository = userRepository;
     }
 
-    public User getCurrentUser(HttpSession session) {
-        UserDTO dto = (UserDTO) session.getAttribute(SessionKeys.USER_DTO);
-        if (dto == null) {
-            throw new IllegalStateException("User not logged in.");
-        }
-        return userRepository.findById(dto.getId())
-                .orElseThrow(() -> new EntityNotFoundException("User not found."));
+    /**
+     * Returns a lazy reference to the logged-in user. Enough to pass to repository
+     * methods or set on an association without issuing a SELECT; the row is only
+     * loaded if a non-id property is actually read.
+     */
+    public User getReference(CurrentUser principal) {
+        return userRepository.getReferenceById(principal.id());
     }
 }
@@ -0,0 +1,113 @@
+package com.example.backend.security;
+
+import jakarta.servlet.ServletContext;
+import jakarta.servlet.http.HttpSession;
+
+import java.util.Collections;
+import java.util.Enumeration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * {@link HttpSession} view of a {@link SessionStore.Entry}. Attributes stay encoded until first read.
+ * Every change is written through to the store straight away, so the next request sees it on any node.
+ */
+final class StoredSession implements HttpSession {
+
+    /** Persists or removes the session; supplied by the filter that owns the request. */
+    interface Owner {
+        void save(StoredSession session);
+        void invalidated(StoredSession session);
+    }
+
+    private String id;
+    private final long createdAt;
+    private final long lastAccessedAt;
+    private int maxInactiveSeconds;
+    private byte[] encoded;
+    private Map<String, Object> attributes;
+    private final boolean isNew;
+    private boolean valid = true;
+
+    private final ServletContext context;
+    private final Owner owner;
+
+    StoredSession(SessionStore.Entry entry, boolean isNew, ServletContext context, Owner owner) {
+        this.id = entry.id();
+        this.createdAt = entry.createdAt();
+        this.lastAccessedAt = entry.lastAccessedAt();
+        this.maxInactiveSeconds = entry.maxInactiveSeconds();
+        this.encoded = entry.attributes();
+        this.isNew = isNew;
+        this.context = context;
+        this.owner = owner;
+    }
+
+    SessionStore.Entry toEntry(long lastAccessedAt) {
+        if (attributes != null) encoded = SessionCodec.encode(attributes);
+        return new SessionStore.Entry(id, createdAt, lastAccessedAt, maxInactiveSeconds, encoded);
+    }
+
+    void changeId(String newId) {
+        this.id = newId;
+    }
+
+    boolean isValid() {
+        return valid;
+    }
+
+    private Map<String, Object> attributes() {
+        checkValid();
+        if (attributes == null) attributes = SessionCodec.decode(encoded);
+        return attributes;
+    }
+
+    private void checkValid() {
+        if (!valid) throw new IllegalStateException("Session already invalidated");
+    }
+
+    @Override public long getCreationTime() { checkValid(); return createdAt; }
+    @Override public String getId() { return id; }
+    @Override public long getLastAccessedTime() { checkValid(); return lastAccessedAt; }
+    @Override public ServletContext getServletContext() { return context; }
+    @Override public int getMaxInactiveInterval() { return maxInactiveSeconds; }
+    @Override public boolean isNew() { checkValid(); return isNew; }
+
+    @Override
+    public void setMaxInactiveInterval(int interval) {
+        this.maxInactiveSeconds = interval;
+        if (valid) owner.save(this);
+    }
+
+    @Override
+    public Object getAttribute(String name) {
+        return attributes().get(name);
+    }
+
+    @Override
+    public Enumeration<String> getAttributeNames() {
+        return Collections.enumeration(new LinkedHashMap<>(attributes()).keySet());
+    }
+
+    @Override
+    public void setAttribute(String name, Object value) {
+        if (value == null) {
+            removeAttribute(name);
+            return;
+        }
+        attributes().put(name, value);
+        owner.save(this);
+    }
+
+    @Override
+    public void removeAttribute(String name) {
+        if (attributes().remove(name) != null) owner.save(this);
+    }
+
+    @Override
+    public void invalidate() {
+        checkValid();
+        valid = false;
+        owner.invalidated(this);
+    }
+}
@@ -0,0 +1,176 @@
+package com.example.backend.security;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.Cookie;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletRequestWrapper;
+import jakarta.servlet.http.HttpServletResponse;
+import jakarta.servlet.http.HttpSession;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.ResponseCookie;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.security.SecureRandom;
+import java.util.Base64;
+import java.util.function.LongSupplier;
+
+/**
+ * Replaces the container's {@link HttpSession} with one kept in a {@link SessionStore}, identified by a
+ * {@value #COOKIE} cookie. Controllers keep using {@code HttpSession} unchanged.
+ * <ul>
+ *   <li>The store is read only when the request actually asks for its session.</li>
+ *   <li>A new session is stored (and the cookie sent) only once something is put in it,
+ *       so anonymous requests never write.</li>
+ *   <li>Last-access is reported at most once per {@code touchIntervalMillis}; the store may batch it further.</li>
+ * </ul>
+ */
+public class StoredSessionFilter extends OncePerRequestFilter {
+
+    static final String COOKIE = "SESSION";
+
+    private static final SecureRandom RANDOM = new SecureRandom();
+
+    private final SessionStore store;
+    private final int maxInactiveSeconds;
+    private final long touchIntervalMillis;
+    private final boolean secureCookie;
+    private final LongSupplier clock;
+
+    public StoredSessionFilter(SessionStore store, int maxInactiveSeconds, long touchIntervalMillis,
+                               boolean secureCookie, LongSupplier clock) {
+        this.store = store;
+        this.maxInactiveSeconds = maxInactiveSeconds;
+        this.touchIntervalMillis = touchIntervalMillis;
+        this.secureCookie = secureCookie;
+        this.clock = clock;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        chain.doFilter(new SessionRequest(request, response), response);
+    }
+
+    private static String newId() {
+        byte[] b = new byte[32];
+        RANDOM.nextBytes(b);
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(b);
+    }
+
+    private final class SessionRequest extends HttpServletRequestWrapper implements StoredSession.Owner {
+
+        private final HttpServletResponse response;
+        private StoredSession session;
+        private boolean looked;
+        /** Whether {@link #session} exists in the store (and the client has its cookie). */
+        private boolean persisted;
+
+        SessionRequest(HttpServletRequest request, HttpServletResponse response) {
+            super(request);
+            this.response = response;
+        }
+
+        @Override
+        public HttpSession getSession() {
+            return getSession(true);
+        }
+
+        @Override
+        public HttpSession getSession(boolean create) {
+            if (session != null && session.isValid()) return session;
+            if (!looked) {
+                looked = true;
+                loadRequested();
+                if (session != null) return session;
+            }
+            if (!create) return null;
+            long now = clock.getAsLong();
+            session = new StoredSession(new SessionStore.Entry(newId(), now, now, maxInactiveSeconds, null),
+                    true, getServletContext(), this);
+            persisted = false;
+            return session;
+        }
+
+        private void loadRequested() {
+            String id = getRequestedSessionId();
+            if (id == null) return;
+            store.load(id).ifPresent(e -> {
+                session = new StoredSession(e, false, getServletContext(), this);
+                persisted = true;
+                long now = clock.getAsLong();
+                if (now - e.lastAccessedAt() >= touchIntervalMillis) store.touch(id, now);
+            });
+        }
+
+        @Override
+        public String changeSessionId() {
+            if (getSession(false) == null) throw new IllegalStateException("No session to change the id of");
+            String old = session.getId();
+            session.changeId(newId());
+            if (persisted) {
+                store.save(session.toEntry(clock.getAsLong()));
+                store.delete(old);
+                writeCookie(session.getId(), -1);
+            }
+            return session.getId();
+        }
+
+        @Override
+        public void save(StoredSession s) {
+            store.save(s.toEntry(clock.getAsLong()));
+            if (!persisted) {
+                persisted = true;
+                writeCookie(s.getId(), -1);
+            }
+        }
+
+        @Override
+        public void invalidated(StoredSession s) {
+            if (!persisted) return;
+            store.delete(s.getId());
+            persisted = false;
+            writeCookie("", 0);
+        }
+
+        @Override
+        public String getRequestedSessionId() {
+            Cookie[] cookies = getCookies();
+            if (cookies == null) return null;
+            for (Cookie c : cookies) {
+                if (COOKIE.equals(c.getName()) && !c.getValue().isEmpty()) return c.getValue();
+            }
+            return null;
+        }
+
+        @Override
+        public boolean isRequestedSessionIdValid() {
+            String id = getRequestedSessionId();
+            HttpSession current = getSession(false);
+            return id != null && current != null && id.equals(current.getId());
+        }
+
+        @Override
+        public boolean isRequestedSessionIdFromCookie() {
+            return getRequestedSessionId() != null;
+        }
+
+        @Override
+        public boolean isRequestedSessionIdFromURL() {
+            return false;
+        }
+
+        private void writeCookie(String value, long maxAgeSeconds) {
+            String path = getContextPath();
+            ResponseCookie cookie = ResponseCookie.from(COOKIE, value)
+                    .path(path == null || path.isEmpty() ? "/" : path)
+                    .httpOnly(true)
+                    .secure(secureCookie)
+                    .sameSite("Lax")
+                    .maxAge(maxAgeSeconds)
+                    .build();
+            response.addHeader(HttpHeaders.SET_COOKIE, cookie.toString());
+        }
+    }
+}
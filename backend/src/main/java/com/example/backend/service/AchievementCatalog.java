@@ -0,0 +1,93 @@
+package com.example.backend.service;
+
+import com.example.backend.model.UserStats;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.function.ToLongFunction;
+
+/**
+ * Every achievement, read once from {@code achievements.json} into an immutable index.
+ * Entries with a {@code metric} are earned when that {@link UserStats} counter reaches {@code threshold};
+ * entries without one are granted explicitly (e.g. {@code ACCOUNT_CREATED}). Nothing here touches the database.
+ */
+@Component
+public class AchievementCatalog {
+
+    static final String RESOURCE = "achievements.json";
+
+    public enum Metric {
+        RECORD_COUNT(UserStats::getRecordCount),
+        GOAL_COUNT(UserStats::getGoalCount),
+        STREAK_DAYS(UserStats::getLongestStreak),
+        UNDER_BUDGET_MONTHS(UserStats::getUnderBudgetMonths);
+
+        private final ToLongFunction<UserStats> value;
+
+        Metric(ToLongFunction<UserStats> value) {
+            this.value = value;
+        }
+    }
+
+    public record Definition(String code, String title, String description, String icon,
+                             Metric metric, long threshold) {
+
+        boolean met(UserStats stats) {
+            return metric != null && metric.value.applyAsLong(stats) >= threshold;
+        }
+    }
+
+    private final List<Definition> definitions;
+    private final Map<String, Definition> byCode;
+    private final List<Definition> ruled;
+
+    public AchievementCatalog() {
+        this(load());
+    }
+
+    AchievementCatalog(List<Definition> definitions) {
+        Map<String, Definition> index = new LinkedHashMap<>();
+        for (Definition d : definitions) {
+            if (index.put(d.code(), d) != null) {
+                throw new IllegalStateException("Duplicate achievement code " + d.code());
+            }
+        }
+        this.definitions = List.copyOf(definitions);
+        this.byCode = Map.copyOf(index);
+        this.ruled = definitions.stream().filter(d -> d.metric() != null).toList();
+    }
+
+    private static List<Definition> load() {
+        try (InputStream in = new ClassPathResource(RESOURCE).getInputStream()) {
+            return new ObjectMapper().readValue(in, new TypeReference<List<Definition>>() {});
+        } catch (IOException e) {
+            throw new IllegalStateException("Cannot read " + RESOURCE, e);
+        }
+    }
+
+    public List<Definition> all() {
+        return definitions;
+    }
+
+    public Optional<Definition> find(String code) {
+        return Optional.ofNullable(byCode.get(code));
+    }
+
+    /** Codes of every rule the stats currently satisfy, in catalog order. */
+    public List<String> evaluate(UserStats stats) {
+        List<String> met = new ArrayList<>();
+        for (Definition d : ruled) {
+            if (d.met(stats)) met.add(d.code());
+        }
+        return met;
+    }
+}
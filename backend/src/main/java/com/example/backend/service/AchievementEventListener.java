@@ -0,0 +1,84 @@
+package com.example.backend.service;
+
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Keeps achievement evaluation off the write path. The {@code user_stats} counters are updated
+ * synchronously in the publishing transaction, so they can never drift from the rows they count.
+ * Once that transaction commits (or straight away when there is none), the user is queued and
+ * {@link AchievementService#evaluate} runs on a small bounded pool. At most one evaluation per user
+ * runs at a time; activity arriving meanwhile triggers exactly one more.
+ */
+@Component
+public class AchievementEventListener {
+
+    private static final Logger log = LoggerFactory.getLogger(AchievementEventListener.class);
+
+    private final AchievementService achievementService;
+    private final ThreadPoolExecutor executor;
+
+    /**
+     * userId -> whether activity arrived since the running evaluation started. An entry exists exactly
+     * while a drain is scheduled or running.
+     */
+    private final ConcurrentMap<Integer, Boolean> pending = new ConcurrentHashMap<>();
+
+    public AchievementEventListener(AchievementService achievementService,
+                                    @Value("${achievements.events.threads:2}") int threads,
+                                    @Value("${achievements.events.queueCapacity:1000}") int queueCapacity) {
+        this.achievementService = achievementService;
+        AtomicInteger seq = new AtomicInteger();
+        this.executor = new ThreadPoolExecutor(threads, threads, 60, TimeUnit.SECONDS,
+                new ArrayBlockingQueue<>(queueCapacity),
+                r -> {
+                    Thread t = new Thread(r, "achievement-" + seq.incrementAndGet());
+                    t.setDaemon(true);
+                    return t;
+                },
+                // a full queue slows the publisher down rather than dropping evaluations
+                new ThreadPoolExecutor.CallerRunsPolicy());
+        this.executor.allowCoreThreadTimeOut(true);
+    }
+
+    /** Joins the publisher's transaction: a failed counter update rolls the write back with it. */
+    @EventListener
+    public void record(UserActivityEvent event) {
+        achievementService.record(event);
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void on(UserActivityEvent event) {
+        // a removal never earns anything on its own
+        if (event.type() == UserActivityEvent.Type.EXPENSE_REMOVED) return;
+        Integer userId = event.userId();
+        if (pending.put(userId, Boolean.TRUE) == null) executor.execute(() -> drain(userId));
+    }
+
+    private void drain(Integer userId) {
+        do {
+            pending.put(userId, Boolean.FALSE);
+            try {
+                achievementService.evaluate(userId);
+            } catch (Exception e) {
+                // counters are already committed; the next activity re-evaluates them
+                log.warn("Achievement evaluation for user {} failed", userId, e);
+            }
+        } while (!pending.remove(userId, Boolean.FALSE));
+    }
+
+    /** Lets queued evaluations finish on a normal shutdown. */
+    @PreDestroy
+    public void shutdown() throws InterruptedException {
+        executor.shutdown();
+        if (!executor.awaitTermination(10, TimeUnit.SECONDS)) executor.shutdownNow();
+    }
+}
@@ -1,72 +1,85 @@
 // AchievementService.java
 package com.example.backend.service;
 
-import com.example.backend.model.Achievement;
-import com.example.backend.model.User;
-import com.example.backend.model.UserAchievement;
-import com.example.backend.repository.AchievementRepository;
+import com.example.backend.dto.AchievementDTO;
+import com.example.backend.model.UserStats;
 import com.example.backend.repository.UserAchievementRepository;
-import com.example.backend.repository.ExpenseRecordRepository;
-import com.example.backend.repository.SpendingGoalRepository;
+import com.example.backend.repository.UserStatsRepository;
 import org.springframework.stereotype.Service;
 
-import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.time.ZoneOffset;
+import java.util.List;
 
 @Service
 public class AchievementService {
 
-    private final AchievementRepository achievementRepository;
     private final UserAchievementRepository userAchievementRepository;
-    private final ExpenseRecordRepository expenseRecordRepository;
-    private final SpendingGoalRepository spendingGoalRepository;
+    private final UserStatsRepository userStatsRepository;
+    private final AchievementCatalog catalog;
 
-    public AchievementService(AchievementRepository achievementRepository,
-                              UserAchievementRepository userAchievementRepository,
-                              ExpenseRecordRepository expenseRecordRepository,
-                              SpendingGoalRepository spendingGoalRepository) {
-        this.achievementRepository = achievementRepository;
+    public AchievementService(UserAchievementRepository userAchievementRepository,
+                              UserStatsRepository userStatsRepository,
+                              AchievementCatalog catalog) {
         this.userAchievementRepository = userAchievementRepository;
-        this.expenseRecordRepository = expenseRecordRepository;
-        this.spendingGoalRepository = spendingGoalRepository;
+        this.userStatsRepository = userStatsRepository;
+        this.catalog = catalog;
     }
 
+    // 一条 INSERT ... ON CONFLICT DO NOTHING，已获得时什么也不做，不再先查后插
     public void earnIfNotEarned(Integer userId, String achievementCode) {
-        boolean alreadyEarned = userAchievementRepository
-                .findByUserIdAndAchievementCode(userId, achievementCode)
-                .isPresent();
+        if (catalog.find(achievementCode).isEmpty()) throw new RuntimeException("Achievement not found");
+        grant(userId, List.of(achievementCode));
+    }
 
-        if (!alreadyEarned) {
-            Achievement achievement = achievementRepository.findByCode(achievementCode);
-            if (achievement == null) throw new RuntimeException("Achievement not found");
+    /** Earned achievements, newest first, in one query. */
+    public List<AchievementDTO> listEarned(Integer userId) {
+        return userAchievementRepository.findEarnedByUserId(userId);
+    }
 
-            UserAchievement ua = new UserAchievement();
-            ua.setUser(new User(userId)); // 只需要 id
-            ua.setAchievement(achievement);
-            ua.setEarned(true);
-            ua.setEarnedAt(LocalDateTime.now());
+    /**
+     * Strong ETag for {@link #listEarned}: one aggregate over the user's rows of the
+     * (user_id, achievement_id) index. Read from the database on every call, so it is never stale
+     * when another node granted the achievement.
+     */
+    public String etag(Integer userId) {
+        var stamp = userAchievementRepository.findEarnedStamp(userId);
+        long latest = stamp == null || stamp.getLatest() == null ? 0
+                : stamp.getLatest().toInstant(ZoneOffset.UTC).toEpochMilli();
+        return "\"" + userId + "-" + latest + "-" + (stamp == null ? 0 : stamp.getCount()) + "\"";
+    }
 
-            userAchievementRepository.save(ua);
+    /**
+     * Applies one activity event to {@code user_stats}. Runs synchronously inside the publishing
+     * transaction (see {@link AchievementEventListener#record}), so the counters commit or roll back
+     * together with the expense or goal write that caused them.
+     */
+    public void record(UserActivityEvent e) {
+        Integer userId = e.userId();
+        switch (e.type()) {
+            case EXPENSE_ADDED -> userStatsRepository.recordExpenseAdded(userId, e.date());
+            case EXPENSE_REMOVED -> userStatsRepository.recordExpenseRemoved(userId);
+            case GOAL_ADDED -> userStatsRepository.recordGoalAdded(userId);
+            // a month already counted is left alone
+            case UNDER_BUDGET_MONTH -> userStatsRepository.recordUnderBudgetMonth(userId,
+                    YearMonth.from(e.date()).toString());
         }
     }
 
-    public void checkFirstExpense(Integer userId) {
-        long count = expenseRecordRepository.countRecordsByUserId(userId);
-        if (count == 1) {
-            earnIfNotEarned(userId, "FIRST_EXPENSE");
-        }
+    /**
+     * Evaluates every rule once against the user's committed counters and grants whatever is met.
+     * Called after commit from {@link AchievementEventListener}; a missed run is caught up by the next one.
+     */
+    public void evaluate(Integer userId) {
+        userStatsRepository.findById(userId).ifPresent(this::award);
     }
 
-    public void checkTenRecords(Integer userId) {
-        long count = expenseRecordRepository.countRecordsByUserId(userId);
-        if (count == 10) {
-            earnIfNotEarned(userId, "TEN_RECORDS");
-        }
+    private void award(UserStats stats) {
+        List<String> met = catalog.evaluate(stats);
+        if (!met.isEmpty()) grant(stats.getUserId(), met);
     }
 
-    public void checkSetGoal(Integer userId) {
-        long count = spendingGoalRepository.countGoalsByUserId(userId);
-        if (count == 1) {
-            earnIfNotEarned(userId, "SET_GOAL");
-        }
+    private void grant(Integer userId, List<String> codes) {
+        userAchievementRepository.grant(userId, codes);
     }
 }
@@ -0,0 +1,243 @@
+package com.example.backend.service;
+
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.time.Instant;
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Runs {@link AiAdviceService#generate} off the request thread.
+ * Jobs go to a small bounded pool so slow LLM calls can never tie up Tomcat workers;
+ * a second submit for the same user/month/language while one is in flight returns the existing job.
+ * The generated advice itself is persisted by {@code AiAdviceService} in {@code ai_recommendation};
+ * the job only keeps a copy until it expires.
+ */
+@Service
+public class AdviceJobService {
+
+    private static final Logger log = LoggerFactory.getLogger(AdviceJobService.class);
+
+    public enum Status { PENDING, RUNNING, DONE, FAILED }
+
+    /**
+     * Receives job updates as they happen: {@code provisional} and {@code partial} advice while the
+     * LLM runs, then exactly one of {@code done} or {@code failed}. Throwing unsubscribes the listener.
+     */
+    @FunctionalInterface
+    public interface Listener {
+        void onEvent(String event, Map<String, Object> data) throws Exception;
+    }
+
+    private final AiAdviceService adviceService;
+    private final ThreadPoolExecutor executor;
+    private final long retentionMillis;
+
+    private final ConcurrentMap<String, Job> jobs = new ConcurrentHashMap<>();
+    /** user:month:language -> job id, only while the job is pending or running. */
+    private final ConcurrentMap<String, String> inFlight = new ConcurrentHashMap<>();
+
+    public AdviceJobService(AiAdviceService adviceService,
+                            @Value("${advice.jobs.threads:4}") int threads,
+                            @Value("${advice.jobs.queueCapacity:50}") int queueCapacity,
+                            @Value("${advice.jobs.retentionMillis:600000}") long retentionMillis) {
+        this.adviceService = adviceService;
+        this.retentionMillis = retentionMillis;
+        AtomicInteger seq = new AtomicInteger();
+        this.executor = new ThreadPoolExecutor(threads, threads, 60, TimeUnit.SECONDS,
+                new ArrayBlockingQueue<>(queueCapacity),
+                r -> {
+                    Thread t = new Thread(r, "advice-job-" + seq.incrementAndGet());
+                    t.setDaemon(true);
+                    return t;
+                },
+                new ThreadPoolExecutor.AbortPolicy());
+        this.executor.allowCoreThreadTimeOut(true);
+    }
+
+    /**
+     * Queues advice generation, or returns the job already in flight for the same request.
+     *
+     * @throws RejectedExecutionException when the queue is full
+     */
+    public Job submit(Integer userId, YearMonth ym, String languageTag) {
+        return submit(userId, ym, languageTag, null);
+    }
+
+    /**
+     * As {@link #submit(Integer, YearMonth, String)}, and subscribes {@code listener} to the job.
+     * A listener joining a job already in flight first receives the latest update it missed.
+     */
+    public Job submit(Integer userId, YearMonth ym, String languageTag, Listener listener) {
+        Job job = submitJob(userId, ym, languageTag);
+        if (listener != null) job.subscribe(listener);
+        return job;
+    }
+
+    private Job submitJob(Integer userId, YearMonth ym, String languageTag) {
+        evictExpired();
+        String key = userId + ":" + ym + ":" + languageTag;
+        Job job = new Job(UUID.randomUUID().toString(), userId, ym, languageTag);
+        // registered before its id is published, so a concurrent submitter never sees a dangling id
+        jobs.put(job.getId(), job);
+
+        String existingId;
+        while ((existingId = inFlight.putIfAbsent(key, job.getId())) != null) {
+            Job existing = jobs.get(existingId);
+            if (existing != null && existing.inFlight()) {
+                jobs.remove(job.getId());
+                return existing;
+            }
+            inFlight.remove(key, existingId);
+        }
+
+        try {
+            executor.execute(() -> run(job, key));
+        } catch (RejectedExecutionException e) {
+            jobs.remove(job.getId());
+            inFlight.remove(key, job.getId());
+            throw e;
+        }
+        return job;
+    }
+
+    /** Looks up a job; jobs belonging to other users are reported as absent. */
+    public Optional<Job> find(String jobId, Integer userId) {
+        Job job = jobs.get(jobId);
+        if (job == null || !job.getUserId().equals(userId)) return Optional.empty();
+        return Optional.of(job);
+    }
+
+    private void run(Job job, String key) {
+        job.status = Status.RUNNING;
+        try {
+            var result = adviceService.generate(job.getUserId(), job.getMonth(), job.getLanguage(),
+                    new AiAdviceService.Progress() {
+                        @Override public void provisional(Map<String, Object> content) {
+                            job.publish("provisional", content, () -> job.provisional = content);
+                        }
+                        @Override public void partial(Map<String, Object> content) {
+                            job.publish("partial", content, () -> job.partial = content);
+                        }
+                        @Override public boolean streaming() {
+                            return true;
+                        }
+                    });
+            job.publish("done", result, () -> {
+                job.result = result;
+                job.status = Status.DONE;
+            });
+        } catch (Exception e) {
+            log.warn("Advice job {} failed", job.getId(), e);
+            String error = "Failed to generate suggestions";
+            job.publish("failed", Map.of("error", error), () -> {
+                job.error = error;
+                job.status = Status.FAILED;
+            });
+        } finally {
+            job.finishedAt = Instant.now();
+            inFlight.remove(key, job.getId());
+        }
+    }
+
+    private void evictExpired() {
+        Instant cutoff = Instant.now().minusMillis(retentionMillis);
+        jobs.values().removeIf(j -> j.finishedAt != null && j.finishedAt.isBefore(cutoff));
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+    public static final class Job {
+        private final String id;
+        private final Integer userId;
+        private final YearMonth month;
+        private final String language;
+        private volatile Status status = Status.PENDING;
+        private volatile Map<String, Object> result;
+        /** Rule-based advice available while the LLM call is still running. */
+        private volatile Map<String, Object> provisional;
+        /** LLM output received so far when streaming. */
+        private volatile Map<String, Object> partial;
+        private final List<Listener> listeners = new ArrayList<>();
+        private volatile String error;
+        private volatile Instant finishedAt;
+
+        Job(String id, Integer userId, YearMonth month, String language) {
+            this.id = id;
+            this.userId = userId;
+            this.month = month;
+            this.language = language;
+        }
+
+        public String getId() { return id; }
+        public Integer getUserId() { return userId; }
+        public YearMonth getMonth() { return month; }
+        public String getLanguage() { return language; }
+        public Status getStatus() { return status; }
+        public Map<String, Object> getResult() { return result; }
+        public Map<String, Object> getProvisional() { return provisional; }
+        public Map<String, Object> getPartial() { return partial; }
+
+        // State changes and listener fan-out happen under one lock, so a listener subscribing
+        // concurrently sees each update exactly once: either replayed or published.
+        private synchronized void publish(String event, Map<String, Object> data, Runnable apply) {
+            apply.run();
+            listeners.removeIf(l -> !deliver(l, event, data));
+            if (status == Status.DONE || status == Status.FAILED) listeners.clear();
+        }
+
+        private synchronized void subscribe(Listener l) {
+            if (status == Status.DONE) {
+                deliver(l, "done", result);
+                return;
+            }
+            if (status == Status.FAILED) {
+                deliver(l, "failed", Map.of("error", error));
+                return;
+            }
+            if (provisional != null && !deliver(l, "provisional", provisional)) return;
+            if (partial != null && !deliver(l, "partial", partial)) return;
+            listeners.add(l);
+        }
+
+        private static boolean deliver(Listener l, String event, Map<String, Object> data) {
+            try {
+                l.onEvent(event, data);
+                return true;
+            } catch (Exception e) {
+                return false;
+            }
+        }
+        public String getError() { return error; }
+
+        private boolean inFlight() {
+            return status == Status.PENDING || status == Status.RUNNING;
+        }
+
+        public Map<String, Object> toMap() {
+            Map<String, Object> m = new LinkedHashMap<>();
+            m.put("jobId", id);
+            m.put("status", status.name());
+            m.put("month", month.toString());
+            if (result != null) m.put("result", result);
+            else if (provisional != null) m.put("provisional", provisional);
+            if (result == null && partial != null) m.put("partial", partial);
+            if (error != null) m.put("error", error);
+            return m;
+        }
+    }
+}
@@ -0,0 +1,157 @@
+package com.example.backend.service;
+
+import com.example.backend.model.GoalPeriod;
+import com.example.backend.repository.ExpenseRecordRepository;
+import com.example.backend.repository.ExpenseRecordRepository.UserCategorySpend;
+import com.example.backend.repository.SpendingGoalRepository;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.math.BigDecimal;
+import java.time.YearMonth;
+import java.time.ZoneId;
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Month-end batch that prepares last month's advice for everyone before they ask for it.
+ * Spend, history and goals for all users are read with a handful of grouped queries on the scheduler
+ * thread; generation is then queued on a dedicated pacer thread, one user at a time at a capped rate,
+ * so the LLM never sees a burst and the shared scheduler is released within seconds.
+ */
+@Service
+public class AdvicePrecomputeService {
+
+    private static final Logger log = LoggerFactory.getLogger(AdvicePrecomputeService.class);
+    private static final ZoneId ZONE = ZoneId.of("Australia/Sydney");
+    /** Same tag AiAdviceController uses, so precomputed rows are served as cache hits. */
+    static final String LANGUAGE_TAG = Locale.US.toLanguageTag();
+
+    private final ExpenseRecordRepository expenseRepo;
+    private final SpendingGoalRepository goalRepo;
+    private final AiAdviceService adviceService;
+    private final long minIntervalMillis;
+    private final ScheduledExecutorService pacer;
+
+    public AdvicePrecomputeService(ExpenseRecordRepository expenseRepo,
+                                   SpendingGoalRepository goalRepo,
+                                   AiAdviceService adviceService,
+                                   @Value("${advice.precompute.minIntervalMillis:2000}") long minIntervalMillis) {
+        this.expenseRepo = expenseRepo;
+        this.goalRepo = goalRepo;
+        this.adviceService = adviceService;
+        this.minIntervalMillis = minIntervalMillis;
+        this.pacer = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "advice-precompute");
+            t.setDaemon(true);
+            return t;
+        });
+    }
+
+    @Scheduled(cron = "${advice.precompute.cron:0 30 1 1 * *}", zone = "Australia/Sydney")
+    public void precomputePreviousMonth() {
+        precompute(YearMonth.now(ZONE).minusMonths(1));
+    }
+
+    /**
+     * Reads the batch's inputs and queues generation on the pacer thread; returns without waiting for it.
+     *
+     * @return completes with the number of users whose advice was generated
+     */
+    public CompletableFuture<Integer> precompute(YearMonth ym) {
+        Map<Integer, List<UserCategorySpend>> spend = byUser(ym, ym.plusMonths(1));
+        Map<Integer, List<UserCategorySpend>> prev = byUser(ym.minusMonths(1), ym);
+        Map<Integer, List<UserCategorySpend>> hist = byUser(ym.minusMonths(AiAdviceService.HISTORY_MONTHS), ym);
+
+        Map<Integer, Map<Integer, BigDecimal>> goals = new HashMap<>();
+        for (var g : goalRepo.findByActiveTrueAndPeriod(GoalPeriod.MONTHLY)) {
+            goals.computeIfAbsent(g.getUser().getUser_id(), k -> new HashMap<>())
+                    .putIfAbsent(g.getCategory().getCategoryId(), g.getTargetAmount());
+        }
+
+        Map<Integer, AiAdviceService.History> histories = new HashMap<>();
+        for (Integer userId : spend.keySet()) {
+            histories.put(userId, new AiAdviceService.History(
+                    byCategory(prev.get(userId)),
+                    byCategory(hist.get(userId)),
+                    goals.getOrDefault(userId, Map.of())));
+        }
+
+        Batch batch = new Batch(ym, new ArrayList<>(spend.entrySet()), histories);
+        try {
+            pacer.execute(batch);
+        } catch (RejectedExecutionException e) {
+            batch.done.completeExceptionally(e);
+        }
+        return batch.done;
+    }
+
+    /** Generates one user per run, then schedules the next so calls start at least {@code minIntervalMillis} apart. */
+    private final class Batch implements Runnable {
+        private final YearMonth ym;
+        private final List<Map.Entry<Integer, List<UserCategorySpend>>> work;
+        private final Map<Integer, AiAdviceService.History> histories;
+        private final CompletableFuture<Integer> done = new CompletableFuture<>();
+        private int next;
+        private int generated;
+
+        Batch(YearMonth ym, List<Map.Entry<Integer, List<UserCategorySpend>>> work,
+              Map<Integer, AiAdviceService.History> histories) {
+            this.ym = ym;
+            this.work = work;
+            this.histories = histories;
+        }
+
+        @Override
+        public void run() {
+            if (next == work.size()) {
+                log.info("Advice precompute for {}: {} users, {} generated", ym, work.size(), generated);
+                done.complete(generated);
+                return;
+            }
+            var e = work.get(next++);
+            long started = System.currentTimeMillis();
+            try {
+                adviceService.generate(e.getKey(), ym, LANGUAGE_TAG, e.getValue(), histories.get(e.getKey()),
+                        AiAdviceService.Progress.NONE);
+                generated++;
+            } catch (Exception ex) {
+                log.warn("Advice precompute failed for user {} {}", e.getKey(), ym, ex);
+            }
+            long wait = Math.max(0, minIntervalMillis - (System.currentTimeMillis() - started));
+            try {
+                pacer.schedule(this, wait, TimeUnit.MILLISECONDS);
+            } catch (RejectedExecutionException shuttingDown) {
+                done.complete(generated);
+            }
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        pacer.shutdownNow();
+    }
+
+    private Map<Integer, List<UserCategorySpend>> byUser(YearMonth from, YearMonth toExclusive) {
+        Map<Integer, List<UserCategorySpend>> out = new LinkedHashMap<>();
+        for (var r : expenseRepo.findUserCategorySpendBetween(from.atDay(1), toExclusive.atDay(1))) {
+            out.computeIfAbsent(r.getUserId(), k -> new ArrayList<>()).add(r);
+        }
+        return out;
+    }
+
+    private static Map<Integer, BigDecimal> byCategory(List<UserCategorySpend> rows) {
+        if (rows == null) return Map.of();
+        Map<Integer, BigDecimal> m = new HashMap<>();
+        for (var r : rows) m.put(r.getCategoryId(), r.getAmount());
+        return m;
+    }
+}
@@ -1,19 +1,28 @@
 package com.example.backend.service;
 
 import com.example.backend.config.gemini.GeminiClient;
-import com.example.backend.model.AiRecommendation;
-import com.example.backend.model.FeatureSnapshot;
+import com.example.backend.config.gemini.PartialJson;
+import com.example.backend.config.gemini.RuleBasedAdviceEngine;
+import com.example.backend.model.GoalPeriod;
+import com.example.backend.model.User;
 import com.example.backend.repository.AiRecommendationRepository;
 import com.example.backend.repository.ExpenseRecordRepository;
-import com.example.backend.repository.FeatureSnapshotRepository;
+import com.example.backend.repository.SpendingGoalRepository;
 import com.example.backend.repository.UserRepository;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
 
 import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
 import java.time.YearMonth;
 import java.util.*;
+import java.util.function.Consumer;
 
 @Service
 @RequiredArgsConstructor
@@ -21,84 +30,230 @@ public class AiAdviceService {
 
     private final ExpenseRecordRepository expenseRepo;
     private final AiRecommendationRepository recRepo;
-    private final FeatureSnapshotRepository snapshotRepo;
+    private final SnapshotService snapshots;
     private final UserRepository userRepo;
+    private final SpendingGoalRepository goalRepo;
     private final GeminiClient gemini;
+    private final RuleBasedAdviceEngine rules;
+    private final TransactionTemplate tx;
     private final ObjectMapper om = new ObjectMapper();
 
+    /** "gemini" (LLM, rules as fallback) or "rules" (never call the LLM). */
+    @Value("${gemini.provider:gemini}")
+    private String provider = "gemini";
+
     private static final String CURRENCY = "AUD";
+    static final int HISTORY_MONTHS = 3;
 
-    public Map<String,Object> generate(Integer userId, YearMonth ym, String languageTag) {
-        int year = ym.getYear();
-        int month = ym.getMonthValue();
-        var rows = expenseRepo.findMonthlySpend(userId, year, month);
+    /** Optional callbacks for callers that show advice before generation finishes. */
+    public interface Progress {
+        Progress NONE = new Progress() { };
 
-        BigDecimal total = rows.stream()
-                .map(ExpenseRecordRepository.CategorySpend::getAmount)
-                .reduce(BigDecimal.ZERO, BigDecimal::add);
+        /** Rule-based advice for the same input, handed over just before the LLM is called. */
+        default void provisional(Map<String, Object> content) { }
+
+        /** The LLM answer so far (summary and bullets parsed from the streamed prefix). */
+        default void partial(Map<String, Object> content) { }
+
+        /** Whether to stream the LLM answer; {@link #partial} is only called when this is true. */
+        default boolean streaming() { return false; }
+    }
 
-        if (total.signum() == 0) {
-            return Map.of(
-                    "month", ym.toString(),
-                    "language", languageTag,
-                    "noData", true,
-                    "message", "Insufficient transactions this month to generate suggestions."
-            );
+    public Map<String,Object> generate(Integer userId, YearMonth ym, String languageTag) {
+        return generate(userId, ym, languageTag, Progress.NONE);
+    }
+
+    /**
+     * As {@link #generate(Integer, YearMonth, String)}, reporting provisional and partial advice
+     * to {@code progress} while the model runs.
+     */
+    public Map<String,Object> generate(Integer userId, YearMonth ym, String languageTag,
+                                       Progress progress) {
+        var rows = expenseRepo.findMonthlySpend(userId, ym.getYear(), ym.getMonthValue());
+        if (sum(rows).signum() == 0) {
+            return noData(ym, languageTag);
         }
+        var user = userRepo.getReferenceById(userId);
+        return generate(user, userId, ym, languageTag, rows, loadHistory(userId, user, ym), progress);
+    }
 
-        List<Map<String, Object>> totals = new ArrayList<>();
-        for (var r : rows) {
-            BigDecimal pct = r.getAmount().divide(total, 4, java.math.RoundingMode.HALF_UP);
-            totals.add(Map.of(
-                    "catId", r.getCategoryId(),
-                    "catName", r.getCategoryName(),
-                    "amount", r.getAmount(),
-                    "pct", pct
-            ));
+    /**
+     * Generates from already-aggregated input; used by the month-end batch, which loads
+     * every user's spend and history with a few grouped queries.
+     */
+    public Map<String,Object> generate(Integer userId, YearMonth ym, String languageTag,
+                                       List<? extends ExpenseRecordRepository.CategorySpend> rows,
+                                       History history,
+                                       Progress progress) {
+        return generate(userRepo.getReferenceById(userId), userId, ym, languageTag, rows, history, progress);
+    }
+
+    /**
+     * Reads the stored advice, calls the model with no transaction open, then writes the snapshot and
+     * the advice together as two native upserts in one short transaction. Entities are never loaded
+     * for writing, so there is no select-then-save round trip and no lost-insert race on (user_id, month).
+     */
+    private Map<String,Object> generate(User user, Integer userId, YearMonth ym, String languageTag,
+                                        List<? extends ExpenseRecordRepository.CategorySpend> rows,
+                                        History history,
+                                        Progress progress) {
+        var in = prepare(ym, languageTag, rows, history);
+        if (in == null) {
+            return noData(ym, languageTag);
         }
+        var monthStr = in.month();
+        var total = in.total();
+        var totals = in.totals();
+        var fingerprint = in.fingerprint();
 
-        var user = userRepo.findById(userId).orElseThrow();
-        var monthStr = ym.toString();
-        var totalsJson = writeJson(totals);
-        var snap = snapshotRepo.findByUserAndMonth(userRepo.findById(userId).orElseThrow(), monthStr)
-                .orElseGet(FeatureSnapshot::new);
-        snap.setUser(user);
-        snap.setMonth(monthStr);
-        snap.setTotalsByCategoryJson(totalsJson);
-        snap.setTotalSpending(total);
-        snap.setCurrency(CURRENCY);
-        snapshotRepo.save(snap);
+        var existing = recRepo.findByUserAndMonth(user, monthStr);
+        if (existing.isPresent() && fingerprint.equals(existing.get().getFingerprint())) {
+            return readJson(existing.get().getContent());
+        }
 
+        String ruleJson = rules.generateAdviceJson(monthStr, CURRENCY, total, totals, languageTag);
         String llmJson;
-        try {
-            llmJson = gemini.generateAdviceJson(monthStr, CURRENCY, total, totals, languageTag);
-        } catch (Exception ex) {
-            llmJson = """
-                {"summary":"System is busy. Generated brief suggestions using rules.",
-                 "bullets":[
-                   {"title":"Set limits for high-spending categories","detail":"Start with a fixed weekly budget"},
-                   {"title":"Schedule regular reviews","detail":"Review non-essential spending weekly"}
-                 ]}""";
+        boolean cacheable = true;
+        if ("rules".equalsIgnoreCase(provider)) {
+            llmJson = ruleJson;
+        } else {
+            progress.provisional(decorate(readJson(ruleJson), monthStr, languageTag, total, totals));
+            try {
+                llmJson = progress.streaming()
+                        ? gemini.streamAdviceJson(monthStr, CURRENCY, total, totals, languageTag, partialParser(progress))
+                        : gemini.generateAdviceJson(monthStr, CURRENCY, total, totals, languageTag);
+            } catch (Exception ex) {
+                cacheable = false;
+                llmJson = ruleJson;
+            }
         }
 
-        Map<String,Object> content = readJson(llmJson);
+        Map<String,Object> content = decorate(readJson(llmJson), monthStr, languageTag, total, totals);
+
+        String json = writeJson(content);
+
+        // Fallback text is not worth keeping: leave it unfingerprinted so the next request retries the model
+        String recFingerprint = cacheable ? fingerprint : null;
+        tx.executeWithoutResult(status -> {
+            snapshots.write(userId, ym, rows);
+            recRepo.upsert(userId, monthStr, languageTag, json, recFingerprint);
+        });
+
+        return content;
+    }
+
+    /** Turns streamed text into {summary, bullets} updates, skipping chunks that add nothing new. */
+    private static Consumer<String> partialParser(Progress progress) {
+        var last = new Object() { Map<String, Object> sent; };
+        return text -> {
+            Map<String, Object> parsed = PartialJson.parseObjectPrefix(text);
+            if (parsed == null) return;
+            Map<String, Object> update = new LinkedHashMap<>();
+            if (parsed.get("summary") instanceof String summary) update.put("summary", summary);
+            if (parsed.get("bullets") instanceof List<?> bullets) update.put("bullets", bullets);
+            if (update.isEmpty() || update.equals(last.sent)) return;
+            last.sent = update;
+            progress.partial(update);
+        };
+    }
+
+    /** Per-category amounts keyed by category id: last month, the {@value #HISTORY_MONTHS} months before, active monthly goals. */
+    public record History(Map<Integer, BigDecimal> prevAmount,
+                          Map<Integer, BigDecimal> historyTotal,
+                          Map<Integer, BigDecimal> goalAmount) {
+        public static final History EMPTY = new History(Map.of(), Map.of(), Map.of());
+    }
+
+    private record Prepared(String month, BigDecimal total,
+                            List<Map<String, Object>> totals, String fingerprint) {}
+
+    private Prepared prepare(YearMonth ym, String languageTag,
+                             List<? extends ExpenseRecordRepository.CategorySpend> rows, History history) {
+        BigDecimal total = sum(rows);
+        if (total.signum() == 0) return null;
+
+        // Stable order and key order so the same spend always serialises (and hashes) the same
+        List<Map<String, Object>> totals = new ArrayList<>();
+        rows.stream()
+                .sorted(Comparator.comparing(ExpenseRecordRepository.CategorySpend::getCategoryId))
+                .forEach(r -> {
+                    BigDecimal pct = r.getAmount().divide(total, 4, RoundingMode.HALF_UP);
+                    Map<String, Object> t = new LinkedHashMap<>();
+                    t.put("catId", r.getCategoryId());
+                    t.put("catName", r.getCategoryName());
+                    t.put("amount", r.getAmount());
+                    t.put("pct", pct);
+                    Integer catId = r.getCategoryId();
+                    if (history.prevAmount().containsKey(catId)) t.put("prevAmount", history.prevAmount().get(catId));
+                    if (history.historyTotal().containsKey(catId)) {
+                        t.put("avgAmount", history.historyTotal().get(catId)
+                                .divide(BigDecimal.valueOf(HISTORY_MONTHS), 2, RoundingMode.HALF_UP));
+                    }
+                    if (history.goalAmount().containsKey(catId)) t.put("goalAmount", history.goalAmount().get(catId));
+                    totals.add(t);
+                });
+
+        return new Prepared(ym.toString(), total, totals, fingerprint(writeJson(totals), languageTag));
+    }
+
+    private static BigDecimal sum(List<? extends ExpenseRecordRepository.CategorySpend> rows) {
+        return rows.stream()
+                .map(ExpenseRecordRepository.CategorySpend::getAmount)
+                .reduce(BigDecimal.ZERO, BigDecimal::add);
+    }
+
+    private static Map<String, Object> noData(YearMonth ym, String languageTag) {
+        return Map.of(
+                "month", ym.toString(),
+                "language", languageTag,
+                "noData", true,
+                "message", "Insufficient transactions this month to generate suggestions."
+        );
+    }
+
+    private Map<String, Object> decorate(Map<String, Object> content, String monthStr, String languageTag,
+                                         BigDecimal total, List<Map<String, Object>> totals) {
         content.put("month", monthStr);
         content.put("language", languageTag);
         content.put("currency", CURRENCY);
         content.put("totalSpending", total);
         content.put("totalsByCategory", totals);
+        return content;
+    }
 
-        String json = writeJson(content);
-
-        var rec = recRepo.findByUserAndMonth(userRepo.findById(userId).orElseThrow(), monthStr)
-                .orElseGet(AiRecommendation::new);
-        rec.setUser(user);
-        rec.setMonth(monthStr);
-        rec.setLanguage(languageTag);
-        rec.setContent(json);
-        recRepo.save(rec);
+    private History loadHistory(Integer userId, User user, YearMonth ym) {
+        YearMonth prev = ym.minusMonths(1);
+        Map<Integer, BigDecimal> prevByCat = new HashMap<>();
+        for (var r : expenseRepo.findMonthlySpend(userId, prev.getYear(), prev.getMonthValue())) {
+            prevByCat.put(r.getCategoryId(), r.getAmount());
+        }
+        Map<Integer, BigDecimal> histByCat = new HashMap<>();
+        for (var r : expenseRepo.findCategorySpendBetween(userId,
+                ym.minusMonths(HISTORY_MONTHS).atDay(1), ym.atDay(1))) {
+            histByCat.put(r.getCategoryId(), r.getAmount());
+        }
+        Map<Integer, BigDecimal> goalByCat = new HashMap<>();
+        for (var g : goalRepo.findByUserAndActiveTrueOrderByCreatedAtDesc(user)) {
+            if (g.getPeriod() == GoalPeriod.MONTHLY) {
+                goalByCat.putIfAbsent(g.getCategory().getCategoryId(), g.getTargetAmount());
+            }
+        }
+        return new History(prevByCat, histByCat, goalByCat);
+    }
 
-        return content;
+    /** SHA-256 over everything that feeds the prompt; equal fingerprints mean the stored advice is still current. */
+    static String fingerprint(String totalsJson, String languageTag) {
+        try {
+            var md = MessageDigest.getInstance("SHA-256");
+            md.update(totalsJson.getBytes(StandardCharsets.UTF_8));
+            md.update((byte) 0);
+            md.update(String.valueOf(languageTag).getBytes(StandardCharsets.UTF_8));
+            md.update((byte) 0);
+            md.update(CURRENCY.getBytes(StandardCharsets.UTF_8));
+            return HexFormat.of().formatHex(md.digest());
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
     }
 
     private String writeJson(Object src) {
@@ -0,0 +1,310 @@
+package com.example.backend.service;
+
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Service;
+import org.springframework.web.multipart.MultipartFile;
+import org.springframework.web.server.ResponseStatusException;
+
+import javax.imageio.IIOImage;
+import javax.imageio.ImageIO;
+import javax.imageio.ImageReadParam;
+import javax.imageio.ImageReader;
+import javax.imageio.ImageWriteParam;
+import javax.imageio.ImageWriter;
+import javax.imageio.stream.ImageInputStream;
+import javax.imageio.stream.ImageOutputStream;
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.geom.AffineTransform;
+import java.awt.image.BufferedImage;
+import java.io.BufferedInputStream;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+import java.util.HexFormat;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Turns uploaded profile pictures into small square JPEG thumbnails, one per configured size,
+ * named by the SHA-256 of the upload ({@code <hash>-<size>.jpg}) so identical uploads share files
+ * and a name never changes content. Originals are not kept.
+ * <p>
+ * The request thread only streams the upload to a temp file while hashing it; decoding and resizing
+ * run on a small bounded pool. Large photos are decoded subsampled, close to twice the largest
+ * thumbnail, so a 24-megapixel image never sits in memory at full resolution.
+ */
+@Service
+public class AvatarService {
+
+    private static final Logger log = LoggerFactory.getLogger(AvatarService.class);
+
+    /** Uploads larger than this many pixels are refused before decoding. */
+    static final long MAX_PIXELS = 50_000_000L;
+    private static final int HASH_CHARS = 32;
+
+    private final Path dir;
+    private final int[] sizes;
+    private final ThreadPoolExecutor executor;
+
+    @Autowired
+    public AvatarService(@Value("${avatar.dir:uploads/picture}") String dir,
+                         @Value("${avatar.sizes:64,128,256}") int[] sizes,
+                         @Value("${avatar.threads:2}") int threads,
+                         @Value("${avatar.queueCapacity:16}") int queueCapacity) {
+        this(Paths.get(dir), sizes, threads, queueCapacity);
+    }
+
+    AvatarService(Path dir, int[] sizes, int threads, int queueCapacity) {
+        this.dir = dir;
+        this.sizes = Arrays.stream(sizes).sorted().toArray();
+        AtomicInteger seq = new AtomicInteger();
+        this.executor = new ThreadPoolExecutor(threads, threads, 60, TimeUnit.SECONDS,
+                new ArrayBlockingQueue<>(queueCapacity),
+                r -> {
+                    Thread t = new Thread(r, "avatar-" + seq.incrementAndGet());
+                    t.setDaemon(true);
+                    return t;
+                },
+                new ThreadPoolExecutor.AbortPolicy());
+        this.executor.allowCoreThreadTimeOut(true);
+    }
+
+    /** The thumbnail sizes, smallest first. */
+    public List<Integer> sizes() {
+        return Arrays.stream(sizes).boxed().toList();
+    }
+
+    public int largest() {
+        return sizes[sizes.length - 1];
+    }
+
+    public static String fileName(String hash, int size) {
+        return hash + "-" + size + ".jpg";
+    }
+
+    /**
+     * Stores {@code file} and completes with its content hash once every thumbnail exists.
+     * Completes exceptionally with 400 if the upload is not a readable image.
+     *
+     * @throws ResponseStatusException 503 when the resize queue is full
+     */
+    public CompletableFuture<String> store(MultipartFile file) throws IOException {
+        Files.createDirectories(dir);
+        Path tmp = Files.createTempFile("avatar-", ".upload");
+        String hash;
+        try (InputStream in = new DigestInputStream(file.getInputStream(), sha256())) {
+            Files.copy(in, tmp, StandardCopyOption.REPLACE_EXISTING);
+            hash = HexFormat.of().formatHex(((DigestInputStream) in).getMessageDigest().digest()).substring(0, HASH_CHARS);
+        } catch (IOException | RuntimeException e) {
+            Files.deleteIfExists(tmp);
+            throw e;
+        }
+
+        if (Arrays.stream(sizes).allMatch(s -> Files.exists(dir.resolve(fileName(hash, s))))) {
+            Files.deleteIfExists(tmp);
+            return CompletableFuture.completedFuture(hash);
+        }
+        try {
+            return CompletableFuture.supplyAsync(() -> {
+                try {
+                    writeThumbnails(tmp, hash);
+                    return hash;
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                } finally {
+                    deleteQuietly(tmp);
+                }
+            }, executor);
+        } catch (RejectedExecutionException e) {
+            deleteQuietly(tmp);
+            throw new ResponseStatusException(HttpStatus.SERVICE_UNAVAILABLE, "Too many uploads, try again shortly");
+        }
+    }
+
+    private void writeThumbnails(Path source, String hash) throws IOException {
+        BufferedImage image = orient(decode(source, 2 * largest()), exifOrientation(source));
+        int side = Math.min(image.getWidth(), image.getHeight());
+        BufferedImage square = image.getSubimage((image.getWidth() - side) / 2, (image.getHeight() - side) / 2, side, side);
+        for (int size : sizes) {
+            Path target = dir.resolve(fileName(hash, size));
+            if (Files.exists(target)) continue;
+            Path part = Files.createTempFile(dir, "." + hash + "-", ".part");
+            try {
+                writeJpeg(scale(square, Math.min(size, side)), part);
+                Files.move(part, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+            } finally {
+                Files.deleteIfExists(part);
+            }
+        }
+    }
+
+    /** Decodes {@code source}, skipping pixels so the shorter side stays at least {@code minSide}. */
+    static BufferedImage decode(Path source, int minSide) throws IOException {
+        try (ImageInputStream in = ImageIO.createImageInputStream(source.toFile())) {
+            Iterator<ImageReader> readers = in == null ? null : ImageIO.getImageReaders(in);
+            if (readers == null || !readers.hasNext()) {
+                throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Not a supported image");
+            }
+            ImageReader reader = readers.next();
+            try {
+                reader.setInput(in, true, true);
+                int w = reader.getWidth(0);
+                int h = reader.getHeight(0);
+                if ((long) w * h > MAX_PIXELS) {
+                    throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Image is too large");
+                }
+                ImageReadParam param = reader.getDefaultReadParam();
+                int step = Math.max(1, Math.min(w, h) / minSide);
+                param.setSourceSubsampling(step, step, 0, 0);
+                return reader.read(0, param);
+            } catch (IOException e) {
+                throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Not a supported image");
+            } finally {
+                reader.dispose();
+            }
+        }
+    }
+
+    /**
+     * The EXIF Orientation (1-8) of a JPEG, or 1 when it has none. Thumbnails are written without
+     * metadata, so phone photos must be turned upright here rather than by the browser.
+     */
+    static int exifOrientation(Path source) throws IOException {
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(source)))) {
+            if (in.readUnsignedShort() != 0xFFD8) return 1;
+            while (true) {
+                int marker = in.readUnsignedShort();
+                // EXIF sits in an APP1 segment ahead of the image data
+                if ((marker & 0xFF00) != 0xFF00 || marker == 0xFFDA || marker == 0xFFD9) return 1;
+                int length = in.readUnsignedShort() - 2;
+                if (length < 0) return 1;
+                if (marker != 0xFFE1) {
+                    in.skipNBytes(length);
+                    continue;
+                }
+                int orientation = orientationTag(in.readNBytes(length));
+                if (orientation != 0) return orientation;
+            }
+        } catch (EOFException e) {
+            return 1;
+        }
+    }
+
+    /** Reads tag 0x0112 from IFD0 of an APP1 payload; 0 if the segment is not EXIF or has no such tag. */
+    private static int orientationTag(byte[] app1) {
+        if (app1.length < 14 || !new String(app1, 0, 6, StandardCharsets.ISO_8859_1).equals("Exif\0\0")) return 0;
+        ByteBuffer tiff = ByteBuffer.wrap(app1, 6, app1.length - 6).slice()
+                .order(app1[6] == 'I' ? ByteOrder.LITTLE_ENDIAN : ByteOrder.BIG_ENDIAN);
+        try {
+            int ifd = tiff.getInt(4);
+            int entries = tiff.getShort(ifd) & 0xFFFF;
+            for (int i = 0; i < entries; i++) {
+                int entry = ifd + 2 + 12 * i;
+                if ((tiff.getShort(entry) & 0xFFFF) == 0x0112) {
+                    int value = tiff.getShort(entry + 8) & 0xFFFF;
+                    return value >= 1 && value <= 8 ? value : 1;
+                }
+            }
+        } catch (IndexOutOfBoundsException e) {
+            // truncated or corrupt EXIF: treat as untagged
+        }
+        return 0;
+    }
+
+    /** Applies an EXIF orientation so the image is upright: mirrors for 2/4/5/7, quarter turns for 5-8. */
+    static BufferedImage orient(BufferedImage image, int orientation) {
+        if (orientation <= 1 || orientation > 8) return image;
+        int w = image.getWidth();
+        int h = image.getHeight();
+        AffineTransform t = switch (orientation) {
+            case 2 -> new AffineTransform(-1, 0, 0, 1, w, 0);
+            case 3 -> new AffineTransform(-1, 0, 0, -1, w, h);
+            case 4 -> new AffineTransform(1, 0, 0, -1, 0, h);
+            case 5 -> new AffineTransform(0, 1, 1, 0, 0, 0);
+            case 6 -> new AffineTransform(0, 1, -1, 0, h, 0);
+            case 7 -> new AffineTransform(0, -1, -1, 0, h, w);
+            default -> new AffineTransform(0, -1, 1, 0, 0, w);
+        };
+        boolean swap = orientation >= 5;
+        BufferedImage out = new BufferedImage(swap ? h : w, swap ? w : h, BufferedImage.TYPE_INT_ARGB);
+        Graphics2D g = out.createGraphics();
+        try {
+            g.drawImage(image, t, null);
+        } finally {
+            g.dispose();
+        }
+        return out;
+    }
+
+    private static BufferedImage scale(BufferedImage square, int size) {
+        BufferedImage out = new BufferedImage(size, size, BufferedImage.TYPE_INT_RGB);
+        Graphics2D g = out.createGraphics();
+        try {
+            g.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BICUBIC);
+            g.setRenderingHint(RenderingHints.KEY_RENDERING, RenderingHints.VALUE_RENDER_QUALITY);
+            // JPEG has no alpha: transparent areas become white rather than black
+            g.setColor(Color.WHITE);
+            g.fillRect(0, 0, size, size);
+            g.drawImage(square, 0, 0, size, size, null);
+        } finally {
+            g.dispose();
+        }
+        return out;
+    }
+
+    private static void writeJpeg(BufferedImage image, Path target) throws IOException {
+        ImageWriter writer = ImageIO.getImageWritersByFormatName("jpeg").next();
+        try (ImageOutputStream out = ImageIO.createImageOutputStream(target.toFile())) {
+            writer.setOutput(out);
+            ImageWriteParam param = writer.getDefaultWriteParam();
+            param.setCompressionMode(ImageWriteParam.MODE_EXPLICIT);
+            param.setCompressionQuality(0.85f);
+            writer.write(null, new IIOImage(image, null, null), param);
+        } finally {
+            writer.dispose();
+        }
+    }
+
+    private static MessageDigest sha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static void deleteQuietly(Path p) {
+        try {
+            Files.deleteIfExists(p);
+        } catch (IOException e) {
+            log.warn("Could not delete {}", p, e);
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+}
@@ -0,0 +1,136 @@
+package com.example.backend.service;
+
+import com.example.backend.dto.CategoryDTO;
+import com.example.backend.model.Category;
+import com.example.backend.repository.CategoryRepository;
+import org.springframework.stereotype.Service;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.*;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * In-process copy of the (small, global) category table.
+ * Reads are served from an immutable snapshot that is swapped atomically;
+ * the snapshot is loaded on first use and dropped whenever a category is written.
+ */
+@Service
+public class CategoryCache {
+
+    /** Minimum gap between reloads triggered by lookups of unknown ids/names. */
+    static final long MISS_RELOAD_INTERVAL_MILLIS = 5_000;
+
+    private final CategoryRepository categoryRepository;
+    private final AtomicReference<Snapshot> snapshot = new AtomicReference<>();
+    /** Bumped on every invalidation so a load that raced a write is never installed. */
+    private final AtomicLong generation = new AtomicLong();
+
+    public CategoryCache(CategoryRepository categoryRepository) {
+        this.categoryRepository = categoryRepository;
+    }
+
+    public List<Category> findAll() {
+        return current().all();
+    }
+
+    public List<CategoryDTO> findAllDtos() {
+        return current().dtos();
+    }
+
+    public Optional<Category> findById(Integer id) {
+        if (id == null) return Optional.empty();
+        Category c = current().byId().get(id);
+        if (c == null) c = reloadAfterMiss().byId().get(id);
+        return Optional.ofNullable(c);
+    }
+
+    public Optional<Category> findByName(String name) {
+        if (name == null) return Optional.empty();
+        Category c = current().byName().get(name);
+        if (c == null) c = reloadAfterMiss().byName().get(name);
+        return Optional.ofNullable(c);
+    }
+
+    /** Strong ETag of the current catalog contents. */
+    public String etag() {
+        return current().etag();
+    }
+
+    public long count() {
+        return current().all().size();
+    }
+
+    public Category save(Category category) {
+        Category saved = categoryRepository.save(category);
+        invalidate();
+        return saved;
+    }
+
+    public void invalidate() {
+        generation.incrementAndGet();
+        snapshot.set(null);
+    }
+
+    private Snapshot current() {
+        Snapshot s = snapshot.get();
+        return s != null ? s : install(null);
+    }
+
+    private Snapshot reloadAfterMiss() {
+        Snapshot s = current();
+        if (System.currentTimeMillis() - s.loadedAt() < MISS_RELOAD_INTERVAL_MILLIS) {
+            return s;
+        }
+        return install(s);
+    }
+
+    private Snapshot install(Snapshot expected) {
+        long gen = generation.get();
+        Snapshot fresh = load();
+        if (generation.get() == gen) {
+            snapshot.compareAndSet(expected, fresh);
+        }
+        return fresh;
+    }
+
+    private Snapshot load() {
+        List<Category> rows = new ArrayList<>(categoryRepository.findAll());
+        rows.sort(Comparator.comparing(Category::getCategoryId, Comparator.nullsLast(Comparator.naturalOrder())));
+
+        Map<Integer, Category> byId = new HashMap<>();
+        Map<String, Category> byName = new HashMap<>();
+        List<CategoryDTO> dtos = new ArrayList<>();
+        StringBuilder fingerprint = new StringBuilder();
+        for (Category c : rows) {
+            byId.put(c.getCategoryId(), c);
+            byName.put(c.getCategoryName(), c);
+            dtos.add(new CategoryDTO(Long.valueOf(c.getCategoryId()), c.getCategoryName()));
+            fingerprint.append(c.getCategoryId()).append('\u0001')
+                    .append(c.getCategoryName()).append('\u0001')
+                    .append(c.getDescription()).append('\u0001')
+                    .append(c.getIconUrl()).append('\u0002');
+        }
+        return new Snapshot(List.copyOf(rows), Map.copyOf(byId), Map.copyOf(byName), List.copyOf(dtos),
+                "\"" + sha256(fingerprint.toString()).substring(0, 32) + "\"",
+                System.currentTimeMillis());
+    }
+
+    private static String sha256(String s) {
+        try {
+            byte[] d = MessageDigest.getInstance("SHA-256").digest(s.getBytes(StandardCharsets.UTF_8));
+            return HexFormat.of().formatHex(d);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private record Snapshot(List<Category> all,
+                            Map<Integer, Category> byId,
+                            Map<String, Category> byName,
+                            List<CategoryDTO> dtos,
+                            String etag,
+                            long loadedAt) {}
+}
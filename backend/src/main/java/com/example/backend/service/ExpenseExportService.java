@@ -0,0 +1,171 @@
+package com.example.backend.service;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.stereotype.Service;
+
+import javax.sql.DataSource;
+import java.io.*;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.sql.*;
+import java.time.LocalDate;
+import java.util.Locale;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Streams a user's raw expense records as CSV or NDJSON.
+ * Rows are read through a forward-only JDBC cursor and written straight to the
+ * response, so memory use stays flat no matter how long the history is.
+ */
+@Service
+public class ExpenseExportService {
+
+    public enum Format { CSV, NDJSON }
+
+    /** Rows fetched per round trip; PostgreSQL only honours this with autocommit off. */
+    static final int FETCH_SIZE = 500;
+
+    private static final String[] COLUMNS = {
+            "expenseId", "expenseDate", "categoryId", "categoryName", "amount", "currency",
+            "description", "notes", "paymentMethod", "isRecurring", "recurringScheduleId"
+    };
+
+    // Same filters as ExpenseRecordRepository.searchNoKeyword / searchWithKeyword
+    private static final String BASE_SQL = """
+            SELECT e.expense_id, e.expense_date, c.category_id, c.category_name, e.amount, e.currency,
+                   e.description, e.notes, e.payment_method, e.is_recurring, e.recurring_schedule_id
+            FROM expense_record e JOIN categories c ON c.category_id = e.category_id
+            WHERE e.user_id = ?
+              AND e.expense_date >= COALESCE(CAST(? AS date), e.expense_date)
+              AND e.expense_date <= COALESCE(CAST(? AS date), e.expense_date)
+              AND e.category_id   = COALESCE(CAST(? AS integer), e.category_id)
+              AND e.is_recurring  = COALESCE(CAST(? AS boolean), e.is_recurring)
+            """;
+
+    private static final String KEYWORD_SQL = """
+              AND (
+                   LOWER(COALESCE(e.description, '')) LIKE ?
+                OR LOWER(COALESCE(e.notes, ''))       LIKE ?
+              )
+            """;
+
+    private final DataSource dataSource;
+    private final ObjectMapper om = new ObjectMapper();
+
+    public ExpenseExportService(DataSource dataSource) {
+        this.dataSource = dataSource;
+    }
+
+    public void export(Integer userId,
+                       LocalDate fromDate,
+                       LocalDate toDate,
+                       Integer categoryId,
+                       String q,
+                       Boolean recurring,
+                       boolean ascending,
+                       Format format,
+                       boolean gzip,
+                       OutputStream out) throws IOException {
+        String qNorm = (q == null || q.isBlank()) ? null : q.trim();
+        String sql = BASE_SQL
+                + (qNorm == null ? "" : KEYWORD_SQL)
+                + (ascending ? " ORDER BY e.expense_date ASC, e.expense_id ASC"
+                             : " ORDER BY e.expense_date DESC, e.expense_id DESC");
+
+        OutputStream target = gzip ? new GZIPOutputStream(out, 8192) : out;
+        Writer writer = new BufferedWriter(new OutputStreamWriter(target, StandardCharsets.UTF_8), 8192);
+
+        try (Connection conn = dataSource.getConnection()) {
+            boolean autoCommit = conn.getAutoCommit();
+            conn.setAutoCommit(false);
+            try (PreparedStatement ps = conn.prepareStatement(sql,
+                    ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY)) {
+                ps.setFetchSize(FETCH_SIZE);
+                ps.setInt(1, userId);
+                ps.setObject(2, fromDate == null ? null : Date.valueOf(fromDate), Types.DATE);
+                ps.setObject(3, toDate == null ? null : Date.valueOf(toDate), Types.DATE);
+                ps.setObject(4, categoryId, Types.INTEGER);
+                ps.setObject(5, recurring, Types.BOOLEAN);
+                if (qNorm != null) {
+                    String like = "%" + qNorm.toLowerCase(Locale.ROOT) + "%";
+                    ps.setString(6, like);
+                    ps.setString(7, like);
+                }
+
+                try (ResultSet rs = ps.executeQuery()) {
+                    if (format == Format.CSV) {
+                        writeCsv(rs, writer);
+                    } else {
+                        writeNdjson(rs, writer);
+                    }
+                }
+            } finally {
+                conn.rollback();
+                conn.setAutoCommit(autoCommit);
+            }
+        } catch (SQLException e) {
+            throw new RuntimeException("Error exporting records", e);
+        }
+
+        writer.flush();
+        if (target instanceof GZIPOutputStream gz) {
+            gz.finish();
+        }
+        out.flush();
+    }
+
+    private void writeCsv(ResultSet rs, Writer w) throws SQLException, IOException {
+        w.write(String.join(",", COLUMNS));
+        w.write("\r\n");
+        while (rs.next()) {
+            for (int i = 0; i < COLUMNS.length; i++) {
+                if (i > 0) w.write(',');
+                Object v = rs.getObject(i + 1);
+                if (v instanceof BigDecimal bd) {
+                    w.write(bd.toPlainString());
+                } else if (v != null) {
+                    w.write(csvEscape(String.valueOf(v)));
+                }
+            }
+            w.write("\r\n");
+        }
+    }
+
+    private void writeNdjson(ResultSet rs, Writer w) throws SQLException, IOException {
+        JsonGenerator gen = om.getFactory().createGenerator(w);
+        gen.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+        gen.setRootValueSeparator(null);
+        while (rs.next()) {
+            gen.writeStartObject();
+            gen.writeNumberField("expenseId", rs.getInt(1));
+            Date date = rs.getDate(2);
+            gen.writeStringField("expenseDate", date == null ? null : date.toLocalDate().toString());
+            gen.writeNumberField("categoryId", rs.getInt(3));
+            gen.writeStringField("categoryName", rs.getString(4));
+            BigDecimal amount = rs.getBigDecimal(5);
+            gen.writeFieldName("amount");
+            if (amount == null) gen.writeNull(); else gen.writeNumber(amount);
+            gen.writeStringField("currency", rs.getString(6));
+            gen.writeStringField("description", rs.getString(7));
+            gen.writeStringField("notes", rs.getString(8));
+            gen.writeStringField("paymentMethod", rs.getString(9));
+            gen.writeFieldName("isRecurring");
+            Object recurring = rs.getObject(10);
+            if (recurring == null) gen.writeNull(); else gen.writeBoolean((Boolean) recurring);
+            gen.writeFieldName("recurringScheduleId");
+            Object scheduleId = rs.getObject(11);
+            if (scheduleId == null) gen.writeNull(); else gen.writeNumber(((Number) scheduleId).intValue());
+            gen.writeEndObject();
+            gen.writeRaw('\n');
+        }
+        gen.flush();
+    }
+
+    static String csvEscape(String s) {
+        boolean quote = s.indexOf(',') >= 0 || s.indexOf('"') >= 0
+                || s.indexOf('\n') >= 0 || s.indexOf('\r') >= 0;
+        if (!quote) return s;
+        return '"' + s.replace("\"", "\"\"") + '"';
+    }
+}
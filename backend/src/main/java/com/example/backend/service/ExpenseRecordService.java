@@ -4,16 +4,18 @@ import com.example.backend.dto.ExpenseReportDTO;
 import com.example.backend.model.Category;
 import com.example.backend.model.ExpenseRecord;
 import com.example.backend.model.User;
-import com.example.backend.repository.CategoryRepository;
 import com.example.backend.repository.ExpenseRecordRepository;
 import com.example.backend.repository.UserRepository;
 import com.lowagie.text.Chunk;
 import com.lowagie.text.Paragraph;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
 import org.springframework.data.domain.*;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.time.LocalDate;
 import java.time.LocalDateTime;
+import java.time.YearMonth;
 import java.util.List;
 
 import com.lowagie.text.Document;
@@ -27,39 +29,42 @@ public class ExpenseRecordService {
 
     private final ExpenseRecordRepository expenseRecordRepository;
     private final UserRepository userRepository;
-    private final CategoryRepository categoryRepository;
-    private final AchievementService achievementService;
+    private final CategoryCache categoryCache;
+    private final ApplicationEventPublisher events;
+    private final SnapshotService snapshotService;
 
-    public ExpenseRecordService(ExpenseRecordRepository expenseRecordRepository, UserRepository userRepository, CategoryRepository categoryRepository, AchievementService achievementService) {
+    public ExpenseRecordService(ExpenseRecordRepository expenseRecordRepository, UserRepository userRepository, CategoryCache categoryCache, ApplicationEventPublisher events, SnapshotService snapshotService) {
         this.expenseRecordRepository = expenseRecordRepository;
         this.userRepository = userRepository;
-        this.categoryRepository = categoryRepository;
-        this.achievementService = achievementService;
+        this.categoryCache = categoryCache;
+        this.events = events;
+        this.snapshotService = snapshotService;
     }
 
     public List<ExpenseRecord> getRecordsForUser(Integer userId) {
-        User user = userRepository.findById(userId).orElseThrow();
+        User user = userRepository.getReferenceById(userId);
         return expenseRecordRepository.findByUser(user);
     }
 
+    // one transaction: the record, its month snapshot and the user_stats counters commit together
+    @Transactional
     public ExpenseRecord createRecord(Integer userId, ExpenseRecord recordData) {
-        User user = userRepository.findById(userId).orElseThrow();
-        Category category = categoryRepository.findById(recordData.getCategory().getCategoryId())
+        User user = userRepository.getReferenceById(userId);
+        Category category = categoryCache.findById(recordData.getCategory().getCategoryId())
                 .orElseThrow(() -> new RuntimeException("Category not found"));
         recordData.setUser(user);
         recordData.setCategory(category);
         ExpenseRecord saved = expenseRecordRepository.save(recordData);
-        achievementService.checkFirstExpense(userId);
-        achievementService.checkTenRecords(userId);
+        refreshSnapshot(userId, saved);
+        events.publishEvent(UserActivityEvent.expenseAdded(userId, saved.getExpenseDate()));
         return saved;
     }
 
     public ExpenseRecord updateRecord(Integer userId, Integer recordId, ExpenseRecord updatedData) {
-        User user = userRepository.findById(userId).orElseThrow();
         ExpenseRecord existing = expenseRecordRepository.findById(recordId)
                 .orElseThrow(() -> new RuntimeException("Record not found"));
 
-        if (!existing.getUser().equals(user)) {
+        if (!existing.getUser().getUser_id().equals(userId)) {
             throw new RuntimeException("Unauthorized");
         }
 
@@ -71,19 +76,30 @@ public class ExpenseRecordService {
         if (updatedData.getIsRecurring() != null) existing.setIsRecurring(updatedData.getIsRecurring());
 
         existing.setUpdatedAt(LocalDateTime.now());
-        return expenseRecordRepository.save(existing);
+        ExpenseRecord saved = expenseRecordRepository.save(existing);
+        refreshSnapshot(userId, saved);
+        return saved;
     }
 
+    @Transactional
     public void deleteRecord(Integer userId, Integer recordId) {
-        User user = userRepository.findById(userId).orElseThrow();
         ExpenseRecord existing = expenseRecordRepository.findById(recordId)
                 .orElseThrow(() -> new RuntimeException("Record not found"));
 
-        if (!existing.getUser().equals(user)) {
+        if (!existing.getUser().getUser_id().equals(userId)) {
             throw new RuntimeException("Unauthorized");
         }
 
         expenseRecordRepository.deleteById(recordId);
+        refreshSnapshot(userId, existing);
+        events.publishEvent(UserActivityEvent.expenseRemoved(userId));
+    }
+
+    // Keeps the month's FeatureSnapshot in step with its expenses
+    private void refreshSnapshot(Integer userId, ExpenseRecord record) {
+        if (record.getExpenseDate() != null) {
+            snapshotService.refresh(userId, YearMonth.from(record.getExpenseDate()));
+        }
     }
 
     public Page<ExpenseRecord> search(
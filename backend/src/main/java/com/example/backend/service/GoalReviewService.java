@@ -0,0 +1,47 @@
+package com.example.backend.service;
+
+import com.example.backend.repository.SpendingGoalRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.time.ZoneId;
+import java.util.List;
+
+/**
+ * Closes each month against the users' monthly goals: everyone who stayed within all of them
+ * gets an {@link UserActivityEvent.Type#UNDER_BUDGET_MONTH} event, which feeds the
+ * {@code UNDER_BUDGET_MONTHS} achievement metric.
+ */
+@Service
+public class GoalReviewService {
+
+    private static final Logger log = LoggerFactory.getLogger(GoalReviewService.class);
+    private static final ZoneId ZONE = ZoneId.of("Australia/Sydney");
+
+    private final SpendingGoalRepository goalRepo;
+    private final ApplicationEventPublisher events;
+
+    public GoalReviewService(SpendingGoalRepository goalRepo, ApplicationEventPublisher events) {
+        this.goalRepo = goalRepo;
+        this.events = events;
+    }
+
+    @Scheduled(cron = "${goals.review.cron:0 30 0 1 * *}", zone = "Australia/Sydney")
+    public void reviewLastMonth() {
+        review(YearMonth.now(ZONE).minusMonths(1));
+    }
+
+    public void review(YearMonth ym) {
+        LocalDate from = ym.atDay(1);
+        List<Integer> kept = goalRepo.findUserIdsWithinMonthlyGoals(from, ym.plusMonths(1).atDay(1));
+        for (Integer userId : kept) {
+            events.publishEvent(UserActivityEvent.underBudgetMonth(userId, from));
+        }
+        log.info("Goal review {}: {} users stayed within budget", ym, kept.size());
+    }
+}
@@ -7,8 +7,9 @@ import com.example.backend.model.SecurityQuestion;
 import com.example.backend.model.UserSecurityAnswer;
 import com.example.backend.repository.UserRepository;
 import com.example.backend.repository.UserSecurityAnswerRepository;
-import org.springframework.security.crypto.password.PasswordEncoder;
+import com.example.backend.auth.PasswordHasher;
 import org.springframework.stereotype.Service;
+import org.springframework.web.server.ResponseStatusException;
 
 import jakarta.persistence.EntityNotFoundException;
 
@@ -17,18 +18,18 @@ public class PasswordResetService {
 
     private final UserRepository userRepository;
     private final UserSecurityAnswerRepository answerRepository;
-    private final PasswordEncoder passwordEncoder;
+    private final PasswordHasher passwordHasher;
 
     public PasswordResetService(UserRepository userRepository,
                                 UserSecurityAnswerRepository answerRepository,
-                                PasswordEncoder passwordEncoder) {
+                                PasswordHasher passwordHasher) {
         this.userRepository = userRepository;
         this.answerRepository = answerRepository;
-        this.passwordEncoder = passwordEncoder;
+        this.passwordHasher = passwordHasher;
     }
 
     public SecurityQuestionResponseDTO getSecurityQuestion(String identifier) {
-        User user = userRepository.findByUsernameOrEmail(identifier, identifier);
+        User user = userRepository.findByIdentifier(identifier);
         if (user == null) {
             throw new EntityNotFoundException("User not found");
         }
@@ -43,7 +44,7 @@ public class PasswordResetService {
     }
 
     public boolean resetPassword(ResetPasswordConfirmDTO dto) {
-        User user = userRepository.findByUsernameOrEmail(dto.getIdentifier(), dto.getIdentifier());
+        User user = userRepository.findByIdentifier(dto.getIdentifier());
         if (user == null) return false;
 
         UserSecurityAnswer storedAnswer =
@@ -51,10 +52,10 @@ public class PasswordResetService {
 
         if (storedAnswer == null) return false;
 
-        boolean match = passwordEncoder.matches(dto.getAnswer(), storedAnswer.getAnswer_hash());
+        boolean match = passwordHasher.matches(dto.getAnswer(), storedAnswer.getAnswer_hash());
         if (!match) return false;
 
-        user.setPassword_hash(passwordEncoder.encode(dto.getNewPassword()));
+        user.setPassword_hash(passwordHasher.encode(dto.getNewPassword()));
         userRepository.save(user);
         return true;
     }
@@ -65,15 +66,17 @@ public class PasswordResetService {
                     .orElseThrow(() -> new EntityNotFoundException("User not found"));
             
           
-            if (!passwordEncoder.matches(currentPassword, user.getPassword_hash())) {
+            if (!passwordHasher.matches(currentPassword, user.getPassword_hash())) {
                 return false; 
             }
             
             
-            user.setPassword_hash(passwordEncoder.encode(newPassword));
+            user.setPassword_hash(passwordHasher.encode(newPassword));
             userRepository.save(user);
             
             return true;
+        } catch (ResponseStatusException e) {
+            throw e; // hashing pool saturated: let the client see 429
         } catch (Exception e) {
             e.printStackTrace();
             return false;
@@ -4,19 +4,19 @@ import com.example.backend.model.Category;
 import com.example.backend.model.ExpenseRecord;
 import com.example.backend.model.RecurringExpenseSchedule;
 import com.example.backend.model.User;
-import com.example.backend.repository.CategoryRepository;
 import com.example.backend.repository.ExpenseRecordRepository;
 import com.example.backend.repository.RecurringExpenseScheduleRepository;
 import com.example.backend.repository.UserRepository;
 import lombok.RequiredArgsConstructor;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 
 import java.math.BigDecimal;
 import java.time.*;
-import java.util.Comparator;
-import java.util.List;
+import java.util.*;
 
 @Service
 @RequiredArgsConstructor
@@ -27,7 +27,10 @@ public class RecurringExpenseService {
     private final RecurringExpenseScheduleRepository scheduleRepo;
     private final ExpenseRecordRepository expenseRepo;
     private final UserRepository userRepo;
-    private final CategoryRepository categoryRepo;
+    private final CategoryCache categoryCache;
+    private final SnapshotService snapshotService;
+    private final ApplicationEventPublisher events;
+    private final TransactionTemplate tx;
 
     /** 供 Controller/ExpenseRecordService 在“手工创建账单成功后”调用 */
     public void onManualExpenseSaved(ExpenseRecord savedRecord,
@@ -86,25 +89,34 @@ public class RecurringExpenseService {
     public void processDueSchedules() {
         LocalDate today = LocalDate.now(ZONE);
         List<RecurringExpenseSchedule> due = scheduleRepo.findDueNoStatus(today);
+        Map<Integer, Set<YearMonth>> touched = new LinkedHashMap<>();
 
         for (RecurringExpenseSchedule s : due) {
-            ExpenseRecord rec = new ExpenseRecord();
-            rec.setUser(s.getUser());
-            rec.setCategory(s.getCategory());
-            rec.setAmount(s.getAmount());
-            rec.setCurrency(s.getCurrency());
-            rec.setExpenseDate(s.getNextRunDate());
-            rec.setDescription(buildAutoDescription(s));
-            rec.setNotes(s.getNotes());
-            rec.setPaymentMethod(s.getPaymentMethod());
-            rec.setIsRecurring(Boolean.TRUE);
-            rec.setRecurringSchedule(s);
-            expenseRepo.save(rec);
-
-            s.setLastRunAt(LocalDateTime.now(ZONE));
-            s.setNextRunDate(nextRunAfter(s, s.getNextRunDate()));
-            scheduleRepo.save(s);
+            // each run commits with its user_stats counters, or not at all
+            tx.executeWithoutResult(status -> {
+                ExpenseRecord rec = new ExpenseRecord();
+                rec.setUser(s.getUser());
+                rec.setCategory(s.getCategory());
+                rec.setAmount(s.getAmount());
+                rec.setCurrency(s.getCurrency());
+                rec.setExpenseDate(s.getNextRunDate());
+                rec.setDescription(buildAutoDescription(s));
+                rec.setNotes(s.getNotes());
+                rec.setPaymentMethod(s.getPaymentMethod());
+                rec.setIsRecurring(Boolean.TRUE);
+                rec.setRecurringSchedule(s);
+                expenseRepo.save(rec);
+                events.publishEvent(UserActivityEvent.expenseAdded(s.getUser().getUser_id(), rec.getExpenseDate()));
+                touched.computeIfAbsent(s.getUser().getUser_id(), k -> new TreeSet<>())
+                        .add(YearMonth.from(rec.getExpenseDate()));
+
+                s.setLastRunAt(LocalDateTime.now(ZONE));
+                s.setNextRunDate(nextRunAfter(s, s.getNextRunDate()));
+                scheduleRepo.save(s);
+            });
         }
+        // 每个用户/月份只刷新一次快照
+        touched.forEach((userId, months) -> months.forEach(ym -> snapshotService.refresh(userId, ym)));
     }
 
     /** 可选：直接后端创建计划（有独立入口时用） */
@@ -117,8 +129,8 @@ public class RecurringExpenseService {
                                                    LocalDate endDate,
                                                    String paymentMethod,
                                                    String notes) {
-        User user = userRepo.findById(userId).orElseThrow();
-        Category category = categoryRepo.findById(categoryId).orElseThrow();
+        User user = userRepo.getReferenceById(userId);
+        Category category = categoryCache.findById(categoryId).orElseThrow();
 
         RecurringExpenseSchedule s = new RecurringExpenseSchedule();
         s.setUser(user);
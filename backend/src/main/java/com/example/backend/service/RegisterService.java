@@ -8,7 +8,8 @@ import com.example.backend.repository.UserRepository;
 import com.example.backend.repository.QuestionRepository;
 import com.example.backend.repository.UserSecurityAnswerRepository;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.dao.DataIntegrityViolationException;
+import com.example.backend.auth.PasswordHasher;
 import org.springframework.stereotype.Service;
 
 import java.time.LocalDateTime;
@@ -17,44 +18,52 @@ import java.time.LocalDateTime;
 public class RegisterService {
 
     private final UserRepository userRepository;
-    private final PasswordEncoder passwordEncoder;
+    private final PasswordHasher passwordHasher;
     private final QuestionRepository questionRepository;
     private final UserSecurityAnswerRepository userSecurityAnswerRepository;
     private final AchievementService achievementService; //
 
     @Autowired
     public RegisterService(UserRepository userRepository,
-                           PasswordEncoder passwordEncoder,
+                           PasswordHasher passwordHasher,
                            QuestionRepository questionRepository,
                            UserSecurityAnswerRepository userSecurityAnswerRepository,
                            AchievementService achievementService) { //
         this.userRepository = userRepository;
-        this.passwordEncoder = passwordEncoder;
+        this.passwordHasher = passwordHasher;
         this.questionRepository = questionRepository;
         this.userSecurityAnswerRepository = userSecurityAnswerRepository;
         this.achievementService = achievementService;
     }
 
+    /**
+     * Creates the account with a single insert; the case-insensitive unique indexes on username and
+     * email reject duplicates, and the violated index's name says which field clashed.
+     */
     public User register(RegisterDTO dto) {
-
-        if (userRepository.findByUsername(dto.getUsername()) != null) {
-            throw new RuntimeException("Username already exists");
-        }
-        if (userRepository.findByEmail(dto.getEmail()) != null) {
-            throw new RuntimeException("Email already exists");
-        }
-
         User user = new User();
         user.setUsername(dto.getUsername());
         user.setEmail(dto.getEmail());
         user.setPhone_number(dto.getPhoneNumber());
-        user.setPassword_hash(passwordEncoder.encode(dto.getPassword()));
+        user.setPassword_hash(passwordHasher.encode(dto.getPassword()));
 
         LocalDateTime now = LocalDateTime.now();
         user.setCreated_at(now);
         user.setUpdated_at(now);
 
-        User savedUser = userRepository.save(user);
+        User savedUser;
+        try {
+            savedUser = userRepository.save(user);
+        } catch (DataIntegrityViolationException e) {
+            String cause = String.valueOf(e.getMostSpecificCause().getMessage());
+            if (cause.contains("ux_users_username_lower")) {
+                throw new RuntimeException("Username already exists");
+            }
+            if (cause.contains("ux_users_email_lower")) {
+                throw new RuntimeException("Email already exists");
+            }
+            throw e;
+        }
 
         if (dto.getQuestionId() != null && dto.getAnswer() != null) {
             SecurityQuestion question = questionRepository.findById(dto.getQuestionId())
@@ -63,7 +72,7 @@ public class RegisterService {
             UserSecurityAnswer answer = new UserSecurityAnswer();
             answer.setUser(savedUser);
             answer.setQuestion(question);
-            answer.setAnswer_hash(passwordEncoder.encode(dto.getAnswer()));
+            answer.setAnswer_hash(passwordHasher.encode(dto.getAnswer()));
             userSecurityAnswerRepository.save(answer);
         }
 
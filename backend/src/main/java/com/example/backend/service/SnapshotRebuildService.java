@@ -0,0 +1,96 @@
+package com.example.backend.service;
+
+import com.example.backend.repository.ExpenseRecordRepository;
+import com.example.backend.repository.ExpenseRecordRepository.UserCategorySpend;
+import com.example.backend.repository.FeatureSnapshotRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.time.ZoneId;
+import java.util.*;
+
+/**
+ * Nightly reconciliation of {@code feature_snapshot}. Expense writes already keep snapshots current;
+ * this catches anything they missed (direct SQL edits, failed refreshes) for the last few months.
+ * Older months are backfilled once after startup, from the earliest expense, on a thread of their own.
+ */
+@Service
+public class SnapshotRebuildService {
+
+    private static final Logger log = LoggerFactory.getLogger(SnapshotRebuildService.class);
+    private static final ZoneId ZONE = ZoneId.of("Australia/Sydney");
+
+    private final ExpenseRecordRepository expenseRepo;
+    private final FeatureSnapshotRepository snapshotRepo;
+    private final SnapshotService snapshots;
+    private final int recentMonths;
+
+    public SnapshotRebuildService(ExpenseRecordRepository expenseRepo,
+                                  FeatureSnapshotRepository snapshotRepo,
+                                  SnapshotService snapshots,
+                                  @Value("${snapshot.rebuild.months:2}") int recentMonths) {
+        this.expenseRepo = expenseRepo;
+        this.snapshotRepo = snapshotRepo;
+        this.snapshots = snapshots;
+        this.recentMonths = Math.max(1, recentMonths);
+    }
+
+    @Scheduled(cron = "${snapshot.rebuild.cron:0 15 2 * * *}", zone = "Australia/Sydney")
+    public void rebuildNightly() {
+        YearMonth now = YearMonth.now(ZONE);
+        rebuildFrom(now.minusMonths(recentMonths - 1), now);
+    }
+
+    /** Starts the history backfill without holding up startup or the shared scheduler. */
+    @EventListener(ApplicationReadyEvent.class)
+    public void backfillAfterStartup() {
+        Thread t = new Thread(() -> {
+            try {
+                backfill();
+            } catch (Exception e) {
+                log.warn("Snapshot backfill failed", e);
+            }
+        }, "snapshot-backfill");
+        t.setDaemon(true);
+        t.start();
+    }
+
+    /** Rebuilds every month from the earliest expense up to the current one. */
+    public void backfill() {
+        LocalDate earliest = expenseRepo.findEarliestExpenseDate();
+        if (earliest != null) rebuildFrom(YearMonth.from(earliest), YearMonth.now(ZONE));
+    }
+
+    private void rebuildFrom(YearMonth from, YearMonth now) {
+        for (YearMonth ym = from; !ym.isAfter(now); ym = ym.plusMonths(1)) {
+            try {
+                rebuild(ym);
+            } catch (Exception e) {
+                log.warn("Snapshot rebuild failed for {}", ym, e);
+            }
+        }
+    }
+
+    /** Rewrites every user's snapshot for {@code ym} from one grouped query; @return users with spend */
+    public int rebuild(YearMonth ym) {
+        Map<Integer, List<UserCategorySpend>> byUser = new LinkedHashMap<>();
+        for (var r : expenseRepo.findUserCategorySpendBetween(ym.atDay(1), ym.plusMonths(1).atDay(1))) {
+            byUser.computeIfAbsent(r.getUserId(), k -> new ArrayList<>()).add(r);
+        }
+        byUser.forEach((userId, rows) -> snapshots.write(userId, ym, rows));
+
+        // Snapshots left over from expenses that no longer exist
+        for (Integer userId : snapshotRepo.findUserIdsByMonth(ym.toString())) {
+            if (!byUser.containsKey(userId)) snapshots.write(userId, ym, List.of());
+        }
+        log.info("Snapshot rebuild for {}: {} users", ym, byUser.size());
+        return byUser.size();
+    }
+}
@@ -0,0 +1,172 @@
+package com.example.backend.service;
+
+import com.example.backend.dto.SnapshotCategoryDTO;
+import com.example.backend.dto.SnapshotDTO;
+import com.example.backend.dto.SnapshotRangeDTO;
+import com.example.backend.model.FeatureSnapshot;
+import com.example.backend.model.FeatureSnapshotCategory;
+import com.example.backend.repository.ExpenseRecordRepository;
+import com.example.backend.repository.FeatureSnapshotCategoryRepository;
+import com.example.backend.repository.FeatureSnapshotRepository;
+import com.example.backend.repository.UserRepository;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.YearMonth;
+import java.time.format.DateTimeParseException;
+import java.util.*;
+import java.util.stream.Collectors;
+
+/**
+ * Monthly per-user spending aggregates. Every expense write refreshes the affected month
+ * ({@link #refresh}), and {@link SnapshotRebuildService} reconciles recent months nightly.
+ * Reads never touch {@code expense_record}.
+ */
+@Service
+@RequiredArgsConstructor
+public class SnapshotService {
+
+    /** Longest range served by {@link #getRange}, in months. */
+    static final int MAX_RANGE_MONTHS = 24;
+
+    private final FeatureSnapshotRepository snapshotRepo;
+    private final FeatureSnapshotCategoryRepository categoryRepo;
+    private final UserRepository userRepo;
+    private final ExpenseRecordRepository expenseRepo;
+    private final TransactionTemplate tx;
+
+    private static final String CURRENCY = "AUD";
+
+    @Transactional(readOnly = true)
+    public SnapshotDTO getMonth(Integer userId, String month) {
+        FeatureSnapshot fs = snapshotRepo.findByUserAndMonth(userRepo.getReferenceById(userId), month)
+                .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "snapshot not found"));
+        List<SnapshotCategoryDTO> categories = categoryRepo.findForUserBetween(userId, month, month).stream()
+                .map(SnapshotService::toDTO)
+                .toList();
+        return SnapshotDTO.toDTO(fs, categories);
+    }
+
+    /** Every snapshot between {@code from} and {@code to} (inclusive), plus per-category totals for the range. */
+    @Transactional(readOnly = true)
+    public SnapshotRangeDTO getRange(Integer userId, String from, String to) {
+        YearMonth start = parse(from);
+        YearMonth end = parse(to);
+        if (start.isAfter(end)) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "from must not be after to");
+        }
+        if (start.plusMonths(MAX_RANGE_MONTHS).isBefore(end.plusMonths(1))) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST,
+                    "range must not exceed " + MAX_RANGE_MONTHS + " months");
+        }
+        String f = start.toString();
+        String t = end.toString();
+
+        Map<Long, List<SnapshotCategoryDTO>> rowsBySnapshot = categoryRepo.findForUserBetween(userId, f, t).stream()
+                .collect(Collectors.groupingBy(c -> c.getSnapshot().getSnapshotId(), LinkedHashMap::new,
+                        Collectors.mapping(SnapshotService::toDTO, Collectors.toList())));
+
+        List<SnapshotDTO> months = new ArrayList<>();
+        BigDecimal total = BigDecimal.ZERO;
+        String currency = null;
+        for (FeatureSnapshot fs : snapshotRepo.findByUserAndMonthBetweenOrderByMonthAsc(userRepo.getReferenceById(userId), f, t)) {
+            months.add(SnapshotDTO.toDTO(fs, rowsBySnapshot.getOrDefault(fs.getSnapshotId(), List.of())));
+            total = total.add(fs.getTotalSpending());
+            currency = fs.getCurrency();
+        }
+
+        BigDecimal rangeTotal = total;
+        List<SnapshotCategoryDTO> byCategory = categoryRepo.sumForUserBetween(userId, f, t).stream()
+                .map(r -> new SnapshotCategoryDTO(r.getCategoryId(), r.getCategoryName(), r.getAmount(),
+                        rangeTotal.signum() == 0 ? BigDecimal.ZERO
+                                : r.getAmount().divide(rangeTotal, 4, RoundingMode.HALF_UP)))
+                .toList();
+
+        return new SnapshotRangeDTO(f, t, currency, total, months, byCategory);
+    }
+
+    /**
+     * Recomputes one user's month from {@code expense_record}: a single grouped range query over that month.
+     * The sums are read under the month's lock, so a refresh that commits later never stores older totals.
+     */
+    public void refresh(Integer userId, YearMonth ym) {
+        tx.executeWithoutResult(status -> {
+            lock(userId, ym);
+            store(userId, ym, expenseRepo.findCategorySpendBetween(userId, ym.atDay(1), ym.plusMonths(1).atDay(1)));
+        });
+    }
+
+    /**
+     * Stores already-aggregated spend as the month's snapshot, or removes the snapshot when nothing is left.
+     * Category rows are only rewritten when the header upsert reports a change.
+     */
+    public void write(Integer userId, YearMonth ym, List<? extends ExpenseRecordRepository.CategorySpend> rows) {
+        tx.executeWithoutResult(status -> {
+            lock(userId, ym);
+            store(userId, ym, rows);
+        });
+    }
+
+    private void lock(Integer userId, YearMonth ym) {
+        snapshotRepo.lockMonth(userId, ym.getYear() * 12 + ym.getMonthValue() - 1);
+    }
+
+    private void store(Integer userId, YearMonth ym, List<? extends ExpenseRecordRepository.CategorySpend> rows) {
+        String month = ym.toString();
+        BigDecimal total = rows.stream()
+                .map(ExpenseRecordRepository.CategorySpend::getAmount)
+                .reduce(BigDecimal.ZERO, BigDecimal::add);
+        if (total.signum() == 0) {
+            categoryRepo.deleteForSnapshot(userId, month);
+            snapshotRepo.deleteForMonth(userId, month);
+            return;
+        }
+        List<SnapshotCategoryDTO> categories = rows.stream()
+                .sorted(Comparator.comparing(ExpenseRecordRepository.CategorySpend::getCategoryId))
+                .map(r -> new SnapshotCategoryDTO(r.getCategoryId(), r.getCategoryName(), r.getAmount(),
+                        r.getAmount().divide(total, 4, RoundingMode.HALF_UP)))
+                .toList();
+        if (snapshotRepo.upsert(userId, month, total, CURRENCY, fingerprint(categories)) == 0) return;
+        categoryRepo.deleteForSnapshot(userId, month);
+        for (var c : categories) {
+            categoryRepo.insertForSnapshot(userId, month, c.categoryId(), c.categoryName(), c.amount(), c.pct());
+        }
+    }
+
+    /** SHA-256 over the rows as stored; equal fingerprints mean the snapshot is already current. */
+    static String fingerprint(List<SnapshotCategoryDTO> categories) {
+        StringBuilder sb = new StringBuilder(CURRENCY);
+        for (var c : categories) {
+            sb.append('\u0002').append(c.categoryId())
+                    .append('\u0001').append(c.categoryName())
+                    .append('\u0001').append(c.amount().stripTrailingZeros().toPlainString());
+        }
+        try {
+            byte[] d = MessageDigest.getInstance("SHA-256").digest(sb.toString().getBytes(StandardCharsets.UTF_8));
+            return HexFormat.of().formatHex(d);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static SnapshotCategoryDTO toDTO(FeatureSnapshotCategory c) {
+        return new SnapshotCategoryDTO(c.getCategoryId(), c.getCategoryName(), c.getAmount(), c.getPct());
+    }
+
+    private static YearMonth parse(String month) {
+        try {
+            return YearMonth.parse(month);
+        } catch (DateTimeParseException | NullPointerException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "month must be YYYY-MM");
+        }
+    }
+}
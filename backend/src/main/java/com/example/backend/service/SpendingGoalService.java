@@ -4,13 +4,13 @@ import com.example.backend.dto.CreateSpendingGoalRequest;
 import com.example.backend.dto.SpendingGoalProgressDTO;
 import com.example.backend.dto.SpendingGoalResponse;
 import com.example.backend.model.*;
-import com.example.backend.repository.CategoryRepository;
 import com.example.backend.repository.ExpenseRecordRepository;
 import com.example.backend.repository.SpendingGoalRepository;
 import jakarta.persistence.EntityNotFoundException;
 import jakarta.validation.ValidationException;
 import lombok.RequiredArgsConstructor;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
@@ -24,9 +24,9 @@ import java.util.List;
 public class SpendingGoalService {
 
     private final SpendingGoalRepository goalRepo;
-    private final CategoryRepository categoryRepo;
+    private final CategoryCache categoryCache;
     private final ExpenseRecordRepository expenseRepo;
-    private final AchievementService achievementService;
+    private final ApplicationEventPublisher events;
 
     private static final int WARNING_THRESHOLD = 80;   // %
     private static final int OVER_BUDGET_THRESHOLD = 100; // %
@@ -47,7 +47,7 @@ public class SpendingGoalService {
             throw new ValidationException("Amount must be at least " + minAmount);
         }
 
-        var category = categoryRepo.findById(req.getCategoryId())
+        var category = categoryCache.findById(req.getCategoryId())
                 .orElseThrow(() -> new EntityNotFoundException("Category not found"));
 
 
@@ -87,7 +87,7 @@ public class SpendingGoalService {
         goal.setActive(true);
 
         var saved = goalRepo.save(goal);
-        achievementService.checkSetGoal(user.getUser_id());
+        events.publishEvent(UserActivityEvent.goalAdded(user.getUser_id()));
         return toResp(saved);
     }
 
@@ -0,0 +1,32 @@
+package com.example.backend.service;
+
+import java.time.LocalDate;
+
+/**
+ * Published by the services that write expenses and goals, and by the monthly goal review. The {@code user_stats}
+ * counters are updated in the publishing transaction; achievements are evaluated after it commits,
+ * see {@link AchievementEventListener}.
+ *
+ * @param date the expense date for {@link Type#EXPENSE_ADDED}, the first day of the month for
+ *             {@link Type#UNDER_BUDGET_MONTH}, otherwise {@code null}
+ */
+public record UserActivityEvent(Integer userId, Type type, LocalDate date) {
+
+    public enum Type { EXPENSE_ADDED, EXPENSE_REMOVED, GOAL_ADDED, UNDER_BUDGET_MONTH }
+
+    public static UserActivityEvent expenseAdded(Integer userId, LocalDate date) {
+        return new UserActivityEvent(userId, Type.EXPENSE_ADDED, date);
+    }
+
+    public static UserActivityEvent expenseRemoved(Integer userId) {
+        return new UserActivityEvent(userId, Type.EXPENSE_REMOVED, null);
+    }
+
+    public static UserActivityEvent goalAdded(Integer userId) {
+        return new UserActivityEvent(userId, Type.GOAL_ADDED, null);
+    }
+
+    public static UserActivityEvent underBudgetMonth(Integer userId, LocalDate monthStart) {
+        return new UserActivityEvent(userId, Type.UNDER_BUDGET_MONTH, monthStart);
+    }
+}
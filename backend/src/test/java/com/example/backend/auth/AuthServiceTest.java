@@ -5,47 +5,84 @@ import com.example.backend.repository.UserRepository;
 import com.example.backend.service.AchievementService;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
-import org.springframework.security.crypto.password.PasswordEncoder;
 
 import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.*;
 
 class AuthServiceTest {
 
     private UserRepository userRepository;
-    private PasswordEncoder passwordEncoder;
+    private PasswordHasher passwordHasher;
+    private LastLoginRecorder lastLogins;
     private AuthService authService;
 
     @BeforeEach
     void setUp() {
         userRepository = mock(UserRepository.class);
-        passwordEncoder = mock(PasswordEncoder.class);
+        passwordHasher = mock(PasswordHasher.class);
         AchievementService achievementService = mock(AchievementService.class);
-        authService = new AuthService(userRepository, passwordEncoder, achievementService);
+        lastLogins = mock(LastLoginRecorder.class);
+        authService = new AuthService(userRepository, passwordHasher, achievementService, lastLogins);
     }
 
     @Test
-    void authenticate_success_updatesLastLogin_andSaves() {
+    void authenticate_success_buffersLastLogin_withoutSaving() {
         String identifier = "user@example.com";
         String rawPwd = "plainPwd";
 
         User user = new User();
+        user.setUser_id(5);
         user.setPassword_hash("$2a$dummy.hash");
 
-        when(userRepository.findByUsernameOrEmail(identifier, identifier)).thenReturn(user);
-        when(passwordEncoder.matches(rawPwd, user.getPassword_hash())).thenReturn(true);
+        when(userRepository.findByIdentifier(identifier)).thenReturn(user);
+        when(passwordHasher.matches(rawPwd, user.getPassword_hash())).thenReturn(true);
 
         AuthService.AuthResult result = authService.authenticate(identifier, rawPwd);
 
         assertTrue(result.isSuccess());
         assertNotNull(result.getUser());
-        verify(userRepository, times(1)).save(user);
+        assertNotNull(user.getLast_login_at());
+        verify(lastLogins).record(5, user.getLast_login_at());
+        verify(userRepository, never()).save(any());
+    }
+
+    @Test
+    void authenticate_success_rehashesWeakHashInBackground() {
+        User user = new User();
+        user.setUser_id(3);
+        user.setPassword_hash("$2a$04$weak");
+        when(userRepository.findByIdentifier("bob")).thenReturn(user);
+        when(passwordHasher.matches("pwd", "$2a$04$weak")).thenReturn(true);
+        when(passwordHasher.upgradeEncoding("$2a$04$weak")).thenReturn(true);
+        doAnswer(inv -> {
+            java.util.function.Consumer<String> store = inv.getArgument(1);
+            store.accept("$2a$12$strong");
+            return null;
+        }).when(passwordHasher).rehashLater(eq("pwd"), any());
+
+        assertTrue(authService.authenticate("bob", "pwd").isSuccess());
+
+        verify(userRepository).replacePasswordHash(3, "$2a$04$weak", "$2a$12$strong");
+    }
+
+    @Test
+    void authenticate_success_currentHashIsLeftAlone() {
+        User user = new User();
+        user.setPassword_hash("$2a$10$ok");
+        when(userRepository.findByIdentifier("bob")).thenReturn(user);
+        when(passwordHasher.matches("pwd", "$2a$10$ok")).thenReturn(true);
+
+        assertTrue(authService.authenticate("bob", "pwd").isSuccess());
+
+        verify(passwordHasher, never()).rehashLater(any(), any());
     }
 
     @Test
     void authenticate_fail_whenUserNotFound() {
         String identifier = "ghost";
-        when(userRepository.findByUsernameOrEmail(identifier, identifier)).thenReturn(null);
+        when(userRepository.findByIdentifier(identifier)).thenReturn(null);
 
         AuthService.AuthResult result = authService.authenticate(identifier, "anything");
 
@@ -59,8 +96,8 @@ class AuthServiceTest {
         String identifier = "user";
         User user = new User();
         user.setPassword_hash("$2a$hash");
-        when(userRepository.findByUsernameOrEmail(identifier, identifier)).thenReturn(user);
-        when(passwordEncoder.matches("wrong", user.getPassword_hash())).thenReturn(false);
+        when(userRepository.findByIdentifier(identifier)).thenReturn(user);
+        when(passwordHasher.matches("wrong", user.getPassword_hash())).thenReturn(false);
 
         AuthService.AuthResult result = authService.authenticate(identifier, "wrong");
 
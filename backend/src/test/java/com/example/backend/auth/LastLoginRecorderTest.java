@@ -0,0 +1,65 @@
+package com.example.backend.auth;
+
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.time.LocalDateTime;
+import java.util.Arrays;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.*;
+
+class LastLoginRecorderTest {
+
+    private final JdbcTemplate jdbc = mock(JdbcTemplate.class);
+    private final LastLoginRecorder recorder = new LastLoginRecorder(jdbc);
+
+    @Test
+    void flushWritesLatestTimePerUserInOneStatement() {
+        LocalDateTime t1 = LocalDateTime.of(2025, 3, 1, 9, 0);
+        LocalDateTime t2 = t1.plusMinutes(5);
+        recorder.record(1, t2);
+        recorder.record(1, t1);           // older, must not win
+        recorder.record(2, t1);
+
+        recorder.flush();
+
+        ArgumentCaptor<String> sql = ArgumentCaptor.forClass(String.class);
+        ArgumentCaptor<Object[]> args = ArgumentCaptor.forClass(Object[].class);
+        verify(jdbc, times(1)).update(sql.capture(), args.capture());
+        assertTrue(sql.getValue().contains("FROM (VALUES (?::int, ?::timestamp), (?::int, ?::timestamp))"));
+        assertFalse(sql.getValue().contains("updated_at"));
+        var a = Arrays.asList(args.getValue());
+        assertEquals(t2, a.get(a.indexOf(1) + 1));
+        assertEquals(t1, a.get(a.indexOf(2) + 1));
+
+        // nothing left to write
+        recorder.flush();
+        verifyNoMoreInteractions(jdbc);
+    }
+
+    @Test
+    void failedFlushKeepsTimesForNextRun() {
+        LocalDateTime t = LocalDateTime.of(2025, 3, 1, 9, 0);
+        recorder.record(1, t);
+        when(jdbc.update(anyString(), any(Object[].class))).thenThrow(new RuntimeException("db down")).thenReturn(1);
+
+        recorder.flush();
+        recorder.flush();
+
+        verify(jdbc, times(2)).update(anyString(), any(Object[].class));
+    }
+
+    @Test
+    void largeBacklogIsSplitIntoChunks() {
+        LocalDateTime t = LocalDateTime.of(2025, 3, 1, 9, 0);
+        for (int i = 0; i < LastLoginRecorder.CHUNK + 1; i++) recorder.record(i, t);
+
+        recorder.flush();
+
+        verify(jdbc, times(2)).update(anyString(), any(Object[].class));
+    }
+}
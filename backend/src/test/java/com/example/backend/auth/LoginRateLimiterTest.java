@@ -0,0 +1,70 @@
+package com.example.backend.auth;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatCode;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class LoginRateLimiterTest {
+
+    private final AtomicLong now = new AtomicLong(1_000_000);
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+
+    private LoginRateLimiter limiter(int maxKeys) {
+        return new LoginRateLimiter(registry,
+                new LoginRateLimiter.Limit(5, 1000),
+                new LoginRateLimiter.Limit(3, 10_000),
+                maxKeys, now::get);
+    }
+
+    @Test
+    void identifierBucketEmptiesAfterBurstAndRefillsOverTime() {
+        LoginRateLimiter limiter = limiter(1000);
+        for (int i = 0; i < 3; i++) limiter.acquire("Bob", null);
+
+        assertThatThrownBy(() -> limiter.acquire(" bob ", null))
+                .isInstanceOf(ResponseStatusException.class)
+                .satisfies(e -> assertThat(((ResponseStatusException) e).getStatusCode())
+                        .isEqualTo(HttpStatus.TOO_MANY_REQUESTS));
+        assertThat(registry.counter("auth.ratelimit.rejected", "scope", "identifier").count()).isEqualTo(1);
+
+        now.addAndGet(10_000);
+        assertThatCode(() -> limiter.acquire("bob", null)).doesNotThrowAnyException();
+        assertThatThrownBy(() -> limiter.acquire("bob", null)).isInstanceOf(ResponseStatusException.class);
+    }
+
+    @Test
+    void ipBucketLimitsSprayingAcrossIdentifiers() {
+        LoginRateLimiter limiter = limiter(1000);
+        for (int i = 0; i < 5; i++) limiter.acquire("user" + i, "10.0.0.1");
+
+        assertThatThrownBy(() -> limiter.acquire("fresh", "10.0.0.1")).isInstanceOf(ResponseStatusException.class);
+        assertThatCode(() -> limiter.acquire("fresh", "10.0.0.2")).doesNotThrowAnyException();
+        assertThat(registry.counter("auth.ratelimit.rejected", "scope", "ip").count()).isEqualTo(1);
+    }
+
+    @Test
+    void resetForgetsFailuresForIdentifier() {
+        LoginRateLimiter limiter = limiter(1000);
+        for (int i = 0; i < 3; i++) limiter.acquire("bob", null);
+
+        limiter.reset("BOB");
+
+        assertThatCode(() -> limiter.acquire("bob", null)).doesNotThrowAnyException();
+    }
+
+    @Test
+    void keyCountStaysBounded() {
+        LoginRateLimiter limiter = limiter(LoginRateLimiter.STRIPES * 4);
+        for (int i = 0; i < 10_000; i++) limiter.acquire("user" + i, null);
+
+        assertThat(limiter.size()).isLessThanOrEqualTo(LoginRateLimiter.STRIPES * 4);
+        assertThat(registry.counter("auth.ratelimit.evicted").count()).isGreaterThan(0);
+    }
+}
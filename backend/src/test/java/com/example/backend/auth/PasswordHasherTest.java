@@ -0,0 +1,88 @@
+package com.example.backend.auth;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpStatus;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+class PasswordHasherTest {
+
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+    private PasswordHasher hasher;
+
+    @AfterEach
+    void tearDown() {
+        hasher.shutdown();
+    }
+
+    @Test
+    void matchesAndEncodeRunOnPoolAndAreTimed() {
+        hasher = new PasswordHasher(new BCryptPasswordEncoder(4), registry, 1, 1, 5000);
+
+        String hash = hasher.encode("secret");
+        assertTrue(hasher.matches("secret", hash));
+        assertFalse(hasher.matches("other", hash));
+
+        assertEquals(1, registry.get("auth.password.hash").tag("op", "encode").timer().count());
+        assertEquals(2, registry.get("auth.password.hash").tag("op", "matches").timer().count());
+    }
+
+    @Test
+    void saturatedPoolRejectsWith429() throws Exception {
+        PasswordEncoder slow = mock(PasswordEncoder.class);
+        CountDownLatch running = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        when(slow.matches(any(), any())).thenAnswer(inv -> {
+            running.countDown();
+            release.await(5, TimeUnit.SECONDS);
+            return true;
+        });
+        hasher = new PasswordHasher(slow, registry, 1, 1, 5000);
+
+        ExecutorService callers = Executors.newFixedThreadPool(2);
+        try {
+            callers.submit(() -> hasher.matches("a", "h"));   // occupies the only worker
+            assertTrue(running.await(2, TimeUnit.SECONDS));
+            callers.submit(() -> hasher.matches("b", "h"));   // fills the queue
+            for (int i = 0; i < 200 && registry.get("auth.password.queue").gauge().value() < 1; i++) Thread.sleep(5);
+
+            ResponseStatusException e = assertThrows(ResponseStatusException.class, () -> hasher.matches("c", "h"));
+            assertEquals(HttpStatus.TOO_MANY_REQUESTS, e.getStatusCode());
+            assertEquals(1, registry.get("auth.password.rejected").counter().count());
+        } finally {
+            release.countDown();
+            callers.shutdown();
+        }
+    }
+
+    @Test
+    void upgradeEncodingFollowsConfiguredStrength() throws Exception {
+        hasher = new PasswordHasher(new BCryptPasswordEncoder(5), registry, 1, 4, 5000);
+        String weak = new BCryptPasswordEncoder(4).encode("pwd");
+
+        assertTrue(hasher.upgradeEncoding(weak));
+        AtomicReference<String> stored = new AtomicReference<>();
+        CountDownLatch done = new CountDownLatch(1);
+        hasher.rehashLater("pwd", h -> {
+            stored.set(h);
+            done.countDown();
+        });
+
+        assertTrue(done.await(5, TimeUnit.SECONDS));
+        assertFalse(hasher.upgradeEncoding(stored.get()));
+        assertTrue(hasher.matches("pwd", stored.get()));
+    }
+}
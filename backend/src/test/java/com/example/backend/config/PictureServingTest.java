@@ -0,0 +1,73 @@
+package com.example.backend.config;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.hamcrest.Matchers.containsString;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+@WebMvcTest(controllers = CorsConfigTest.DummyController.class)
+class PictureServingTest {
+
+    private static final String HASHED = "0123456789abcdef0123456789abcdef-64.jpg";
+    private static final String LEGACY = "user_6_avatar.jpg";
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @TempDir
+    static Path dir;
+
+    @DynamicPropertySource
+    static void avatarDir(DynamicPropertyRegistry registry) {
+        registry.add("avatar.dir", () -> dir.toString());
+    }
+
+    @BeforeEach
+    void writePictures() throws IOException {
+        Files.writeString(dir.resolve(HASHED), "0123456789", StandardCharsets.ISO_8859_1);
+        Files.writeString(dir.resolve(LEGACY), "legacy", StandardCharsets.ISO_8859_1);
+    }
+
+    @Test
+    void hashedPictureIsImmutableAndRevalidatesByHash() throws Exception {
+        mockMvc.perform(get("/picture/" + HASHED))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.CACHE_CONTROL, containsString("immutable")))
+                .andExpect(header().string(HttpHeaders.CACHE_CONTROL, containsString("max-age=31536000")))
+                .andExpect(header().string(HttpHeaders.ETAG, "\"0123456789abcdef0123456789abcdef-64\""))
+                .andExpect(header().exists(HttpHeaders.LAST_MODIFIED));
+
+        mockMvc.perform(get("/picture/" + HASHED)
+                        .header(HttpHeaders.IF_NONE_MATCH, "\"0123456789abcdef0123456789abcdef-64\""))
+                .andExpect(status().isNotModified());
+    }
+
+    @Test
+    void rangeRequestsAreServedPartially() throws Exception {
+        mockMvc.perform(get("/picture/" + HASHED).header(HttpHeaders.RANGE, "bytes=2-4"))
+                .andExpect(status().isPartialContent())
+                .andExpect(content().string("234"));
+    }
+
+    @Test
+    void legacyPictureMustRevalidate() throws Exception {
+        mockMvc.perform(get("/picture/" + LEGACY))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.CACHE_CONTROL, containsString("no-cache")))
+                .andExpect(header().exists(HttpHeaders.ETAG));
+    }
+}
@@ -2,6 +2,7 @@ package com.example.backend.config;
 
 import org.junit.jupiter.api.Test;
 import org.mockito.ArgumentCaptor;
+import org.springframework.beans.factory.ObjectProvider;
 import org.springframework.web.servlet.config.annotation.ResourceHandlerRegistration;
 import org.springframework.web.servlet.config.annotation.ResourceHandlerRegistry;
 
@@ -12,23 +13,39 @@ import static org.mockito.Mockito.*;
 class WebConfigTest {
 
     @Test
+    @SuppressWarnings("unchecked")
     void addResourceHandlers_registersPictureMapping() {
-        WebConfig config = new WebConfig();
+        WebConfig config = new WebConfig(mock(ObjectProvider.class), "uploads/picture", false);
 
         ResourceHandlerRegistry registry = mock(ResourceHandlerRegistry.class);
-        ResourceHandlerRegistration registration = mock(ResourceHandlerRegistration.class);
+        ResourceHandlerRegistration registration = mock(ResourceHandlerRegistration.class, RETURNS_SELF);
 
-        when(registry.addResourceHandler("/picture/**")).thenReturn(registration);
-        when(registration.addResourceLocations((String) any())).thenReturn(registration);
+        when(registry.addResourceHandler(any())).thenReturn(registration);
 
         config.addResourceHandlers(registry);
 
+        verify(registry).addResourceHandler(WebConfig.HASHED_PICTURE);
+        verify(registry).addResourceHandler("/picture/**");
         ArgumentCaptor<String> captor = ArgumentCaptor.forClass(String.class);
-        verify(registration).addResourceLocations(captor.capture());
+        verify(registration, times(2)).addResourceLocations(captor.capture());
         String loc = captor.getValue();
 
         String expectedPrefix = "file:" + System.getProperty("user.dir") + "/uploads/picture/";
         assertTrue(loc.startsWith(expectedPrefix),
                 () -> "resource location should start with " + expectedPrefix + " but was " + loc);
     }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void addResourceHandlers_servesTheConfiguredAvatarDir() {
+        WebConfig config = new WebConfig(mock(ObjectProvider.class), "/srv/avatars", false);
+
+        ResourceHandlerRegistry registry = mock(ResourceHandlerRegistry.class);
+        ResourceHandlerRegistration registration = mock(ResourceHandlerRegistration.class, RETURNS_SELF);
+        when(registry.addResourceHandler(any())).thenReturn(registration);
+
+        config.addResourceHandlers(registry);
+
+        verify(registration, times(2)).addResourceLocations("file:/srv/avatars/");
+    }
 }
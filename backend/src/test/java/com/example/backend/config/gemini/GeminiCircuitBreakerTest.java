@@ -0,0 +1,77 @@
+package com.example.backend.config.gemini;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+import static com.example.backend.config.gemini.GeminiCircuitBreaker.State.*;
+import static org.junit.jupiter.api.Assertions.*;
+
+class GeminiCircuitBreakerTest {
+
+    private static final long MS = 1_000_000L;
+
+    private final AtomicLong now = new AtomicLong();
+    // window 10, min 4 calls, 50% failure / 50% slow, slow >= 100ms, open for 1s, 2 probes
+    private final GeminiCircuitBreaker breaker =
+            new GeminiCircuitBreaker(10, 4, 50, 50, 100, 1000, 2, now::get);
+
+    private void call(boolean success, long millis) {
+        assertTrue(breaker.tryAcquire());
+        breaker.onComplete(millis * MS, success);
+    }
+
+    @Test
+    void opensOnFailureRateOnlyAfterMinimumCalls() {
+        call(false, 1);
+        call(false, 1);
+        call(true, 1);
+        assertEquals(CLOSED, breaker.getState());
+        call(true, 1);   // 2 of 4 failed -> 50%
+        assertEquals(OPEN, breaker.getState());
+        assertFalse(breaker.tryAcquire());
+    }
+
+    @Test
+    void opensOnSlowCallRate() {
+        for (int i = 0; i < 4; i++) call(true, 150);
+        assertEquals(OPEN, breaker.getState());
+    }
+
+    @Test
+    void halfOpenProbesCloseTheCircuitWhenHealthy() {
+        for (int i = 0; i < 4; i++) call(false, 1);
+        assertFalse(breaker.tryAcquire());
+
+        now.addAndGet(1000 * MS);
+        assertTrue(breaker.tryAcquire());
+        assertEquals(HALF_OPEN, breaker.getState());
+        assertTrue(breaker.tryAcquire());
+        assertFalse(breaker.tryAcquire(), "only two probes may run");
+
+        breaker.onComplete(MS, true);
+        breaker.onComplete(MS, true);
+        assertEquals(CLOSED, breaker.getState());
+    }
+
+    @Test
+    void failedProbeReopens() {
+        for (int i = 0; i < 4; i++) call(false, 1);
+        now.addAndGet(1000 * MS);
+
+        assertTrue(breaker.tryAcquire());
+        breaker.onComplete(MS, false);
+        assertEquals(OPEN, breaker.getState());
+        assertFalse(breaker.tryAcquire());
+    }
+
+    @Test
+    void oldOutcomesSlideOutOfTheWindow() {
+        call(false, 1);
+        for (int i = 0; i < 9; i++) call(true, 1);
+        for (int i = 0; i < 4; i++) call(false, 1);   // 4 of last 10 failed
+        assertEquals(CLOSED, breaker.getState());
+        call(false, 1);                               // 5 of last 10
+        assertEquals(OPEN, breaker.getState());
+    }
+}
@@ -0,0 +1,191 @@
+package com.example.backend.config.gemini;
+
+import com.sun.net.httpserver.HttpServer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpEntity;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.MediaType;
+import org.springframework.http.client.SimpleClientHttpRequestFactory;
+import org.springframework.web.client.RestTemplate;
+
+import java.math.BigDecimal;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Runs the real client against a local stub of the Gemini endpoint.
+ */
+class GeminiHttpClientStubServerTest {
+
+    private static final int CALLS = 50;
+    private static final int THREADS = 10;
+    private static final String BODY =
+            "{\"candidates\":[{\"content\":{\"parts\":[{\"text\":\"{\\\"summary\\\":\\\"ok\\\",\\\"bullets\\\":[]}\"}]}}]}";
+
+    private HttpServer server;
+    /** Client-side ports seen by the stub; one per TCP connection opened. */
+    private final Set<Integer> clientPorts = ConcurrentHashMap.newKeySet();
+    private volatile long delayMillis;
+    private ExecutorService serverThreads;
+
+    @BeforeEach
+    void startServer() throws Exception {
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        serverThreads = Executors.newCachedThreadPool();
+        server.setExecutor(serverThreads);
+        server.createContext("/", exchange -> {
+            exchange.getRequestBody().readAllBytes();
+            clientPorts.add(exchange.getRemoteAddress().getPort());
+            if (delayMillis > 0) {
+                try {
+                    Thread.sleep(delayMillis);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+            byte[] out = BODY.getBytes(StandardCharsets.UTF_8);
+            exchange.getResponseHeaders().set("Content-Type", "application/json");
+            exchange.sendResponseHeaders(200, out.length);
+            exchange.getResponseBody().write(out);
+            exchange.close();
+        });
+        server.start();
+    }
+
+    @AfterEach
+    void stopServer() {
+        server.stop(0);
+        serverThreads.shutdownNow();
+    }
+
+    private String baseUrl() {
+        return "http://127.0.0.1:" + server.getAddress().getPort();
+    }
+
+    private GeminiProperties props() {
+        GeminiProperties props = new GeminiProperties();
+        props.setApiKey("test-key");
+        props.setModel("gemini-2.5-flash");
+        props.setTimeoutMillis(5000);
+        props.setBaseUrl(baseUrl());
+        props.setMaxConnections(4);
+        return props;
+    }
+
+    @Test
+    void sequentialCallsReuseOnePooledConnection() throws Exception {
+        GeminiHttpClient client = new GeminiHttpClient(props());
+        try {
+            for (int i = 0; i < CALLS; i++) {
+                assertEquals("{\"summary\":\"ok\",\"bullets\":[]}",
+                        client.generateAdviceJson("2025-10", "AUD", BigDecimal.TEN, List.of(), "en-US"));
+            }
+        } finally {
+            client.close();
+        }
+        assertEquals(1, clientPorts.size(), "all calls should share one keep-alive connection");
+    }
+
+    @Test
+    void streamAdviceJson_readsServerSentChunks() throws Exception {
+        server.createContext("/v1beta/models/gemini-2.5-flash:streamGenerateContent", exchange -> {
+            exchange.getRequestBody().readAllBytes();
+            assertTrue(exchange.getRequestURI().getQuery().contains("alt=sse"));
+            String sse = chunk("{\\\"summary\\\":\\\"Fo") + chunk("od is high\\\",\\\"bullets\\\":[]}");
+            byte[] out = sse.getBytes(StandardCharsets.UTF_8);
+            exchange.getResponseHeaders().set("Content-Type", "text/event-stream");
+            exchange.sendResponseHeaders(200, out.length);
+            exchange.getResponseBody().write(out);
+            exchange.close();
+        });
+
+        GeminiHttpClient client = new GeminiHttpClient(props());
+        List<String> seen = new java.util.ArrayList<>();
+        try {
+            String json = client.streamAdviceJson("2025-10", "AUD", BigDecimal.TEN, List.of(), "en-US", seen::add);
+            assertEquals("{\"summary\":\"Food is high\",\"bullets\":[]}", json);
+        } finally {
+            client.close();
+        }
+        assertEquals(List.of("{\"summary\":\"Fo", "{\"summary\":\"Food is high\",\"bullets\":[]}"), seen);
+    }
+
+    private static String chunk(String escapedText) {
+        return "data: {\"candidates\":[{\"content\":{\"parts\":[{\"text\":\"" + escapedText + "\"}]}}]}\r\n\r\n";
+    }
+
+    /**
+     * Sequential calls would not tell the two apart: HttpURLConnection keeps its own JVM-wide keep-alive
+     * cache. The difference is under load, where per-call templates open a socket per concurrent request
+     * and the shared pool stays within {@code maxConnections}.
+     */
+    @Test
+    void concurrentCallsStayWithinThePoolWhilePerCallTemplatesOpenOneConnectionEach() throws Exception {
+        delayMillis = 20;
+        HttpHeaders headers = new HttpHeaders();
+        headers.setContentType(MediaType.APPLICATION_JSON);
+        HttpEntity<Map<String, Object>> req = new HttpEntity<>(Map.of("contents", List.of()), headers);
+        String url = baseUrl() + "/v1beta/models/m:generateContent?key=k";
+
+        // Before: a fresh RestTemplate + SimpleClientHttpRequestFactory per call, as the client used to do
+        runConcurrently(() -> {
+            var f = new SimpleClientHttpRequestFactory();
+            f.setConnectTimeout(5000);
+            f.setReadTimeout(5000);
+            new RestTemplate(f).exchange(url, HttpMethod.POST, req, String.class);
+        });
+        int perCall = clientPorts.size();
+        clientPorts.clear();
+
+        // After: one shared pooled client
+        GeminiHttpClient client = new GeminiHttpClient(props());
+        try {
+            runConcurrently(() -> client.generateAdviceJson("2025-10", "AUD", BigDecimal.TEN, List.of(), "en-US"));
+        } finally {
+            client.close();
+        }
+
+        assertTrue(perCall >= THREADS, "per-call templates opened only " + perCall + " connections");
+        assertTrue(clientPorts.size() <= props().getMaxConnections(),
+                "pooled client opened " + clientPorts.size() + " connections");
+    }
+
+    private static void runConcurrently(ThrowingRunnable call) throws Exception {
+        ExecutorService callers = Executors.newFixedThreadPool(THREADS);
+        CountDownLatch start = new CountDownLatch(1);
+        try {
+            List<Future<?>> done = new ArrayList<>();
+            for (int t = 0; t < THREADS; t++) {
+                done.add(callers.submit(() -> {
+                    start.await();
+                    for (int i = 0; i < CALLS / THREADS; i++) call.run();
+                    return null;
+                }));
+            }
+            start.countDown();
+            for (Future<?> f : done) f.get(30, TimeUnit.SECONDS);
+        } finally {
+            callers.shutdownNow();
+        }
+    }
+
+    @FunctionalInterface
+    private interface ThrowingRunnable {
+        void run() throws Exception;
+    }
+}
@@ -0,0 +1,50 @@
+package com.example.backend.config.gemini;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PartialJsonTest {
+
+    @Test
+    void closesOpenStringAndObject() {
+        assertEquals(Map.of("summary", "Spending was hi"),
+                PartialJson.parseObjectPrefix("{\"summary\":\"Spending was hi"));
+    }
+
+    @Test
+    void dropsDanglingKeyAndColon() {
+        assertEquals(Map.of("summary", "ok"), PartialJson.parseObjectPrefix("{\"summary\":\"ok\",\"bul"));
+        assertEquals(Map.of("summary", "ok"), PartialJson.parseObjectPrefix("{\"summary\":\"ok\",\"bullets\""));
+        Map<String, Object> m = PartialJson.parseObjectPrefix("{\"summary\":\"ok\",\"bullets\":");
+        assertEquals("ok", m.get("summary"));
+        assertNull(m.get("bullets"));
+    }
+
+    @Test
+    void keepsCompleteAndPartialArrayElements() {
+        Map<String, Object> m = PartialJson.parseObjectPrefix(
+                "{\"summary\":\"s\",\"bullets\":[{\"title\":\"A\",\"detail\":\"do a\"},{\"title\":\"B\",\"det");
+        List<?> bullets = (List<?>) m.get("bullets");
+        assertEquals(2, bullets.size());
+        assertEquals(Map.of("title", "A", "detail", "do a"), bullets.get(0));
+        assertEquals(Map.of("title", "B"), bullets.get(1));
+    }
+
+    @Test
+    void handlesEscapesCutMidway() {
+        assertEquals(Map.of("summary", "say "), PartialJson.parseObjectPrefix("{\"summary\":\"say \\"));
+        assertEquals(Map.of("summary", "a"), PartialJson.parseObjectPrefix("{\"summary\":\"a\\u00"));
+        assertEquals(Map.of("summary", "q\"x"), PartialJson.parseObjectPrefix("{\"summary\":\"q\\\"x"));
+    }
+
+    @Test
+    void nothingUsableYet() {
+        assertNull(PartialJson.parseObjectPrefix(""));
+        assertNull(PartialJson.parseObjectPrefix("  "));
+        assertEquals(Map.of(), PartialJson.parseObjectPrefix("{\"summ"));
+    }
+}
@@ -0,0 +1,67 @@
+package com.example.backend.config.gemini;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+class ResilientGeminiClientTest {
+
+    private final GeminiClient delegate = mock(GeminiClient.class);
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+
+    private String call(GeminiClient client) {
+        return client.generateAdviceJson("2025-10", "AUD", BigDecimal.TEN, List.of(), "en-US");
+    }
+
+    @Test
+    void openCircuitFailsFastWithoutCallingGemini() {
+        when(delegate.generateAdviceJson(any(), any(), any(), any(), any()))
+                .thenThrow(new RuntimeException("503"));
+        var breaker = new GeminiCircuitBreaker(4, 2, 50, 50, 10_000, 60_000, 1, System::nanoTime);
+        var client = new ResilientGeminiClient(delegate, breaker, 4, registry);
+
+        assertThrows(RuntimeException.class, () -> call(client));
+        assertThrows(RuntimeException.class, () -> call(client));
+        assertEquals(GeminiCircuitBreaker.State.OPEN, client.state());
+
+        assertThrows(GeminiUnavailableException.class, () -> call(client));
+        verify(delegate, times(2)).generateAdviceJson(any(), any(), any(), any(), any());
+
+        assertEquals(1.0, registry.get("gemini.circuit.state").gauge().value());
+        assertEquals(2.0, registry.get("gemini.calls").tag("outcome", "failure").counter().count());
+        assertEquals(1.0, registry.get("gemini.calls").tag("outcome", "rejected_open").counter().count());
+    }
+
+    @Test
+    void bulkheadRejectsCallsBeyondTheLimit() throws Exception {
+        CountDownLatch entered = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        when(delegate.generateAdviceJson(any(), any(), any(), any(), any())).thenAnswer(inv -> {
+            entered.countDown();
+            release.await(5, TimeUnit.SECONDS);
+            return "{}";
+        });
+        var breaker = new GeminiCircuitBreaker(10, 5, 50, 50, 10_000, 60_000, 1, System::nanoTime);
+        var client = new ResilientGeminiClient(delegate, breaker, 1, registry);
+
+        Thread busy = new Thread(() -> call(client));
+        busy.start();
+        assertTrue(entered.await(5, TimeUnit.SECONDS));
+
+        assertThrows(GeminiUnavailableException.class, () -> call(client));
+        assertEquals(0.0, registry.get("gemini.bulkhead.available").gauge().value());
+
+        release.countDown();
+        busy.join(5000);
+        assertEquals("{}", call(client));
+        assertEquals(1.0, registry.get("gemini.calls").tag("outcome", "rejected_bulkhead").counter().count());
+    }
+}
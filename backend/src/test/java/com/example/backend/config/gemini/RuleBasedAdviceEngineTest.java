@@ -0,0 +1,71 @@
+package com.example.backend.config.gemini;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RuleBasedAdviceEngineTest {
+
+    private final RuleBasedAdviceEngine engine = new RuleBasedAdviceEngine();
+    private final ObjectMapper om = new ObjectMapper();
+
+    private static Map<String, Object> cat(int id, String name, String amount, String pct) {
+        Map<String, Object> t = new LinkedHashMap<>();
+        t.put("catId", id);
+        t.put("catName", name);
+        t.put("amount", new BigDecimal(amount));
+        t.put("pct", new BigDecimal(pct));
+        return t;
+    }
+
+    private JsonNode run(List<Map<String, Object>> totals, String total) throws Exception {
+        return om.readTree(engine.generateAdviceJson("2025-10", "AUD", new BigDecimal(total), totals, "en-US"));
+    }
+
+    @Test
+    void flagsGoalOverrunRiseAndAboveAverage() throws Exception {
+        var food = cat(1, "Food", "300", "0.6000");
+        food.put("goalAmount", new BigDecimal("250"));
+        food.put("prevAmount", new BigDecimal("200"));
+        var fun = cat(2, "Fun", "200", "0.4000");
+        fun.put("prevAmount", new BigDecimal("190"));
+        fun.put("avgAmount", new BigDecimal("100"));
+
+        JsonNode out = run(List.of(food, fun), "500");
+
+        assertEquals("Total spending for 2025-10 was AUD 500.00; Food was the largest category at 60%.",
+                out.get("summary").asText());
+        JsonNode bullets = out.get("bullets");
+        assertEquals("Over budget: Food", bullets.get(0).get("title").asText());
+        assertEquals("Food up 50% on last month", bullets.get(1).get("title").asText());
+        assertEquals("Fun above your usual level", bullets.get(2).get("title").asText());
+        assertEquals("Food dominates spending", bullets.get(3).get("title").asText());
+    }
+
+    @Test
+    void genericBulletsWhenNothingStandsOut() throws Exception {
+        JsonNode out = run(List.of(cat(1, "Food", "30", "0.3000"), cat(2, "Rent", "35", "0.3500"),
+                cat(3, "Fun", "35", "0.3500")), "100");
+
+        assertEquals(2, out.get("bullets").size());
+        assertEquals("Set limits for high-spending categories", out.get("bullets").get(0).get("title").asText());
+    }
+
+    @Test
+    void capsBulletCount() throws Exception {
+        var totals = new java.util.ArrayList<Map<String, Object>>();
+        for (int i = 1; i <= 8; i++) {
+            var t = cat(i, "C" + i, "10", "0.1250");
+            t.put("goalAmount", new BigDecimal("5"));
+            totals.add(t);
+        }
+        assertEquals(RuleBasedAdviceEngine.MAX_BULLETS, run(totals, "80").get("bullets").size());
+    }
+}
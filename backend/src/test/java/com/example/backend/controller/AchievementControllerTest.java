@@ -1,21 +1,24 @@
 package com.example.backend.controller;
 
-import com.example.backend.auth.SessionKeys;
-import com.example.backend.dto.UserDTO;
-import com.example.backend.model.UserAchievement;
-import com.example.backend.repository.UserAchievementRepository;
+import com.example.backend.dto.AchievementDTO;
+import com.example.backend.security.CurrentUser;
 import com.example.backend.service.AchievementService;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
-import org.springframework.mock.web.MockHttpSession;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.web.context.request.ServletWebRequest;
 
+import java.time.LocalDateTime;
 import java.util.List;
 
 import static org.assertj.core.api.Assertions.assertThat;
-import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 @ExtendWith(MockitoExtension.class)
@@ -24,33 +27,37 @@ class AchievementControllerTest {
     @Mock
     private AchievementService achievementService;
 
-    @Mock
-    private UserAchievementRepository userAchievementRepository;
-
     @InjectMocks
     private AchievementController controller;
 
+    private final MockHttpServletRequest servletRequest = new MockHttpServletRequest("GET", "/achievements");
+    private final MockHttpServletResponse servletResponse = new MockHttpServletResponse();
+
+    private final CurrentUser alice = new CurrentUser(7, "alice");
+
     @Test
     void getAchievementsReturnsListForLoggedInUser() {
-        MockHttpSession session = new MockHttpSession();
-        var dto = new UserDTO(7, "alice");
-        session.setAttribute(SessionKeys.USER_DTO, dto);
-
-        var achievement = new UserAchievement();
-        List<UserAchievement> expected = List.of(achievement);
-        when(userAchievementRepository.findByUserId(7)).thenReturn(expected);
+        List<AchievementDTO> expected = List.of(
+                new AchievementDTO("FIRST_EXPENSE", "First Spend!", "d", "💸", LocalDateTime.of(2025, 3, 1, 9, 0)));
+        when(achievementService.etag(7)).thenReturn("\"7-1-1\"");
+        when(achievementService.listEarned(7)).thenReturn(expected);
 
-        var result = controller.getAchievements(session);
+        var result = controller.getAchievements(alice, new ServletWebRequest(servletRequest, servletResponse));
 
-        assertThat(result).isSameAs(expected);
+        assertThat(result.getBody()).isSameAs(expected);
+        assertThat(result.getHeaders().getETag()).isEqualTo("\"7-1-1\"");
+        assertThat(result.getHeaders().getCacheControl()).contains("no-cache").contains("private");
     }
 
     @Test
-    void getAchievementsThrowsWhenUserNotInSession() {
-        MockHttpSession session = new MockHttpSession();
+    void getAchievementsReturns304WithoutLoadingWhenETagMatches() {
+        when(achievementService.etag(7)).thenReturn("\"7-1-1\"");
+        servletRequest.addHeader("If-None-Match", "\"7-1-1\"");
+
+        var result = controller.getAchievements(alice, new ServletWebRequest(servletRequest, servletResponse));
 
-        assertThatThrownBy(() -> controller.getAchievements(session))
-                .isInstanceOf(RuntimeException.class)
-                .hasMessageContaining("User not logged-in");
+        assertThat(result).isNull();
+        assertThat(servletResponse.getStatus()).isEqualTo(304);
+        verify(achievementService, never()).listEarned(anyInt());
     }
 }
@@ -1,21 +1,26 @@
 package com.example.backend.controller;
 
-import com.example.backend.dto.UserDTO;
+import com.example.backend.service.AdviceJobService;
 import com.example.backend.service.AiAdviceService;
+import com.example.backend.security.CurrentUser;
+import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.ArgumentCaptor;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
-import org.springframework.mock.web.MockHttpSession;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.server.ResponseStatusException;
 
 import java.time.YearMonth;
 import java.util.Map;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.timeout;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
@@ -25,60 +30,83 @@ class AiAdviceControllerTest {
     @Mock
     private AiAdviceService service;
 
+    private AdviceJobService jobs;
     private AiAdviceController controller;
 
     @BeforeEach
     void setUp() {
-        controller = new AiAdviceController(service);
+        jobs = new AdviceJobService(service, 1, 4, 60_000);
+        controller = new AiAdviceController(jobs);
+    }
+
+    @AfterEach
+    void tearDown() {
+        jobs.shutdown();
+    }
+
+    private Map<String, Object> awaitDone(String jobId, CurrentUser user) throws InterruptedException {
+        for (int i = 0; i < 200; i++) {
+            Map<String, Object> body = controller.job(jobId, user);
+            if (!"PENDING".equals(body.get("status")) && !"RUNNING".equals(body.get("status"))) return body;
+            Thread.sleep(10);
+        }
+        throw new AssertionError("job did not finish");
     }
 
     @Test
-    void generateWithExplicitMonthUsesParsedYearMonth() {
-        MockHttpSession session = new MockHttpSession();
-        session.setAttribute("USER", new UserDTO(8, "rose"));
+    void generateWithExplicitMonthReturnsAcceptedAndResultIsPollable() throws Exception {
+        CurrentUser user = new CurrentUser(8, "rose");
 
         Map<String, Object> payload = Map.of("status", "ok");
         YearMonth target = YearMonth.parse("2024-11");
-        when(service.generate(8, target, "en-US")).thenReturn(payload);
+        when(service.generate(eq(8), eq(target), eq("en-US"), any())).thenReturn(payload);
 
-        var response = controller.generate("2024-11", session);
+        var response = controller.generate("2024-11", user);
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.ACCEPTED);
+        String jobId = (String) response.getBody().get("jobId");
 
-        assertThat(response).isSameAs(payload);
+        var body = awaitDone(jobId, user);
+        assertThat(body.get("status")).isEqualTo("DONE");
+        assertThat(body.get("result")).isSameAs(payload);
     }
 
     @Test
     void generateWithoutMonthFallsBackToCurrentMonth() {
-        MockHttpSession session = new MockHttpSession();
-        session.setAttribute("USER", new UserDTO(3, "mike"));
+        CurrentUser user = new CurrentUser(3, "mike");
 
-        Map<String, Object> payload = Map.of("status", "fallback");
-        when(service.generate(eq(3), any(YearMonth.class), eq("en-US"))).thenReturn(payload);
+        when(service.generate(eq(3), any(YearMonth.class), eq("en-US"), any())).thenReturn(Map.of());
 
         YearMonth expected = YearMonth.now();
-        var response = controller.generate("  ", session);
-
-        assertThat(response).isSameAs(payload);
+        controller.generate("  ", user);
 
         ArgumentCaptor<YearMonth> captor = ArgumentCaptor.forClass(YearMonth.class);
-        verify(service).generate(eq(3), captor.capture(), eq("en-US"));
+        verify(service, timeout(2000)).generate(eq(3), captor.capture(), eq("en-US"), any());
         assertThat(captor.getValue()).isEqualTo(expected);
     }
 
     @Test
     void generateWithNullMonthAlsoFallsBackToCurrentMonth() {
-        MockHttpSession session = new MockHttpSession();
-        session.setAttribute("USER", new UserDTO(4, "jane"));
+        CurrentUser user = new CurrentUser(4, "jane");
 
-        Map<String, Object> payload = Map.of("status", "null-month");
-        when(service.generate(eq(4), any(YearMonth.class), eq("en-US"))).thenReturn(payload);
+        when(service.generate(eq(4), any(YearMonth.class), eq("en-US"), any())).thenReturn(Map.of());
 
         YearMonth expected = YearMonth.now();
-        var response = controller.generate(null, session);
-
-        assertThat(response).isSameAs(payload);
+        controller.generate(null, user);
 
         ArgumentCaptor<YearMonth> captor = ArgumentCaptor.forClass(YearMonth.class);
-        verify(service).generate(eq(4), captor.capture(), eq("en-US"));
+        verify(service, timeout(2000)).generate(eq(4), captor.capture(), eq("en-US"), any());
         assertThat(captor.getValue()).isEqualTo(expected);
     }
+
+    @Test
+    void jobOfAnotherUserIsNotFound() {
+        CurrentUser owner = new CurrentUser(8, "rose");
+        CurrentUser other = new CurrentUser(9, "tom");
+
+        String jobId = (String) controller.generate("2024-11", owner).getBody().get("jobId");
+
+        assertThatThrownBy(() -> controller.job(jobId, other))
+                .isInstanceOf(ResponseStatusException.class)
+                .satisfies(e -> assertThat(((ResponseStatusException) e).getStatusCode()).isEqualTo(HttpStatus.NOT_FOUND));
+    }
 }
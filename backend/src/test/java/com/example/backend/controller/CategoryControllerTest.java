@@ -0,0 +1,39 @@
+package com.example.backend.controller;
+
+import com.example.backend.dto.CategoryDTO;
+import com.example.backend.service.CategoryCache;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.http.ResponseEntity;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class CategoryControllerTest {
+
+    @Mock
+    private CategoryCache categoryCache;
+
+    @InjectMocks
+    private CategoryController controller;
+
+    @Test
+    void getCategoriesServesSnapshotWithEtag() {
+        List<CategoryDTO> categories = List.of(new CategoryDTO(1L, "Food"), new CategoryDTO(2L, "Transport"));
+        when(categoryCache.etag()).thenReturn("\"abc\"");
+        when(categoryCache.findAllDtos()).thenReturn(categories);
+
+        ResponseEntity<List<CategoryDTO>> response = controller.getCategories();
+
+        assertThat(response.getStatusCode().is2xxSuccessful()).isTrue();
+        assertThat(response.getHeaders().getETag()).isEqualTo("\"abc\"");
+        assertThat(response.getHeaders().getCacheControl()).isEqualTo("no-cache");
+        assertThat(response.getBody()).isEqualTo(categories);
+    }
+}
@@ -0,0 +1,116 @@
+package com.example.backend.controller;
+
+import com.example.backend.dto.ExpenseRecordDTO;
+import com.example.backend.model.Category;
+import com.example.backend.model.ExpenseRecord;
+import com.example.backend.model.User;
+import com.example.backend.security.CurrentUser;
+import com.example.backend.service.CategoryCache;
+import com.example.backend.service.ExpenseExportService;
+import com.example.backend.service.ExpenseRecordService;
+import com.example.backend.service.RecurringExpenseService;
+import com.example.backend.service.SnapshotService;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Counts the SQL issued by the record endpoints end to end, DTO mapping included. The test
+ * transaction keeps the persistence context open the way open-in-view does for a real request,
+ * so a lazily initialised user row would show up here.
+ */
+@DataJpaTest(properties = {
+        "spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect",
+        "spring.jpa.properties.hibernate.generate_statistics=true",
+        "spring.datasource.url=jdbc:h2:mem:records;MODE=PostgreSQL;NON_KEYWORDS=MONTH,YEAR,VALUE"
+})
+@Import({ExpenseRecordController.class, ExpenseRecordService.class, CategoryCache.class})
+public class ExpenseRecordControllerQueryCountTest {
+
+    @Autowired private TestEntityManager em;
+    @Autowired private EntityManagerFactory emf;
+    @Autowired private ExpenseRecordController controller;
+    @Autowired private CategoryCache categoryCache;
+    // collaborators outside the record/user path this test counts
+    @MockitoBean private SnapshotService snapshotService;
+    @MockitoBean private RecurringExpenseService recurringExpenseService;
+    @MockitoBean private ExpenseExportService exportService;
+
+    private Statistics stats;
+    private CurrentUser principal;
+    private Integer categoryId;
+
+    @BeforeEach
+    void setUp() {
+        User user = new User();
+        user.setUsername("alice");
+        user.setEmail("alice@example.com");
+        user.setPassword_hash("x");
+        Integer userId = em.persistAndGetId(user, Integer.class);
+
+        Category category = new Category();
+        category.setCategoryName("Food");
+        categoryId = em.persistAndGetId(category, Integer.class);
+
+        em.flush();
+        em.clear();
+        categoryCache.invalidate();
+        categoryCache.findAll();
+
+        principal = new CurrentUser(userId, "alice");
+        stats = emf.unwrap(SessionFactory.class).getStatistics();
+        stats.clear();
+    }
+
+    private ExpenseRecord newRecord() {
+        ExpenseRecord record = new ExpenseRecord();
+        Category ref = new Category();
+        ref.setCategoryId(categoryId);
+        record.setCategory(ref);
+        record.setAmount(new BigDecimal("9.90"));
+        record.setCurrency("AUD");
+        record.setExpenseDate(LocalDate.of(2024, 3, 1));
+        record.setIsRecurring(false);
+        return record;
+    }
+
+    @Test
+    void testCreateRecord_neverLoadsUserRow() {
+        ExpenseRecordDTO dto = controller.createRecord(newRecord(), null, principal).getBody();
+        em.flush();
+
+        assertEquals("alice", dto.getUser().getUsername());
+        assertEquals(principal.id(), dto.getUser().getId());
+        assertEquals(0, stats.getEntityStatistics(User.class.getName()).getLoadCount());
+        assertEquals(1, stats.getPrepareStatementCount());
+    }
+
+    @Test
+    void testGetRecords_neverLoadsUserRow() {
+        controller.createRecord(newRecord(), null, principal);
+        em.flush();
+        em.clear();
+        stats.clear();
+
+        List<ExpenseRecordDTO> records = controller.getRecords(principal).getBody();
+
+        assertEquals(1, records.size());
+        assertEquals("alice", records.get(0).getUser().getUsername());
+        assertEquals(0, stats.getEntityStatistics(User.class.getName()).getLoadCount());
+        // the records, then their (eager) category; nothing for the user
+        assertEquals(2, stats.getPrepareStatementCount());
+    }
+}
@@ -2,17 +2,19 @@ package com.example.backend.controller;
 
 import com.example.backend.dto.ExpenseRecordDTO;
 import com.example.backend.dto.ExpenseReportDTO;
-import com.example.backend.dto.UserDTO;
+import com.example.backend.dto.SnapshotCategoryDTO;
+import com.example.backend.dto.SnapshotDTO;
+import com.example.backend.dto.SnapshotRangeDTO;
 import com.example.backend.model.Category;
 import com.example.backend.model.ExpenseRecord;
-import com.example.backend.model.FeatureSnapshot;
 import com.example.backend.model.RecurringExpenseSchedule;
 import com.example.backend.model.User;
 import com.example.backend.repository.ExpenseRecordRepository;
-import com.example.backend.repository.FeatureSnapshotRepository;
-import com.example.backend.repository.UserRepository;
+import com.example.backend.service.ExpenseExportService;
 import com.example.backend.service.ExpenseRecordService;
 import com.example.backend.service.RecurringExpenseService;
+import com.example.backend.service.SnapshotService;
+import com.example.backend.security.CurrentUser;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
@@ -22,10 +24,15 @@ import org.mockito.junit.jupiter.MockitoExtension;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.Pageable;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
-import org.springframework.mock.web.MockHttpSession;
 import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.io.ByteArrayOutputStream;
+import java.io.OutputStream;
 import java.math.BigDecimal;
 import java.time.LocalDate;
 import java.util.List;
@@ -54,15 +61,15 @@ class ExpenseRecordControllerTest {
     private ExpenseRecordRepository expenseRecordRepository;
 
     @Mock
-    private FeatureSnapshotRepository featureSnapshotRepository;
+    private SnapshotService snapshotService;
 
     @Mock
-    private UserRepository userRepository;
+    private ExpenseExportService exportService;
 
     private ExpenseRecordController controller;
 
     private User user;
-    private MockHttpSession session;
+    private CurrentUser principal;
 
     @BeforeEach
     void setUp() {
@@ -70,52 +77,50 @@ class ExpenseRecordControllerTest {
                 recordService,
                 recurringExpenseService,
                 expenseRecordRepository,
-                userRepository,
-                featureSnapshotRepository
+                snapshotService,
+                exportService
         );
         user = buildUser(5, "bob");
-        session = new MockHttpSession();
-        session.setAttribute("USER", new UserDTO(5, "bob"));
+        principal = new CurrentUser(5, "bob");
     }
 
     @Test
-    void getSnapshotReturnsDtoWhenFound() {
-        FeatureSnapshot snapshot = new FeatureSnapshot();
-        snapshot.setSnapshotId(1L);
-        snapshot.setUser(user);
-        snapshot.setMonth("2024-10");
-        snapshot.setCurrency("AUD");
-        snapshot.setTotalSpending(BigDecimal.TEN);
-        snapshot.setTotalsByCategoryJson("[]");
+    void getSnapshotDelegatesToService() {
+        SnapshotDTO snapshot = new SnapshotDTO(1L, "2024-10",
+                List.of(new SnapshotCategoryDTO(9, "Food", BigDecimal.TEN, BigDecimal.ONE)), BigDecimal.TEN, "AUD");
+        when(snapshotService.getMonth(5, "2024-10")).thenReturn(snapshot);
 
-        when(userRepository.getReferenceById(5)).thenReturn(user);
-        when(featureSnapshotRepository.findByUserAndMonth(user, "2024-10"))
-                .thenReturn(Optional.of(snapshot));
-
-        var dto = controller.getSnapshot(session, "2024-10");
+        var dto = controller.getSnapshot(principal, "2024-10");
 
         assertThat(dto.getId()).isEqualTo(1L);
         assertThat(dto.getCurrency()).isEqualTo("AUD");
-        assertThat(dto.getTotalSpending()).isEqualTo(BigDecimal.TEN);
+        assertThat(dto.getTotalsByCategory()).extracting(SnapshotCategoryDTO::categoryName).containsExactly("Food");
     }
 
     @Test
-    void getSnapshotThrowsWhenMissing() {
-        when(userRepository.getReferenceById(5)).thenReturn(user);
-        when(featureSnapshotRepository.findByUserAndMonth(user, "2024-11"))
-                .thenReturn(Optional.empty());
+    void getSnapshotPropagatesNotFound() {
+        when(snapshotService.getMonth(5, "2024-11"))
+                .thenThrow(new ResponseStatusException(HttpStatus.NOT_FOUND, "snapshot not found"));
 
-        assertThatThrownBy(() -> controller.getSnapshot(session, "2024-11"))
+        assertThatThrownBy(() -> controller.getSnapshot(principal, "2024-11"))
                 .isInstanceOf(ResponseStatusException.class)
                 .hasMessageContaining("snapshot not found");
     }
 
+    @Test
+    void getSnapshotsDelegatesRangeToService() {
+        SnapshotRangeDTO range = new SnapshotRangeDTO("2024-01", "2024-03", "AUD", BigDecimal.TEN, List.of(), List.of());
+        when(snapshotService.getRange(5, "2024-01", "2024-03")).thenReturn(range);
+
+        assertThat(controller.getSnapshots(principal, "2024-01", "2024-03")).isSameAs(range);
+    }
+
     @Test
     void getRecordsMapsEntitiesToDtos() {
         ExpenseRecord record = buildExpenseRecord(10, false);
         when(recordService.getRecordsForUser(5)).thenReturn(List.of(record));
 
-        ResponseEntity<List<ExpenseRecordDTO>> response = controller.getRecords(session);
+        ResponseEntity<List<ExpenseRecordDTO>> response = controller.getRecords(principal);
 
         assertThat(response.getBody()).hasSize(1);
         assertThat(response.getBody().get(0).getExpenseId()).isEqualTo(10L);
@@ -130,7 +135,7 @@ class ExpenseRecordControllerTest {
                 .thenReturn(page);
 
         var response = controller.search(
-                session,
+                principal,
                 "2024-01-01",
                 "2024-01-31",
                 3,
@@ -160,7 +165,7 @@ class ExpenseRecordControllerTest {
                 .thenReturn(new PageImpl<>(List.of(record)));
 
         var response = controller.search(
-                session, null, null, null, null, null, 1, 3, "expenseDate", "desc"
+                principal, null, null, null, null, null, 1, 3, "expenseDate", "desc"
         );
 
         assertThat(response.getBody()).isNotNull();
@@ -186,7 +191,7 @@ class ExpenseRecordControllerTest {
 
         when(recordService.createRecord(5, request)).thenReturn(created);
 
-        var response = controller.createRecord(request, "monthly", session);
+        var response = controller.createRecord(request, "monthly", principal);
 
         verify(recurringExpenseService).onManualExpenseSaved(created,
                 RecurringExpenseSchedule.Frequency.MONTHLY);
@@ -201,7 +206,7 @@ class ExpenseRecordControllerTest {
 
         when(recordService.createRecord(5, request)).thenReturn(created);
 
-        var response = controller.createRecord(request, null, session);
+        var response = controller.createRecord(request, null, principal);
 
         verify(recurringExpenseService, never()).onManualExpenseSaved(any(), any());
         assertThat(response.getBody()).isNotNull();
@@ -215,7 +220,7 @@ class ExpenseRecordControllerTest {
 
         when(recordService.createRecord(5, request)).thenReturn(created);
 
-        var response = controller.createRecord(request, null, session);
+        var response = controller.createRecord(request, null, principal);
 
         verify(recurringExpenseService, never()).onManualExpenseSaved(any(), any());
         assertThat(response.getBody()).isNotNull();
@@ -228,7 +233,7 @@ class ExpenseRecordControllerTest {
 
         when(recordService.createRecord(5, request)).thenReturn(created);
 
-        var response = controller.createRecord(request, "   ", session);
+        var response = controller.createRecord(request, "   ", principal);
 
         verify(recurringExpenseService, never()).onManualExpenseSaved(any(), any());
         assertThat(response.getBody()).isNotNull();
@@ -244,7 +249,7 @@ class ExpenseRecordControllerTest {
         when(expenseRecordRepository.findById(15)).thenReturn(Optional.of(before));
         when(recordService.updateRecord(5, 15, request)).thenReturn(saved);
 
-        var response = controller.updateRecord(15, request, null, session);
+        var response = controller.updateRecord(15, request, null, principal);
 
         assertThat(response.getBody()).isNotNull();
         assertThat(response.getBody().getExpenseId()).isEqualTo(15L);
@@ -258,7 +263,7 @@ class ExpenseRecordControllerTest {
         when(expenseRecordRepository.findById(16)).thenReturn(Optional.of(before));
         when(recordService.updateRecord(5, 16, updated)).thenReturn(updated);
 
-        assertThatThrownBy(() -> controller.updateRecord(16, updated, null, session))
+        assertThatThrownBy(() -> controller.updateRecord(16, updated, null, principal))
                 .isInstanceOf(ResponseStatusException.class)
                 .hasMessageContaining("frequency required");
     }
@@ -271,7 +276,7 @@ class ExpenseRecordControllerTest {
         when(expenseRecordRepository.findById(17)).thenReturn(Optional.of(before));
         when(recordService.updateRecord(5, 17, updated)).thenReturn(updated);
 
-        var response = controller.updateRecord(17, updated, "weekly", session);
+        var response = controller.updateRecord(17, updated, "weekly", principal);
 
         verify(recurringExpenseService).onManualExpenseSaved(updated,
                 RecurringExpenseSchedule.Frequency.WEEKLY);
@@ -287,7 +292,7 @@ class ExpenseRecordControllerTest {
         when(expenseRecordRepository.findById(18)).thenReturn(Optional.of(before));
         when(recordService.updateRecord(5, 18, updated)).thenReturn(updated);
 
-        var response = controller.updateRecord(18, updated, null, session);
+        var response = controller.updateRecord(18, updated, null, principal);
 
         verify(recurringExpenseService).cancelSchedule(30);
         verify(expenseRecordRepository).save(updated);
@@ -305,7 +310,7 @@ class ExpenseRecordControllerTest {
         when(expenseRecordRepository.findById(19)).thenReturn(Optional.of(before));
         when(recordService.updateRecord(5, 19, updated)).thenReturn(updated);
 
-        var response = controller.updateRecord(19, updated, "weekly", session);
+        var response = controller.updateRecord(19, updated, "weekly", principal);
 
         verify(recurringExpenseService).cancelSchedule(31);
         verify(recurringExpenseService).onManualExpenseSaved(updated,
@@ -325,7 +330,7 @@ class ExpenseRecordControllerTest {
         when(expenseRecordRepository.findById(50)).thenReturn(Optional.of(before));
         when(recordService.updateRecord(5, 50, request)).thenReturn(saved);
 
-        controller.updateRecord(50, request, "monthly", session);
+        controller.updateRecord(50, request, "monthly", principal);
 
         verify(recurringExpenseService, never()).cancelSchedule(anyInt());
         verify(recurringExpenseService).onManualExpenseSaved(saved, RecurringExpenseSchedule.Frequency.MONTHLY);
@@ -342,7 +347,7 @@ class ExpenseRecordControllerTest {
         when(expenseRecordRepository.findById(51)).thenReturn(Optional.of(before));
         when(recordService.updateRecord(5, 51, request)).thenReturn(saved);
 
-        controller.updateRecord(51, request, "monthly", session);
+        controller.updateRecord(51, request, "monthly", principal);
 
         verify(recurringExpenseService, never()).cancelSchedule(anyInt());
         verify(recurringExpenseService, never()).onManualExpenseSaved(any(), any());
@@ -357,7 +362,7 @@ class ExpenseRecordControllerTest {
         when(expenseRecordRepository.findById(52)).thenReturn(Optional.of(before));
         when(recordService.updateRecord(5, 52, request)).thenReturn(saved);
 
-        ResponseEntity<ExpenseRecordDTO> response = controller.updateRecord(52, request, null, session);
+        ResponseEntity<ExpenseRecordDTO> response = controller.updateRecord(52, request, null, principal);
 
         verify(recurringExpenseService, never()).cancelSchedule(anyInt());
         verify(recurringExpenseService, never()).onManualExpenseSaved(any(), any());
@@ -374,7 +379,7 @@ class ExpenseRecordControllerTest {
         when(expenseRecordRepository.findById(53)).thenReturn(Optional.of(before));
         when(recordService.updateRecord(5, 53, request)).thenReturn(saved);
 
-        controller.updateRecord(53, request, null, session);
+        controller.updateRecord(53, request, null, principal);
 
         verify(recurringExpenseService, never()).cancelSchedule(anyInt());
     }
@@ -386,7 +391,7 @@ class ExpenseRecordControllerTest {
 
         when(expenseRecordRepository.findById(20)).thenReturn(Optional.of(record));
 
-        assertThatThrownBy(() -> controller.deleteRecord(20, false, session))
+        assertThatThrownBy(() -> controller.deleteRecord(20, false, principal))
                 .isInstanceOf(ResponseStatusException.class)
                 .hasMessageContaining("Not your record");
     }
@@ -398,7 +403,7 @@ class ExpenseRecordControllerTest {
 
         when(expenseRecordRepository.findById(21)).thenReturn(Optional.of(record));
 
-        var response = controller.deleteRecord(21, true, session);
+        var response = controller.deleteRecord(21, true, principal);
 
         verify(recurringExpenseService).cancelSchedule(41);
         verify(recordService).deleteRecord(5, 21);
@@ -411,7 +416,7 @@ class ExpenseRecordControllerTest {
 
         when(expenseRecordRepository.findById(22)).thenReturn(Optional.of(record));
 
-        var response = controller.deleteRecord(22, false, session);
+        var response = controller.deleteRecord(22, false, principal);
 
         verify(recurringExpenseService, never()).cancelSchedule(anyInt());
         verify(recordService).deleteRecord(5, 22);
@@ -424,7 +429,7 @@ class ExpenseRecordControllerTest {
 
         when(expenseRecordRepository.findById(54)).thenReturn(Optional.of(record));
 
-        controller.deleteRecord(54, false, session);
+        controller.deleteRecord(54, false, principal);
 
         verify(recurringExpenseService, never()).cancelSchedule(anyInt());
     }
@@ -435,17 +440,54 @@ class ExpenseRecordControllerTest {
         when(recordService.search(eq(5), any(), any(), any(), any(), any(), any(Pageable.class)))
                 .thenReturn(new PageImpl<>(List.of(record)));
 
-        controller.search(session, "  ", "\t", null, null, null, 0, 5, "expenseDate", "asc");
+        controller.search(principal, "  ", "\t", null, null, null, 0, 5, "expenseDate", "asc");
 
         verify(recordService).search(eq(5), eq(null), eq(null), eq(null), eq(null), eq(null), any(Pageable.class));
     }
 
+    @Test
+    void exportCsvStreamsThroughExportService() throws Exception {
+        ResponseEntity<StreamingResponseBody> response = controller.export(
+                principal, "2024-01-01", "2024-01-31", 6, "lunch", false, "asc", "csv", false);
+
+        assertThat(response.getHeaders().getContentType()).isEqualTo(new MediaType("text", "csv"));
+        assertThat(response.getHeaders().getFirst(HttpHeaders.CONTENT_DISPOSITION)).contains(".csv");
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        response.getBody().writeTo(out);
+
+        verify(exportService).export(eq(5), eq(LocalDate.of(2024, 1, 1)), eq(LocalDate.of(2024, 1, 31)),
+                eq(6), eq("lunch"), eq(false), eq(true), eq(ExpenseExportService.Format.CSV), eq(false),
+                any(OutputStream.class));
+    }
+
+    @Test
+    void exportNdjsonWithGzipUsesGzipContentType() throws Exception {
+        ResponseEntity<StreamingResponseBody> response = controller.export(
+                principal, null, " ", null, null, null, "desc", "NDJSON", true);
+
+        assertThat(response.getHeaders().getContentType()).isEqualTo(new MediaType("application", "gzip"));
+        assertThat(response.getHeaders().getFirst(HttpHeaders.CONTENT_DISPOSITION)).contains(".ndjson.gz");
+
+        response.getBody().writeTo(new ByteArrayOutputStream());
+
+        verify(exportService).export(eq(5), eq(null), eq(null), eq(null), eq(null), eq(null), eq(false),
+                eq(ExpenseExportService.Format.NDJSON), eq(true), any(OutputStream.class));
+    }
+
+    @Test
+    void exportRejectsUnknownFormat() {
+        assertThatThrownBy(() -> controller.export(principal, null, null, null, null, null, "desc", "xml", false))
+                .isInstanceOf(ResponseStatusException.class)
+                .hasMessageContaining("format");
+    }
+
     @Test
     void weeklyReportDelegatesToService() {
         List<ExpenseReportDTO> report = List.of(new ExpenseReportDTO(2024, 1, "Food", BigDecimal.TEN));
         when(recordService.getWeeklyReport(5, 2024, 1)).thenReturn(report);
 
-        ResponseEntity<List<ExpenseReportDTO>> response = controller.getWeeklyReport(2024, 1, session);
+        ResponseEntity<List<ExpenseReportDTO>> response = controller.getWeeklyReport(2024, 1, principal);
 
         assertThat(response.getBody()).isEqualTo(report);
     }
@@ -455,7 +497,7 @@ class ExpenseRecordControllerTest {
         List<ExpenseReportDTO> report = List.of(new ExpenseReportDTO(2024, 5, "Transport", BigDecimal.ONE));
         when(recordService.getMonthlyReport(5, 2024, 5)).thenReturn(report);
 
-        ResponseEntity<List<ExpenseReportDTO>> response = controller.getMonthlyReport(2024, 5, session);
+        ResponseEntity<List<ExpenseReportDTO>> response = controller.getMonthlyReport(2024, 5, principal);
 
         assertThat(response.getBody()).isEqualTo(report);
     }
@@ -465,7 +507,7 @@ class ExpenseRecordControllerTest {
         List<ExpenseReportDTO> report = List.of(new ExpenseReportDTO(2024, null, "General", BigDecimal.ZERO));
         when(recordService.getYearlyReport(5, 2024)).thenReturn(report);
 
-        ResponseEntity<List<ExpenseReportDTO>> response = controller.getYearlyReport(2024, session);
+        ResponseEntity<List<ExpenseReportDTO>> response = controller.getYearlyReport(2024, principal);
 
         assertThat(response.getBody()).isEqualTo(report);
     }
@@ -1,29 +1,29 @@
 package com.example.backend.controller;
 
 import com.example.backend.dto.ModifyUserDTO;
-import com.example.backend.dto.UserDTO;
 import com.example.backend.model.User;
+import com.example.backend.security.CurrentUser;
+import com.example.backend.service.AvatarService;
 import com.example.backend.service.ModifyService;
-import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.ArgumentCaptor;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
-import org.springframework.mock.web.MockHttpSession;
 import org.springframework.mock.web.MockMultipartFile;
+import org.springframework.web.server.ResponseStatusException;
 
-import java.io.IOException;
-import java.nio.file.Files;
-import java.nio.file.Path;
-import java.nio.file.Paths;
 import java.time.LocalDateTime;
+import java.util.concurrent.CompletableFuture;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
@@ -33,34 +33,19 @@ class ModifyControllerTest {
     @Mock
     private ModifyService modifyService;
 
+    @Mock
+    private AvatarService avatarService;
+
     private ModifyController controller;
 
     @BeforeEach
     void init() {
-        controller = new ModifyController(modifyService);
-    }
-
-    @AfterEach
-    void cleanUploads() throws IOException {
-        Path uploads = Paths.get("uploads");
-        if (Files.exists(uploads)) {
-            try (var paths = Files.walk(uploads)) {
-                paths.sorted((a, b) -> b.compareTo(a)) // delete files before directories
-                        .forEach(path -> {
-                            try {
-                                Files.deleteIfExists(path);
-                            } catch (IOException ignored) {
-                                // best-effort cleanup
-                            }
-                        });
-            }
-        }
+        controller = new ModifyController(modifyService, avatarService);
     }
 
     @Test
     void updateUserReturnsDtoFromServiceResult() {
-        MockHttpSession session = new MockHttpSession();
-        session.setAttribute("USER", new UserDTO(5, "carol"));
+        CurrentUser user = new CurrentUser(5, "carol");
 
         User incoming = new User();
         User saved = new User();
@@ -73,7 +58,7 @@ class ModifyControllerTest {
 
         when(modifyService.updateUser(5, incoming)).thenReturn(saved);
 
-        ResponseEntity<ModifyUserDTO> response = controller.updateUser(session, incoming);
+        ResponseEntity<ModifyUserDTO> response = controller.updateUser(user, incoming);
 
         assertThat(response.getBody()).satisfies(dto -> {
             assertThat(dto.getId()).isEqualTo(5);
@@ -85,35 +70,43 @@ class ModifyControllerTest {
     }
 
     @Test
-    void uploadAvatarSavesFileAndCallsUpdate() throws IOException {
-        MockHttpSession session = new MockHttpSession();
-        session.setAttribute("USER", new UserDTO(9, "lisa"));
+    void uploadAvatarStoresThumbnailsAndSavesLargestUrl() throws Exception {
+        CurrentUser user = new CurrentUser(9, "lisa");
 
         MockMultipartFile file = new MockMultipartFile(
                 "picture_file", "avatar.png", "image/png", "demo".getBytes()
         );
+        String url = "http://localhost:8080/api/picture/abc123-256.jpg";
 
         User updated = new User();
         updated.setUser_id(9);
         updated.setUsername("lisa");
         updated.setEmail("lisa@example.com");
-        updated.setProfile_picture_url("http://localhost:8080/api/picture/user_9_avatar.png");
+        updated.setProfile_picture_url(url);
         updated.setUpdated_at(LocalDateTime.now());
 
+        when(avatarService.store(file)).thenReturn(CompletableFuture.completedFuture("abc123"));
+        when(avatarService.largest()).thenReturn(256);
         when(modifyService.updateUser(eq(9), any(User.class))).thenReturn(updated);
 
-        ResponseEntity<ModifyUserDTO> response = controller.uploadAvatar(session, file);
-
-        Path expectedPath = Paths.get("uploads/picture/user_9_avatar.png");
-        assertThat(Files.exists(expectedPath)).isTrue();
+        ResponseEntity<ModifyUserDTO> response = controller.uploadAvatar(user, file).get();
 
         ArgumentCaptor<User> captor = ArgumentCaptor.forClass(User.class);
         verify(modifyService).updateUser(eq(9), captor.capture());
-        assertThat(captor.getValue().getProfile_picture_url())
-                .isEqualTo("http://localhost:8080/api/picture/user_9_avatar.png");
+        assertThat(captor.getValue().getProfile_picture_url()).isEqualTo(url);
 
         assertThat(response.getBody()).isNotNull();
-        assertThat(response.getBody().getProfilePictureUrl())
-                .isEqualTo("http://localhost:8080/api/picture/user_9_avatar.png");
+        assertThat(response.getBody().getProfilePictureUrl()).isEqualTo(url);
+    }
+
+    @Test
+    void uploadAvatarDoesNotTouchUserWhenImageIsRejected() throws Exception {
+        MockMultipartFile file = new MockMultipartFile("picture_file", "notes.txt", "text/plain", "hi".getBytes());
+        when(avatarService.store(file)).thenReturn(CompletableFuture.failedFuture(
+                new ResponseStatusException(HttpStatus.BAD_REQUEST, "Not a supported image")));
+
+        assertThatThrownBy(() -> controller.uploadAvatar(new CurrentUser(9, "lisa"), file).join())
+                .hasCauseInstanceOf(ResponseStatusException.class);
+        verify(modifyService, never()).updateUser(any(), any());
     }
 }
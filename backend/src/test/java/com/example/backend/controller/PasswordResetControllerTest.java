@@ -1,25 +1,31 @@
 package com.example.backend.controller;
 
+import com.example.backend.auth.LoginRateLimiter;
 import com.example.backend.dto.ChangePasswordDTO;
 import com.example.backend.dto.ResetPasswordConfirmDTO;
 import com.example.backend.dto.ResetPasswordRequestDTO;
 import com.example.backend.dto.SecurityQuestionResponseDTO;
-import com.example.backend.model.User;
-import com.example.backend.security.SessionUserResolver;
+import com.example.backend.security.CurrentUser;
 import com.example.backend.service.PasswordResetService;
 import jakarta.persistence.EntityNotFoundException;
-import jakarta.servlet.http.HttpSession;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.web.server.ResponseStatusException;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.anyString;
 import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 @ExtendWith(MockitoExtension.class)
@@ -29,16 +35,16 @@ class PasswordResetControllerTest {
     private PasswordResetService passwordResetService;
 
     @Mock
-    private SessionUserResolver sessionUserResolver;
+    private LoginRateLimiter rateLimiter;
+
+    private final MockHttpServletRequest http = new MockHttpServletRequest();
 
-    @Mock
-    private HttpSession session;
 
     private PasswordResetController controller;
 
     @BeforeEach
     void setup() {
-        controller = new PasswordResetController(passwordResetService, sessionUserResolver);
+        controller = new PasswordResetController(passwordResetService, rateLimiter);
     }
 
     @Test
@@ -49,7 +55,7 @@ class PasswordResetControllerTest {
         SecurityQuestionResponseDTO dto = new SecurityQuestionResponseDTO(1, "Question?");
         when(passwordResetService.getSecurityQuestion("user@example.com")).thenReturn(dto);
 
-        ResponseEntity<SecurityQuestionResponseDTO> response = controller.requestQuestion(request);
+        ResponseEntity<SecurityQuestionResponseDTO> response = controller.requestQuestion(request, http);
 
         assertThat(response.getStatusCodeValue()).isEqualTo(200);
         assertThat(response.getBody()).isEqualTo(dto);
@@ -63,7 +69,7 @@ class PasswordResetControllerTest {
         when(passwordResetService.getSecurityQuestion("missing@example.com"))
                 .thenThrow(new EntityNotFoundException());
 
-        ResponseEntity<SecurityQuestionResponseDTO> response = controller.requestQuestion(request);
+        ResponseEntity<SecurityQuestionResponseDTO> response = controller.requestQuestion(request, http);
 
         assertThat(response.getStatusCodeValue()).isEqualTo(404);
     }
@@ -73,7 +79,7 @@ class PasswordResetControllerTest {
         ResetPasswordConfirmDTO dto = new ResetPasswordConfirmDTO();
         when(passwordResetService.resetPassword(dto)).thenReturn(true);
 
-        ResponseEntity<String> response = controller.resetPassword(dto);
+        ResponseEntity<String> response = controller.resetPassword(dto, http);
 
         assertThat(response.getStatusCodeValue()).isEqualTo(200);
         assertThat(response.getBody()).contains("successful");
@@ -84,7 +90,7 @@ class PasswordResetControllerTest {
         ResetPasswordConfirmDTO dto = new ResetPasswordConfirmDTO();
         when(passwordResetService.resetPassword(dto)).thenReturn(false);
 
-        ResponseEntity<String> response = controller.resetPassword(dto);
+        ResponseEntity<String> response = controller.resetPassword(dto, http);
 
         assertThat(response.getStatusCodeValue()).isEqualTo(401);
         assertThat(response.getBody()).contains("incorrect");
@@ -96,13 +102,10 @@ class PasswordResetControllerTest {
         dto.setCurrentPassword("old");
         dto.setNewPassword("new");
 
-        User user = new User();
-        user.setUser_id(10);
-
-        when(sessionUserResolver.getCurrentUser(session)).thenReturn(user);
+        CurrentUser user = new CurrentUser(10, "erin");
         when(passwordResetService.changePassword(10, "old", "new")).thenReturn(true);
 
-        ResponseEntity<String> response = controller.changePassword(dto, session);
+        ResponseEntity<String> response = controller.changePassword(dto, user, http);
 
         assertThat(response.getStatusCodeValue()).isEqualTo(200);
         assertThat(response.getBody()).contains("updated");
@@ -114,44 +117,38 @@ class PasswordResetControllerTest {
         dto.setCurrentPassword("wrong");
         dto.setNewPassword("new");
 
-        User user = new User();
-        user.setUser_id(12);
-
-        when(sessionUserResolver.getCurrentUser(session)).thenReturn(user);
+        CurrentUser user = new CurrentUser(12, "erin");
         when(passwordResetService.changePassword(12, "wrong", "new")).thenReturn(false);
 
-        ResponseEntity<String> response = controller.changePassword(dto, session);
+        ResponseEntity<String> response = controller.changePassword(dto, user, http);
 
         assertThat(response.getStatusCodeValue()).isEqualTo(401);
         assertThat(response.getBody()).contains("incorrect");
     }
 
-    @Test
-    void changePasswordWhenUserMissingReturnsUnauthorized() {
-        ChangePasswordDTO dto = new ChangePasswordDTO();
-        doThrow(new IllegalStateException("User not logged in"))
-                .when(sessionUserResolver).getCurrentUser(session);
-
-        ResponseEntity<String> response = controller.changePassword(dto, session);
-
-        assertThat(response.getStatusCodeValue()).isEqualTo(401);
-        assertThat(response.getBody()).contains("not logged in");
-    }
-
     @Test
     void changePasswordUnexpectedErrorReturnsServerError() {
         ChangePasswordDTO dto = new ChangePasswordDTO();
 
-        User user = new User();
-        user.setUser_id(13);
-
-        when(sessionUserResolver.getCurrentUser(session)).thenReturn(user);
+        CurrentUser user = new CurrentUser(13, "erin");
         when(passwordResetService.changePassword(eq(13), anyString(), anyString()))
                 .thenThrow(new RuntimeException("boom"));
 
-        ResponseEntity<String> response = controller.changePassword(dto, session);
+        ResponseEntity<String> response = controller.changePassword(dto, user, http);
 
         assertThat(response.getStatusCodeValue()).isEqualTo(500);
         assertThat(response.getBody()).contains("An error occurred");
     }
+
+    @Test
+    void confirmIsRejectedBeforeCheckingAnswerWhenThrottled() {
+        ResetPasswordConfirmDTO dto = new ResetPasswordConfirmDTO();
+        dto.setIdentifier("user");
+        doThrow(new ResponseStatusException(HttpStatus.TOO_MANY_REQUESTS))
+                .when(rateLimiter).acquire("user", "127.0.0.1");
+
+        assertThatThrownBy(() -> controller.resetPassword(dto, http))
+                .isInstanceOf(ResponseStatusException.class);
+        verify(passwordResetService, never()).resetPassword(any());
+    }
 }
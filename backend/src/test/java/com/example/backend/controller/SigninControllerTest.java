@@ -1,26 +1,36 @@
 package com.example.backend.controller;
 
 import com.example.backend.auth.AuthService;
+import com.example.backend.auth.LoginRateLimiter;
 import com.example.backend.auth.LoginRequest;
 import com.example.backend.auth.LoginResponse;
 import com.example.backend.auth.SessionKeys;
 import com.example.backend.dto.ModifyUserDTO;
 import com.example.backend.model.User;
 import com.example.backend.repository.UserRepository;
-import jakarta.servlet.http.HttpSession;
+import com.example.backend.security.CurrentUser;
+import com.example.backend.security.SessionTokenService;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseCookie;
 import org.springframework.http.ResponseEntity;
+import org.springframework.mock.web.MockHttpServletRequest;
 import org.springframework.mock.web.MockHttpSession;
+import org.springframework.web.server.ResponseStatusException;
 
 import java.time.LocalDateTime;
 import java.util.Optional;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.Mockito.doThrow;
 import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
 import static org.mockito.Mockito.when;
 
 @ExtendWith(MockitoExtension.class)
@@ -32,11 +42,23 @@ class SigninControllerTest {
     @Mock
     private UserRepository userRepository;
 
+    @Mock
+    private SessionTokenService tokens;
+
+    @Mock
+    private LoginRateLimiter rateLimiter;
+
     private SigninController controller;
 
     @BeforeEach
     void setUp() {
-        controller = new SigninController(authService, userRepository);
+        controller = new SigninController(authService, userRepository, tokens, rateLimiter);
+    }
+
+    private static MockHttpServletRequest requestWith(MockHttpSession session) {
+        MockHttpServletRequest request = new MockHttpServletRequest();
+        request.setSession(session);
+        return request;
     }
 
     @Test
@@ -53,14 +75,58 @@ class SigninControllerTest {
                 .thenReturn(AuthService.AuthResult.success(user));
 
         MockHttpSession session = new MockHttpSession();
+        String idBeforeLogin = session.getId();
 
-        ResponseEntity<LoginResponse> response = controller.login(request, session);
+        ResponseEntity<LoginResponse> response = controller.login(request, requestWith(session));
 
+        assertThat(session.getId()).isNotEqualTo(idBeforeLogin);
         assertThat(response.getStatusCodeValue()).isEqualTo(200);
         assertThat(response.getBody()).isNotNull();
         assertThat(response.getBody().getMessage()).contains("successful");
         assertThat(session.getAttribute(SessionKeys.USER_DTO))
                 .isNotNull();
+        verify(rateLimiter).acquire("bob", "127.0.0.1");
+        verify(rateLimiter).reset("bob");
+    }
+
+    @Test
+    void throttledLoginNeverReachesAuthService() {
+        LoginRequest request = new LoginRequest();
+        request.setIdentifier("bob");
+        request.setPassword("pw");
+        doThrow(new ResponseStatusException(HttpStatus.TOO_MANY_REQUESTS))
+                .when(rateLimiter).acquire("bob", "127.0.0.1");
+
+        assertThatThrownBy(() -> controller.login(request, new MockHttpServletRequest()))
+                .isInstanceOf(ResponseStatusException.class);
+        verifyNoInteractions(authService);
+    }
+
+    @Test
+    void loginWithTokensIssuesCookieAndLeavesSessionAlone() {
+        LoginRequest request = new LoginRequest();
+        request.setIdentifier("bob");
+        request.setPassword("pw");
+
+        User user = new User();
+        user.setUser_id(33);
+        user.setUsername("bob");
+
+        when(authService.authenticate("bob", "pw"))
+                .thenReturn(AuthService.AuthResult.success(user));
+        when(tokens.enabled()).thenReturn(true);
+        when(tokens.issue(new CurrentUser(33, "bob"))).thenReturn("signed");
+        when(tokens.cookie("signed", "/api")).thenReturn(ResponseCookie.from("TOKEN", "signed").build());
+
+        MockHttpServletRequest http = new MockHttpServletRequest();
+        http.setContextPath("/api");
+
+        ResponseEntity<LoginResponse> response = controller.login(request, http);
+
+        assertThat(response.getStatusCodeValue()).isEqualTo(200);
+        assertThat(response.getBody().getToken()).isEqualTo("signed");
+        assertThat(response.getHeaders().getFirst(HttpHeaders.SET_COOKIE)).startsWith("TOKEN=signed");
+        assertThat(http.getSession(false)).isNull();
     }
 
     @Test
@@ -74,7 +140,7 @@ class SigninControllerTest {
 
         MockHttpSession session = new MockHttpSession();
 
-        ResponseEntity<LoginResponse> response = controller.login(request, session);
+        ResponseEntity<LoginResponse> response = controller.login(request, requestWith(session));
 
         assertThat(response.getStatusCodeValue()).isEqualTo(401);
         assertThat(response.getBody()).isNotNull();
@@ -96,7 +162,7 @@ class SigninControllerTest {
 
         MockHttpSession session = new MockHttpSession();
 
-        ResponseEntity<Void> response = controller.loginAndRedirect(request, session);
+        ResponseEntity<Void> response = controller.loginAndRedirect(request, requestWith(session));
 
         assertThat(response.getStatusCodeValue()).isEqualTo(302);
         assertThat(response.getHeaders().getFirst("Location")).isEqualTo("/home");
@@ -114,21 +180,12 @@ class SigninControllerTest {
 
         MockHttpSession session = new MockHttpSession();
 
-        ResponseEntity<Void> response = controller.loginAndRedirect(request, session);
+        ResponseEntity<Void> response = controller.loginAndRedirect(request, requestWith(session));
 
         assertThat(response.getStatusCodeValue()).isEqualTo(401);
         assertThat(session.getAttribute(SessionKeys.USER_DTO)).isNull();
     }
 
-    @Test
-    void getCurrentUserRequiresSession() {
-        MockHttpSession session = new MockHttpSession();
-
-        ResponseEntity<ModifyUserDTO> response = controller.getCurrentUser(session);
-
-        assertThat(response.getStatusCodeValue()).isEqualTo(401);
-    }
-
     @Test
     void getCurrentUserReturnsDtoWhenLoggedIn() {
         User user = new User();
@@ -141,10 +198,7 @@ class SigninControllerTest {
 
         when(userRepository.findById(77)).thenReturn(Optional.of(user));
 
-        MockHttpSession session = new MockHttpSession();
-        session.setAttribute(SessionKeys.USER_DTO, new com.example.backend.dto.UserDTO(77, "delta"));
-
-        ResponseEntity<ModifyUserDTO> response = controller.getCurrentUser(session);
+        ResponseEntity<ModifyUserDTO> response = controller.getCurrentUser(new CurrentUser(77, "delta"));
 
         assertThat(response.getStatusCodeValue()).isEqualTo(200);
         assertThat(response.getBody()).isNotNull();
@@ -156,7 +210,7 @@ class SigninControllerTest {
         MockHttpSession session = new MockHttpSession();
         session.setAttribute("a", "b");
 
-        ResponseEntity<LoginResponse> response = controller.logout(session);
+        ResponseEntity<LoginResponse> response = controller.logout(requestWith(session));
 
         assertThat(response.getStatusCodeValue()).isEqualTo(200);
         assertThat(session.isInvalid()).isTrue();
@@ -5,9 +5,9 @@ import com.example.backend.dto.SpendingGoalProgressDTO;
 import com.example.backend.dto.SpendingGoalResponse;
 import com.example.backend.model.GoalPeriod;
 import com.example.backend.model.User;
+import com.example.backend.security.CurrentUser;
 import com.example.backend.security.SessionUserResolver;
 import com.example.backend.service.SpendingGoalService;
-import jakarta.servlet.http.HttpSession;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
@@ -32,8 +32,7 @@ class SpendingGoalControllerTest {
     @Mock
     private SessionUserResolver sessionUserResolver;
 
-    @Mock
-    private HttpSession session;
+    private final CurrentUser principal = new CurrentUser(44, "dana");
 
     private SpendingGoalController controller;
     private User user;
@@ -43,7 +42,7 @@ class SpendingGoalControllerTest {
         controller = new SpendingGoalController(goalService, sessionUserResolver);
         user = new User();
         user.setUser_id(44);
-        when(sessionUserResolver.getCurrentUser(session)).thenReturn(user);
+        when(sessionUserResolver.getReference(principal)).thenReturn(user);
     }
 
     @Test
@@ -55,7 +54,7 @@ class SpendingGoalControllerTest {
 
         when(goalService.listActiveGoals(user)).thenReturn(List.of(response));
 
-        ResponseEntity<List<SpendingGoalResponse>> result = controller.listActiveGoals(session);
+        ResponseEntity<List<SpendingGoalResponse>> result = controller.listActiveGoals(principal);
 
         assertThat(result.getBody()).containsExactly(response);
     }
@@ -75,7 +74,7 @@ class SpendingGoalControllerTest {
         when(goalService.createGoal(user, request)).thenReturn(created);
 
         ResponseEntity<SpendingGoalController.ApiMessage<SpendingGoalResponse>> response =
-                controller.createGoal(session, request);
+                controller.createGoal(principal, request);
 
         assertThat(response.getBody()).isNotNull();
         assertThat(response.getBody().getMessage())
@@ -96,7 +95,7 @@ class SpendingGoalControllerTest {
 
         when(goalService.listProgressForActiveGoals(user)).thenReturn(List.of(dto));
 
-        List<SpendingGoalProgressDTO> result = controller.listProgress(session);
+        List<SpendingGoalProgressDTO> result = controller.listProgress(principal);
 
         assertThat(result).containsExactly(dto);
     }
@@ -111,7 +110,7 @@ class SpendingGoalControllerTest {
 
         when(goalService.getProgressForGoal(22L, user)).thenReturn(dto);
 
-        SpendingGoalProgressDTO result = controller.getProgress(22L, session);
+        SpendingGoalProgressDTO result = controller.getProgress(22L, principal);
 
         assertThat(result).isEqualTo(dto);
     }
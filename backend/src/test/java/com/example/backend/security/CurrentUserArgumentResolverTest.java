@@ -0,0 +1,59 @@
+package com.example.backend.security;
+
+import com.example.backend.auth.SessionKeys;
+import com.example.backend.dto.UserDTO;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpStatus;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpSession;
+import org.springframework.web.context.request.ServletWebRequest;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.time.Duration;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class CurrentUserArgumentResolverTest {
+
+    private final SessionTokenService tokens =
+            new SessionTokenService(true, "test-secret", Duration.ofHours(1), false, System::currentTimeMillis);
+
+    private static CurrentUser resolve(CurrentUserArgumentResolver resolver, MockHttpServletRequest request) {
+        return resolver.resolveArgument(null, null, new ServletWebRequest(request), null);
+    }
+
+    @Test
+    void sessionModeReadsUserFromSession() {
+        MockHttpServletRequest request = new MockHttpServletRequest();
+        MockHttpSession session = new MockHttpSession();
+        session.setAttribute(SessionKeys.USER_DTO, new UserDTO(5, "bob"));
+        request.setSession(session);
+
+        assertThat(resolve(new CurrentUserArgumentResolver(null), request)).isEqualTo(new CurrentUser(5, "bob"));
+    }
+
+    @Test
+    void sessionModeWithoutLoginIsUnauthorizedAndCreatesNoSession() {
+        MockHttpServletRequest request = new MockHttpServletRequest();
+
+        assertThatThrownBy(() -> resolve(new CurrentUserArgumentResolver(null), request))
+                .isInstanceOf(ResponseStatusException.class)
+                .satisfies(e -> assertThat(((ResponseStatusException) e).getStatusCode()).isEqualTo(HttpStatus.UNAUTHORIZED));
+        assertThat(request.getSession(false)).isNull();
+    }
+
+    @Test
+    void tokenModeIgnoresSessionAndReadsToken() {
+        MockHttpServletRequest request = new MockHttpServletRequest();
+        MockHttpSession session = new MockHttpSession();
+        session.setAttribute(SessionKeys.USER_DTO, new UserDTO(5, "bob"));
+        request.setSession(session);
+        CurrentUserArgumentResolver resolver = new CurrentUserArgumentResolver(tokens);
+
+        assertThatThrownBy(() -> resolve(resolver, request)).isInstanceOf(ResponseStatusException.class);
+
+        request.addHeader("Authorization", "Bearer " + tokens.issue(new CurrentUser(9, "tom")));
+        assertThat(resolve(resolver, request)).isEqualTo(new CurrentUser(9, "tom"));
+    }
+}
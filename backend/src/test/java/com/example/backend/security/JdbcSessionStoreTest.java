@@ -0,0 +1,58 @@
+package com.example.backend.security;
+
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.*;
+
+class JdbcSessionStoreTest {
+
+    private final JdbcTemplate jdbc = mock(JdbcTemplate.class);
+    private final JdbcSessionStore store = new JdbcSessionStore(jdbc, () -> 5_000L);
+
+    @Test
+    void touchesAreCoalescedIntoOneStatement() {
+        store.touch("a", 100);
+        store.touch("a", 300);
+        store.touch("a", 200);
+        store.touch("b", 150);
+        verifyNoInteractions(jdbc);
+
+        store.flushTouches();
+
+        ArgumentCaptor<String> sql = ArgumentCaptor.forClass(String.class);
+        ArgumentCaptor<Object[]> args = ArgumentCaptor.forClass(Object[].class);
+        verify(jdbc, times(1)).update(sql.capture(), args.capture());
+        assertTrue(sql.getValue().startsWith("UPDATE app_session s SET last_accessed_at = v.ts FROM (VALUES (?, ?::bigint), (?, ?::bigint))"));
+        var a = List.of(args.getValue());
+        assertEquals(300L, a.get(a.indexOf("a") + 1));
+        assertEquals(150L, a.get(a.indexOf("b") + 1));
+    }
+
+    @Test
+    void cleanupFlushesPendingTouchesFirst() {
+        store.touch("a", 100);
+
+        store.deleteExpired();
+
+        var order = inOrder(jdbc);
+        order.verify(jdbc).update(startsWith("UPDATE app_session"), any(Object[].class));
+        order.verify(jdbc).update(contains("DELETE FROM app_session"), eq(5_000L));
+    }
+
+    @Test
+    void deleteDropsPendingTouch() {
+        store.touch("a", 100);
+        store.delete("a");
+        store.flushTouches();
+
+        verify(jdbc, times(1)).update(anyString(), any(Object[].class));
+        verify(jdbc).update("DELETE FROM app_session WHERE id = ?", "a");
+    }
+}
@@ -0,0 +1,56 @@
+package com.example.backend.security;
+
+import com.example.backend.auth.SessionKeys;
+import com.example.backend.dto.UserDTO;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.ObjectOutputStream;
+import java.io.Serializable;
+import java.time.LocalDate;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SessionCodecTest {
+
+    @Test
+    void userDtoRoundTripsInAFewBytes() throws Exception {
+        Map<String, Object> attrs = Map.of(SessionKeys.USER_DTO, new UserDTO(42, "alice"));
+
+        byte[] encoded = SessionCodec.encode(attrs);
+
+        assertEquals(attrs, SessionCodec.decode(encoded));
+        ByteArrayOutputStream java = new ByteArrayOutputStream();
+        try (ObjectOutputStream out = new ObjectOutputStream(java)) {
+            out.writeObject(new LinkedHashMap<>(attrs));
+        }
+        assertTrue(encoded.length < 24, "was " + encoded.length);
+        assertTrue(encoded.length * 5 < java.size());
+    }
+
+    @Test
+    void otherValuesFallBackToSerialization() {
+        Map<String, Object> attrs = new LinkedHashMap<>();
+        attrs.put("s", "text");
+        attrs.put("d", LocalDate.of(2025, 3, 1));
+
+        assertEquals(attrs, SessionCodec.decode(SessionCodec.encode(attrs)));
+    }
+
+    record Outsider(String value) implements Serializable {}
+
+    @Test
+    void serializedClassesOutsideTheAllowlistAreRejected() {
+        byte[] encoded = SessionCodec.encode(Map.of("x", new Outsider("payload")));
+
+        assertThrows(IllegalStateException.class, () -> SessionCodec.decode(encoded));
+    }
+
+    @Test
+    void emptyOrUnknownDataDecodesToEmptySession() {
+        assertTrue(SessionCodec.decode(null).isEmpty());
+        assertTrue(SessionCodec.decode(new byte[]{99, 0, 0}).isEmpty());
+    }
+}
@@ -0,0 +1,68 @@
+package com.example.backend.security;
+
+import jakarta.servlet.http.Cookie;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class SessionTokenServiceTest {
+
+    private final AtomicLong now = new AtomicLong(1_700_000_000_000L);
+    private final SessionTokenService tokens =
+            new SessionTokenService(true, "test-secret", Duration.ofHours(1), false, now::get);
+
+    @Test
+    void issuedTokenVerifiesToSameUser() {
+        String token = tokens.issue(new CurrentUser(42, "a:b"));
+
+        assertThat(tokens.verify(token)).contains(new CurrentUser(42, "a:b"));
+    }
+
+    @Test
+    void expiredTokenIsRejected() {
+        String token = tokens.issue(new CurrentUser(42, "bob"));
+
+        now.addAndGet(Duration.ofHours(1).toMillis());
+
+        assertThat(tokens.verify(token)).isEmpty();
+    }
+
+    @Test
+    void tamperedPayloadIsRejected() {
+        String token = tokens.issue(new CurrentUser(42, "bob"));
+        String forged = new SessionTokenService(true, "test-secret", Duration.ofHours(1), false, now::get)
+                .issue(new CurrentUser(1, "bob"));
+        String swapped = forged.substring(0, forged.indexOf('.')) + token.substring(token.indexOf('.'));
+
+        assertThat(tokens.verify(swapped)).isEmpty();
+        assertThat(tokens.verify("garbage")).isEmpty();
+        assertThat(tokens.verify("a.b.c")).isEmpty();
+    }
+
+    @Test
+    void tokenFromAnotherSecretIsRejected() {
+        String token = new SessionTokenService(true, "other", Duration.ofHours(1), false, now::get)
+                .issue(new CurrentUser(42, "bob"));
+
+        assertThat(tokens.verify(token)).isEmpty();
+    }
+
+    @Test
+    void authenticatePrefersBearerHeaderOverCookie() {
+        MockHttpServletRequest request = new MockHttpServletRequest();
+        request.addHeader("Authorization", "Bearer " + tokens.issue(new CurrentUser(1, "header")));
+        request.setCookies(new Cookie(SessionTokenService.COOKIE, tokens.issue(new CurrentUser(2, "cookie"))));
+
+        assertThat(tokens.authenticate(request)).contains(new CurrentUser(1, "header"));
+
+        MockHttpServletRequest cookieOnly = new MockHttpServletRequest();
+        cookieOnly.setCookies(new Cookie(SessionTokenService.COOKIE, tokens.issue(new CurrentUser(2, "cookie"))));
+
+        assertThat(tokens.authenticate(cookieOnly)).contains(new CurrentUser(2, "cookie"));
+        assertThat(tokens.authenticate(new MockHttpServletRequest())).isEmpty();
+    }
+}
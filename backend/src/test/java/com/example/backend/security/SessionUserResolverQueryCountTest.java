@@ -0,0 +1,96 @@
+package com.example.backend.security;
+
+import com.example.backend.model.Category;
+import com.example.backend.model.ExpenseRecord;
+import com.example.backend.model.User;
+import com.example.backend.service.CategoryCache;
+import com.example.backend.service.ExpenseRecordService;
+import com.example.backend.service.SnapshotService;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Counts the SQL actually issued when resolving the current user, against an in-memory database.
+ */
+@DataJpaTest(properties = {
+        "spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect",
+        "spring.jpa.properties.hibernate.generate_statistics=true",
+        "spring.datasource.url=jdbc:h2:mem:resolver;MODE=PostgreSQL;NON_KEYWORDS=MONTH,YEAR,VALUE"
+})
+@Import({SessionUserResolver.class, ExpenseRecordService.class, CategoryCache.class})
+public class SessionUserResolverQueryCountTest {
+
+    @Autowired private TestEntityManager em;
+    @Autowired private EntityManagerFactory emf;
+    @Autowired private SessionUserResolver resolver;
+    @Autowired private ExpenseRecordService expenseRecordService;
+    @Autowired private CategoryCache categoryCache;
+    // Snapshot upkeep uses PostgreSQL upserts and is not what this test counts
+    @MockitoBean private SnapshotService snapshotService;
+
+    private Statistics stats;
+    private CurrentUser principal;
+    private Integer userId;
+    private Integer categoryId;
+
+    @BeforeEach
+    void setUp() {
+        User user = new User();
+        user.setUsername("alice");
+        user.setEmail("alice@example.com");
+        user.setPassword_hash("x");
+        userId = em.persistAndGetId(user, Integer.class);
+
+        Category category = new Category();
+        category.setCategoryName("Food");
+        categoryId = em.persistAndGetId(category, Integer.class);
+
+        em.flush();
+        em.clear();
+        categoryCache.invalidate();
+        categoryCache.findAll();
+
+        principal = new CurrentUser(userId, "alice");
+
+        stats = emf.unwrap(SessionFactory.class).getStatistics();
+        stats.clear();
+    }
+
+    @Test
+    void testGetReference_issuesNoStatements() {
+        User user = resolver.getReference(principal);
+
+        assertEquals(userId, user.getUser_id());
+        assertEquals(0, stats.getPrepareStatementCount());
+    }
+
+    @Test
+    void testCreateRecord_neverLoadsUserRow() {
+        ExpenseRecord record = new ExpenseRecord();
+        Category ref = new Category();
+        ref.setCategoryId(categoryId);
+        record.setCategory(ref);
+        record.setAmount(new BigDecimal("9.90"));
+        record.setCurrency("AUD");
+        record.setExpenseDate(LocalDate.of(2024, 3, 1));
+
+        expenseRecordService.createRecord(principal.id(), record);
+        em.flush();
+
+        assertEquals(0, stats.getEntityStatistics(User.class.getName()).getLoadCount());
+        assertEquals(1, stats.getEntityStatistics(ExpenseRecord.class.getName()).getInsertCount());
+    }
+}
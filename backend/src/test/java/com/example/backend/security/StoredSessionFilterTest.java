@@ -0,0 +1,113 @@
+package com.example.backend.security;
+
+import com.example.backend.auth.SessionKeys;
+import com.example.backend.dto.UserDTO;
+import jakarta.servlet.http.Cookie;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpSession;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+class StoredSessionFilterTest {
+
+    private final AtomicLong now = new AtomicLong(1_000_000);
+    private final InMemorySessionStore store = spy(new InMemorySessionStore(now::get));
+    private final StoredSessionFilter filter = new StoredSessionFilter(store, 1800, 60_000, false, now::get);
+
+    private MockHttpServletResponse run(String cookie, Consumer<HttpServletRequest> handler) throws Exception {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api/x");
+        request.setContextPath("/api");
+        if (cookie != null) request.setCookies(new Cookie(StoredSessionFilter.COOKIE, cookie));
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        filter.doFilter(request, response, (req, res) -> handler.accept((HttpServletRequest) req));
+        return response;
+    }
+
+    private static String sessionCookie(MockHttpServletResponse response) {
+        String header = response.getHeader(HttpHeaders.SET_COOKIE);
+        assertNotNull(header);
+        assertTrue(header.contains("HttpOnly") && header.contains("Path=/api"), header);
+        return header.substring(header.indexOf('=') + 1, header.indexOf(';'));
+    }
+
+    @Test
+    void loginIsVisibleToALaterRequestThroughTheStore() throws Exception {
+        var login = run(null, req -> req.getSession().setAttribute(SessionKeys.USER_DTO, new UserDTO(7, "alice")));
+        String id = sessionCookie(login);
+
+        UserDTO[] seen = new UserDTO[1];
+        run(id, req -> seen[0] = (UserDTO) req.getSession().getAttribute(SessionKeys.USER_DTO));
+
+        assertEquals(new UserDTO(7, "alice"), seen[0]);
+    }
+
+    @Test
+    void anonymousRequestsNeverWrite() throws Exception {
+        var response = run(null, req -> {
+            HttpSession s = req.getSession();
+            assertNull(s.getAttribute(SessionKeys.USER_DTO));
+        });
+
+        assertNull(response.getHeader(HttpHeaders.SET_COOKIE));
+        verify(store, never()).save(any());
+    }
+
+    @Test
+    void sessionIsNotReadUnlessAskedFor() throws Exception {
+        run("some-id", req -> { });
+
+        verify(store, never()).load(any());
+    }
+
+    @Test
+    void accessIsReportedAtMostOncePerInterval() throws Exception {
+        String id = sessionCookie(run(null, req -> req.getSession().setAttribute("k", "v")));
+
+        now.addAndGet(1_000);
+        run(id, req -> req.getSession(false));
+        verify(store, never()).touch(any(), anyLong());
+
+        now.addAndGet(60_000);
+        run(id, req -> req.getSession(false));
+        verify(store, times(1)).touch(id, now.get());
+    }
+
+    @Test
+    void expiredSessionIsGone() throws Exception {
+        String id = sessionCookie(run(null, req -> req.getSession().setAttribute("k", "v")));
+        now.addAndGet(1801_000);
+
+        run(id, req -> assertNull(req.getSession(false)));
+    }
+
+    @Test
+    void invalidateDeletesAndClearsCookie() throws Exception {
+        String id = sessionCookie(run(null, req -> req.getSession().setAttribute("k", "v")));
+
+        var logout = run(id, req -> req.getSession().invalidate());
+
+        assertTrue(logout.getHeader(HttpHeaders.SET_COOKIE).contains("Max-Age=0"));
+        assertTrue(store.load(id).isEmpty());
+    }
+
+    @Test
+    void changeSessionIdMovesTheStoredSession() throws Exception {
+        String id = sessionCookie(run(null, req -> req.getSession().setAttribute("k", "v")));
+
+        String[] changed = new String[1];
+        var response = run(id, req -> changed[0] = req.changeSessionId());
+
+        assertNotEquals(id, changed[0]);
+        assertEquals(changed[0], sessionCookie(response));
+        assertTrue(store.load(id).isEmpty());
+        assertTrue(store.load(changed[0]).isPresent());
+    }
+}
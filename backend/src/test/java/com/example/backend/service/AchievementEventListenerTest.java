@@ -0,0 +1,87 @@
+package com.example.backend.service;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+
+import java.time.LocalDate;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.Mockito.*;
+
+public class AchievementEventListenerTest {
+
+    private final AchievementService achievementService = Mockito.mock(AchievementService.class);
+    private final CountDownLatch started = new CountDownLatch(1);
+    private final CountDownLatch release = new CountDownLatch(1);
+    private AchievementEventListener listener;
+
+    @AfterEach
+    void tearDown() throws Exception {
+        release.countDown();
+        listener.shutdown();
+    }
+
+    private void blockFirstEvaluation() {
+        doAnswer(inv -> {
+            started.countDown();
+            release.await(5, TimeUnit.SECONDS);
+            return null;
+        }).when(achievementService).evaluate(anyInt());
+    }
+
+    @Test
+    void testRecord_updatesCountersOnThePublishingThread() {
+        listener = new AchievementEventListener(achievementService, 1, 10);
+        UserActivityEvent event = UserActivityEvent.expenseAdded(1, LocalDate.of(2025, 3, 1));
+
+        listener.record(event);
+
+        verify(achievementService).record(event);
+        verify(achievementService, never()).evaluate(anyInt());
+    }
+
+    @Test
+    void testOn_returnsBeforeEvaluationAndCoalescesPerUser() throws Exception {
+        listener = new AchievementEventListener(achievementService, 2, 10);
+        blockFirstEvaluation();
+        LocalDate day = LocalDate.of(2025, 3, 1);
+
+        listener.on(UserActivityEvent.expenseAdded(1, day));
+        assertTrue(started.await(2, TimeUnit.SECONDS));
+
+        // the first evaluation is still running: these collapse into one more instead of running alongside
+        listener.on(UserActivityEvent.expenseAdded(1, day.plusDays(1)));
+        listener.on(UserActivityEvent.goalAdded(1));
+
+        release.countDown();
+        verify(achievementService, timeout(2000).times(2)).evaluate(1);
+        Thread.sleep(100);
+        verify(achievementService, times(2)).evaluate(1);
+    }
+
+    @Test
+    void testOn_removalAloneIsNotEvaluated() throws Exception {
+        listener = new AchievementEventListener(achievementService, 1, 10);
+
+        listener.on(UserActivityEvent.expenseRemoved(1));
+        Thread.sleep(100);
+
+        verify(achievementService, never()).evaluate(anyInt());
+    }
+
+    @Test
+    void testOn_failedEvaluationDoesNotStopLaterEvents() {
+        listener = new AchievementEventListener(achievementService, 1, 10);
+        doThrow(new RuntimeException("boom")).doNothing().when(achievementService).evaluate(anyInt());
+
+        listener.on(UserActivityEvent.goalAdded(1));
+        verify(achievementService, timeout(2000).times(1)).evaluate(1);
+        listener.on(UserActivityEvent.goalAdded(1));
+
+        verify(achievementService, timeout(2000).times(2)).evaluate(1);
+    }
+}
@@ -1,121 +1,165 @@
 package com.example.backend.service;
 
-import com.example.backend.model.Achievement;
-import com.example.backend.model.UserAchievement;
+import com.example.backend.model.UserStats;
 import com.example.backend.repository.*;
 
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.mockito.*;
 
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 
 import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.*;
 
 public class AchievementServiceTest {
 
-    @Mock private AchievementRepository achievementRepository;
     @Mock private UserAchievementRepository userAchievementRepository;
-    @Mock private ExpenseRecordRepository expenseRecordRepository;
-    @Mock private SpendingGoalRepository spendingGoalRepository;
+    @Mock private UserStatsRepository userStatsRepository;
 
-    @InjectMocks private AchievementService achievementService;
+    private final AchievementCatalog catalog = new AchievementCatalog();
+    private AchievementService achievementService;
 
     @BeforeEach
     void setUp() {
         MockitoAnnotations.openMocks(this);
+        achievementService = new AchievementService(userAchievementRepository, userStatsRepository, catalog);
     }
 
-    @Test
-    void testEarnIfNotEarned_shouldSaveWhenNotEarned() {
-        Integer userId = 1;
-        when(userAchievementRepository.findByUserIdAndAchievementCode(userId, "TEST"))
-                .thenReturn(Optional.empty());
-        when(achievementRepository.findByCode("TEST"))
-                .thenReturn(new Achievement("TEST", "t", "d", null));
-
-        achievementService.earnIfNotEarned(userId, "TEST");
-        verify(userAchievementRepository, times(1)).save(any(UserAchievement.class));
+    private static UserStats stats(long records, long goals, int longestStreak) {
+        UserStats s = new UserStats();
+        s.setUserId(1);
+        s.setRecordCount(records);
+        s.setGoalCount(goals);
+        s.setCurrentStreak(longestStreak);
+        s.setLongestStreak(longestStreak);
+        return s;
+    }
+
+    @SuppressWarnings("unchecked")
+    private List<String> grantedCodes() {
+        ArgumentCaptor<Collection<String>> codes = ArgumentCaptor.forClass(Collection.class);
+        verify(userAchievementRepository).grant(eq(1), codes.capture());
+        return List.copyOf(codes.getValue());
     }
 
     @Test
-    void testEarnIfNotEarned_alreadyEarnedShouldNotSave() {
-        Integer userId = 1;
-        when(userAchievementRepository.findByUserIdAndAchievementCode(userId, "ALREADY"))
-                .thenReturn(Optional.of(new UserAchievement()));
+    void testEarnIfNotEarned_singleInsert() {
+        achievementService.earnIfNotEarned(1, "ACCOUNT_CREATED");
 
-        achievementService.earnIfNotEarned(userId, "ALREADY");
-        verify(userAchievementRepository, never()).save(any());
+        assertEquals(List.of("ACCOUNT_CREATED"), grantedCodes());
+        verifyNoMoreInteractions(userAchievementRepository);
     }
 
     @Test
     void testEarnIfNotEarned_achievementNotFound() {
-        Integer userId = 1;
-        when(userAchievementRepository.findByUserIdAndAchievementCode(userId, "NONE"))
-                .thenReturn(Optional.empty());
-        when(achievementRepository.findByCode("NONE")).thenReturn(null);
-
         assertThrows(RuntimeException.class,
-                () -> achievementService.earnIfNotEarned(userId, "NONE"));
+                () -> achievementService.earnIfNotEarned(1, "NONE"));
+        verifyNoInteractions(userAchievementRepository);
+    }
+
+    @Test
+    void testRecord_eachEventIsOneCounterUpsert() {
+        LocalDate day = LocalDate.of(2025, 3, 1);
+
+        achievementService.record(UserActivityEvent.expenseAdded(1, day));
+        achievementService.record(UserActivityEvent.goalAdded(1));
+        achievementService.record(UserActivityEvent.underBudgetMonth(1, day));
+        achievementService.record(UserActivityEvent.expenseRemoved(1));
+
+        InOrder order = inOrder(userStatsRepository);
+        order.verify(userStatsRepository).recordExpenseAdded(1, day);
+        order.verify(userStatsRepository).recordGoalAdded(1);
+        order.verify(userStatsRepository).recordUnderBudgetMonth(1, "2025-03");
+        order.verify(userStatsRepository).recordExpenseRemoved(1);
+        // granting waits for the after-commit evaluation
+        verifyNoInteractions(userAchievementRepository);
     }
 
     @Test
-    void testCheckFirstExpense_shouldTriggerEarn() {
-        when(expenseRecordRepository.countRecordsByUserId(1)).thenReturn(1L);
-        when(userAchievementRepository.findByUserIdAndAchievementCode(1, "FIRST_EXPENSE"))
-                .thenReturn(Optional.empty());
-        when(achievementRepository.findByCode("FIRST_EXPENSE"))
-                .thenReturn(new Achievement("FIRST_EXPENSE", "First", "desc", null));
-
-        achievementService.checkFirstExpense(1);
-        verify(userAchievementRepository).save(any());
+    void testEvaluate_firstExpenseEarnedFromStatsRow() {
+        when(userStatsRepository.findById(1)).thenReturn(Optional.of(stats(1, 0, 1)));
+
+        achievementService.evaluate(1);
+
+        assertEquals(List.of("FIRST_EXPENSE"), grantedCodes());
     }
 
     @Test
-    void testCheckFirstExpense_noTrigger() {
-        when(expenseRecordRepository.countRecordsByUserId(1)).thenReturn(2L);
-        achievementService.checkFirstExpense(1);
-        verify(userAchievementRepository, never()).save(any());
+    void testEvaluate_allRulesInOneStatement() {
+        when(userStatsRepository.findById(1)).thenReturn(Optional.of(stats(12, 1, 7)));
+
+        achievementService.evaluate(1);
+
+        // already-earned codes are filtered by ON CONFLICT DO NOTHING, not by a lookup
+        assertEquals(List.of("FIRST_EXPENSE", "TEN_RECORDS", "SET_GOAL", "WEEK_STREAK"), grantedCodes());
+        verifyNoMoreInteractions(userAchievementRepository);
     }
 
     @Test
-    void testCheckTenRecords_shouldTriggerEarn() {
-        when(expenseRecordRepository.countRecordsByUserId(1)).thenReturn(10L);
-        when(userAchievementRepository.findByUserIdAndAchievementCode(1, "TEN_RECORDS"))
-                .thenReturn(Optional.empty());
-        when(achievementRepository.findByCode("TEN_RECORDS"))
-                .thenReturn(new Achievement("TEN_RECORDS", "Ten", "desc", null));
-
-        achievementService.checkTenRecords(1);
-        verify(userAchievementRepository).save(any());
+    void testEvaluate_goalEarnsSetGoal() {
+        when(userStatsRepository.findById(1)).thenReturn(Optional.of(stats(0, 1, 0)));
+
+        achievementService.evaluate(1);
+
+        assertEquals(List.of("SET_GOAL"), grantedCodes());
+    }
+
+    @Test
+    void testEvaluate_underBudgetMonthsEarnAtThreshold() {
+        UserStats s = stats(0, 1, 0);
+        s.setUnderBudgetMonths(3);
+        when(userStatsRepository.findById(1)).thenReturn(Optional.of(s));
+
+        achievementService.evaluate(1);
+
+        assertEquals(List.of("SET_GOAL", "BUDGET_MASTER"), grantedCodes());
+    }
+
+    @Test
+    void testEvaluate_withoutStatsRowEarnsNothing() {
+        when(userStatsRepository.findById(1)).thenReturn(Optional.empty());
+
+        achievementService.evaluate(1);
+
+        verifyNoInteractions(userAchievementRepository);
     }
 
     @Test
-    void testCheckTenRecords_noTrigger() {
-        when(expenseRecordRepository.countRecordsByUserId(1)).thenReturn(5L);
-        achievementService.checkTenRecords(1);
-        verify(userAchievementRepository, never()).save(any());
+    void testEtag_followsTheStoredGrants() {
+        var stamp = mock(UserAchievementRepository.EarnedStamp.class);
+        when(stamp.getLatest()).thenReturn(LocalDateTime.of(2025, 3, 1, 9, 0));
+        when(stamp.getCount()).thenReturn(1L);
+        when(userAchievementRepository.findEarnedStamp(1)).thenReturn(stamp);
+
+        String first = achievementService.etag(1);
+        assertEquals(first, achievementService.etag(1));
+
+        // granted elsewhere (another node): the next read sees it without any local invalidation
+        when(stamp.getCount()).thenReturn(2L);
+        assertNotEquals(first, achievementService.etag(1));
+        verify(userAchievementRepository, times(3)).findEarnedStamp(1);
     }
 
     @Test
-    void testCheckSetGoal_shouldEarnAchievementWhenFirstGoalSet() {
-        Integer userId = 1;
-        when(spendingGoalRepository.countGoalsByUserId(userId)).thenReturn(1L);
-        when(userAchievementRepository.findByUserIdAndAchievementCode(userId, "SET_GOAL"))
-                .thenReturn(Optional.empty());
-        when(achievementRepository.findByCode("SET_GOAL"))
-                .thenReturn(new Achievement("SET_GOAL", "Set Goal", "Set a spending goal", null));
-
-        achievementService.checkSetGoal(userId);
-        verify(userAchievementRepository, times(1)).save(any(UserAchievement.class));
+    void testCatalog_thresholdsFromDefinitions() {
+        assertTrue(catalog.evaluate(stats(0, 0, 0)).isEmpty());
+        assertTrue(catalog.evaluate(stats(0, 0, 6)).isEmpty());
+        assertEquals(List.of("WEEK_STREAK"), catalog.evaluate(stats(0, 0, 7)));
+        assertTrue(catalog.find("ACCOUNT_CREATED").isPresent());
+        assertNull(catalog.find("ACCOUNT_CREATED").get().metric());
+        assertThrows(UnsupportedOperationException.class, () -> catalog.all().clear());
     }
 
     @Test
-    void testCheckSetGoal_noTrigger() {
-        Integer userId = 1;
-        when(spendingGoalRepository.countGoalsByUserId(userId)).thenReturn(0L);
-        achievementService.checkSetGoal(userId);
-        verify(userAchievementRepository, never()).save(any());
+    void testCatalog_rejectsDuplicateCodes() {
+        var d = new AchievementCatalog.Definition("X", "t", "d", null, AchievementCatalog.Metric.RECORD_COUNT, 1);
+        assertThrows(IllegalStateException.class, () -> new AchievementCatalog(List.of(d, d)));
     }
 }
@@ -0,0 +1,148 @@
+package com.example.backend.service;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+
+import java.time.YearMonth;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.*;
+
+public class AdviceJobServiceTest {
+
+    private final AiAdviceService adviceService = Mockito.mock(AiAdviceService.class);
+    private final CountDownLatch release = new CountDownLatch(1);
+    private AdviceJobService jobs;
+
+    @AfterEach
+    void tearDown() {
+        release.countDown();
+        jobs.shutdown();
+    }
+
+    private void blockGeneration() {
+        when(adviceService.generate(anyInt(), any(), anyString(), any())).thenAnswer(inv -> {
+            release.await(5, TimeUnit.SECONDS);
+            return Map.of("summary", "ok");
+        });
+    }
+
+    @Test
+    void testSubmit_deduplicatesInFlightRequests() throws Exception {
+        jobs = new AdviceJobService(adviceService, 2, 10, 60_000);
+        blockGeneration();
+        YearMonth ym = YearMonth.of(2025, 10);
+
+        var first = jobs.submit(1, ym, "en-US");
+        var second = jobs.submit(1, ym, "en-US");
+        var otherUser = jobs.submit(2, ym, "en-US");
+
+        assertSame(first, second);
+        assertNotEquals(first.getId(), otherUser.getId());
+
+        release.countDown();
+        verify(adviceService, timeout(2000).times(2)).generate(anyInt(), any(), anyString(), any());
+        for (int i = 0; i < 200 && first.getStatus() != AdviceJobService.Status.DONE; i++) Thread.sleep(10);
+        assertEquals(AdviceJobService.Status.DONE, first.getStatus());
+        assertEquals("ok", first.getResult().get("summary"));
+
+        // once finished, a new submit starts a fresh job
+        assertNotEquals(first.getId(), jobs.submit(1, ym, "en-US").getId());
+    }
+
+    @Test
+    void testConcurrentSubmitsShareOneJob() throws Exception {
+        jobs = new AdviceJobService(adviceService, 1, 100, 60_000);
+        blockGeneration();
+        ExecutorService callers = Executors.newFixedThreadPool(2);
+        try {
+            for (int round = 0; round < 50; round++) {
+                YearMonth ym = YearMonth.of(2000, 1).plusMonths(round);
+                CyclicBarrier start = new CyclicBarrier(2);
+                Callable<String> submit = () -> {
+                    start.await(5, TimeUnit.SECONDS);
+                    return jobs.submit(1, ym, "en-US").getId();
+                };
+                Future<String> a = callers.submit(submit);
+                Future<String> b = callers.submit(submit);
+
+                assertEquals(a.get(5, TimeUnit.SECONDS), b.get(5, TimeUnit.SECONDS), "round " + round);
+            }
+        } finally {
+            callers.shutdownNow();
+        }
+
+        release.countDown();
+        verify(adviceService, timeout(2000).times(50)).generate(anyInt(), any(), anyString(), any());
+        Thread.sleep(100);
+        verify(adviceService, times(50)).generate(anyInt(), any(), anyString(), any());
+    }
+
+    @Test
+    void testSubmit_rejectsWhenQueueIsFull() {
+        jobs = new AdviceJobService(adviceService, 1, 1, 60_000);
+        blockGeneration();
+        YearMonth ym = YearMonth.of(2025, 10);
+
+        jobs.submit(1, ym, "en-US");   // running
+        jobs.submit(2, ym, "en-US");   // queued
+        assertThrows(RejectedExecutionException.class, () -> jobs.submit(3, ym, "en-US"));
+        assertTrue(jobs.find("missing", 3).isEmpty());
+    }
+
+    @Test
+    void testListenersGetProgressAndLateSubscribersGetTheResult() throws Exception {
+        jobs = new AdviceJobService(adviceService, 1, 1, 60_000);
+        when(adviceService.generate(anyInt(), any(), anyString(), any())).thenAnswer(inv -> {
+            AiAdviceService.Progress progress = inv.getArgument(3);
+            assertTrue(progress.streaming());
+            progress.provisional(Map.of("summary", "rules"));
+            progress.partial(Map.of("summary", "llm so far"));
+            release.await(5, TimeUnit.SECONDS);
+            return Map.of("summary", "final");
+        });
+        YearMonth ym = YearMonth.of(2025, 10);
+
+        List<String> early = new CopyOnWriteArrayList<>();
+        var job = jobs.submit(1, ym, "en-US", (event, data) -> early.add(event + ":" + data.get("summary")));
+        for (int i = 0; i < 200 && job.getPartial() == null; i++) Thread.sleep(10);
+
+        // joins mid-flight: replayed the latest provisional and partial advice
+        List<String> joined = new CopyOnWriteArrayList<>();
+        assertSame(job, jobs.submit(1, ym, "en-US", (event, data) -> joined.add(event + ":" + data.get("summary"))));
+        assertEquals(List.of("provisional:rules", "partial:llm so far"), joined);
+
+        release.countDown();
+        for (int i = 0; i < 200 && job.getStatus() != AdviceJobService.Status.DONE; i++) Thread.sleep(10);
+        assertEquals(List.of("provisional:rules", "partial:llm so far", "done:final"), early);
+        assertEquals(List.of("provisional:rules", "partial:llm so far", "done:final"), joined);
+        assertEquals("final", job.getResult().get("summary"));
+    }
+
+    @Test
+    void testFailedGenerationIsReported() throws Exception {
+        jobs = new AdviceJobService(adviceService, 1, 1, 60_000);
+        when(adviceService.generate(anyInt(), any(), anyString(), any())).thenThrow(new RuntimeException("boom"));
+
+        var job = jobs.submit(1, YearMonth.of(2025, 10), "en-US");
+        for (int i = 0; i < 200 && job.getStatus() != AdviceJobService.Status.FAILED; i++) Thread.sleep(10);
+
+        assertEquals(AdviceJobService.Status.FAILED, job.getStatus());
+        assertEquals("FAILED", jobs.find(job.getId(), 1).orElseThrow().toMap().get("status"));
+    }
+}
@@ -0,0 +1,125 @@
+package com.example.backend.service;
+
+import com.example.backend.model.Category;
+import com.example.backend.model.GoalPeriod;
+import com.example.backend.model.SpendingGoal;
+import com.example.backend.model.User;
+import com.example.backend.repository.ExpenseRecordRepository;
+import com.example.backend.repository.ExpenseRecordRepository.UserCategorySpend;
+import com.example.backend.repository.SpendingGoalRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+public class AdvicePrecomputeServiceTest {
+
+    @Mock private ExpenseRecordRepository expenseRepo;
+    @Mock private SpendingGoalRepository goalRepo;
+    @Mock private AiAdviceService adviceService;
+
+    private AdvicePrecomputeService service;
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+        service = new AdvicePrecomputeService(expenseRepo, goalRepo, adviceService, 0);
+    }
+
+    @AfterEach
+    void tearDown() {
+        service.shutdown();
+    }
+
+    private UserCategorySpend row(int userId, int catId, String amount) {
+        return new UserCategorySpend() {
+            @Override public Integer getUserId() { return userId; }
+            @Override public Integer getCategoryId() { return catId; }
+            @Override public String getCategoryName() { return "C" + catId; }
+            @Override public BigDecimal getAmount() { return new BigDecimal(amount); }
+        };
+    }
+
+    @Test
+    void testPrecompute_usesGroupedQueries() throws Exception {
+        YearMonth ym = YearMonth.of(2025, 9);
+        when(expenseRepo.findUserCategorySpendBetween(LocalDate.of(2025, 9, 1), LocalDate.of(2025, 10, 1)))
+                .thenReturn(List.of(row(1, 10, "50"), row(2, 10, "70"), row(1, 11, "5")));
+        when(expenseRepo.findUserCategorySpendBetween(LocalDate.of(2025, 8, 1), LocalDate.of(2025, 9, 1)))
+                .thenReturn(List.of(row(1, 10, "40")));
+        when(expenseRepo.findUserCategorySpendBetween(LocalDate.of(2025, 6, 1), LocalDate.of(2025, 9, 1)))
+                .thenReturn(List.of(row(1, 10, "120")));
+
+        User u2 = new User();
+        u2.setUser_id(2);
+        Category c10 = new Category();
+        c10.setCategoryId(10);
+        SpendingGoal goal = new SpendingGoal();
+        goal.setUser(u2);
+        goal.setCategory(c10);
+        goal.setPeriod(GoalPeriod.MONTHLY);
+        goal.setTargetAmount(new BigDecimal("60"));
+        when(goalRepo.findByActiveTrueAndPeriod(GoalPeriod.MONTHLY)).thenReturn(List.of(goal));
+
+        assertEquals(2, service.precompute(ym).get(5, TimeUnit.SECONDS));
+
+        verify(adviceService, times(2)).generate(anyInt(), eq(ym), eq("en-US"), anyList(), any(), any());
+        verify(expenseRepo, never()).findMonthlySpend(anyInt(), anyInt(), anyInt());
+
+        ArgumentCaptor<AiAdviceService.History> history = ArgumentCaptor.forClass(AiAdviceService.History.class);
+        verify(adviceService).generate(eq(1), eq(ym), anyString(), argThat(r -> r.size() == 2), history.capture(), any());
+        assertEquals(new BigDecimal("40"), history.getValue().prevAmount().get(10));
+        assertEquals(new BigDecimal("120"), history.getValue().historyTotal().get(10));
+
+        verify(adviceService).generate(eq(2), eq(ym), anyString(), anyList(), history.capture(), any());
+        assertEquals(new BigDecimal("60"), history.getValue().goalAmount().get(10));
+    }
+
+    @Test
+    void testPrecompute_oneFailureDoesNotStopTheBatch() throws Exception {
+        YearMonth ym = YearMonth.of(2025, 9);
+        when(expenseRepo.findUserCategorySpendBetween(LocalDate.of(2025, 9, 1), LocalDate.of(2025, 10, 1)))
+                .thenReturn(List.of(row(1, 10, "50"), row(2, 10, "70")));
+        when(adviceService.generate(eq(1), any(), any(), anyList(), any(), any()))
+                .thenThrow(new RuntimeException("boom"));
+
+        assertEquals(1, service.precompute(ym).get(5, TimeUnit.SECONDS));
+        verify(adviceService).generate(eq(2), any(), any(), anyList(), any(), any());
+    }
+
+    @Test
+    void testPrecompute_returnsBeforeGenerationRunsOffTheCallerThread() throws Exception {
+        YearMonth ym = YearMonth.of(2025, 9);
+        when(expenseRepo.findUserCategorySpendBetween(LocalDate.of(2025, 9, 1), LocalDate.of(2025, 10, 1)))
+                .thenReturn(List.of(row(1, 10, "50")));
+        CountDownLatch release = new CountDownLatch(1);
+        AtomicReference<String> thread = new AtomicReference<>();
+        when(adviceService.generate(anyInt(), any(), any(), anyList(), any(), any())).thenAnswer(inv -> {
+            thread.set(Thread.currentThread().getName());
+            release.await();
+            return null;
+        });
+
+        CompletableFuture<Integer> done = service.precompute(ym);
+        assertFalse(done.isDone());
+
+        release.countDown();
+        assertEquals(1, done.get(5, TimeUnit.SECONDS));
+        assertEquals("advice-precompute", thread.get());
+    }
+}
@@ -1,14 +1,21 @@
 package com.example.backend.service;
 
 import com.example.backend.config.gemini.GeminiClient;
+import com.example.backend.config.gemini.RuleBasedAdviceEngine;
 import com.example.backend.model.AiRecommendation;
-import com.example.backend.model.FeatureSnapshot;
+import com.example.backend.model.Category;
+import com.example.backend.model.GoalPeriod;
+import com.example.backend.model.SpendingGoal;
 import com.example.backend.model.User;
 import com.example.backend.repository.*;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.mockito.*;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionStatus;
+import org.springframework.transaction.support.TransactionTemplate;
 
 import java.lang.reflect.InvocationTargetException;
 import java.math.BigDecimal;
@@ -17,21 +24,31 @@ import java.util.*;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.*;
 
 public class AiAdviceServiceTest {
 
     @Mock private ExpenseRecordRepository expenseRepo;
     @Mock private AiRecommendationRepository recRepo;
-    @Mock private FeatureSnapshotRepository snapshotRepo;
+    @Mock private SnapshotService snapshots;
     @Mock private UserRepository userRepo;
+    @Mock private SpendingGoalRepository goalRepo;
     @Mock private GeminiClient gemini;
+    @Mock private PlatformTransactionManager txManager;
+    @Mock private TransactionStatus txStatus;
+    private TransactionTemplate tx;
+    private final RuleBasedAdviceEngine rules = new RuleBasedAdviceEngine();
 
-    @InjectMocks private AiAdviceService service;
+    private AiAdviceService service;
 
     @BeforeEach
     void setup() {
         MockitoAnnotations.openMocks(this);
+        when(txManager.getTransaction(any())).thenReturn(txStatus);
+        tx = new TransactionTemplate(txManager);
+        service = new AiAdviceService(expenseRepo, recRepo, snapshots, userRepo, goalRepo, gemini, rules, tx);
     }
 
     private ExpenseRecordRepository.CategorySpend makeRow(int catId, String catName, double amt) {
@@ -64,9 +81,8 @@ public class AiAdviceServiceTest {
 
         User u = new User();
         u.setUser_id(userId);
-        when(userRepo.findById(userId)).thenReturn(Optional.of(u));
+        when(userRepo.getReferenceById(userId)).thenReturn(u);
 
-        when(snapshotRepo.findByUserAndMonth(any(), any())).thenReturn(Optional.empty());
         when(recRepo.findByUserAndMonth(any(), any())).thenReturn(Optional.empty());
 
         when(gemini.generateAdviceJson(any(), any(), any(), any(), any()))
@@ -75,8 +91,8 @@ public class AiAdviceServiceTest {
         var result = service.generate(userId, ym, "en");
         assertEquals("AUD", result.get("currency"));
         assertEquals(2, ((List<?>) result.get("totalsByCategory")).size());
-        verify(snapshotRepo).save(any(FeatureSnapshot.class));
-        verify(recRepo).save(any(AiRecommendation.class));
+        verify(snapshots).write(eq(userId), eq(ym), anyList());
+        verify(recRepo).upsert(eq(userId), any(), eq("en"), any(), any());
     }
 
     @Test
@@ -88,24 +104,178 @@ public class AiAdviceServiceTest {
 
         User u = new User();
         u.setUser_id(userId);
-        when(userRepo.findById(userId)).thenReturn(Optional.of(u));
+        when(userRepo.getReferenceById(userId)).thenReturn(u);
 
-        when(snapshotRepo.findByUserAndMonth(any(), any())).thenReturn(Optional.empty());
         when(recRepo.findByUserAndMonth(any(), any())).thenReturn(Optional.empty());
 
         when(gemini.generateAdviceJson(any(), any(), any(), any(), any()))
                 .thenThrow(new RuntimeException("API_FAIL"));
 
         var result = service.generate(userId, ym, "en");
-        assertTrue(result.get("summary").toString().contains("System is busy"));
-        verify(snapshotRepo).save(any(FeatureSnapshot.class));
-        verify(recRepo).save(any(AiRecommendation.class));
+        assertTrue(result.get("summary").toString().startsWith("Total spending for 2025-11 was AUD 200.00"));
+        verify(snapshots).write(eq(userId), eq(ym), anyList());
+        verify(recRepo).upsert(eq(userId), any(), eq("en"), any(), any());
     }
 
-        @Test
+    @Test
+    void testGenerate_unchangedSpend_returnsStoredAdvice() {
+        int userId = 1;
+        YearMonth ym = YearMonth.of(2025, 10);
+        when(expenseRepo.findMonthlySpend(userId, 2025, 10))
+                .thenReturn(List.of(makeRow(2, "Travel", 300), makeRow(1, "Food", 100)));
+        User u = new User();
+        u.setUser_id(userId);
+        when(userRepo.getReferenceById(userId)).thenReturn(u);
+        when(gemini.generateAdviceJson(any(), any(), any(), any(), any()))
+                .thenReturn("{\"summary\":\"ok\",\"bullets\":[]}");
+        when(recRepo.findByUserAndMonth(any(), any())).thenReturn(Optional.empty());
+
+        service.generate(userId, ym, "en");
+        ArgumentCaptor<String> content = ArgumentCaptor.forClass(String.class);
+        ArgumentCaptor<String> fingerprint = ArgumentCaptor.forClass(String.class);
+        verify(recRepo).upsert(eq(userId), eq("2025-10"), eq("en"), content.capture(), fingerprint.capture());
+        assertNotNull(fingerprint.getValue());
+        AiRecommendation saved = new AiRecommendation();
+        saved.setContent(content.getValue());
+        saved.setFingerprint(fingerprint.getValue());
+
+        // Same totals returned in a different order: served from the stored row
+        when(expenseRepo.findMonthlySpend(userId, 2025, 10))
+                .thenReturn(List.of(makeRow(1, "Food", 100), makeRow(2, "Travel", 300)));
+        when(recRepo.findByUserAndMonth(any(), any())).thenReturn(Optional.of(saved));
+
+        var result = service.generate(userId, ym, "en");
+        assertEquals("ok", result.get("summary"));
+        verify(gemini, times(1)).generateAdviceJson(any(), any(), any(), any(), any());
+        verify(recRepo, times(1)).upsert(any(), any(), any(), any(), any());
+
+        // Different language is a different fingerprint
+        service.generate(userId, ym, "zh-CN");
+        verify(gemini, times(2)).generateAdviceJson(any(), any(), any(), any(), any());
+    }
+
+    @Test
+    void testGenerate_fallbackIsNotFingerprinted() {
+        int userId = 1;
+        YearMonth ym = YearMonth.of(2025, 11);
+        when(expenseRepo.findMonthlySpend(userId, 2025, 11)).thenReturn(List.of(makeRow(1, "Food", 200)));
+        when(userRepo.getReferenceById(userId)).thenReturn(new User());
+        when(recRepo.findByUserAndMonth(any(), any())).thenReturn(Optional.empty());
+        when(gemini.generateAdviceJson(any(), any(), any(), any(), any()))
+                .thenThrow(new RuntimeException("API_FAIL"));
+
+        service.generate(userId, ym, "en");
+
+        verify(recRepo).upsert(eq(userId), eq("2025-11"), eq("en"), any(), isNull());
+        verify(snapshots).write(eq(userId), eq(ym), anyList());
+    }
+
+    @Test
+    void testGenerate_callsModelBeforeOpeningWriteTransaction() {
+        int userId = 1;
+        YearMonth ym = YearMonth.of(2025, 10);
+        when(expenseRepo.findMonthlySpend(userId, 2025, 10)).thenReturn(List.of(makeRow(1, "Food", 300)));
+        when(userRepo.getReferenceById(userId)).thenReturn(new User());
+        when(recRepo.findByUserAndMonth(any(), any())).thenReturn(Optional.empty());
+        when(gemini.generateAdviceJson(any(), any(), any(), any(), any()))
+                .thenReturn("{\"summary\":\"ok\",\"bullets\":[]}");
+
+        service.generate(userId, ym, "en");
+
+        InOrder order = inOrder(gemini, txManager, snapshots, recRepo);
+        order.verify(gemini).generateAdviceJson(any(), any(), any(), any(), any());
+        order.verify(txManager).getTransaction(any());
+        order.verify(snapshots).write(eq(userId), eq(ym), anyList());
+        order.verify(recRepo).upsert(eq(userId), eq("2025-10"), eq("en"), any(), notNull());
+        order.verify(txManager).commit(txStatus);
+        verify(userRepo, times(1)).getReferenceById(userId);
+        verify(recRepo, never()).save(any());
+    }
+
+    @Test
+    void testGenerate_addsHistoryAndHandsOutProvisionalAdvice() {
+        int userId = 1;
+        YearMonth ym = YearMonth.of(2025, 10);
+        when(expenseRepo.findMonthlySpend(userId, 2025, 10)).thenReturn(List.of(makeRow(1, "Food", 300)));
+        when(expenseRepo.findMonthlySpend(userId, 2025, 9)).thenReturn(List.of(makeRow(1, "Food", 100)));
+        when(expenseRepo.findCategorySpendBetween(eq(userId), any(), any())).thenReturn(List.of(makeRow(1, "Food", 450)));
+        User u = new User();
+        when(userRepo.getReferenceById(userId)).thenReturn(u);
+        Category food = new Category();
+        food.setCategoryId(1);
+        SpendingGoal goal = new SpendingGoal();
+        goal.setCategory(food);
+        goal.setPeriod(GoalPeriod.MONTHLY);
+        goal.setTargetAmount(new BigDecimal("250"));
+        when(goalRepo.findByUserAndActiveTrueOrderByCreatedAtDesc(u)).thenReturn(List.of(goal));
+        when(recRepo.findByUserAndMonth(any(), any())).thenReturn(Optional.empty());
+        when(gemini.generateAdviceJson(any(), any(), any(), any(), any()))
+                .thenReturn("{\"summary\":\"llm\",\"bullets\":[]}");
+
+        List<Map<String, Object>> provisional = new ArrayList<>();
+        var result = service.generate(userId, ym, "en", new AiAdviceService.Progress() {
+            @Override public void provisional(Map<String, Object> content) { provisional.add(content); }
+        });
+
+        assertEquals("llm", result.get("summary"));
+        assertEquals(1, provisional.size());
+        assertTrue(provisional.get(0).get("bullets").toString().contains("Over budget: Food"));
+
+        @SuppressWarnings("unchecked")
+        var food0 = ((List<Map<String, Object>>) result.get("totalsByCategory")).get(0);
+        assertEquals(BigDecimal.valueOf(100.0), food0.get("prevAmount"));
+        assertEquals(new BigDecimal("150.00"), food0.get("avgAmount"));
+        assertEquals(new BigDecimal("250"), food0.get("goalAmount"));
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void testGenerate_streamingForwardsPartialAdvice() {
+        int userId = 1;
+        when(expenseRepo.findMonthlySpend(userId, 2025, 10)).thenReturn(List.of(makeRow(1, "Food", 300)));
+        when(userRepo.getReferenceById(userId)).thenReturn(new User());
+        when(recRepo.findByUserAndMonth(any(), any())).thenReturn(Optional.empty());
+        when(gemini.streamAdviceJson(any(), any(), any(), any(), any(), any())).thenAnswer(inv -> {
+            java.util.function.Consumer<String> onText = inv.getArgument(5);
+            onText.accept("{\"summary\":\"Food is hi");
+            onText.accept("{\"summary\":\"Food is high\",\"bullets\":[{\"title\":\"Cook");
+            onText.accept("{\"summary\":\"Food is high\",\"bullets\":[{\"title\":\"Cook");   // nothing new
+            return "{\"summary\":\"Food is high\",\"bullets\":[{\"title\":\"Cook\",\"detail\":\"at home\"}]}";
+        });
+
+        List<Map<String, Object>> partials = new ArrayList<>();
+        var result = service.generate(userId, YearMonth.of(2025, 10), "en", new AiAdviceService.Progress() {
+            @Override public void partial(Map<String, Object> content) { partials.add(content); }
+            @Override public boolean streaming() { return true; }
+        });
+
+        assertEquals(2, partials.size());
+        assertEquals("Food is hi", partials.get(0).get("summary"));
+        assertEquals("Cook", ((List<Map<String, Object>>) partials.get(1).get("bullets")).get(0).get("title"));
+        assertEquals("Food is high", result.get("summary"));
+        verify(gemini, never()).generateAdviceJson(any(), any(), any(), any(), any());
+        verify(recRepo).upsert(eq(userId), any(), eq("en"), any(), any());
+    }
+
+    @Test
+    void testGenerate_rulesProviderNeverCallsGemini() {
+        ReflectionTestUtils.setField(service, "provider", "rules");
+        int userId = 1;
+        when(expenseRepo.findMonthlySpend(userId, 2025, 10)).thenReturn(List.of(makeRow(1, "Food", 300)));
+        when(userRepo.getReferenceById(userId)).thenReturn(new User());
+        when(recRepo.findByUserAndMonth(any(), any())).thenReturn(Optional.empty());
+
+        var result = service.generate(userId, YearMonth.of(2025, 10), "en");
+
+        assertTrue(result.get("summary").toString().contains("Food was the largest category"));
+        verifyNoInteractions(gemini);
+        verify(recRepo).upsert(eq(userId), eq("2025-10"), eq("en"), any(), notNull());
+    }
+
+    @Test
     void testReadJson_exceptionPath() throws Exception {
         AiAdviceService tmp = new AiAdviceService(
-                expenseRepo, recRepo, snapshotRepo, userRepo, gemini);
+                expenseRepo, recRepo, snapshots, userRepo, goalRepo, gemini, rules, tx);
 
         var m = AiAdviceService.class.getDeclaredMethod("readJson", String.class);
         m.setAccessible(true);
@@ -121,7 +291,7 @@ public class AiAdviceServiceTest {
     @Test
     void testWriteJson_exceptionDirectly() throws Exception {
         AiAdviceService tmp = new AiAdviceService(
-                expenseRepo, recRepo, snapshotRepo, userRepo, gemini);
+                expenseRepo, recRepo, snapshots, userRepo, goalRepo, gemini, rules, tx);
 
         var m = AiAdviceService.class.getDeclaredMethod("writeJson", Object.class);
         m.setAccessible(true);
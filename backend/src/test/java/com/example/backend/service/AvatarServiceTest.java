@@ -0,0 +1,147 @@
+package com.example.backend.service;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.mock.web.MockMultipartFile;
+import org.springframework.web.server.ResponseStatusException;
+
+import javax.imageio.ImageIO;
+import java.awt.Color;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.CompletionException;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class AvatarServiceTest {
+
+    @TempDir
+    Path dir;
+
+    private AvatarService service;
+
+    @AfterEach
+    void tearDown() {
+        if (service != null) service.shutdown();
+    }
+
+    private static MockMultipartFile png(int width, int height) throws IOException {
+        BufferedImage image = new BufferedImage(width, height, BufferedImage.TYPE_INT_ARGB);
+        for (int x = 0; x < width; x++) image.setRGB(x, height / 2, 0xFF336699);
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        ImageIO.write(image, "png", out);
+        return new MockMultipartFile("picture_file", "me.png", "image/png", out.toByteArray());
+    }
+
+    /** A landscape JPEG, red left and blue right, tagged as "rotate 90° clockwise to display". */
+    private static MockMultipartFile jpegTaggedOrientation6() throws IOException {
+        BufferedImage image = new BufferedImage(200, 100, BufferedImage.TYPE_INT_RGB);
+        for (int x = 0; x < 200; x++)
+            for (int y = 0; y < 100; y++) image.setRGB(x, y, x < 100 ? 0xFF0000 : 0x0000FF);
+        ByteArrayOutputStream jpeg = new ByteArrayOutputStream();
+        ImageIO.write(image, "jpeg", jpeg);
+        byte[] plain = jpeg.toByteArray();
+
+        ByteBuffer exif = ByteBuffer.allocate(6 + 8 + 2 + 12 + 4).order(ByteOrder.BIG_ENDIAN);
+        exif.put("Exif\0\0".getBytes(StandardCharsets.ISO_8859_1))
+                .put((byte) 'M').put((byte) 'M').putShort((short) 42).putInt(8)
+                .putShort((short) 1)
+                .putShort((short) 0x0112).putShort((short) 3).putInt(1).putShort((short) 6).putShort((short) 0)
+                .putInt(0);
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        out.write(plain, 0, 2);                                   // SOI
+        out.write(new byte[]{(byte) 0xFF, (byte) 0xE1});
+        out.write(new byte[]{(byte) ((exif.capacity() + 2) >> 8), (byte) (exif.capacity() + 2)});
+        out.write(exif.array());
+        out.write(plain, 2, plain.length - 2);
+        return new MockMultipartFile("picture_file", "me.jpg", "image/jpeg", out.toByteArray());
+    }
+
+    @Test
+    void storesOneSquareThumbnailPerSizeNamedByContentHash() throws Exception {
+        service = new AvatarService(dir, new int[]{128, 32}, 1, 4);
+
+        String hash = service.store(png(900, 600)).join();
+
+        assertThat(hash).hasSize(32).matches("[0-9a-f]+");
+        for (int size : new int[]{32, 128}) {
+            BufferedImage thumb = ImageIO.read(dir.resolve(AvatarService.fileName(hash, size)).toFile());
+            assertThat(thumb.getWidth()).isEqualTo(size);
+            assertThat(thumb.getHeight()).isEqualTo(size);
+        }
+        try (var files = Files.list(dir)) {
+            assertThat(files.map(p -> p.getFileName().toString()))
+                    .containsExactlyInAnyOrder(AvatarService.fileName(hash, 32), AvatarService.fileName(hash, 128));
+        }
+    }
+
+    @Test
+    void sameUploadReusesExistingThumbnails() throws Exception {
+        service = new AvatarService(dir, new int[]{32}, 1, 4);
+        MockMultipartFile file = png(64, 64);
+
+        String first = service.store(file).join();
+        Path thumb = dir.resolve(AvatarService.fileName(first, 32));
+        long written = Files.getLastModifiedTime(thumb).toMillis();
+
+        assertThat(service.store(file)).isCompletedWithValue(first);
+        assertThat(Files.getLastModifiedTime(thumb).toMillis()).isEqualTo(written);
+    }
+
+    @Test
+    void smallImagesAreNotUpscaled() throws Exception {
+        service = new AvatarService(dir, new int[]{256}, 1, 4);
+
+        String hash = service.store(png(40, 50)).join();
+
+        assertThat(ImageIO.read(dir.resolve(AvatarService.fileName(hash, 256)).toFile()).getWidth()).isEqualTo(40);
+    }
+
+    @Test
+    void exifOrientationIsAppliedBeforeCropping() throws Exception {
+        service = new AvatarService(dir, new int[]{64}, 1, 4);
+        MockMultipartFile file = jpegTaggedOrientation6();
+        Path upload = dir.resolve("upload.jpg");
+        Files.write(upload, file.getBytes());
+        assertThat(AvatarService.exifOrientation(upload)).isEqualTo(6);
+        Files.delete(upload);
+
+        String hash = service.store(file).join();
+
+        // upright the photo is 100x200, red on top and blue below; the centre square keeps both halves
+        BufferedImage thumb = ImageIO.read(dir.resolve(AvatarService.fileName(hash, 64)).toFile());
+        assertThat(new Color(thumb.getRGB(32, 8)).getRed()).isGreaterThan(200);
+        assertThat(new Color(thumb.getRGB(32, 8)).getBlue()).isLessThan(60);
+        assertThat(new Color(thumb.getRGB(32, 56)).getBlue()).isGreaterThan(200);
+        assertThat(new Color(thumb.getRGB(32, 56)).getRed()).isLessThan(60);
+    }
+
+    @Test
+    void untaggedImagesKeepTheirOrientation() throws Exception {
+        Path upload = dir.resolve("plain.png");
+        Files.write(upload, png(20, 10).getBytes());
+
+        assertThat(AvatarService.exifOrientation(upload)).isEqualTo(1);
+    }
+
+    @Test
+    void nonImageUploadIsRejected() throws Exception {
+        service = new AvatarService(dir, new int[]{32}, 1, 4);
+        MockMultipartFile file = new MockMultipartFile("picture_file", "x.png", "image/png", "demo".getBytes());
+
+        assertThatThrownBy(() -> service.store(file).join())
+                .isInstanceOf(CompletionException.class)
+                .hasCauseInstanceOf(ResponseStatusException.class);
+        try (var files = Files.list(dir)) {
+            assertThat(files).isEmpty();
+        }
+    }
+}
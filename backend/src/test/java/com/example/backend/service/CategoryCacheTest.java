@@ -0,0 +1,84 @@
+package com.example.backend.service;
+
+import com.example.backend.model.Category;
+import com.example.backend.repository.CategoryRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+public class CategoryCacheTest {
+
+    @Mock private CategoryRepository categoryRepo;
+
+    private CategoryCache cache;
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+        cache = new CategoryCache(categoryRepo);
+        when(categoryRepo.findAll()).thenReturn(List.of(cat(2, "Transport"), cat(1, "Food")));
+    }
+
+    private Category cat(int id, String name) {
+        return new Category(id, name, name + " expenses", null, null);
+    }
+
+    @Test
+    void testLookups_loadTableOnce() {
+        assertEquals("Food", cache.findById(1).orElseThrow().getCategoryName());
+        assertEquals(2, cache.findByName("Transport").orElseThrow().getCategoryId());
+        assertEquals(2, cache.count());
+        assertEquals(1L, cache.findAllDtos().get(0).getId());
+
+        verify(categoryRepo, times(1)).findAll();
+        verify(categoryRepo, never()).findById(any());
+    }
+
+    @Test
+    void testSave_invalidatesSnapshot() {
+        String before = cache.etag();
+        Category added = cat(3, "Shopping");
+        when(categoryRepo.save(any(Category.class))).thenReturn(added);
+        when(categoryRepo.findAll()).thenReturn(List.of(cat(1, "Food"), cat(2, "Transport"), added));
+
+        cache.save(added);
+
+        assertTrue(cache.findByName("Shopping").isPresent());
+        assertNotEquals(before, cache.etag());
+        verify(categoryRepo, times(2)).findAll();
+    }
+
+    @Test
+    void testMiss_reloadsAtMostOncePerInterval() {
+        assertTrue(cache.findById(99).isEmpty());
+        assertTrue(cache.findById(99).isEmpty());
+        // first load only; the snapshot is younger than the reload interval
+        verify(categoryRepo, times(1)).findAll();
+    }
+
+    @Test
+    void testInvalidate_picksUpNewRows() {
+        assertTrue(cache.findById(7).isEmpty());
+
+        when(categoryRepo.findAll()).thenReturn(List.of(cat(1, "Food"), cat(2, "Transport"), cat(7, "Health")));
+        cache.invalidate();
+
+        assertEquals("Health", cache.findById(7).orElseThrow().getCategoryName());
+    }
+
+    @Test
+    void testEtag_isStableAndQuoted() {
+        String etag = cache.etag();
+        assertTrue(etag.startsWith("\"") && etag.endsWith("\""));
+        assertEquals(etag, cache.etag());
+        assertTrue(cache.findById(null).isEmpty());
+        assertTrue(cache.findByName(null).isEmpty());
+    }
+}
@@ -0,0 +1,117 @@
+package com.example.backend.service;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+
+import javax.sql.DataSource;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.sql.*;
+import java.time.LocalDate;
+import java.util.zip.GZIPInputStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.*;
+
+public class ExpenseExportServiceTest {
+
+    @Mock private DataSource dataSource;
+    @Mock private Connection connection;
+    @Mock private PreparedStatement statement;
+    @Mock private ResultSet rs;
+
+    private ExpenseExportService service;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        MockitoAnnotations.openMocks(this);
+        service = new ExpenseExportService(dataSource);
+
+        when(dataSource.getConnection()).thenReturn(connection);
+        when(connection.getAutoCommit()).thenReturn(true);
+        when(connection.prepareStatement(anyString(), anyInt(), anyInt())).thenReturn(statement);
+        when(statement.executeQuery()).thenReturn(rs);
+
+        when(rs.next()).thenReturn(true, false);
+        when(rs.getObject(1)).thenReturn(7);
+        when(rs.getObject(2)).thenReturn(Date.valueOf("2024-03-01"));
+        when(rs.getObject(3)).thenReturn(2);
+        when(rs.getObject(4)).thenReturn("Food");
+        when(rs.getObject(5)).thenReturn(new BigDecimal("12.50"));
+        when(rs.getObject(6)).thenReturn("AUD");
+        when(rs.getObject(7)).thenReturn("Lunch, \"team\"");
+        when(rs.getObject(10)).thenReturn(false);
+
+        when(rs.getInt(1)).thenReturn(7);
+        when(rs.getDate(2)).thenReturn(Date.valueOf("2024-03-01"));
+        when(rs.getInt(3)).thenReturn(2);
+        when(rs.getString(4)).thenReturn("Food");
+        when(rs.getBigDecimal(5)).thenReturn(new BigDecimal("12.50"));
+        when(rs.getString(6)).thenReturn("AUD");
+        when(rs.getString(7)).thenReturn("Lunch");
+    }
+
+    @Test
+    void testExportCsv_usesForwardOnlyCursorWithFetchSize() throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        service.export(1, LocalDate.of(2024, 3, 1), null, null, null, null, false,
+                ExpenseExportService.Format.CSV, false, out);
+
+        verify(connection).setAutoCommit(false);
+        verify(connection).prepareStatement(anyString(),
+                eq(ResultSet.TYPE_FORWARD_ONLY), eq(ResultSet.CONCUR_READ_ONLY));
+        verify(statement).setFetchSize(ExpenseExportService.FETCH_SIZE);
+        verify(statement).setInt(1, 1);
+        verify(statement).setObject(2, Date.valueOf("2024-03-01"), Types.DATE);
+        verify(connection).setAutoCommit(true);
+        verify(connection).close();
+
+        String[] lines = out.toString(StandardCharsets.UTF_8).split("\r\n");
+        assertEquals(2, lines.length);
+        assertTrue(lines[0].startsWith("expenseId,expenseDate,categoryId"));
+        assertEquals("7,2024-03-01,2,Food,12.50,AUD,\"Lunch, \"\"team\"\"\",,,false,", lines[1]);
+    }
+
+    @Test
+    void testExportNdjson_gzipped() throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        service.export(1, null, null, 2, "lunch", true, true,
+                ExpenseExportService.Format.NDJSON, true, out);
+
+        verify(statement).setString(6, "%lunch%");
+        verify(statement).setString(7, "%lunch%");
+
+        try (GZIPInputStream in = new GZIPInputStream(new ByteArrayInputStream(out.toByteArray()))) {
+            String body = new String(in.readAllBytes(), StandardCharsets.UTF_8);
+            assertTrue(body.startsWith("{\"expenseId\":7,\"expenseDate\":\"2024-03-01\""));
+            assertTrue(body.contains("\"amount\":12.50"));
+            assertTrue(body.endsWith("}\n"));
+        }
+    }
+
+    @Test
+    void testExport_sqlFailureIsWrapped() throws Exception {
+        when(statement.executeQuery()).thenThrow(new SQLException("boom"));
+
+        RuntimeException ex = assertThrows(RuntimeException.class, () ->
+                service.export(1, null, null, null, null, null, false,
+                        ExpenseExportService.Format.CSV, false, new ByteArrayOutputStream()));
+        assertEquals("Error exporting records", ex.getMessage());
+        verify(connection).rollback();
+    }
+
+    @Test
+    void testCsvEscape() {
+        assertEquals("plain", ExpenseExportService.csvEscape("plain"));
+        assertEquals("\"a,b\"", ExpenseExportService.csvEscape("a,b"));
+        assertEquals("\"line\nbreak\"", ExpenseExportService.csvEscape("line\nbreak"));
+    }
+}
@@ -6,22 +6,26 @@ import com.example.backend.repository.*;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.mockito.*;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.data.domain.*;
 
 import java.math.BigDecimal;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
+import java.time.YearMonth;
 import java.util.*;
 
 import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.Mockito.*;
 
 public class ExpenseRecordServiceTest {
 
     @Mock private ExpenseRecordRepository expenseRepo;
     @Mock private UserRepository userRepo;
-    @Mock private CategoryRepository categoryRepo;
-    @Mock private AchievementService achievementService;
+    @Mock private CategoryCache categoryCache;
+    @Mock private ApplicationEventPublisher events;
+    @Mock private SnapshotService snapshotService;
 
     @InjectMocks private ExpenseRecordService service;
 
@@ -44,11 +48,12 @@ public class ExpenseRecordServiceTest {
         mockRecord.setUser(mockUser);
         mockRecord.setCategory(mockCat);
         mockRecord.setAmount(BigDecimal.valueOf(100));
+        mockRecord.setExpenseDate(LocalDate.of(2025, 3, 14));
     }
 
     @Test
     void testGetRecordsForUser_success() {
-        when(userRepo.findById(1)).thenReturn(Optional.of(mockUser));
+        when(userRepo.getReferenceById(1)).thenReturn(mockUser);
         when(expenseRepo.findByUser(mockUser)).thenReturn(List.of(mockRecord));
 
         var result = service.getRecordsForUser(1);
@@ -57,15 +62,18 @@ public class ExpenseRecordServiceTest {
     }
 
     @Test
-    void testGetRecordsForUser_userNotFound() {
-        when(userRepo.findById(1)).thenReturn(Optional.empty());
-        assertThrows(NoSuchElementException.class, () -> service.getRecordsForUser(1));
+    void testGetRecordsForUser_doesNotLoadUser() {
+        when(userRepo.getReferenceById(1)).thenReturn(mockUser);
+        when(expenseRepo.findByUser(mockUser)).thenReturn(List.of());
+
+        service.getRecordsForUser(1);
+        verify(userRepo, never()).findById(any());
     }
 
     @Test
     void testCreateRecord_success() {
-        when(userRepo.findById(1)).thenReturn(Optional.of(mockUser));
-        when(categoryRepo.findById(100)).thenReturn(Optional.of(mockCat));
+        when(userRepo.getReferenceById(1)).thenReturn(mockUser);
+        when(categoryCache.findById(100)).thenReturn(Optional.of(mockCat));
         when(expenseRepo.save(any())).thenReturn(mockRecord);
 
         ExpenseRecord input = new ExpenseRecord();
@@ -74,15 +82,16 @@ public class ExpenseRecordServiceTest {
         ExpenseRecord saved = service.createRecord(1, input);
 
         assertNotNull(saved);
-        verify(achievementService).checkFirstExpense(1);
-        verify(achievementService).checkTenRecords(1);
+        verify(events).publishEvent(UserActivityEvent.expenseAdded(1, LocalDate.of(2025, 3, 14)));
+        verify(expenseRepo, never()).count();
         verify(expenseRepo).save(any());
+        verify(snapshotService).refresh(1, YearMonth.of(2025, 3));
     }
 
     @Test
     void testCreateRecord_categoryNotFound() {
-        when(userRepo.findById(1)).thenReturn(Optional.of(mockUser));
-        when(categoryRepo.findById(100)).thenReturn(Optional.empty());
+        when(userRepo.getReferenceById(1)).thenReturn(mockUser);
+        when(categoryCache.findById(100)).thenReturn(Optional.empty());
 
         ExpenseRecord rec = new ExpenseRecord();
         Category c = new Category();
@@ -102,13 +111,13 @@ public class ExpenseRecordServiceTest {
         updated.setPaymentMethod("Card");
         updated.setIsRecurring(true);
 
-        when(userRepo.findById(1)).thenReturn(Optional.of(mockUser));
         when(expenseRepo.findById(10)).thenReturn(Optional.of(mockRecord));
         when(expenseRepo.save(any())).thenReturn(mockRecord);
 
         ExpenseRecord result = service.updateRecord(1, 10, updated);
         assertEquals(mockRecord, result);
         verify(expenseRepo).save(mockRecord);
+        verify(snapshotService).refresh(1, YearMonth.of(2025, 3));
     }
 
     @Test
@@ -117,26 +126,27 @@ public class ExpenseRecordServiceTest {
         other.setUser_id(2);
         mockRecord.setUser(other);
 
-        when(userRepo.findById(1)).thenReturn(Optional.of(mockUser));
         when(expenseRepo.findById(10)).thenReturn(Optional.of(mockRecord));
 
         assertThrows(RuntimeException.class, () -> service.updateRecord(1, 10, new ExpenseRecord()));
+        verifyNoInteractions(snapshotService);
     }
 
     @Test
     void testUpdateRecord_notFound() {
-        when(userRepo.findById(1)).thenReturn(Optional.of(mockUser));
         when(expenseRepo.findById(10)).thenReturn(Optional.empty());
         assertThrows(RuntimeException.class, () -> service.updateRecord(1, 10, new ExpenseRecord()));
     }
 
     @Test
     void testDeleteRecord_success() {
-        when(userRepo.findById(1)).thenReturn(Optional.of(mockUser));
         when(expenseRepo.findById(10)).thenReturn(Optional.of(mockRecord));
 
         service.deleteRecord(1, 10);
-        verify(expenseRepo).deleteById(10);
+        InOrder order = inOrder(expenseRepo, snapshotService);
+        order.verify(expenseRepo).deleteById(10);
+        order.verify(snapshotService).refresh(1, YearMonth.of(2025, 3));
+        verify(events).publishEvent(UserActivityEvent.expenseRemoved(1));
     }
 
     @Test
@@ -145,7 +155,6 @@ public class ExpenseRecordServiceTest {
         other.setUser_id(2);
         mockRecord.setUser(other);
 
-        when(userRepo.findById(1)).thenReturn(Optional.of(mockUser));
         when(expenseRepo.findById(10)).thenReturn(Optional.of(mockRecord));
 
         assertThrows(RuntimeException.class, () -> service.deleteRecord(1, 10));
@@ -153,7 +162,6 @@ public class ExpenseRecordServiceTest {
 
     @Test
     void testDeleteRecord_notFound() {
-        when(userRepo.findById(1)).thenReturn(Optional.of(mockUser));
         when(expenseRepo.findById(10)).thenReturn(Optional.empty());
         assertThrows(RuntimeException.class, () -> service.deleteRecord(1, 10));
     }
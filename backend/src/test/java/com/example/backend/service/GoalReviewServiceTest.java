@@ -0,0 +1,40 @@
+package com.example.backend.service;
+
+import com.example.backend.repository.SpendingGoalRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.context.ApplicationEventPublisher;
+
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.util.List;
+
+import static org.mockito.Mockito.*;
+
+public class GoalReviewServiceTest {
+
+    @Mock private SpendingGoalRepository goalRepo;
+    @Mock private ApplicationEventPublisher events;
+
+    private GoalReviewService service;
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+        service = new GoalReviewService(goalRepo, events);
+    }
+
+    @Test
+    void testReview_publishesOneEventPerUserWithinBudget() {
+        LocalDate from = LocalDate.of(2025, 2, 1);
+        when(goalRepo.findUserIdsWithinMonthlyGoals(from, LocalDate.of(2025, 3, 1))).thenReturn(List.of(3, 8));
+
+        service.review(YearMonth.of(2025, 2));
+
+        verify(events).publishEvent(UserActivityEvent.underBudgetMonth(3, from));
+        verify(events).publishEvent(UserActivityEvent.underBudgetMonth(8, from));
+        verifyNoMoreInteractions(events);
+    }
+}
@@ -13,7 +13,7 @@ import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.mockito.*;
 
-import org.springframework.security.crypto.password.PasswordEncoder;
+import com.example.backend.auth.PasswordHasher;
 
 import java.util.Optional;
 
@@ -29,7 +29,7 @@ public class PasswordResetServiceTest {
     private UserSecurityAnswerRepository answerRepository;
 
     @Mock
-    private PasswordEncoder passwordEncoder;
+    private PasswordHasher passwordHasher;
 
     @InjectMocks
     private PasswordResetService passwordResetService;
@@ -44,7 +44,7 @@ public class PasswordResetServiceTest {
     void testGetSecurityQuestion_success() {
         String identifier = "user1";
         User user = mock(User.class);
-        when(userRepository.findByUsernameOrEmail(identifier, identifier)).thenReturn(user);
+        when(userRepository.findByIdentifier(identifier)).thenReturn(user);
 
         SecurityQuestion question = mock(SecurityQuestion.class);
         when(question.getId()).thenReturn(42);
@@ -58,14 +58,14 @@ public class PasswordResetServiceTest {
         SecurityQuestionResponseDTO dto = passwordResetService.getSecurityQuestion(identifier);
         assertNotNull(dto);
         // verify repository interactions
-        verify(userRepository, times(1)).findByUsernameOrEmail(identifier, identifier);
+        verify(userRepository, times(1)).findByIdentifier(identifier);
         verify(answerRepository, times(1)).findByUser(user);
     }
 
     // getSecurityQuestion - user not found
     @Test
     void testGetSecurityQuestion_userNotFound() {
-        when(userRepository.findByUsernameOrEmail("nope", "nope")).thenReturn(null);
+        when(userRepository.findByIdentifier("nope")).thenReturn(null);
         assertThrows(EntityNotFoundException.class,
                 () -> passwordResetService.getSecurityQuestion("nope"));
     }
@@ -74,7 +74,7 @@ public class PasswordResetServiceTest {
     @Test
     void testGetSecurityQuestion_questionNotConfigured() {
         User user = mock(User.class);
-        when(userRepository.findByUsernameOrEmail("u", "u")).thenReturn(user);
+        when(userRepository.findByIdentifier("u")).thenReturn(user);
         when(answerRepository.findByUser(user)).thenReturn(null);
         assertThrows(EntityNotFoundException.class,
                 () -> passwordResetService.getSecurityQuestion("u"));
@@ -90,14 +90,14 @@ public class PasswordResetServiceTest {
         when(dto.getNewPassword()).thenReturn("newPwd");
 
         User user = mock(User.class);
-        when(userRepository.findByUsernameOrEmail("id", "id")).thenReturn(user);
+        when(userRepository.findByIdentifier("id")).thenReturn(user);
 
         UserSecurityAnswer stored = mock(UserSecurityAnswer.class);
         when(answerRepository.findByUserAndQuestionId(user, 7)).thenReturn(stored);
         when(stored.getAnswer_hash()).thenReturn("hash");
 
-        when(passwordEncoder.matches("ans", "hash")).thenReturn(true);
-        when(passwordEncoder.encode("newPwd")).thenReturn("encodedNewPwd");
+        when(passwordHasher.matches("ans", "hash")).thenReturn(true);
+        when(passwordHasher.encode("newPwd")).thenReturn("encodedNewPwd");
 
         boolean result = passwordResetService.resetPassword(dto);
         assertTrue(result);
@@ -110,7 +110,7 @@ public class PasswordResetServiceTest {
     void testResetPassword_userNotFound_returnsFalse() {
         ResetPasswordConfirmDTO dto = mock(ResetPasswordConfirmDTO.class);
         when(dto.getIdentifier()).thenReturn("missing");
-        when(userRepository.findByUsernameOrEmail("missing", "missing")).thenReturn(null);
+        when(userRepository.findByIdentifier("missing")).thenReturn(null);
         assertFalse(passwordResetService.resetPassword(dto));
     }
 
@@ -122,7 +122,7 @@ public class PasswordResetServiceTest {
         when(dto.getQuestionId()).thenReturn(1);
 
         User user = mock(User.class);
-        when(userRepository.findByUsernameOrEmail("id2", "id2")).thenReturn(user);
+        when(userRepository.findByIdentifier("id2")).thenReturn(user);
         when(answerRepository.findByUserAndQuestionId(user, 1)).thenReturn(null);
 
         assertFalse(passwordResetService.resetPassword(dto));
@@ -137,13 +137,13 @@ public class PasswordResetServiceTest {
         when(dto.getAnswer()).thenReturn("wrong");
 
         User user = mock(User.class);
-        when(userRepository.findByUsernameOrEmail("id3", "id3")).thenReturn(user);
+        when(userRepository.findByIdentifier("id3")).thenReturn(user);
 
         UserSecurityAnswer stored = mock(UserSecurityAnswer.class);
         when(answerRepository.findByUserAndQuestionId(user, 2)).thenReturn(stored);
         when(stored.getAnswer_hash()).thenReturn("storedHash");
 
-        when(passwordEncoder.matches("wrong", "storedHash")).thenReturn(false);
+        when(passwordHasher.matches("wrong", "storedHash")).thenReturn(false);
 
         assertFalse(passwordResetService.resetPassword(dto));
     }
@@ -155,8 +155,8 @@ public class PasswordResetServiceTest {
         User user = mock(User.class);
         when(userRepository.findById(userId)).thenReturn(Optional.of(user));
         when(user.getPassword_hash()).thenReturn("curHash");
-        when(passwordEncoder.matches("current", "curHash")).thenReturn(true);
-        when(passwordEncoder.encode("newOne")).thenReturn("encNew");
+        when(passwordHasher.matches("current", "curHash")).thenReturn(true);
+        when(passwordHasher.encode("newOne")).thenReturn("encNew");
 
         boolean result = passwordResetService.changePassword(userId, "current", "newOne");
         assertTrue(result);
@@ -171,7 +171,7 @@ public class PasswordResetServiceTest {
         User user = mock(User.class);
         when(userRepository.findById(userId)).thenReturn(Optional.of(user));
         when(user.getPassword_hash()).thenReturn("h");
-        when(passwordEncoder.matches("bad", "h")).thenReturn(false);
+        when(passwordHasher.matches("bad", "h")).thenReturn(false);
 
         boolean result = passwordResetService.changePassword(userId, "bad", "new");
         assertFalse(result);
@@ -194,8 +194,8 @@ public class PasswordResetServiceTest {
         User user = mock(User.class);
         when(userRepository.findById(userId)).thenReturn(Optional.of(user));
         when(user.getPassword_hash()).thenReturn("hash2");
-        when(passwordEncoder.matches("ok", "hash2")).thenReturn(true);
-        when(passwordEncoder.encode("n")).thenReturn("enc");
+        when(passwordHasher.matches("ok", "hash2")).thenReturn(true);
+        when(passwordHasher.encode("n")).thenReturn("enc");
         doThrow(new RuntimeException("db")).when(userRepository).save(user);
 
         boolean result = passwordResetService.changePassword(userId, "ok", "n");
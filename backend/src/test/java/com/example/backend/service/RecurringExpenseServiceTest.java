@@ -5,17 +5,20 @@ import com.example.backend.model.Category;
 import com.example.backend.model.ExpenseRecord;
 import com.example.backend.model.RecurringExpenseSchedule;
 import com.example.backend.model.User;
-import com.example.backend.repository.CategoryRepository;
 import com.example.backend.repository.ExpenseRecordRepository;
 import com.example.backend.repository.RecurringExpenseScheduleRepository;
 import com.example.backend.repository.UserRepository;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.mockito.*;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
 
 import java.math.BigDecimal;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
+import java.time.YearMonth;
 import java.time.ZoneId;
 import java.util.Collections;
 import java.util.List;
@@ -36,7 +39,16 @@ public class RecurringExpenseServiceTest {
     private UserRepository userRepo;
 
     @Mock
-    private CategoryRepository categoryRepo;
+    private CategoryCache categoryCache;
+
+    @Mock
+    private SnapshotService snapshotService;
+
+    @Mock
+    private ApplicationEventPublisher events;
+
+    @Spy
+    private TransactionTemplate tx = new TransactionTemplate(mock(PlatformTransactionManager.class));
 
     @InjectMocks
     private RecurringExpenseService service;
@@ -180,6 +192,8 @@ public class RecurringExpenseServiceTest {
         verify(scheduleRepo, times(1)).save(s);
         assertEquals(today.plusDays(1), s.getNextRunDate());
         assertNotNull(s.getLastRunAt());
+        verify(snapshotService).refresh(5, YearMonth.from(today));
+        verify(events).publishEvent(UserActivityEvent.expenseAdded(5, today));
     }
 
     @Test
@@ -191,8 +205,8 @@ public class RecurringExpenseServiceTest {
         Category cat = new Category();
         cat.setCategoryId(11);
 
-        when(userRepo.findById(user.getUser_id())).thenReturn(Optional.of(user));
-        when(categoryRepo.findById(cat.getCategoryId())).thenReturn(Optional.of(cat));
+        when(userRepo.getReferenceById(user.getUser_id())).thenReturn(user);
+        when(categoryCache.findById(cat.getCategoryId())).thenReturn(Optional.of(cat));
 
         // ensure scheduleRepo.save returns its argument (configured in setUp)
 
@@ -11,8 +11,9 @@ import com.example.backend.repository.UserSecurityAnswerRepository;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.mockito.*;
+import org.springframework.dao.DataIntegrityViolationException;
 
-import org.springframework.security.crypto.password.PasswordEncoder;
+import com.example.backend.auth.PasswordHasher;
 
 import java.util.Optional;
 
@@ -25,7 +26,7 @@ public class RegisterServiceTest {
     private UserRepository userRepository;
 
     @Mock
-    private PasswordEncoder passwordEncoder;
+    private PasswordHasher passwordHasher;
 
     @Mock
     private QuestionRepository questionRepository;
@@ -62,9 +63,7 @@ public class RegisterServiceTest {
         when(dto.getQuestionId()).thenReturn(null);
         when(dto.getAnswer()).thenReturn(null);
 
-        when(userRepository.findByUsername("userA")).thenReturn(null);
-        when(userRepository.findByEmail("a@example.com")).thenReturn(null);
-        when(passwordEncoder.encode("plainPwd")).thenReturn("encodedPwd");
+        when(passwordHasher.encode("plainPwd")).thenReturn("encodedPwd");
 
         User saved = registerService.register(dto);
 
@@ -89,10 +88,8 @@ public class RegisterServiceTest {
         when(dto.getQuestionId()).thenReturn(5);
         when(dto.getAnswer()).thenReturn("myAns");
 
-        when(userRepository.findByUsername("userB")).thenReturn(null);
-        when(userRepository.findByEmail("b@example.com")).thenReturn(null);
-        when(passwordEncoder.encode("pwdB")).thenReturn("encPwdB");
-        when(passwordEncoder.encode("myAns")).thenReturn("encAns");
+        when(passwordHasher.encode("pwdB")).thenReturn("encPwdB");
+        when(passwordHasher.encode("myAns")).thenReturn("encAns");
         SecurityQuestion q = new SecurityQuestion();
         q.setId(5);
         when(questionRepository.findById(5)).thenReturn(Optional.of(q));
@@ -107,27 +104,42 @@ public class RegisterServiceTest {
         assertEquals(q, savedAnswer.getQuestion());
     }
 
-    @Test
-    void testRegister_usernameExists_throws() {
+    private RegisterDTO duplicate(String violatedIndex) {
         RegisterDTO dto = mock(RegisterDTO.class);
-        when(dto.getUsername()).thenReturn("exists");
-        when(dto.getEmail()).thenReturn("x@example.com");
-        when(userRepository.findByUsername("exists")).thenReturn(new User());
+        when(dto.getUsername()).thenReturn("Exists");
+        when(dto.getEmail()).thenReturn("exists@example.com");
+        when(dto.getPassword()).thenReturn("p");
+        when(passwordHasher.encode("p")).thenReturn("encP");
+        when(userRepository.save(any(User.class))).thenThrow(new DataIntegrityViolationException("insert failed",
+                new RuntimeException("duplicate key value violates unique constraint \"" + violatedIndex + "\"")));
+        return dto;
+    }
 
-        assertThrows(RuntimeException.class, () -> registerService.register(dto));
-        verify(userRepository, never()).save(any());
+    @Test
+    void testRegister_usernameExists_mappedFromViolatedIndex() {
+        RegisterDTO dto = duplicate("ux_users_username_lower");
+
+        RuntimeException e = assertThrows(RuntimeException.class, () -> registerService.register(dto));
+        assertEquals("Username already exists", e.getMessage());
+        verify(userRepository, times(1)).save(any(User.class));
+        verifyNoMoreInteractions(userRepository);
+        verify(achievementService, never()).earnIfNotEarned(anyInt(), any());
     }
 
     @Test
-    void testRegister_emailExists_throws() {
-        RegisterDTO dto = mock(RegisterDTO.class);
-        when(dto.getUsername()).thenReturn("new");
-        when(dto.getEmail()).thenReturn("exists@example.com");
-        when(userRepository.findByUsername("new")).thenReturn(null);
-        when(userRepository.findByEmail("exists@example.com")).thenReturn(new User());
+    void testRegister_emailExists_mappedFromViolatedIndex() {
+        RegisterDTO dto = duplicate("ux_users_email_lower");
 
-        assertThrows(RuntimeException.class, () -> registerService.register(dto));
-        verify(userRepository, never()).save(any());
+        RuntimeException e = assertThrows(RuntimeException.class, () -> registerService.register(dto));
+        assertEquals("Email already exists", e.getMessage());
+        verify(userSecurityAnswerRepository, never()).save(any());
+    }
+
+    @Test
+    void testRegister_otherIntegrityViolation_rethrown() {
+        RegisterDTO dto = duplicate("users_pkey");
+
+        assertThrows(DataIntegrityViolationException.class, () -> registerService.register(dto));
     }
 
     @Test
@@ -138,9 +150,7 @@ public class RegisterServiceTest {
         when(dto.getPassword()).thenReturn("p");
         when(dto.getQuestionId()).thenReturn(123);
         when(dto.getAnswer()).thenReturn("a");
-        when(userRepository.findByUsername("userC")).thenReturn(null);
-        when(userRepository.findByEmail("c@example.com")).thenReturn(null);
-        when(passwordEncoder.encode("p")).thenReturn("encP");
+        when(passwordHasher.encode("p")).thenReturn("encP");
         when(questionRepository.findById(123)).thenReturn(Optional.empty());
 
         assertThrows(RuntimeException.class, () -> registerService.register(dto));
@@ -157,9 +167,7 @@ public class RegisterServiceTest {
         when(dto.getQuestionId()).thenReturn(null);
         when(dto.getAnswer()).thenReturn(null);
 
-        when(userRepository.findByUsername("userD")).thenReturn(null);
-        when(userRepository.findByEmail("d@example.com")).thenReturn(null);
-        when(passwordEncoder.encode("pwdD")).thenReturn("encD");
+        when(passwordHasher.encode("pwdD")).thenReturn("encD");
         doThrow(new RuntimeException("boom")).when(achievementService).earnIfNotEarned(anyInt(), eq("ACCOUNT_CREATED"));
 
         User saved = registerService.register(dto);
@@ -0,0 +1,84 @@
+package com.example.backend.service;
+
+import com.example.backend.repository.ExpenseRecordRepository;
+import com.example.backend.repository.ExpenseRecordRepository.UserCategorySpend;
+import com.example.backend.repository.FeatureSnapshotRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.time.ZoneId;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+public class SnapshotRebuildServiceTest {
+
+    @Mock private ExpenseRecordRepository expenseRepo;
+    @Mock private FeatureSnapshotRepository snapshotRepo;
+    @Mock private SnapshotService snapshots;
+
+    private SnapshotRebuildService service;
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+        service = new SnapshotRebuildService(expenseRepo, snapshotRepo, snapshots, 2);
+    }
+
+    private UserCategorySpend row(int userId, int catId, String amount) {
+        return new UserCategorySpend() {
+            @Override public Integer getUserId() { return userId; }
+            @Override public Integer getCategoryId() { return catId; }
+            @Override public String getCategoryName() { return "C" + catId; }
+            @Override public BigDecimal getAmount() { return new BigDecimal(amount); }
+        };
+    }
+
+    @Test
+    void testRebuild_writesEveryUserAndClearsStaleSnapshots() {
+        YearMonth ym = YearMonth.of(2025, 9);
+        when(expenseRepo.findUserCategorySpendBetween(LocalDate.of(2025, 9, 1), LocalDate.of(2025, 10, 1)))
+                .thenReturn(List.of(row(1, 10, "50"), row(2, 10, "70"), row(1, 11, "5")));
+        when(snapshotRepo.findUserIdsByMonth("2025-09")).thenReturn(List.of(1, 2, 3));
+
+        assertEquals(2, service.rebuild(ym));
+
+        verify(snapshots).write(eq(1), eq(ym), argThat(r -> r.size() == 2));
+        verify(snapshots).write(eq(2), eq(ym), argThat(r -> r.size() == 1));
+        verify(snapshots).write(3, ym, List.of());
+        verify(expenseRepo, never()).findMonthlySpend(anyInt(), anyInt(), anyInt());
+    }
+
+    @Test
+    void testRebuildNightly_coversRecentMonthsOnly() {
+        service.rebuildNightly();
+
+        verify(expenseRepo, times(2)).findUserCategorySpendBetween(any(), any());
+        verify(expenseRepo, never()).findEarliestExpenseDate();
+    }
+
+    @Test
+    void testBackfill_rebuildsFromEarliestExpense() {
+        YearMonth now = YearMonth.now(ZoneId.of("Australia/Sydney"));
+        when(expenseRepo.findEarliestExpenseDate()).thenReturn(now.minusMonths(4).atDay(10));
+
+        service.backfill();
+
+        verify(expenseRepo, times(5)).findUserCategorySpendBetween(any(), any());
+        verify(expenseRepo).findUserCategorySpendBetween(now.minusMonths(4).atDay(1), now.minusMonths(3).atDay(1));
+    }
+
+    @Test
+    void testBackfill_noExpensesDoesNothing() {
+        service.backfill();
+
+        verify(expenseRepo, never()).findUserCategorySpendBetween(any(), any());
+    }
+}
@@ -0,0 +1,182 @@
+package com.example.backend.service;
+
+import com.example.backend.dto.SnapshotCategoryDTO;
+import com.example.backend.model.FeatureSnapshot;
+import com.example.backend.model.FeatureSnapshotCategory;
+import com.example.backend.model.User;
+import com.example.backend.repository.ExpenseRecordRepository;
+import com.example.backend.repository.FeatureSnapshotCategoryRepository;
+import com.example.backend.repository.FeatureSnapshotRepository;
+import com.example.backend.repository.UserRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.InOrder;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionStatus;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+public class SnapshotServiceTest {
+
+    @Mock private FeatureSnapshotRepository snapshotRepo;
+    @Mock private FeatureSnapshotCategoryRepository categoryRepo;
+    @Mock private UserRepository userRepo;
+    @Mock private ExpenseRecordRepository expenseRepo;
+    @Mock private PlatformTransactionManager txManager;
+
+    private SnapshotService service;
+
+    private final User user = new User();
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+        when(txManager.getTransaction(any())).thenReturn(mock(TransactionStatus.class));
+        service = new SnapshotService(snapshotRepo, categoryRepo, userRepo, expenseRepo, new TransactionTemplate(txManager));
+        user.setUser_id(1);
+        when(userRepo.getReferenceById(1)).thenReturn(user);
+    }
+
+    private static FeatureSnapshot snapshot(long id, String month, String total) {
+        FeatureSnapshot fs = new FeatureSnapshot();
+        fs.setSnapshotId(id);
+        fs.setMonth(month);
+        fs.setTotalSpending(new BigDecimal(total));
+        fs.setCurrency("AUD");
+        return fs;
+    }
+
+    private static FeatureSnapshotCategory row(FeatureSnapshot fs, int catId, String name, String amount, String pct) {
+        FeatureSnapshotCategory c = new FeatureSnapshotCategory();
+        c.setSnapshot(fs);
+        c.setCategoryId(catId);
+        c.setCategoryName(name);
+        c.setAmount(new BigDecimal(amount));
+        c.setPct(new BigDecimal(pct));
+        return c;
+    }
+
+    private static ExpenseRecordRepository.CategorySpend spend(int catId, String name, String amount) {
+        return new ExpenseRecordRepository.CategorySpend() {
+            @Override public Integer getCategoryId() { return catId; }
+            @Override public String getCategoryName() { return name; }
+            @Override public BigDecimal getAmount() { return new BigDecimal(amount); }
+        };
+    }
+
+    @Test
+    void testGetMonth_returnsTypedCategories() {
+        FeatureSnapshot oct = snapshot(7, "2024-10", "15.70");
+        when(snapshotRepo.findByUserAndMonth(user, "2024-10")).thenReturn(Optional.of(oct));
+        when(categoryRepo.findForUserBetween(1, "2024-10", "2024-10")).thenReturn(List.of(
+                row(oct, 9, "Food", "12.50", "0.7962"), row(oct, 10, "Transport", "3.20", "0.2038")));
+
+        var dto = service.getMonth(1, "2024-10");
+
+        assertEquals(7L, dto.getId());
+        assertEquals("2024-10", dto.getMonth());
+        assertEquals(2, dto.getTotalsByCategory().size());
+        assertEquals(new BigDecimal("12.50"), dto.getTotalsByCategory().get(0).amount());
+        assertEquals("Transport", dto.getTotalsByCategory().get(1).categoryName());
+    }
+
+    @Test
+    void testGetMonth_missing() {
+        when(snapshotRepo.findByUserAndMonth(user, "2024-11")).thenReturn(Optional.empty());
+
+        var ex = assertThrows(ResponseStatusException.class, () -> service.getMonth(1, "2024-11"));
+        assertEquals(404, ex.getStatusCode().value());
+    }
+
+    @Test
+    void testGetRange_groupsRowsByMonthAndUsesSqlTotals() {
+        FeatureSnapshot jan = snapshot(1, "2024-01", "100.00");
+        FeatureSnapshot mar = snapshot(3, "2024-03", "300.00");
+        when(snapshotRepo.findByUserAndMonthBetweenOrderByMonthAsc(user, "2024-01", "2024-03"))
+                .thenReturn(List.of(jan, mar));
+        when(categoryRepo.findForUserBetween(1, "2024-01", "2024-03")).thenReturn(List.of(
+                row(jan, 9, "Food", "100.00", "1.0000"),
+                row(mar, 9, "Food", "100.00", "0.3333"),
+                row(mar, 10, "Transport", "200.00", "0.6667")));
+        when(categoryRepo.sumForUserBetween(1, "2024-01", "2024-03"))
+                .thenReturn(List.of(spend(9, "Food", "200.00"), spend(10, "Transport", "200.00")));
+
+        var range = service.getRange(1, "2024-01", "2024-03");
+
+        assertEquals("AUD", range.currency());
+        assertEquals(new BigDecimal("400.00"), range.totalSpending());
+        assertEquals(List.of("2024-01", "2024-03"), range.months().stream().map(m -> m.getMonth()).toList());
+        assertEquals(1, range.months().get(0).getTotalsByCategory().size());
+        assertEquals(2, range.months().get(1).getTotalsByCategory().size());
+        assertEquals(new BigDecimal("0.5000"), range.totalsByCategory().get(0).pct());
+    }
+
+    @Test
+    void testGetRange_rejectsBadInput() {
+        assertEquals(400, assertThrows(ResponseStatusException.class,
+                () -> service.getRange(1, "2024-13", "2024-12")).getStatusCode().value());
+        assertEquals(400, assertThrows(ResponseStatusException.class,
+                () -> service.getRange(1, "2024-06", "2024-01")).getStatusCode().value());
+        assertEquals(400, assertThrows(ResponseStatusException.class,
+                () -> service.getRange(1, "2022-01", "2024-01")).getStatusCode().value());
+        assertDoesNotThrow(() -> service.getRange(1, "2022-01", "2023-12"));
+        verify(snapshotRepo, times(1)).findByUserAndMonthBetweenOrderByMonthAsc(any(), any(), any());
+    }
+
+    @Test
+    void testRefresh_rewritesCategoryRowsOnlyWhenHeaderChanged() {
+        YearMonth ym = YearMonth.of(2025, 10);
+        when(expenseRepo.findCategorySpendBetween(1, LocalDate.of(2025, 10, 1), LocalDate.of(2025, 11, 1)))
+                .thenReturn(List.of(spend(2, "Travel", "300"), spend(1, "Food", "100")));
+        when(snapshotRepo.upsert(any(), any(), any(), any(), any())).thenReturn(1);
+
+        service.refresh(1, ym);
+
+        InOrder locked = inOrder(snapshotRepo, expenseRepo);
+        locked.verify(snapshotRepo).lockMonth(1, 2025 * 12 + 9);
+        locked.verify(expenseRepo).findCategorySpendBetween(1, LocalDate.of(2025, 10, 1), LocalDate.of(2025, 11, 1));
+        verify(snapshotRepo).upsert(eq(1), eq("2025-10"), eq(new BigDecimal("400")), eq("AUD"), notNull());
+        InOrder order = inOrder(categoryRepo);
+        order.verify(categoryRepo).deleteForSnapshot(1, "2025-10");
+        order.verify(categoryRepo).insertForSnapshot(1, "2025-10", 1, "Food", new BigDecimal("100"), new BigDecimal("0.2500"));
+        order.verify(categoryRepo).insertForSnapshot(1, "2025-10", 2, "Travel", new BigDecimal("300"), new BigDecimal("0.7500"));
+        verify(txManager).commit(any());
+
+        // Fingerprint unchanged: the header upsert touches nothing and the rows are left alone
+        when(snapshotRepo.upsert(any(), any(), any(), any(), any())).thenReturn(0);
+        service.refresh(1, ym);
+        verify(categoryRepo, times(1)).deleteForSnapshot(any(), any());
+        verify(expenseRepo, never()).findMonthlySpend(any(), any(), any());
+    }
+
+    @Test
+    void testWrite_noSpendRemovesSnapshot() {
+        service.write(1, YearMonth.of(2025, 10), List.of());
+
+        verify(snapshotRepo).lockMonth(1, 2025 * 12 + 9);
+        verify(categoryRepo).deleteForSnapshot(1, "2025-10");
+        verify(snapshotRepo).deleteForMonth(1, "2025-10");
+        verify(snapshotRepo, never()).upsert(any(), any(), any(), any(), any());
+    }
+
+    @Test
+    void testFingerprint_ignoresScaleButNotAmounts() {
+        var a = List.of(new SnapshotCategoryDTO(1, "Food", new BigDecimal("10.00"), BigDecimal.ONE));
+        var b = List.of(new SnapshotCategoryDTO(1, "Food", new BigDecimal("10"), BigDecimal.ONE));
+        var c = List.of(new SnapshotCategoryDTO(1, "Food", new BigDecimal("10.01"), BigDecimal.ONE));
+        assertEquals(SnapshotService.fingerprint(a), SnapshotService.fingerprint(b));
+        assertNotEquals(SnapshotService.fingerprint(a), SnapshotService.fingerprint(c));
+    }
+}
@@ -6,12 +6,12 @@ import com.example.backend.model.Category;
 import com.example.backend.model.SpendingGoal;
 import com.example.backend.model.User;
 import com.example.backend.model.GoalPeriod;
-import com.example.backend.repository.CategoryRepository;
 import com.example.backend.repository.ExpenseRecordRepository;
 import com.example.backend.repository.SpendingGoalRepository;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.mockito.*;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.test.util.ReflectionTestUtils;
 
 import java.lang.reflect.InvocationTargetException;
@@ -35,13 +35,13 @@ public class SpendingGoalServiceTest {
     private SpendingGoalRepository goalRepo;
 
     @Mock
-    private CategoryRepository categoryRepo;
+    private CategoryCache categoryCache;
 
     @Mock
     private ExpenseRecordRepository expenseRepo;
 
     @Mock
-    private AchievementService achievementService;
+    private ApplicationEventPublisher events;
 
     @InjectMocks
     private SpendingGoalService service;
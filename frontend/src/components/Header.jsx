@@ -3,6 +3,9 @@ import { Link, useNavigate } from 'react-router-dom';
 import { FaUser, FaTachometerAlt, FaSignOutAlt } from 'react-icons/fa';
 import { useAuth } from '../context/AuthContext'; // 导入useAuth
 
+// 头像按内容哈希存成 64/128/256 三种尺寸，导航栏只需要最小的
+const smallAvatar = (url) => url.replace(/-256\.jpg$/, '-64.jpg');
+
 export default function Header() {
   const { user, loading, logout } = useAuth(); // 使用AuthContext提供的状态和方法
   const [dropdownOpen, setDropdownOpen] = useState(false);
@@ -57,7 +60,7 @@ export default function Header() {
     if (user?.profilePictureUrl) {
       return (
         <img 
-          src={user.profilePictureUrl} 
+          src={smallAvatar(user.profilePictureUrl)} 
           alt={user.username} 
           className="w-8 h-8 rounded-full object-cover"
         />
@@ -19,6 +19,7 @@ const achievementIcons = {
   'TEN_RECORDS': <FaListAlt className="text-purple-500" />,
   'BUDGET_MASTER': <FaChartLine className="text-red-500" />,
   'GOAL_COMPLETE': <FaCalendarCheck className="text-orange-500" />,
+  'WEEK_STREAK': <FaStar className="text-amber-500" />,
   // Add more mappings as needed
   // Default icon for any unmapped achievement codes
   'DEFAULT': <FaTrophy className="text-yellow-500" />
@@ -66,20 +67,15 @@ export default function Achievements() {
     return achievementIcons[code] || achievementIcons['DEFAULT'];
   };
 
-  // Sort achievements by earned status (earned first) and then by earnedAt date (newest first)
+  // The API returns earned achievements only; sort newest first
   const sortedAchievements = [...achievements].sort((a, b) => {
-    if (a.earned && !b.earned) return -1;
-    if (!a.earned && b.earned) return 1;
-    if (a.earned && b.earned) {
-      return new Date(b.earnedAt) - new Date(a.earnedAt); // newest first
-    }
-    return 0;
+    return new Date(b.earnedAt) - new Date(a.earnedAt);
   });
 
   // Progress based on a fixed total of 4 goals
   const TOTAL_GOALS = 4;
   const earnedCount = new Set(
-    achievements.filter(a => a.earned).map(a => a.achievement?.code)
+    achievements.filter(a => a.earnedAt).map(a => a.code)
   ).size;
   const progressPct = Math.min(100, Math.max(0, (earnedCount / TOTAL_GOALS) * 100));
 
@@ -132,33 +128,33 @@ export default function Achievements() {
         {sortedAchievements.length > 0 ? (
           sortedAchievements.map((achievement) => (
             <div 
-              key={achievement.id} 
+              key={achievement.code} 
               className={`flex flex-col rounded-2xl border p-5 ${
-                achievement.earned 
+                achievement.earnedAt 
                   ? "border-gray-200 dark:border-gray-800 bg-white dark:bg-gray-800" 
                   : "border-gray-200 dark:border-gray-800 bg-gray-50 dark:bg-gray-800/50"
               }`}
             >
               <div className="mb-4 flex items-center gap-4">
                 <div className={`flex h-12 w-12 items-center justify-center rounded-full ${
-                  achievement.earned 
+                  achievement.earnedAt 
                     ? "bg-indigo-100 dark:bg-indigo-900/40" 
                     : "bg-gray-100 dark:bg-gray-700"
                 }`}>
-                  {achievement.earned ? (
-                    getAchievementIcon(achievement.achievement.code)
+                  {achievement.earnedAt ? (
+                    getAchievementIcon(achievement.code)
                   ) : (
                     <FaLock className="text-gray-400" />
                   )}
                 </div>
                 <div>
                   <h3 className={`font-semibold ${
-                    achievement.earned ? "text-gray-900 dark:text-gray-100" : "text-gray-500 dark:text-gray-400"
+                    achievement.earnedAt ? "text-gray-900 dark:text-gray-100" : "text-gray-500 dark:text-gray-400"
                   }`}>
-                    {achievement.achievement.title}
+                    {achievement.title}
                   </h3>
                   <p className="text-xs text-gray-500 dark:text-gray-400">
-                    {achievement.earned ? (
+                    {achievement.earnedAt ? (
                       formatDate(achievement.earnedAt)
                     ) : (
                       'Locked'
@@ -168,12 +164,12 @@ export default function Achievements() {
               </div>
               
               <p className={`text-sm ${
-                achievement.earned ? "text-gray-600 dark:text-gray-300" : "text-gray-400 dark:text-gray-500"
+                achievement.earnedAt ? "text-gray-600 dark:text-gray-300" : "text-gray-400 dark:text-gray-500"
               }`}>
-                {achievement.achievement.description}
+                {achievement.description}
               </p>
               
-              {achievement.earned && (
+              {achievement.earnedAt && (
                 <div className="mt-4 flex items-center text-xs text-indigo-600 dark:text-indigo-400">
                   <FaStar className="mr-1" />
                   <span>Achievement unlocked!</span>
@@ -1,6 +1,6 @@
 import React, { useEffect, useMemo, useState } from "react";
 import { FaChevronDown, FaEdit, FaTrash, FaExclamationTriangle, FaPlus, FaTimes, FaSearch, FaFilter } from "react-icons/fa";
-import { expenseRecordService } from "../services/api";
+import { categoryService, expenseRecordService } from "../services/api";
 import { useAuth } from "../context/AuthContext";
 import { useNavigate } from "react-router-dom";
 
@@ -119,20 +119,26 @@ export default function Expense() {
       try {
         setLoading(true);
         console.log("Fetching transactions from backend...");
-        const response = await expenseRecordService.getAllRecords();
+        const [response, categories] = await Promise.all([
+          expenseRecordService.getAllRecords(),
+          categoryService.getAll().catch(() => []),
+        ]);
         console.log("Fetch response:", response);
         
-        // Build category ID map from actual backend data
+        // Build category ID map from the backend category catalog
         const backendCategoryMap = {};
+        categories.forEach((category) => {
+          backendCategoryMap[category.name] = category.id;
+        });
+        // Fall back to ids seen on existing records if the catalog could not be loaded
         response.forEach((record) => {
-          if (record.category) {
+          if (record.category && !(record.category.name in backendCategoryMap)) {
             backendCategoryMap[record.category.name] = record.category.id;
           }
         });
         
-        // If no records exist, the map will be empty - log this
         if (Object.keys(backendCategoryMap).length === 0) {
-          console.warn("No existing records found. Category IDs cannot be determined from backend data.");
+          console.warn("Category IDs cannot be determined from backend data.");
           console.warn("Will use fallback category IDs. This may cause errors if database IDs don't match.");
         }
         
@@ -2,9 +2,13 @@ import React, { useState, useEffect } from "react";
 import { FaLightbulb, FaChartPie, FaCalendarAlt, FaSpinner, FaExclamationCircle } from "react-icons/fa";
 import { aiSuggestionsService } from "../services/api";
 
+const POLL_INTERVAL_MS = 1000;
+
 export default function Suggestions() {
   const [suggestions, setSuggestions] = useState(null);
   const [loading, setLoading] = useState(false);
+  // true while quick rule-based advice is shown and the AI result is still pending
+  const [refining, setRefining] = useState(false);
   const [error, setError] = useState(null);
   const [selectedMonth, setSelectedMonth] = useState("");
 
@@ -44,18 +48,79 @@ export default function Suggestions() {
     }
   }, [selectedMonth]);
 
+  // Streams advice over SSE, showing rule-based and partial AI output as it arrives.
+  // Rejects with err.fallback = true if the stream broke before anything was received.
+  const streamSuggestions = (month) =>
+    new Promise((resolve, reject) => {
+      if (typeof EventSource === "undefined") {
+        reject(Object.assign(new Error("EventSource unsupported"), { fallback: true }));
+        return;
+      }
+      const source = new EventSource(aiSuggestionsService.streamUrl(month), { withCredentials: true });
+      let received = false;
+      const show = (update) => {
+        received = true;
+        setSuggestions((prev) => ({ ...prev, ...update }));
+        setRefining(true);
+        setLoading(false);
+      };
+      source.addEventListener("provisional", (e) => show(JSON.parse(e.data)));
+      source.addEventListener("partial", (e) => show(JSON.parse(e.data)));
+      source.addEventListener("done", (e) => {
+        source.close();
+        resolve(JSON.parse(e.data));
+      });
+      source.addEventListener("failed", (e) => {
+        source.close();
+        reject(new Error(JSON.parse(e.data).error));
+      });
+      source.onerror = () => {
+        source.close();
+        reject(Object.assign(new Error("Suggestion stream interrupted"), { fallback: !received }));
+      };
+    });
+
   const fetchSuggestions = async (month) => {
     setLoading(true);
     setError(null);
-    
+    setSuggestions(null);
+
+    try {
+      setSuggestions(await streamSuggestions(month));
+      setLoading(false);
+      setRefining(false);
+      return;
+    } catch (err) {
+      if (!err.fallback) {
+        console.error("Error streaming AI suggestions:", err);
+        setError(err.message || "Failed to load AI suggestions. Please try again.");
+        setLoading(false);
+        setRefining(false);
+        return;
+      }
+    }
+
     try {
-      const response = await aiSuggestionsService.generateSuggestions(month);
-      setSuggestions(response.data);
+      let { data: job } = await aiSuggestionsService.generateSuggestions(month);
+      while (job.status === "PENDING" || job.status === "RUNNING") {
+        if (job.provisional) {
+          setSuggestions(job.provisional);
+          setRefining(true);
+          setLoading(false);
+        }
+        await new Promise((resolve) => setTimeout(resolve, POLL_INTERVAL_MS));
+        ({ data: job } = await aiSuggestionsService.getJob(job.jobId));
+      }
+      if (job.status !== "DONE") {
+        throw new Error(job.error || "Failed to load AI suggestions.");
+      }
+      setSuggestions(job.result);
     } catch (err) {
       console.error("Error fetching AI suggestions:", err);
       setError(err.response?.data?.message || "Failed to load AI suggestions. Please try again.");
     } finally {
       setLoading(false);
+      setRefining(false);
     }
   };
 
@@ -143,6 +208,11 @@ export default function Suggestions() {
           <div className="bg-gradient-to-r from-blue-500 to-blue-600 dark:from-blue-600 dark:to-blue-700 text-white rounded-lg p-6 shadow-lg">
             <h2 className="text-2xl font-bold mb-3">Monthly Overview</h2>
             <p className="text-lg leading-relaxed">{suggestions.summary}</p>
+            {refining && (
+              <p className="mt-2 text-sm opacity-90 flex items-center gap-2">
+                <FaSpinner className="animate-spin" /> Quick insights shown, refining with AI...
+              </p>
+            )}
             {suggestions.totalSpending !== undefined && (
               <div className="mt-4 pt-4 border-t border-blue-400 dark:border-blue-500">
                 <p className="text-sm opacity-90">Total Spending</p>
@@ -131,6 +131,14 @@ export const expenseRecordService = {
   },
 };
 
+// category catalog api
+export const categoryService = {
+  getAll: async () => {
+    const response = await api.get("/api/categories");
+    return response.data;
+  },
+};
+
 // create goals api
 export const goalsService = {
   // include list, create, update, delete goals
@@ -164,6 +172,11 @@ export const aiSuggestionsService = {
     const params = month ? { month } : {};
     return api.post("/api/suggestions/generate", null, { params });
   },
+  // generation runs in the background; poll until status is DONE or FAILED
+  getJob: (jobId) => api.get(`/api/suggestions/jobs/${jobId}`),
+  // server-sent events: provisional / partial / done / failed
+  streamUrl: (month = null) =>
+    month ? `/api/suggestions/stream?month=${encodeURIComponent(month)}` : "/api/suggestions/stream",
 };
 
 // security questions api